@@ -0,0 +1,461 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * KDTree to access values at RealLocalizable positions that supports adding
+ * and removing values.
+ * <p>
+ * Values are kept in a sequence of static {@link FlatKDTree} blocks, where
+ * block {@code i} holds at most 2<sup>i</sup> entries (the logarithmic
+ * method). Adding a value merges it with the occupied blocks below the first
+ * empty block {@code j} and builds block {@code j} from them, which takes
+ * amortized O(log<sup>2</sup> n). Removed values are located in O(log
+ * <sup>2</sup> n), marked as deleted in their block and skipped by searches.
+ * Once more than half of the stored entries are deleted, all remaining
+ * entries are rebuilt into a single block.
+ * </p>
+ * <p>
+ * Use {@link net.imglib2.neighborsearch.NearestNeighborSearchOnDynamicKDTree},
+ * {@link net.imglib2.neighborsearch.KNearestNeighborSearchOnDynamicKDTree}
+ * and {@link net.imglib2.neighborsearch.RadiusNeighborSearchOnDynamicKDTree}
+ * to search the tree. The tree must not be modified while it is searched.
+ * </p>
+ *
+ * @param <T>
+ *            type of values stored in the tree.
+ */
+public class DynamicKDTree< T > implements EuclideanSpace
+{
+	final protected int n;
+
+	/**
+	 * {@code blocks.get( i )} is {@code null} or holds at most 2<sup>i</sup>
+	 * entries.
+	 */
+	final protected ArrayList< Block< T > > blocks = new ArrayList<>();
+
+	/**
+	 * number of entries that were not removed.
+	 */
+	protected int size;
+
+	/**
+	 * number of entries that are marked as deleted in the blocks.
+	 */
+	protected int numDeleted;
+
+	protected static final class Block< T >
+	{
+		final FlatKDTree< T > tree;
+
+		/**
+		 * {@code deleted[ node ]} is set if the value of {@code node} was
+		 * removed.
+		 */
+		final boolean[] deleted;
+
+		int numDeleted;
+
+		Block( final FlatKDTree< T > tree )
+		{
+			this.tree = tree;
+			this.deleted = new boolean[ tree.size() ];
+		}
+	}
+
+	/**
+	 * Construct an empty DynamicKDTree.
+	 *
+	 * @param n
+	 *            number of dimensions
+	 */
+	public DynamicKDTree( final int n )
+	{
+		this.n = n;
+	}
+
+	/**
+	 * Construct a DynamicKDTree from the elements in the given list.
+	 *
+	 * <p>
+	 * Note that the constructor can be called with the same list for both
+	 * {@code values == positions} if {@code T extends RealLocalizable}.
+	 * </p>
+	 *
+	 * @param n
+	 *            number of dimensions
+	 * @param values
+	 *            a list of values
+	 * @param positions
+	 *            a list of positions corresponding to the values
+	 */
+	public < L extends RealLocalizable > DynamicKDTree( final int n, final List< T > values, final List< L > positions )
+	{
+		this( n );
+		if ( values.size() != positions.size() )
+			throw new IllegalArgumentException( "Expected " + positions.size() + " values but got " + values.size() );
+		size = values.size();
+		if ( size > 0 )
+			setBlock( level( size ), new FlatKDTree<>( new ArrayList<>( values ), positions ) );
+	}
+
+	/**
+	 * @return the smallest level {@code i} with 2<sup>i</sup> &ge;
+	 *         {@code numEntries}.
+	 */
+	private static int level( final int numEntries )
+	{
+		return 32 - Integer.numberOfLeadingZeros( numEntries - 1 );
+	}
+
+	private void setBlock( final int level, final FlatKDTree< T > tree )
+	{
+		while ( blocks.size() <= level )
+			blocks.add( null );
+		blocks.set( level, tree == null ? null : new Block<>( tree ) );
+	}
+
+	/**
+	 * Add a value at the given position.
+	 */
+	public void add( final T value, final RealLocalizable position )
+	{
+		int j = 0;
+		int count = 1;
+		for ( ; j < blocks.size() && blocks.get( j ) != null; ++j )
+			count += blocks.get( j ).tree.size() - blocks.get( j ).numDeleted;
+
+		final ArrayList< T > values = new ArrayList<>( count );
+		final double[][] coordinates = new double[ n ][ count ];
+		values.add( value );
+		for ( int d = 0; d < n; ++d )
+			coordinates[ d ][ 0 ] = position.getDoublePosition( d );
+		for ( int i = 0; i < j; ++i )
+		{
+			collect( blocks.get( i ), values, coordinates );
+			numDeleted -= blocks.get( i ).numDeleted;
+			blocks.set( i, null );
+		}
+		setBlock( j, new FlatKDTree<>( values, coordinates ) );
+		++size;
+	}
+
+	/**
+	 * Append the entries of {@code block} that are not deleted to
+	 * {@code values} and {@code coordinates}.
+	 */
+	private void collect( final Block< T > block, final List< T > values, final double[][] coordinates )
+	{
+		final FlatKDTree< T > tree = block.tree;
+		for ( int node = 0; node < tree.size(); ++node )
+		{
+			if ( !block.deleted[ node ] )
+			{
+				final int i = values.size();
+				values.add( tree.getValue( node ) );
+				for ( int d = 0; d < n; ++d )
+					coordinates[ d ][ i ] = tree.getDoublePosition( node, d );
+			}
+		}
+	}
+
+	/**
+	 * Remove a value that was added at the given position. Values are
+	 * compared with {@link Object#equals(Object)}. If the value was added more
+	 * than once at the position, one of the entries is removed.
+	 *
+	 * @return {@code true} if the value was found and removed.
+	 */
+	public boolean remove( final T value, final RealLocalizable position )
+	{
+		final double[] pos = new double[ n ];
+		position.localize( pos );
+		for ( int i = 0; i < blocks.size(); ++i )
+		{
+			final Block< T > block = blocks.get( i );
+			if ( block == null )
+				continue;
+			final int node = find( block, 0, 0, pos, value );
+			if ( node >= 0 )
+			{
+				block.deleted[ node ] = true;
+				++block.numDeleted;
+				++numDeleted;
+				--size;
+				if ( block.numDeleted == block.tree.size() )
+				{
+					numDeleted -= block.numDeleted;
+					blocks.set( i, null );
+				}
+				else if ( numDeleted > size )
+					rebuild();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Find a node that is not deleted in the subtree of {@code node} with the
+	 * given position and value.
+	 *
+	 * @return the node, or -1 if there is none.
+	 */
+	private int find( final Block< T > block, final int node, final int d, final double[] pos, final T value )
+	{
+		final FlatKDTree< T > tree = block.tree;
+		if ( node >= tree.size() )
+			return -1;
+
+		if ( !block.deleted[ node ] && tree.squDistance( node, pos ) == 0 && Objects.equals( value, tree.getValue( node ) ) )
+			return node;
+
+		final double split = tree.getDoublePosition( node, d );
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		if ( pos[ d ] <= split )
+		{
+			final int left = find( block, FlatKDTree.leftChild( node ), dChild, pos, value );
+			if ( left >= 0 )
+				return left;
+		}
+		if ( pos[ d ] >= split )
+			return find( block, FlatKDTree.rightChild( node ), dChild, pos, value );
+		return -1;
+	}
+
+	/**
+	 * Rebuild all entries that are not deleted into a single block.
+	 */
+	protected void rebuild()
+	{
+		final ArrayList< T > values = new ArrayList<>( size );
+		final double[][] coordinates = new double[ n ][ size ];
+		for ( final Block< T > block : blocks )
+			if ( block != null )
+				collect( block, values, coordinates );
+		blocks.clear();
+		numDeleted = 0;
+		if ( size > 0 )
+			setBlock( level( size ), new FlatKDTree<>( values, coordinates ) );
+	}
+
+	/**
+	 * Remove all values.
+	 */
+	public void clear()
+	{
+		blocks.clear();
+		size = 0;
+		numDeleted = 0;
+	}
+
+	/**
+	 * @return the number of values in the tree.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return the number of blocks, including empty ones.
+	 */
+	public int numBlocks()
+	{
+		return blocks.size();
+	}
+
+	/**
+	 * @return the tree of block {@code i}, or {@code null} if the block is
+	 *         empty.
+	 */
+	public FlatKDTree< T > getBlock( final int i )
+	{
+		final Block< T > block = blocks.get( i );
+		return block == null ? null : block.tree;
+	}
+
+	/**
+	 * Get the deletion flags of block {@code i}, indexed by node of
+	 * {@link #getBlock(int)}. The array must not be modified.
+	 */
+	public boolean[] getDeleted( final int i )
+	{
+		final Block< T > block = blocks.get( i );
+		return block == null ? null : block.deleted;
+	}
+
+	/**
+	 * Get an index of {@code node} of block {@code block} that is unique
+	 * among all blocks. Block {@code i} holds at most 2<sup>i</sup> entries,
+	 * so its nodes are numbered from 2<sup>i</sup> - 1.
+	 */
+	public static int index( final int block, final int node )
+	{
+		return ( 1 << block ) - 1 + node;
+	}
+
+	/**
+	 * @return the block of an {@link #index(int, int) index}.
+	 */
+	public static int block( final int index )
+	{
+		return 31 - Integer.numberOfLeadingZeros( index + 1 );
+	}
+
+	/**
+	 * @return the node of an {@link #index(int, int) index} in its block.
+	 */
+	public static int node( final int index )
+	{
+		return index + 1 - Integer.highestOneBit( index + 1 );
+	}
+
+	@Override
+	public int numDimensions()
+	{
+		return n;
+	}
+
+	public Ref createRef()
+	{
+		return new Ref();
+	}
+
+	/**
+	 * Provides position and value of a node of a block of the tree. A Ref
+	 * stays valid when the tree is modified, but then no longer refers to an
+	 * entry of the tree.
+	 */
+	public final class Ref implements RealLocalizable, Sampler< T >
+	{
+		private FlatKDTree< T > tree;
+
+		private int node = -1;
+
+		private Ref()
+		{}
+
+		public void setNode( final int block, final int node )
+		{
+			this.tree = getBlock( block );
+			this.node = node;
+		}
+
+		/**
+		 * Set the node by its {@link DynamicKDTree#index(int, int) index}, or
+		 * clear it if {@code index} is negative.
+		 */
+		public void setIndex( final int index )
+		{
+			if ( index < 0 )
+			{
+				this.tree = null;
+				this.node = -1;
+			}
+			else
+				setNode( block( index ), node( index ) );
+		}
+
+		public void set( final Ref ref )
+		{
+			this.tree = ref.tree;
+			this.node = ref.node;
+		}
+
+		public int getNode()
+		{
+			return node;
+		}
+
+		@Override
+		public int numDimensions()
+		{
+			return n;
+		}
+
+		@Override
+		public void localize( final float[] position )
+		{
+			for ( int d = 0; d < n; ++d )
+				position[ d ] = ( float ) getDoublePosition( d );
+		}
+
+		@Override
+		public void localize( final double[] position )
+		{
+			tree.localize( node, position );
+		}
+
+		@Override
+		public float getFloatPosition( final int d )
+		{
+			return ( float ) getDoublePosition( d );
+		}
+
+		@Override
+		public double getDoublePosition( final int d )
+		{
+			return tree.getDoublePosition( node, d );
+		}
+
+		@Override
+		public T get()
+		{
+			return tree.getValue( node );
+		}
+
+		@Override
+		public Ref copy()
+		{
+			final Ref copy = new Ref();
+			copy.tree = tree;
+			copy.node = node;
+			return copy;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "node " + node + " | " + get();
+		}
+	}
+}
@@ -0,0 +1,597 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * KDTree to access values at RealLocalizable positions, stored without node
+ * objects. The tree is a left-balanced (complete) binary tree in implicit
+ * heap layout: the children of node {@code i} are {@code 2i+1} and
+ * {@code 2i+2}, and nodes at depth {@code h} split along dimension
+ * {@code h % n}. Node coordinates are stored consecutively in a single
+ * {@code double[]}, values are referenced by their index into the list of
+ * values the tree was constructed from.
+ * <p>
+ * Use {@link net.imglib2.neighborsearch.NearestNeighborSearchOnKDTree},
+ * {@link net.imglib2.neighborsearch.KNearestNeighborSearchOnKDTree} and
+ * {@link net.imglib2.neighborsearch.RadiusNeighborSearchOnKDTree} to search
+ * the tree.
+ * </p>
+ *
+ * @param <T>
+ *            type of values stored in the tree.
+ */
+public class FlatKDTree< T > implements EuclideanSpace, RealInterval
+{
+	/**
+	 * the number of dimensions.
+	 */
+	final protected int n;
+
+	/**
+	 * the number of nodes in the tree.
+	 */
+	final protected int size;
+
+	/**
+	 * coordinates of node {@code i} are at {@code positions[ i * n + d ]}.
+	 */
+	final protected double[] positions;
+
+	/**
+	 * the value of node {@code i} is {@code values.get( valueIndices[ i ] )}.
+	 */
+	final protected int[] valueIndices;
+
+	final protected List< T > values;
+
+	/**
+	 * minimum of each dimension.
+	 */
+	final protected double[] min;
+
+	/**
+	 * maximum of each dimension.
+	 */
+	final protected double[] max;
+
+	/**
+	 * Construct a FlatKDTree from the elements in the given list.
+	 *
+	 * <p>
+	 * Note that the constructor can be called with the same list for both
+	 * {@code values == positions} if {@code T extends RealLocalizable}.
+	 * </p>
+	 *
+	 * @param values
+	 *            a list of values
+	 * @param positions
+	 *            a list of positions corresponding to the values
+	 */
+	public < L extends RealLocalizable > FlatKDTree( final List< T > values, final List< L > positions )
+	{
+		this( values, positions, null );
+	}
+
+	/**
+	 * Construct a FlatKDTree from the elements in the given list on a
+	 * {@link ForkJoinPool}.
+	 *
+	 * @param values
+	 *            a list of values
+	 * @param positions
+	 *            a list of positions corresponding to the values
+	 * @param pool
+	 *            pool to construct the tree on, {@code null} to construct it
+	 *            in the calling thread
+	 */
+	public < L extends RealLocalizable > FlatKDTree( final List< T > values, final List< L > positions, final ForkJoinPool pool )
+	{
+		this( values, coordinates( positions, pool ), pool );
+	}
+
+	/**
+	 * Construct a FlatKDTree from values and their coordinates.
+	 *
+	 * @param values
+	 *            a list of values
+	 * @param positions
+	 *            coordinates of the values, {@code positions[ d ][ i ]} is
+	 *            coordinate {@code d} of value {@code i}. The arrays are not
+	 *            modified.
+	 */
+	public FlatKDTree( final List< T > values, final double[][] positions )
+	{
+		this( values, positions, null );
+	}
+
+	/**
+	 * Construct a FlatKDTree from values and their coordinates. The bounding
+	 * box is computed and subtrees with at least
+	 * {@link KDTree#PARALLEL_THRESHOLD} elements are constructed in parallel
+	 * on {@code pool}.
+	 *
+	 * @param values
+	 *            a list of values
+	 * @param positions
+	 *            coordinates of the values, {@code positions[ d ][ i ]} is
+	 *            coordinate {@code d} of value {@code i}. The arrays are not
+	 *            modified.
+	 * @param pool
+	 *            pool to construct the tree on, {@code null} to construct it
+	 *            in the calling thread
+	 */
+	public FlatKDTree( final List< T > values, final double[][] positions, final ForkJoinPool pool )
+	{
+		this.n = positions.length;
+		final long numPoints = positions[ 0 ].length;
+		if ( numPoints * n > Integer.MAX_VALUE - 8 || numPoints > Integer.MAX_VALUE / 2 )
+			throw new IllegalArgumentException( "Too many points for a FlatKDTree: " + numPoints );
+		if ( values.size() != numPoints )
+			throw new IllegalArgumentException( "Expected " + numPoints + " values but got " + values.size() );
+
+		this.size = ( int ) numPoints;
+		this.values = values;
+		this.positions = new double[ size * n ];
+		this.valueIndices = new int[ size ];
+
+		this.min = new double[ n ];
+		this.max = new double[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			final double[] x = positions[ d ];
+			final double[] bounds = pool == null ? bounds( x, 0, size ) : pool.invoke( ForkJoinTask.adapt( () -> boundsParallel( x, 0, size ) ) );
+			min[ d ] = bounds[ 0 ];
+			max[ d ] = bounds[ 1 ];
+		}
+
+		final int[] permutation = new int[ size ];
+		for ( int k = 0; k < size; ++k )
+			permutation[ k ] = k;
+		if ( size > 0 )
+		{
+			if ( pool == null )
+				makeNode( 0, 0, size, 0, positions, permutation );
+			else
+				pool.invoke( ForkJoinTask.adapt( () -> makeNodeParallel( 0, 0, size, 0, positions, permutation ) ) );
+		}
+	}
+
+	/**
+	 * Collect the coordinates of {@code positions}.
+	 *
+	 * @return {@code coordinates[ d ][ i ]} is coordinate {@code d} of element
+	 *         {@code i}.
+	 */
+	protected static < L extends RealLocalizable > double[][] coordinates( final List< L > positions, final ForkJoinPool pool )
+	{
+		final int n = positions.get( 0 ).numDimensions();
+		final double[][] coordinates = new double[ n ][ positions.size() ];
+		if ( pool != null && positions instanceof java.util.RandomAccess )
+		{
+			pool.invoke( ForkJoinTask.adapt( () -> coordinates( positions, 0, positions.size(), coordinates ) ) );
+			return coordinates;
+		}
+		int i = 0;
+		for ( final L position : positions )
+		{
+			assert position.numDimensions() == n;
+			for ( int d = 0; d < n; ++d )
+				coordinates[ d ][ i ] = position.getDoublePosition( d );
+			++i;
+		}
+		return coordinates;
+	}
+
+	/**
+	 * Collect the coordinates of positions i (inclusive) to j (exclusive) by
+	 * fork/join. Must be called from within a {@link ForkJoinPool}.
+	 */
+	private static < L extends RealLocalizable > void coordinates( final List< L > positions, final int i, final int j, final double[][] coordinates )
+	{
+		if ( j - i < KDTree.PARALLEL_THRESHOLD )
+		{
+			for ( int k = i; k < j; ++k )
+			{
+				final L position = positions.get( k );
+				assert position.numDimensions() == coordinates.length;
+				for ( int d = 0; d < coordinates.length; ++d )
+					coordinates[ d ][ k ] = position.getDoublePosition( d );
+			}
+			return;
+		}
+		final int k = i + ( j - i ) / 2;
+		final ForkJoinTask< ? > left = ForkJoinTask.adapt( () -> coordinates( positions, i, k, coordinates ) ).fork();
+		coordinates( positions, k, j, coordinates );
+		left.join();
+	}
+
+	/**
+	 * @return minimum and maximum of {@code x[ i ]} ... {@code x[ j - 1 ]}.
+	 */
+	private static double[] bounds( final double[] x, final int i, final int j )
+	{
+		double min = Double.MAX_VALUE;
+		double max = -Double.MAX_VALUE;
+		for ( int k = i; k < j; ++k )
+		{
+			if ( x[ k ] < min )
+				min = x[ k ];
+			if ( x[ k ] > max )
+				max = x[ k ];
+		}
+		return new double[] { min, max };
+	}
+
+	/**
+	 * Fork/join reduction of {@link #bounds(double[], int, int)}. Must be
+	 * called from within a {@link ForkJoinPool}.
+	 */
+	private static double[] boundsParallel( final double[] x, final int i, final int j )
+	{
+		if ( j - i < KDTree.PARALLEL_THRESHOLD )
+			return bounds( x, i, j );
+		final int k = i + ( j - i ) / 2;
+		final ForkJoinTask< double[] > left = ForkJoinTask.adapt( () -> boundsParallel( x, i, k ) ).fork();
+		final double[] bounds = boundsParallel( x, k, j );
+		final double[] leftBounds = left.join();
+		bounds[ 0 ] = Math.min( bounds[ 0 ], leftBounds[ 0 ] );
+		bounds[ 1 ] = Math.max( bounds[ 1 ], leftBounds[ 1 ] );
+		return bounds;
+	}
+
+	/**
+	 * Number of nodes in the left subtree of a left-balanced tree with
+	 * {@code m} nodes.
+	 */
+	protected static int leftSubtreeSize( final int m )
+	{
+		if ( m <= 1 )
+			return 0;
+		// number of levels below the root
+		final int h = 31 - Integer.numberOfLeadingZeros( m );
+		final int lastLevel = m - ( ( 1 << h ) - 1 );
+		final int halfLastLevel = 1 << ( h - 1 );
+		return halfLastLevel - 1 + Math.min( lastLevel, halfLastLevel );
+	}
+
+	/**
+	 * Construct the subtree rooted at {@code node} from the elements
+	 * {@code permutation[ i ]} ... {@code permutation[ j - 1 ]}. The sublist is
+	 * split along dimension {@code d} such that the left subtree gets the
+	 * number of elements required for a left-balanced tree.
+	 */
+	protected void makeNode( final int node, final int i, final int j, final int d, final double[][] coordinates, final int[] permutation )
+	{
+		final int k = i + leftSubtreeSize( j - i );
+		if ( j - i > 1 )
+			select( permutation, i, j - 1, k, coordinates[ d ] );
+		setNode( node, permutation[ k ], coordinates );
+
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		if ( k > i )
+			makeNode( leftChild( node ), i, k, dChild, coordinates, permutation );
+		if ( j > k + 1 )
+			makeNode( rightChild( node ), k + 1, j, dChild, coordinates, permutation );
+	}
+
+	/**
+	 * Parallel version of
+	 * {@link #makeNode(int, int, int, int, double[][], int[])}. The left
+	 * subtree is forked if the sublist has at least
+	 * {@link KDTree#PARALLEL_THRESHOLD} elements. Must be called from within a
+	 * {@link ForkJoinPool}.
+	 */
+	protected void makeNodeParallel( final int node, final int i, final int j, final int d, final double[][] coordinates, final int[] permutation )
+	{
+		if ( j - i < KDTree.PARALLEL_THRESHOLD )
+		{
+			makeNode( node, i, j, d, coordinates, permutation );
+			return;
+		}
+
+		final int k = i + leftSubtreeSize( j - i );
+		select( permutation, i, j - 1, k, coordinates[ d ] );
+		setNode( node, permutation[ k ], coordinates );
+
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		final ForkJoinTask< ? > left = ForkJoinTask.adapt( () -> makeNodeParallel( leftChild( node ), i, k, dChild, coordinates, permutation ) ).fork();
+		makeNodeParallel( rightChild( node ), k + 1, j, dChild, coordinates, permutation );
+		left.join();
+	}
+
+	protected void setNode( final int node, final int valueIndex, final double[][] coordinates )
+	{
+		valueIndices[ node ] = valueIndex;
+		final int o = node * n;
+		for ( int d = 0; d < n; ++d )
+			positions[ o + d ] = coordinates[ d ][ valueIndex ];
+	}
+
+	/**
+	 * Partially sort {@code permutation[ i ]} ... {@code permutation[ j ]}
+	 * such that the element at {@code k} has key {@code key[ permutation[ k ] ]}
+	 * in sorted position, elements before have smaller or equal and elements
+	 * after have greater or equal keys.
+	 */
+	protected static void select( final int[] permutation, int i, int j, final int k, final double[] key )
+	{
+		while ( j > i )
+		{
+			// median of three pivot
+			final int m = i + ( j - i ) / 2;
+			if ( key[ permutation[ m ] ] < key[ permutation[ i ] ] )
+				swap( permutation, i, m );
+			if ( key[ permutation[ j ] ] < key[ permutation[ i ] ] )
+				swap( permutation, i, j );
+			if ( key[ permutation[ j ] ] < key[ permutation[ m ] ] )
+				swap( permutation, m, j );
+			final double pivot = key[ permutation[ m ] ];
+
+			int l = i;
+			int r = j;
+			while ( l <= r )
+			{
+				while ( key[ permutation[ l ] ] < pivot )
+					++l;
+				while ( key[ permutation[ r ] ] > pivot )
+					--r;
+				if ( l <= r )
+					swap( permutation, l++, r-- );
+			}
+			if ( k <= r )
+				j = r;
+			else if ( k >= l )
+				i = l;
+			else
+				return;
+		}
+	}
+
+	private static void swap( final int[] permutation, final int a, final int b )
+	{
+		final int tmp = permutation[ a ];
+		permutation[ a ] = permutation[ b ];
+		permutation[ b ] = tmp;
+	}
+
+	public static int leftChild( final int node )
+	{
+		return 2 * node + 1;
+	}
+
+	public static int rightChild( final int node )
+	{
+		return 2 * node + 2;
+	}
+
+	public static int parent( final int node )
+	{
+		return ( node - 1 ) / 2;
+	}
+
+	/**
+	 * @return the number of nodes in the tree.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Get the dimension along which {@code node} divides the space.
+	 */
+	public int splitDimension( final int node )
+	{
+		return ( 31 - Integer.numberOfLeadingZeros( node + 1 ) ) % n;
+	}
+
+	public double getDoublePosition( final int node, final int d )
+	{
+		return positions[ node * n + d ];
+	}
+
+	public void localize( final int node, final double[] position )
+	{
+		System.arraycopy( positions, node * n, position, 0, n );
+	}
+
+	/**
+	 * Compute the squared distance from p to {@code node}.
+	 */
+	public double squDistance( final int node, final double[] p )
+	{
+		final int o = node * n;
+		double sum = 0;
+		for ( int d = 0; d < n; ++d )
+		{
+			final double diff = positions[ o + d ] - p[ d ];
+			sum += diff * diff;
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the index into the list of values of the value at
+	 *         {@code node}.
+	 */
+	public int valueIndex( final int node )
+	{
+		return valueIndices[ node ];
+	}
+
+	public T getValue( final int node )
+	{
+		return values.get( valueIndices[ node ] );
+	}
+
+	/**
+	 * Direct access to the coordinates of all nodes, node {@code i} at
+	 * {@code i * numDimensions()}. Must not be modified.
+	 */
+	public double[] getPositions()
+	{
+		return positions;
+	}
+
+	/**
+	 * Create a reference to a node, that can be repositioned with
+	 * {@link NodeRef#setNode(int)}.
+	 */
+	public NodeRef createRef()
+	{
+		return new NodeRef();
+	}
+
+	/**
+	 * Provides position and value of a node of the tree.
+	 */
+	public final class NodeRef implements RealLocalizable, Sampler< T >
+	{
+		private int node = -1;
+
+		private NodeRef()
+		{}
+
+		public void setNode( final int node )
+		{
+			this.node = node;
+		}
+
+		public int getNode()
+		{
+			return node;
+		}
+
+		@Override
+		public int numDimensions()
+		{
+			return n;
+		}
+
+		@Override
+		public void localize( final float[] position )
+		{
+			for ( int d = 0; d < n; ++d )
+				position[ d ] = ( float ) getDoublePosition( d );
+		}
+
+		@Override
+		public void localize( final double[] position )
+		{
+			FlatKDTree.this.localize( node, position );
+		}
+
+		@Override
+		public float getFloatPosition( final int d )
+		{
+			return ( float ) getDoublePosition( d );
+		}
+
+		@Override
+		public double getDoublePosition( final int d )
+		{
+			return FlatKDTree.this.getDoublePosition( node, d );
+		}
+
+		@Override
+		public T get()
+		{
+			return getValue( node );
+		}
+
+		@Override
+		public NodeRef copy()
+		{
+			final NodeRef copy = new NodeRef();
+			copy.node = node;
+			return copy;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "node " + node + " | " + get();
+		}
+	}
+
+	@Override
+	public int numDimensions()
+	{
+		return n;
+	}
+
+	@Override
+	public double realMin( final int d )
+	{
+		return min[ d ];
+	}
+
+	@Override
+	public void realMin( final double[] m )
+	{
+		for ( int d = 0; d < n; ++d )
+			m[ d ] = min[ d ];
+	}
+
+	@Override
+	public void realMin( final RealPositionable m )
+	{
+		m.setPosition( min );
+	}
+
+	@Override
+	public double realMax( final int d )
+	{
+		return max[ d ];
+	}
+
+	@Override
+	public void realMax( final double[] m )
+	{
+		for ( int d = 0; d < n; ++d )
+			m[ d ] = max[ d ];
+	}
+
+	@Override
+	public void realMax( final RealPositionable m )
+	{
+		m.setPosition( max );
+	}
+}
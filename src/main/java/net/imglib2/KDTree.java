@@ -37,8 +37,11 @@ package net.imglib2;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import net.imglib2.util.KthElement;
 
@@ -174,6 +177,12 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 		}
 	}
 
+	/**
+	 * Subranges with fewer elements than this are constructed sequentially
+	 * when building the tree on a {@link ForkJoinPool}.
+	 */
+	public static final int PARALLEL_THRESHOLD = 1 << 14;
+
 	/**
 	 * Construct a KDTree from the elements in the given list.
 	 *
@@ -188,6 +197,30 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 	 *            a list of positions corresponding to the values
 	 */
 	public < L extends RealLocalizable > KDTree( final List< T > values, final List< L > positions )
+	{
+		this( values, positions, null );
+	}
+
+	/**
+	 * Construct a KDTree from the elements in the given list. If
+	 * {@code positions} supports random access, the bounding box is computed
+	 * and the left and right subtrees are constructed in parallel on
+	 * {@code pool}.
+	 *
+	 * <p>
+	 * Note that the constructor can be called with the same list for both
+	 * {@code values == positions} if {@code T extends RealLocalizable}.
+	 * </p>
+	 *
+	 * @param values
+	 *            a list of values
+	 * @param positions
+	 *            a list of positions corresponding to the values
+	 * @param pool
+	 *            pool to construct the tree on, {@code null} to construct it
+	 *            in the calling thread
+	 */
+	public < L extends RealLocalizable > KDTree( final List< T > values, final List< L > positions, final ForkJoinPool pool )
 	{
 		assert values.size() == positions.size();
 
@@ -199,27 +232,16 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 
 		this.min = new double[ n ];
 		this.max = new double[ n ];
-		for ( int d = 0; d < n; ++d )
-		{
-			min[ d ] = Double.MAX_VALUE;
-			max[ d ] = -Double.MAX_VALUE;
-		}
-		for ( final L position : positions )
-		{
-			for ( int d = 0; d < n; ++d )
-			{
-				final double x = position.getDoublePosition( d );
-
-				if ( x < min[ d ] )
-					min[ d ] = x;
-				if ( x > max[ d ] )
-					max[ d ] = x;
-			}
-		}
+		final boolean parallel = pool != null && positions instanceof java.util.RandomAccess;
+		final double[] bounds = parallel ? pool.invoke( ForkJoinTask.adapt( () -> bounds( positions, 0, positions.size(), n ) ) ) : bounds( positions.iterator(), n );
+		System.arraycopy( bounds, 0, min, 0, n );
+		System.arraycopy( bounds, n, max, 0, n );
 
 		if ( values == positions )
 		{
-			if ( positions instanceof java.util.RandomAccess )
+			if ( parallel )
+				root = pool.invoke( ForkJoinTask.adapt( () -> makeNodeParallel( positions, 0, positions.size() - 1, 0 ) ) );
+			else if ( positions instanceof java.util.RandomAccess )
 				root = makeNode( positions, 0, positions.size() - 1, 0 );
 			else
 				root = makeNode( positions.listIterator(), positions.listIterator( positions.size() ), 0 );
@@ -230,7 +252,9 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 			for ( int k = 0; k < permutation.length; ++k )
 				permutation[ k ] = k;
 
-			if ( positions instanceof java.util.RandomAccess )
+			if ( parallel )
+				root = pool.invoke( ForkJoinTask.adapt( () -> makeNodeParallel( positions, 0, positions.size() - 1, 0, values, permutation ) ) );
+			else if ( positions instanceof java.util.RandomAccess )
 				root = makeNode( positions, 0, positions.size() - 1, 0, values, permutation );
 			else
 				root = makeNode( positions.listIterator(), positions.listIterator( positions.size() ), 0, values, permutation );
@@ -245,6 +269,22 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 	 *            elements in the tree are obtained by iterating this
 	 */
 	public KDTree( final IterableRealInterval< T > interval )
+	{
+		this( interval, null );
+	}
+
+	/**
+	 * Construct a KDTree from the elements of the given
+	 * {@link IterableRealInterval}. The left and right subtrees are
+	 * constructed in parallel on {@code pool}.
+	 *
+	 * @param interval
+	 *            elements in the tree are obtained by iterating this
+	 * @param pool
+	 *            pool to construct the tree on, {@code null} to construct it
+	 *            in the calling thread
+	 */
+	public KDTree( final IterableRealInterval< T > interval, final ForkJoinPool pool )
 	{
 		this.n = interval.numDimensions();
 		this.size = interval.size();
@@ -259,7 +299,61 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 			cursor.next();
 			values.add( cursor.copyCursor() );
 		}
-		root = makeSamplerNode( values, 0, values.size() - 1, 0 );
+		if ( pool != null )
+			root = pool.invoke( ForkJoinTask.adapt( () -> makeSamplerNodeParallel( values, 0, values.size() - 1, 0 ) ) );
+		else
+			root = makeSamplerNode( values, 0, values.size() - 1, 0 );
+	}
+
+	/**
+	 * Compute the bounding box of positions.
+	 *
+	 * @return min and max of each dimension, concatenated
+	 */
+	private static < L extends RealLocalizable > double[] bounds( final Iterator< L > positions, final int n )
+	{
+		final double[] bounds = new double[ 2 * n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			bounds[ d ] = Double.MAX_VALUE;
+			bounds[ n + d ] = -Double.MAX_VALUE;
+		}
+		while ( positions.hasNext() )
+		{
+			final L position = positions.next();
+			for ( int d = 0; d < n; ++d )
+			{
+				final double x = position.getDoublePosition( d );
+
+				if ( x < bounds[ d ] )
+					bounds[ d ] = x;
+				if ( x > bounds[ n + d ] )
+					bounds[ n + d ] = x;
+			}
+		}
+		return bounds;
+	}
+
+	/**
+	 * Compute the bounding box of the sublist of positions between indices i
+	 * (inclusive) and j (exclusive) as a fork/join reduction. Must be called
+	 * from within a {@link ForkJoinPool}.
+	 */
+	private static < L extends RealLocalizable > double[] bounds( final List< L > positions, final int i, final int j, final int n )
+	{
+		if ( j - i < PARALLEL_THRESHOLD )
+			return bounds( positions.subList( i, j ).iterator(), n );
+
+		final int k = i + ( j - i ) / 2;
+		final ForkJoinTask< double[] > left = ForkJoinTask.adapt( () -> bounds( positions, i, k, n ) ).fork();
+		final double[] bounds = bounds( positions, k, j, n );
+		final double[] leftBounds = left.join();
+		for ( int d = 0; d < n; ++d )
+		{
+			bounds[ d ] = Math.min( bounds[ d ], leftBounds[ d ] );
+			bounds[ n + d ] = Math.max( bounds[ n + d ], leftBounds[ n + d ] );
+		}
+		return bounds;
 	}
 
 	/**
@@ -482,6 +576,47 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 		}
 	}
 
+	/**
+	 * Parallel version of {@link #makeNode(List, int, int, int, List, int[])}.
+	 * The left subtree is forked if the sublist has at least
+	 * {@link #PARALLEL_THRESHOLD} elements. Must be called from within a
+	 * {@link ForkJoinPool}.
+	 */
+	protected < L extends RealLocalizable > ValueNode< T > makeNodeParallel( final List< L > positions, final int i, final int j, final int d, final List< T > values, final int[] permutation )
+	{
+		if ( j - i < PARALLEL_THRESHOLD )
+			return makeNode( positions, i, j, d, values, permutation );
+
+		final int k = i + ( j - i ) / 2;
+		KthElement.kthElement( i, j, k, positions, permutation, new DimComparator< L >( d ) );
+
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		final ForkJoinTask< ValueNode< T > > left = ForkJoinTask.adapt( () -> makeNodeParallel( positions, i, k - 1, dChild, values, permutation ) ).fork();
+		final ValueNode< T > right = makeNodeParallel( positions, k + 1, j, dChild, values, permutation );
+		return new ValueNode< T >( values.get( permutation[ k ] ), positions.get( k ), d, left.join(), right );
+	}
+
+	/**
+	 * Parallel version of {@link #makeNode(List, int, int, int)}. The left
+	 * subtree is forked if the sublist has at least
+	 * {@link #PARALLEL_THRESHOLD} elements. Must be called from within a
+	 * {@link ForkJoinPool}.
+	 */
+	@SuppressWarnings( "unchecked" )
+	protected < L extends RealLocalizable > ValueNode< T > makeNodeParallel( final List< L > elements, final int i, final int j, final int d )
+	{
+		if ( j - i < PARALLEL_THRESHOLD )
+			return makeNode( elements, i, j, d );
+
+		final int k = i + ( j - i ) / 2;
+		KthElement.kthElement( i, j, k, elements, new DimComparator< L >( d ) );
+
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		final ForkJoinTask< ValueNode< T > > left = ForkJoinTask.adapt( () -> makeNodeParallel( elements, i, k - 1, dChild ) ).fork();
+		final ValueNode< T > right = makeNodeParallel( elements, k + 1, j, dChild );
+		return new ValueNode< T >( ( T ) elements.get( k ), elements.get( k ), d, left.join(), right );
+	}
+
 	/**
 	 * Construct the tree by recursively adding nodes. The sublist of elements
 	 * between indices i and j (inclusive) is split at the median element with
@@ -522,6 +657,26 @@ public class KDTree< T > implements EuclideanSpace, IterableRealInterval< T >
 		}
 	}
 
+	/**
+	 * Parallel version of {@link #makeSamplerNode(List, int, int, int)}. The
+	 * left subtree is forked if the sublist has at least
+	 * {@link #PARALLEL_THRESHOLD} elements. Must be called from within a
+	 * {@link ForkJoinPool}.
+	 */
+	protected SamplerNode< T > makeSamplerNodeParallel( final List< RealCursor< T > > elements, final int i, final int j, final int d )
+	{
+		if ( j - i < PARALLEL_THRESHOLD )
+			return makeSamplerNode( elements, i, j, d );
+
+		final int k = i + ( j - i ) / 2;
+		KthElement.kthElement( i, j, k, elements, new DimComparator< RealCursor< T > >( d ) );
+
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		final ForkJoinTask< SamplerNode< T > > left = ForkJoinTask.adapt( () -> makeSamplerNodeParallel( elements, i, k - 1, dChild ) ).fork();
+		final SamplerNode< T > right = makeSamplerNodeParallel( elements, k + 1, j, dChild );
+		return new SamplerNode< T >( elements.get( k ), elements.get( k ), d, left.join(), right );
+	}
+
 	/**
 	 * Get the root node.
 	 *
@@ -0,0 +1,119 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+/**
+ * Out-of-bounds strategies that {@link PrimitiveBlocks} can handle by
+ * remapping coordinates, instead of going through an
+ * {@link net.imglib2.outofbounds.OutOfBounds} accessor.
+ */
+enum Extension
+{
+	/**
+	 * No extension. Coordinates are passed through unchanged.
+	 */
+	NONE,
+
+	/**
+	 * Out-of-bounds coordinates map to a constant value.
+	 */
+	CONSTANT,
+
+	/**
+	 * Out-of-bounds coordinates are clamped to the border.
+	 */
+	BORDER,
+
+	/**
+	 * Mirror without repeating the border pixel.
+	 */
+	MIRROR_SINGLE,
+
+	/**
+	 * Mirror, repeating the border pixel.
+	 */
+	MIRROR_DOUBLE,
+
+	/**
+	 * Periodic repetition.
+	 */
+	PERIODIC;
+
+	/**
+	 * Whether coordinate {@code x} of a zero-min interval with the given
+	 * {@code size} maps to the constant out-of-bounds value.
+	 */
+	boolean isOutside( final long x, final long size )
+	{
+		return this == CONSTANT && ( x < 0 || x >= size );
+	}
+
+	/**
+	 * Map coordinate {@code x} of a zero-min interval with the given
+	 * {@code size} to the coordinate that provides the value.
+	 *
+	 * @return the remapped coordinate in {@code [0, size)}, or {@code x}
+	 *         unchanged for {@link #NONE} and {@link #CONSTANT}.
+	 */
+	long map( final long x, final long size )
+	{
+		switch ( this )
+		{
+		case NONE:
+		case CONSTANT:
+			return x;
+		case BORDER:
+			return x < 0 ? 0 : ( x >= size ? size - 1 : x );
+		case MIRROR_SINGLE:
+		{
+			if ( size == 1 )
+				return 0;
+			final long p = 2 * size - 2;
+			final long y = Math.floorMod( x, p );
+			return y < size ? y : p - y;
+		}
+		case MIRROR_DOUBLE:
+		{
+			final long p = 2 * size;
+			final long y = Math.floorMod( x, p );
+			return y < size ? y : p - 1 - y;
+		}
+		case PERIODIC:
+			return Math.floorMod( x, size );
+		default:
+			throw new IllegalStateException();
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.basictypeaccess.array.BooleanArray;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.basictypeaccess.array.CharArray;
+import net.imglib2.img.basictypeaccess.array.DoubleArray;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.PrimitiveType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+/**
+ * {@link PrimitiveBlocks} implementation for arbitrary sources. The destination
+ * array is wrapped as an {@link ArrayImg}, and the block is copied
+ * pixel-by-pixel.
+ *
+ * @param <T>
+ *            pixel type
+ */
+class FallbackPrimitiveBlocks< T extends NativeType< T > > implements PrimitiveBlocks< T >
+{
+	private final RandomAccessible< T > source;
+
+	private T type;
+
+	FallbackPrimitiveBlocks( final RandomAccessible< T > source )
+	{
+		this.source = source;
+	}
+
+	@Override
+	public void copy( final long[] srcPos, final Object dest, final int[] size )
+	{
+		final int n = srcPos.length;
+		final long[] dimensions = new long[ n ];
+		final long[] max = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			dimensions[ d ] = size[ d ];
+			max[ d ] = srcPos[ d ] + size[ d ] - 1;
+		}
+
+		if ( type == null )
+		{
+			final RandomAccess< T > access = source.randomAccess();
+			access.setPosition( srcPos );
+			type = access.get().createVariable();
+		}
+		final PrimitiveType primitiveType = type.getNativeTypeFactory().getPrimitiveType();
+		MemCopy.forPrimitiveType( primitiveType ).checkArray( dest, type.getEntitiesPerPixel().mulCeil( Intervals.numElements( dimensions ) ) );
+
+		final ArrayImg< T, ? > img = wrap( type, dest, dimensions );
+		final Cursor< T > in = Views.flatIterable( Views.interval( source, new FinalInterval( srcPos, max ) ) ).cursor();
+		final Cursor< T > out = img.cursor();
+		while ( out.hasNext() )
+			out.next().set( in.next() );
+	}
+
+	@Override
+	public FallbackPrimitiveBlocks< T > independentCopy()
+	{
+		return new FallbackPrimitiveBlocks<>( source );
+	}
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	private static < T extends NativeType< T > > ArrayImg< T, ? > wrap( final T type, final Object array, final long[] dimensions )
+	{
+		final ArrayImg img = new ArrayImg( wrap( type.getNativeTypeFactory().getPrimitiveType(), array ), dimensions, type.getEntitiesPerPixel() );
+		img.setLinkedType( type.getNativeTypeFactory().createLinkedType( img ) );
+		return img;
+	}
+
+	private static ArrayDataAccess< ? > wrap( final PrimitiveType primitiveType, final Object array )
+	{
+		switch ( primitiveType )
+		{
+		case BOOLEAN:
+			return new BooleanArray( ( boolean[] ) array );
+		case BYTE:
+			return new ByteArray( ( byte[] ) array );
+		case CHAR:
+			return new CharArray( ( char[] ) array );
+		case SHORT:
+			return new ShortArray( ( short[] ) array );
+		case INT:
+			return new IntArray( ( int[] ) array );
+		case LONG:
+			return new LongArray( ( long[] ) array );
+		case FLOAT:
+			return new FloatArray( ( float[] ) array );
+		case DOUBLE:
+			return new DoubleArray( ( double[] ) array );
+		default:
+			throw new IllegalArgumentException( "Unsupported primitive type " + primitiveType );
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import net.imglib2.RandomAccess;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.img.planar.PlanarImg;
+
+/**
+ * Uniform view of the primitive storage of {@link ArrayImg}, {@link PlanarImg}
+ * and {@link AbstractCellImg} as a grid of flat arrays. An {@code ArrayImg} is
+ * a grid with a single cell, a {@code PlanarImg} is a grid of planes.
+ * <p>
+ * Instances are not thread-safe, use {@link #copy()} to obtain an instance for
+ * another thread.
+ * </p>
+ */
+abstract class GridStorage
+{
+	protected final CellGrid grid;
+
+	protected GridStorage( final CellGrid grid )
+	{
+		this.grid = grid;
+	}
+
+	/**
+	 * Get the {@link CellGrid} describing the cell layout. Dimensions of
+	 * border cells are given by {@link CellGrid#getCellDimension(int, long)}.
+	 */
+	public CellGrid getCellGrid()
+	{
+		return grid;
+	}
+
+	/**
+	 * Get the primitive storage array of the cell at the given grid position.
+	 */
+	public abstract Object getStorageArray( long[] gridPosition );
+
+	/**
+	 * Get a new instance that can be used independently of this one.
+	 */
+	public abstract GridStorage copy();
+
+	static GridStorage of( final ArrayImg< ?, ? > img )
+	{
+		final Object data = img.update( null );
+		if ( !( data instanceof ArrayDataAccess ) )
+			return null;
+		final int n = img.numDimensions();
+		final long[] dimensions = new long[ n ];
+		img.dimensions( dimensions );
+		final int[] cellDimensions = new int[ n ];
+		for ( int d = 0; d < n; ++d )
+			cellDimensions[ d ] = ( int ) dimensions[ d ];
+		return new ArrayStorage( new CellGrid( dimensions, cellDimensions ), ( ( ArrayDataAccess< ? > ) data ).getCurrentStorageArray() );
+	}
+
+	static GridStorage of( final PlanarImg< ?, ? > img )
+	{
+		final int n = img.numDimensions();
+		final long[] dimensions = new long[ n ];
+		img.dimensions( dimensions );
+		final int[] cellDimensions = new int[ n ];
+		for ( int d = 0; d < n; ++d )
+			cellDimensions[ d ] = d < 2 ? ( int ) dimensions[ d ] : 1;
+		return new PlanarStorage( new CellGrid( dimensions, cellDimensions ), img );
+	}
+
+	static GridStorage of( final AbstractCellImg< ?, ?, ?, ? > img )
+	{
+		final RandomAccess< ? extends Cell< ? > > cells = img.getCells().randomAccess();
+		cells.setPosition( new long[ img.numDimensions() ] );
+		if ( !( cells.get().getData() instanceof ArrayDataAccess ) )
+			return null;
+		return new CellStorage( img.getCellGrid(), img.getCells().randomAccess() );
+	}
+
+	static class ArrayStorage extends GridStorage
+	{
+		private final Object array;
+
+		ArrayStorage( final CellGrid grid, final Object array )
+		{
+			super( grid );
+			this.array = array;
+		}
+
+		@Override
+		public Object getStorageArray( final long[] gridPosition )
+		{
+			return array;
+		}
+
+		@Override
+		public ArrayStorage copy()
+		{
+			return this;
+		}
+	}
+
+	static class PlanarStorage extends GridStorage
+	{
+		private final PlanarImg< ?, ? > img;
+
+		PlanarStorage( final CellGrid grid, final PlanarImg< ?, ? > img )
+		{
+			super( grid );
+			this.img = img;
+		}
+
+		@Override
+		public Object getStorageArray( final long[] gridPosition )
+		{
+			int index = 0;
+			for ( int d = gridPosition.length - 1; d >= 2; --d )
+				index = index * ( int ) grid.imgDimension( d ) + ( int ) gridPosition[ d ];
+			return img.getPlane( index ).getCurrentStorageArray();
+		}
+
+		@Override
+		public PlanarStorage copy()
+		{
+			return this;
+		}
+	}
+
+	static class CellStorage extends GridStorage
+	{
+		private final RandomAccess< ? extends Cell< ? > > cells;
+
+		CellStorage( final CellGrid grid, final RandomAccess< ? extends Cell< ? > > cells )
+		{
+			super( grid );
+			this.cells = cells;
+		}
+
+		@Override
+		public Object getStorageArray( final long[] gridPosition )
+		{
+			cells.setPosition( gridPosition );
+			return ( ( ArrayDataAccess< ? > ) cells.get().getData() ).getCurrentStorageArray();
+		}
+
+		@Override
+		public CellStorage copy()
+		{
+			return new CellStorage( grid, cells.copyRandomAccess() );
+		}
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import java.lang.reflect.Array;
+
+import net.imglib2.type.PrimitiveType;
+
+/**
+ * Low-level copy and fill operations on primitive arrays, used by
+ * {@link PrimitiveBlocks} implementations. There is one instance for each
+ * {@link PrimitiveType}. All methods take the arrays as {@code Object}, which
+ * must be of the primitive array type matching the instance.
+ */
+abstract class MemCopy
+{
+	private final Class< ? > arrayClass;
+
+	private MemCopy( final Class< ? > arrayClass )
+	{
+		this.arrayClass = arrayClass;
+	}
+
+	/**
+	 * Verify that {@code array} is a primitive array of the type handled by
+	 * this {@code MemCopy}, with at least {@code minLength} elements.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if {@code array} has the wrong type or is too short.
+	 */
+	void checkArray( final Object array, final long minLength )
+	{
+		if ( array == null || array.getClass() != arrayClass )
+			throw new IllegalArgumentException( "expected " + arrayClass.getSimpleName() + " array, but got " + ( array == null ? "null" : array.getClass().getSimpleName() ) );
+		if ( Array.getLength( array ) < minLength )
+			throw new IllegalArgumentException( "array of length " + Array.getLength( array ) + " is too small, expected at least " + minLength + " elements" );
+	}
+
+	/**
+	 * Copy {@code length} elements from {@code src} to {@code dest}. Source
+	 * elements are taken at {@code srcPos + i * srcStride}, and written to
+	 * {@code destPos + i}. {@code srcStride} may be negative or zero.
+	 */
+	abstract void copyStrided( Object src, int srcPos, int srcStride, Object dest, int destPos, int length );
+
+	/**
+	 * Fill {@code length} elements of {@code dest} starting at {@code destPos}
+	 * with the first element of {@code value}.
+	 */
+	abstract void fill( Object value, Object dest, int destPos, int length );
+
+	static MemCopy forPrimitiveType( final PrimitiveType primitiveType )
+	{
+		switch ( primitiveType )
+		{
+		case BOOLEAN:
+			return BOOLEAN;
+		case BYTE:
+			return BYTE;
+		case CHAR:
+			return CHAR;
+		case SHORT:
+			return SHORT;
+		case INT:
+			return INT;
+		case LONG:
+			return LONG;
+		case FLOAT:
+			return FLOAT;
+		case DOUBLE:
+			return DOUBLE;
+		default:
+			throw new IllegalArgumentException( "Unsupported primitive type " + primitiveType );
+		}
+	}
+
+	static final MemCopy BOOLEAN = new MemCopy( boolean[].class )
+	{
+		@Override
+		void copyStrided( final Object src, final int srcPos, final int srcStride, final Object dest, final int destPos, final int length )
+		{
+			if ( srcStride == 1 )
+				System.arraycopy( src, srcPos, dest, destPos, length );
+			else
+			{
+				final boolean[] s = ( boolean[] ) src;
+				final boolean[] t = ( boolean[] ) dest;
+				for ( int i = 0; i < length; ++i )
+					t[ destPos + i ] = s[ srcPos + i * srcStride ];
+			}
+		}
+
+		@Override
+		void fill( final Object value, final Object dest, final int destPos, final int length )
+		{
+			final boolean v = ( ( boolean[] ) value )[ 0 ];
+			final boolean[] t = ( boolean[] ) dest;
+			for ( int i = 0; i < length; ++i )
+				t[ destPos + i ] = v;
+		}
+	};
+
+	static final MemCopy BYTE = new MemCopy( byte[].class )
+	{
+		@Override
+		void copyStrided( final Object src, final int srcPos, final int srcStride, final Object dest, final int destPos, final int length )
+		{
+			if ( srcStride == 1 )
+				System.arraycopy( src, srcPos, dest, destPos, length );
+			else
+			{
+				final byte[] s = ( byte[] ) src;
+				final byte[] t = ( byte[] ) dest;
+				for ( int i = 0; i < length; ++i )
+					t[ destPos + i ] = s[ srcPos + i * srcStride ];
+			}
+		}
+
+		@Override
+		void fill( final Object value, final Object dest, final int destPos, final int length )
+		{
+			final byte v = ( ( byte[] ) value )[ 0 ];
+			final byte[] t = ( byte[] ) dest;
+			for ( int i = 0; i < length; ++i )
+				t[ destPos + i ] = v;
+		}
+	};
+
+	static final MemCopy CHAR = new MemCopy( char[].class )
+	{
+		@Override
+		void copyStrided( final Object src, final int srcPos, final int srcStride, final Object dest, final int destPos, final int length )
+		{
+			if ( srcStride == 1 )
+				System.arraycopy( src, srcPos, dest, destPos, length );
+			else
+			{
+				final char[] s = ( char[] ) src;
+				final char[] t = ( char[] ) dest;
+				for ( int i = 0; i < length; ++i )
+					t[ destPos + i ] = s[ srcPos + i * srcStride ];
+			}
+		}
+
+		@Override
+		void fill( final Object value, final Object dest, final int destPos, final int length )
+		{
+			final char v = ( ( char[] ) value )[ 0 ];
+			final char[] t = ( char[] ) dest;
+			for ( int i = 0; i < length; ++i )
+				t[ destPos + i ] = v;
+		}
+	};
+
+	static final MemCopy SHORT = new MemCopy( short[].class )
+	{
+		@Override
+		void copyStrided( final Object src, final int srcPos, final int srcStride, final Object dest, final int destPos, final int length )
+		{
+			if ( srcStride == 1 )
+				System.arraycopy( src, srcPos, dest, destPos, length );
+			else
+			{
+				final short[] s = ( short[] ) src;
+				final short[] t = ( short[] ) dest;
+				for ( int i = 0; i < length; ++i )
+					t[ destPos + i ] = s[ srcPos + i * srcStride ];
+			}
+		}
+
+		@Override
+		void fill( final Object value, final Object dest, final int destPos, final int length )
+		{
+			final short v = ( ( short[] ) value )[ 0 ];
+			final short[] t = ( short[] ) dest;
+			for ( int i = 0; i < length; ++i )
+				t[ destPos + i ] = v;
+		}
+	};
+
+	static final MemCopy INT = new MemCopy( int[].class )
+	{
+		@Override
+		void copyStrided( final Object src, final int srcPos, final int srcStride, final Object dest, final int destPos, final int length )
+		{
+			if ( srcStride == 1 )
+				System.arraycopy( src, srcPos, dest, destPos, length );
+			else
+			{
+				final int[] s = ( int[] ) src;
+				final int[] t = ( int[] ) dest;
+				for ( int i = 0; i < length; ++i )
+					t[ destPos + i ] = s[ srcPos + i * srcStride ];
+			}
+		}
+
+		@Override
+		void fill( final Object value, final Object dest, final int destPos, final int length )
+		{
+			final int v = ( ( int[] ) value )[ 0 ];
+			final int[] t = ( int[] ) dest;
+			for ( int i = 0; i < length; ++i )
+				t[ destPos + i ] = v;
+		}
+	};
+
+	static final MemCopy LONG = new MemCopy( long[].class )
+	{
+		@Override
+		void copyStrided( final Object src, final int srcPos, final int srcStride, final Object dest, final int destPos, final int length )
+		{
+			if ( srcStride == 1 )
+				System.arraycopy( src, srcPos, dest, destPos, length );
+			else
+			{
+				final long[] s = ( long[] ) src;
+				final long[] t = ( long[] ) dest;
+				for ( int i = 0; i < length; ++i )
+					t[ destPos + i ] = s[ srcPos + i * srcStride ];
+			}
+		}
+
+		@Override
+		void fill( final Object value, final Object dest, final int destPos, final int length )
+		{
+			final long v = ( ( long[] ) value )[ 0 ];
+			final long[] t = ( long[] ) dest;
+			for ( int i = 0; i < length; ++i )
+				t[ destPos + i ] = v;
+		}
+	};
+
+	static final MemCopy FLOAT = new MemCopy( float[].class )
+	{
+		@Override
+		void copyStrided( final Object src, final int srcPos, final int srcStride, final Object dest, final int destPos, final int length )
+		{
+			if ( srcStride == 1 )
+				System.arraycopy( src, srcPos, dest, destPos, length );
+			else
+			{
+				final float[] s = ( float[] ) src;
+				final float[] t = ( float[] ) dest;
+				for ( int i = 0; i < length; ++i )
+					t[ destPos + i ] = s[ srcPos + i * srcStride ];
+			}
+		}
+
+		@Override
+		void fill( final Object value, final Object dest, final int destPos, final int length )
+		{
+			final float v = ( ( float[] ) value )[ 0 ];
+			final float[] t = ( float[] ) dest;
+			for ( int i = 0; i < length; ++i )
+				t[ destPos + i ] = v;
+		}
+	};
+
+	static final MemCopy DOUBLE = new MemCopy( double[].class )
+	{
+		@Override
+		void copyStrided( final Object src, final int srcPos, final int srcStride, final Object dest, final int destPos, final int length )
+		{
+			if ( srcStride == 1 )
+				System.arraycopy( src, srcPos, dest, destPos, length );
+			else
+			{
+				final double[] s = ( double[] ) src;
+				final double[] t = ( double[] ) dest;
+				for ( int i = 0; i < length; ++i )
+					t[ destPos + i ] = s[ srcPos + i * srcStride ];
+			}
+		}
+
+		@Override
+		void fill( final Object value, final Object dest, final int destPos, final int length )
+		{
+			final double v = ( ( double[] ) value )[ 0 ];
+			final double[] t = ( double[] ) dest;
+			for ( int i = 0; i < length; ++i )
+				t[ destPos + i ] = v;
+		}
+	};
+}
@@ -0,0 +1,145 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessible;
+import net.imglib2.type.NativeType;
+import net.imglib2.util.Intervals;
+
+/**
+ * Copy blocks of data from a {@link RandomAccessible} into flat primitive
+ * arrays.
+ * <p>
+ * If the source is a (View of a) native container, blocks are copied with
+ * row-wise array copies directly from the container storage. This is the
+ * case for chains of {@link net.imglib2.view.IntervalView}s and
+ * {@link net.imglib2.view.MixedTransformView}s (translation, permutation,
+ * axis inversion, slicing, ...) with at most one out-of-bounds extension
+ * ({@link net.imglib2.outofbounds.OutOfBoundsConstantValueFactory constant
+ * value}, {@link net.imglib2.outofbounds.OutOfBoundsBorderFactory border},
+ * {@link net.imglib2.outofbounds.OutOfBoundsMirrorFactory mirror},
+ * {@link net.imglib2.outofbounds.OutOfBoundsPeriodicFactory periodic}) over an
+ * {@link net.imglib2.img.array.ArrayImg ArrayImg},
+ * {@link net.imglib2.img.planar.PlanarImg PlanarImg}, or
+ * {@link net.imglib2.img.cell.AbstractCellImg CellImg} whose pixel type uses
+ * one primitive entity per pixel. Out-of-bounds regions are filled in bulk.
+ * Otherwise, blocks are copied pixel-by-pixel through {@code Cursor}s.
+ * </p>
+ * <p>
+ * The destination array must be a primitive array of the type backing
+ * {@code T} (e.g., {@code float[]} for {@code FloatType}, {@code short[]} for
+ * {@code UnsignedShortType}). Data is written in flat iteration order of the
+ * block, i.e., with dimension 0 varying fastest.
+ * </p>
+ * <p>
+ * Instances are not thread-safe. Use {@link #independentCopy()} to obtain an
+ * instance for use in another thread.
+ * </p>
+ *
+ * @param <T>
+ *            pixel type
+ */
+public interface PrimitiveBlocks< T extends NativeType< T > >
+{
+	/**
+	 * Copy a block from the source into a primitive array.
+	 *
+	 * @param srcPos
+	 *            min coordinate of the block to copy
+	 * @param dest
+	 *            primitive array to copy into. Must have at least as many
+	 *            elements as the block.
+	 * @param size
+	 *            the size of the block to copy
+	 */
+	void copy( long[] srcPos, Object dest, int[] size );
+
+	/**
+	 * Copy the block given by {@code interval} from the source into a
+	 * primitive array.
+	 *
+	 * @param interval
+	 *            the block to copy
+	 * @param dest
+	 *            primitive array to copy into. Must have at least as many
+	 *            elements as {@code interval}.
+	 */
+	default void copy( final Interval interval, final Object dest )
+	{
+		final long[] srcPos = Intervals.minAsLongArray( interval );
+		final int[] size = new int[ srcPos.length ];
+		for ( int d = 0; d < size.length; ++d )
+			size[ d ] = ( int ) interval.dimension( d );
+		copy( srcPos, dest, size );
+	}
+
+	/**
+	 * Get an instance that copies from the same source, which can be used
+	 * concurrently with this one.
+	 */
+	PrimitiveBlocks< T > independentCopy();
+
+	/**
+	 * Create a {@code PrimitiveBlocks} accessor for {@code randomAccessible}.
+	 * The View chain is analyzed once, so the returned instance should be
+	 * reused when copying many blocks.
+	 */
+	static < T extends NativeType< T > > PrimitiveBlocks< T > of( final RandomAccessible< T > randomAccessible )
+	{
+		final ViewProperties< T > props = ViewAnalyzer.getViewProperties( randomAccessible );
+		if ( props != null )
+			return new ViewPrimitiveBlocks<>( props );
+		return new FallbackPrimitiveBlocks<>( randomAccessible );
+	}
+
+	/**
+	 * Copy the block given by {@code interval} from {@code randomAccessible}
+	 * into the primitive array {@code dest}.
+	 */
+	static < T extends NativeType< T > > void copy( final RandomAccessible< T > randomAccessible, final Interval interval, final Object dest )
+	{
+		of( randomAccessible ).copy( interval, dest );
+	}
+
+	/**
+	 * Copy the block of the given {@code size} at {@code srcPos} from
+	 * {@code randomAccessible} into the primitive array {@code dest}.
+	 */
+	static < T extends NativeType< T > > void copy( final RandomAccessible< T > randomAccessible, final long[] srcPos, final Object dest, final int[] size )
+	{
+		of( randomAccessible ).copy( srcPos, dest, size );
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imglib2.RandomAccessible;
+import net.imglib2.img.WrappedImg;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.ArrayDataAccessFactory;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.outofbounds.OutOfBoundsBorderFactory;
+import net.imglib2.outofbounds.OutOfBoundsConstantValueFactory;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory;
+import net.imglib2.outofbounds.OutOfBoundsPeriodicFactory;
+import net.imglib2.transform.integer.MixedTransform;
+import net.imglib2.type.NativeType;
+import net.imglib2.util.Fraction;
+import net.imglib2.view.ExtendedRandomAccessibleInterval;
+import net.imglib2.view.IntervalView;
+import net.imglib2.view.MixedTransformView;
+
+/**
+ * Traverses a View chain to check whether it can be handled by
+ * {@link ViewPrimitiveBlocks}, and to extract the {@link ViewProperties}.
+ * <p>
+ * Supported chains consist of {@link IntervalView}s and
+ * {@link MixedTransformView}s, with at most one
+ * {@link ExtendedRandomAccessibleInterval} using a constant value, border,
+ * mirror, or periodic out-of-bounds strategy, on top of an {@link ArrayImg},
+ * {@link PlanarImg}, or {@link AbstractCellImg} with {@link ArrayDataAccess}
+ * storage and one primitive entity per pixel.
+ * </p>
+ */
+class ViewAnalyzer< T extends NativeType< T > >
+{
+	/**
+	 * Analyze the View chain of {@code randomAccessible}.
+	 *
+	 * @return the {@link ViewProperties} of the chain, or {@code null} if the
+	 *         chain is not supported.
+	 */
+	public static < T extends NativeType< T > > ViewProperties< T > getViewProperties( final RandomAccessible< T > randomAccessible )
+	{
+		return new ViewAnalyzer< T >().analyze( randomAccessible );
+	}
+
+	private final List< MixedTransform > transformsAbove = new ArrayList<>();
+
+	private final List< MixedTransform > transformsBelow = new ArrayList<>();
+
+	private List< MixedTransform > transforms = transformsAbove;
+
+	private int numExtensionDimensions;
+
+	private Extension extension = Extension.NONE;
+
+	private long[] extensionMin;
+
+	private long[] extensionSize;
+
+	private Object oobValue;
+
+	private GridStorage storage;
+
+	private T type;
+
+	private ViewAnalyzer()
+	{}
+
+	@SuppressWarnings( "unchecked" )
+	private ViewProperties< T > analyze( final RandomAccessible< T > randomAccessible )
+	{
+		final int n = randomAccessible.numDimensions();
+		numExtensionDimensions = n;
+		RandomAccessible< T > ra = randomAccessible;
+		while ( storage == null )
+		{
+			if ( ra instanceof IntervalView )
+			{
+				ra = ( ( IntervalView< T > ) ra ).getSource();
+			}
+			else if ( ra instanceof MixedTransformView )
+			{
+				final MixedTransformView< T > view = ( MixedTransformView< T > ) ra;
+				transforms.add( view.getTransformToSource() );
+				ra = view.getSource();
+			}
+			else if ( ra instanceof ExtendedRandomAccessibleInterval )
+			{
+				if ( !visitExtended( ( ExtendedRandomAccessibleInterval< T, ? > ) ra ) )
+					return null;
+				ra = ( ( ExtendedRandomAccessibleInterval< T, ? > ) ra ).getSource();
+			}
+			else if ( ra instanceof WrappedImg )
+			{
+				ra = ( ( WrappedImg< T > ) ra ).getImg();
+			}
+			else if ( ra instanceof ArrayImg )
+			{
+				storage = GridStorage.of( ( ArrayImg< T, ? > ) ra );
+				if ( storage == null )
+					return null;
+				type = ( ( ArrayImg< T, ? > ) ra ).firstElement();
+			}
+			else if ( ra instanceof PlanarImg )
+			{
+				storage = GridStorage.of( ( PlanarImg< T, ? > ) ra );
+				type = ( ( PlanarImg< T, ? > ) ra ).firstElement();
+			}
+			else if ( ra instanceof AbstractCellImg )
+			{
+				storage = GridStorage.of( ( AbstractCellImg< T, ?, ?, ? > ) ra );
+				if ( storage == null )
+					return null;
+				type = ( ( AbstractCellImg< T, ?, ?, ? > ) ra ).firstElement();
+			}
+			else
+				return null;
+		}
+
+		if ( extension == Extension.NONE )
+			numExtensionDimensions = storage.getCellGrid().numDimensions();
+
+		final Fraction epp = type.getEntitiesPerPixel();
+		if ( epp.getNumerator() != 1 || epp.getDenominator() != 1 )
+			return null;
+
+		if ( extension == Extension.CONSTANT )
+		{
+			oobValue = toPrimitiveValue( ( T ) oobValue );
+		}
+
+		final MixedTransform transformAbove = concatenate( n, transformsAbove );
+		final MixedTransform transformBelow = concatenate( numExtensionDimensions, transformsBelow );
+		return new ViewProperties<>(
+				type.createVariable(),
+				storage,
+				transformAbove,
+				extension,
+				extensionMin,
+				extensionSize,
+				oobValue,
+				transformBelow );
+	}
+
+	/**
+	 * Record the out-of-bounds strategy of {@code view}, and switch to
+	 * collecting the transforms below the extension.
+	 *
+	 * @return {@code false} if the extension is not supported.
+	 */
+	private boolean visitExtended( final ExtendedRandomAccessibleInterval< T, ? > view )
+	{
+		if ( extension != Extension.NONE )
+			return false;
+
+		final OutOfBoundsFactory< T, ? > factory = view.getOutOfBoundsFactory();
+		final Class< ? > factoryClass = factory.getClass();
+		if ( factoryClass == OutOfBoundsConstantValueFactory.class )
+		{
+			extension = Extension.CONSTANT;
+			oobValue = ( ( OutOfBoundsConstantValueFactory< ?, ? > ) factory ).getValue();
+		}
+		else if ( factoryClass == OutOfBoundsBorderFactory.class )
+			extension = Extension.BORDER;
+		else if ( factoryClass == OutOfBoundsMirrorFactory.class )
+			extension = ( ( OutOfBoundsMirrorFactory< ?, ? > ) factory ).getBoundary() == OutOfBoundsMirrorFactory.Boundary.SINGLE
+					? Extension.MIRROR_SINGLE
+					: Extension.MIRROR_DOUBLE;
+		else if ( factoryClass == OutOfBoundsPeriodicFactory.class )
+			extension = Extension.PERIODIC;
+		else
+			return false;
+
+		numExtensionDimensions = view.numDimensions();
+		extensionMin = new long[ numExtensionDimensions ];
+		extensionSize = new long[ numExtensionDimensions ];
+		view.getSource().min( extensionMin );
+		view.getSource().dimensions( extensionSize );
+		transforms = transformsBelow;
+		return true;
+	}
+
+	/**
+	 * Concatenate a list of transforms, where each transform maps to the
+	 * source of the previous one.
+	 */
+	private static MixedTransform concatenate( final int numSourceDimensions, final List< MixedTransform > transforms )
+	{
+		MixedTransform t = new MixedTransform( numSourceDimensions, numSourceDimensions );
+		for ( final MixedTransform s : transforms )
+			t = s.concatenate( t );
+		return t;
+	}
+
+	/**
+	 * Get the primitive representation of {@code value}, as an array of length
+	 * 1.
+	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	private static < T extends NativeType< T > > Object toPrimitiveValue( final T value )
+	{
+		final ArrayDataAccess< ? > access = ( ArrayDataAccess< ? > ) ( ( ArrayDataAccess ) ArrayDataAccessFactory.get( value ) ).createArray( 1 );
+		final ArrayImg img = new ArrayImg( access, new long[] { 1 }, value.getEntitiesPerPixel() );
+		img.setLinkedType( value.getNativeTypeFactory().createLinkedType( img ) );
+		( ( T ) img.firstElement() ).set( value );
+		return access.getCurrentStorageArray();
+	}
+}
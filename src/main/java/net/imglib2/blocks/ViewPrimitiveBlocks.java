@@ -0,0 +1,440 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import java.util.Arrays;
+
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.transform.integer.MixedTransform;
+import net.imglib2.type.NativeType;
+
+/**
+ * {@link PrimitiveBlocks} implementation for View chains over native
+ * containers, as described by {@link ViewProperties}.
+ * <p>
+ * For each block, the coordinates along every View dimension are mapped once
+ * to storage coordinates (applying the out-of-bounds extension). Dimension 0 is
+ * then split into runs that can be copied with a single (strided) array copy or
+ * filled with the out-of-bounds value. Each row of the block is copied run by
+ * run.
+ * </p>
+ *
+ * @param <T>
+ *            pixel type
+ */
+class ViewPrimitiveBlocks< T extends NativeType< T > > implements PrimitiveBlocks< T >
+{
+	/**
+	 * Storage coordinate marking positions that should be filled with the
+	 * out-of-bounds value.
+	 */
+	private static final long OUTSIDE = Long.MIN_VALUE;
+
+	private final ViewProperties< T > props;
+
+	private final GridStorage storage;
+
+	private final CellGrid grid;
+
+	private final MemCopy memCopy;
+
+	private final Extension extension;
+
+	private final long[] extensionMin;
+
+	private final long[] extensionSize;
+
+	private final Object oobValue;
+
+	/**
+	 * Number of View dimensions.
+	 */
+	private final int n;
+
+	/**
+	 * Number of extension dimensions.
+	 */
+	private final int e;
+
+	/**
+	 * Number of storage dimensions.
+	 */
+	private final int m;
+
+	private final MixedTransform above;
+
+	private final MixedTransform below;
+
+	/**
+	 * For each View dimension, the storage dimension it maps to, or -1.
+	 */
+	private final int[] viewToStorage;
+
+	/**
+	 * For each View dimension, the extension dimension it maps to, or -1.
+	 */
+	private final int[] viewToExtension;
+
+	/**
+	 * For each extension dimension, the storage dimension it maps to, or -1.
+	 */
+	private final int[] extensionToStorage;
+
+	private final int[] cellDimensions;
+
+	/*
+	 * Temporary buffers.
+	 */
+
+	private long[][] coords;
+
+	private int[] segStart;
+
+	private int[] segLength;
+
+	private long[] segCoord;
+
+	private int[] segStep;
+
+	private final long[] storagePos;
+
+	private final long[] fixedStoragePos;
+
+	private final long[] gridPos;
+
+	private final long[] cachedGridPos;
+
+	private final long[] localPos;
+
+	private final int[] cellSteps;
+
+	private final int[] rowIndex;
+
+	ViewPrimitiveBlocks( final ViewProperties< T > props )
+	{
+		this.props = props;
+		storage = props.getStorage().copy();
+		grid = storage.getCellGrid();
+		memCopy = MemCopy.forPrimitiveType( props.getPrimitiveType() );
+		extension = props.getExtension();
+		extensionMin = props.getExtensionMin();
+		extensionSize = props.getExtensionSize();
+		oobValue = props.getOobValue();
+
+		above = props.getTransformAbove();
+		below = props.getTransformBelow();
+		n = above.numSourceDimensions();
+		e = above.numTargetDimensions();
+		m = below.numTargetDimensions();
+
+		viewToExtension = new int[ n ];
+		Arrays.fill( viewToExtension, -1 );
+		for ( int j = 0; j < e; ++j )
+			if ( !above.getComponentZero( j ) )
+				viewToExtension[ above.getComponentMapping( j ) ] = j;
+
+		extensionToStorage = new int[ e ];
+		Arrays.fill( extensionToStorage, -1 );
+		for ( int d = 0; d < m; ++d )
+			if ( !below.getComponentZero( d ) )
+				extensionToStorage[ below.getComponentMapping( d ) ] = d;
+
+		viewToStorage = new int[ n ];
+		for ( int k = 0; k < n; ++k )
+			viewToStorage[ k ] = viewToExtension[ k ] < 0 ? -1 : extensionToStorage[ viewToExtension[ k ] ];
+
+		cellDimensions = new int[ m ];
+		grid.cellDimensions( cellDimensions );
+
+		coords = new long[ n ][ 0 ];
+		segStart = new int[ 0 ];
+		segLength = new int[ 0 ];
+		segCoord = new long[ 0 ];
+		segStep = new int[ 0 ];
+		storagePos = new long[ m ];
+		fixedStoragePos = new long[ m ];
+		gridPos = new long[ m ];
+		cachedGridPos = new long[ m ];
+		localPos = new long[ m ];
+		cellSteps = new int[ m ];
+		rowIndex = new int[ n ];
+	}
+
+	@Override
+	public ViewPrimitiveBlocks< T > independentCopy()
+	{
+		return new ViewPrimitiveBlocks<>( props );
+	}
+
+	@Override
+	public void copy( final long[] srcPos, final Object dest, final int[] size )
+	{
+		long numElements = 1;
+		for ( int k = 0; k < n; ++k )
+			numElements *= size[ k ];
+		memCopy.checkArray( dest, numElements );
+		if ( numElements == 0 )
+			return;
+
+		if ( !computeFixedStoragePos() )
+		{
+			memCopy.fill( oobValue, dest, 0, ( int ) numElements );
+			return;
+		}
+		computeCoords( srcPos, size );
+		final int numSegments = computeSegments( size[ 0 ] );
+		copyRows( dest, size, numSegments );
+	}
+
+	/**
+	 * Map an extension coordinate through the out-of-bounds extension.
+	 *
+	 * @return remapped coordinate, or {@link #OUTSIDE}.
+	 */
+	private long extend( final int j, final long x )
+	{
+		if ( extension == Extension.NONE )
+			return x;
+		final long y = x - extensionMin[ j ];
+		if ( extension.isOutside( y, extensionSize[ j ] ) )
+			return OUTSIDE;
+		return extension.map( y, extensionSize[ j ] ) + extensionMin[ j ];
+	}
+
+	/**
+	 * Map an extension coordinate to the coordinate of storage dimension
+	 * {@code d}.
+	 */
+	private long toStorage( final int d, final long x )
+	{
+		return below.getTranslation( d ) + ( below.getComponentInversion( d ) ? -x : x );
+	}
+
+	/**
+	 * Compute storage coordinates that do not depend on the View position,
+	 * i.e., for sliced dimensions.
+	 *
+	 * @return {@code false} if any of the sliced dimensions is outside and
+	 *         the block should be filled with the out-of-bounds value.
+	 */
+	private boolean computeFixedStoragePos()
+	{
+		for ( int d = 0; d < m; ++d )
+			if ( below.getComponentZero( d ) )
+				fixedStoragePos[ d ] = below.getTranslation( d );
+
+		for ( int j = 0; j < e; ++j )
+		{
+			if ( above.getComponentZero( j ) )
+			{
+				final long x = extend( j, above.getTranslation( j ) );
+				if ( x == OUTSIDE )
+					return false;
+				final int d = extensionToStorage[ j ];
+				if ( d >= 0 )
+					fixedStoragePos[ d ] = toStorage( d, x );
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * For each View dimension {@code k}, compute the storage coordinates
+	 * {@code coords[k][i]} of View coordinates {@code srcPos[k] + i}.
+	 */
+	private void computeCoords( final long[] srcPos, final int[] size )
+	{
+		for ( int k = 0; k < n; ++k )
+		{
+			if ( coords[ k ].length < size[ k ] )
+				coords[ k ] = new long[ size[ k ] ];
+			final long[] c = coords[ k ];
+			final int j = viewToExtension[ k ];
+			if ( j < 0 )
+			{
+				Arrays.fill( c, 0, size[ k ], 0 );
+				continue;
+			}
+			final int d = extensionToStorage[ j ];
+			final long t = above.getTranslation( j );
+			final boolean inv = above.getComponentInversion( j );
+			for ( int i = 0; i < size[ k ]; ++i )
+			{
+				final long v = srcPos[ k ] + i;
+				final long x = extend( j, inv ? t - v : t + v );
+				if ( x == OUTSIDE )
+					c[ i ] = OUTSIDE;
+				else
+					c[ i ] = d < 0 ? 0 : toStorage( d, x );
+			}
+		}
+	}
+
+	/**
+	 * Split View dimension 0 into runs of elements that are either all
+	 * outside, or are within one cell and have constant storage stride -1, 0,
+	 * or 1.
+	 *
+	 * @return the number of runs
+	 */
+	private int computeSegments( final int size0 )
+	{
+		if ( segStart.length < size0 )
+		{
+			segStart = new int[ size0 ];
+			segLength = new int[ size0 ];
+			segCoord = new long[ size0 ];
+			segStep = new int[ size0 ];
+		}
+
+		final long[] c = coords[ 0 ];
+		final int d0 = viewToStorage[ 0 ];
+		final int cellDim0 = d0 < 0 ? 1 : cellDimensions[ d0 ];
+
+		int numSegments = 0;
+		int i = 0;
+		while ( i < size0 )
+		{
+			final int start = i;
+			final long x = c[ i++ ];
+			int step = 0;
+			if ( x == OUTSIDE )
+			{
+				while ( i < size0 && c[ i ] == OUTSIDE )
+					++i;
+			}
+			else if ( d0 < 0 )
+			{
+				while ( i < size0 && c[ i ] != OUTSIDE )
+					++i;
+			}
+			else
+			{
+				final long cell = x / cellDim0;
+				if ( i < size0 && c[ i ] != OUTSIDE && c[ i ] / cellDim0 == cell )
+				{
+					final long s = c[ i ] - x;
+					if ( s >= -1 && s <= 1 )
+					{
+						step = ( int ) s;
+						while ( i < size0 && c[ i ] != OUTSIDE && c[ i ] == c[ i - 1 ] + step && c[ i ] / cellDim0 == cell )
+							++i;
+					}
+				}
+			}
+			segStart[ numSegments ] = start;
+			segLength[ numSegments ] = i - start;
+			segCoord[ numSegments ] = x;
+			segStep[ numSegments ] = step;
+			++numSegments;
+		}
+		return numSegments;
+	}
+
+	private void copyRows( final Object dest, final int[] size, final int numSegments )
+	{
+		final int d0 = viewToStorage[ 0 ];
+		final int rowLength = size[ 0 ];
+		long numRows = 1;
+		for ( int k = 1; k < n; ++k )
+			numRows *= size[ k ];
+
+		Arrays.fill( rowIndex, 0 );
+		Object cachedArray = null;
+		int destOffset = 0;
+		for ( long row = 0; row < numRows; ++row )
+		{
+			boolean rowOutside = false;
+			System.arraycopy( fixedStoragePos, 0, storagePos, 0, m );
+			for ( int k = 1; k < n; ++k )
+			{
+				final long x = coords[ k ][ rowIndex[ k ] ];
+				if ( x == OUTSIDE )
+					rowOutside = true;
+				else if ( viewToStorage[ k ] >= 0 )
+					storagePos[ viewToStorage[ k ] ] = x;
+			}
+
+			if ( rowOutside )
+				memCopy.fill( oobValue, dest, destOffset, rowLength );
+			else
+			{
+				for ( int s = 0; s < numSegments; ++s )
+				{
+					final long x = segCoord[ s ];
+					if ( x == OUTSIDE )
+					{
+						memCopy.fill( oobValue, dest, destOffset + segStart[ s ], segLength[ s ] );
+						continue;
+					}
+
+					if ( d0 >= 0 )
+						storagePos[ d0 ] = x;
+					for ( int d = 0; d < m; ++d )
+					{
+						final long g = storagePos[ d ] / cellDimensions[ d ];
+						gridPos[ d ] = g;
+						localPos[ d ] = storagePos[ d ] - g * cellDimensions[ d ];
+					}
+					if ( cachedArray == null || !Arrays.equals( gridPos, cachedGridPos ) )
+					{
+						cachedArray = storage.getStorageArray( gridPos );
+						System.arraycopy( gridPos, 0, cachedGridPos, 0, m );
+						int step = 1;
+						for ( int d = 0; d < m; ++d )
+						{
+							cellSteps[ d ] = step;
+							step *= grid.getCellDimension( d, gridPos[ d ] );
+						}
+					}
+
+					int srcOffset = 0;
+					for ( int d = 0; d < m; ++d )
+						srcOffset += localPos[ d ] * cellSteps[ d ];
+					final int srcStride = d0 >= 0 ? segStep[ s ] * cellSteps[ d0 ] : 0;
+					memCopy.copyStrided( cachedArray, srcOffset, srcStride, dest, destOffset + segStart[ s ], segLength[ s ] );
+				}
+			}
+
+			destOffset += rowLength;
+			for ( int k = 1; k < n; ++k )
+			{
+				if ( ++rowIndex[ k ] < size[ k ] )
+					break;
+				rowIndex[ k ] = 0;
+			}
+		}
+	}
+}
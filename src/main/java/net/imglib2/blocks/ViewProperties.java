@@ -0,0 +1,143 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import net.imglib2.transform.integer.MixedTransform;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.PrimitiveType;
+
+/**
+ * Result of analyzing a View chain with {@link ViewAnalyzer}. Describes how a
+ * position in the View maps to a position in the underlying native container:
+ * <ol>
+ * <li>{@link #getTransformAbove()} maps View coordinates to the coordinates of
+ * the (optional) out-of-bounds extension,</li>
+ * <li>the {@link #getExtension() extension} remaps coordinates outside of
+ * {@link #getExtensionMin()}, {@link #getExtensionSize()} into the
+ * interval,</li>
+ * <li>{@link #getTransformBelow()} maps extension coordinates to coordinates
+ * of the {@link #getStorage() storage}.</li>
+ * </ol>
+ *
+ * @param <T>
+ *            pixel type
+ */
+class ViewProperties< T extends NativeType< T > >
+{
+	private final T type;
+
+	private final GridStorage storage;
+
+	private final MixedTransform transformAbove;
+
+	private final Extension extension;
+
+	private final long[] extensionMin;
+
+	private final long[] extensionSize;
+
+	private final Object oobValue;
+
+	private final MixedTransform transformBelow;
+
+	ViewProperties(
+			final T type,
+			final GridStorage storage,
+			final MixedTransform transformAbove,
+			final Extension extension,
+			final long[] extensionMin,
+			final long[] extensionSize,
+			final Object oobValue,
+			final MixedTransform transformBelow )
+	{
+		this.type = type;
+		this.storage = storage;
+		this.transformAbove = transformAbove;
+		this.extension = extension;
+		this.extensionMin = extensionMin;
+		this.extensionSize = extensionSize;
+		this.oobValue = oobValue;
+		this.transformBelow = transformBelow;
+	}
+
+	public T getType()
+	{
+		return type;
+	}
+
+	public PrimitiveType getPrimitiveType()
+	{
+		return type.getNativeTypeFactory().getPrimitiveType();
+	}
+
+	public GridStorage getStorage()
+	{
+		return storage;
+	}
+
+	public MixedTransform getTransformAbove()
+	{
+		return transformAbove;
+	}
+
+	public Extension getExtension()
+	{
+		return extension;
+	}
+
+	public long[] getExtensionMin()
+	{
+		return extensionMin;
+	}
+
+	public long[] getExtensionSize()
+	{
+		return extensionSize;
+	}
+
+	/**
+	 * The out-of-bounds value for {@link Extension#CONSTANT}, as a primitive
+	 * array of length 1.
+	 */
+	public Object getOobValue()
+	{
+		return oobValue;
+	}
+
+	public MixedTransform getTransformBelow()
+	{
+		return transformBelow;
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.converter;
+
+import java.util.function.Supplier;
+
+/**
+ * A {@link Converter} that applies two {@link Converter Converters} in
+ * sequence, passing the value through an intermediate object.
+ * <p>
+ * The intermediate object is owned by the {@link ChainedConverter}, so a
+ * single instance must not be used concurrently. The converted views in
+ * {@link net.imglib2.converter.read} obtain an independent instance for each
+ * accessor through {@link #copyIfChained(Converter)}.
+ *
+ * @param <A>
+ *            source type
+ * @param <I>
+ *            intermediate type
+ * @param <B>
+ *            target type
+ */
+public class ChainedConverter< A, I, B > implements Converter< A, B >
+{
+	private final Converter< ? super A, ? super I > first;
+
+	private final Converter< ? super I, ? super B > second;
+
+	private final Supplier< ? extends I > intermediateSupplier;
+
+	private final I intermediate;
+
+	/**
+	 * @param first
+	 *            converter applied first, from {@code A} into the intermediate
+	 * @param second
+	 *            converter applied second, from the intermediate into
+	 *            {@code B}
+	 * @param intermediateSupplier
+	 *            creates intermediate objects, called once per instance
+	 */
+	public ChainedConverter(
+			final Converter< ? super A, ? super I > first,
+			final Converter< ? super I, ? super B > second,
+			final Supplier< ? extends I > intermediateSupplier )
+	{
+		this.first = first;
+		this.second = second;
+		this.intermediateSupplier = intermediateSupplier;
+		this.intermediate = intermediateSupplier.get();
+	}
+
+	@Override
+	public void convert( final A input, final B output )
+	{
+		first.convert( input, intermediate );
+		second.convert( intermediate, output );
+	}
+
+	public Converter< ? super A, ? super I > getFirst()
+	{
+		return first;
+	}
+
+	public Converter< ? super I, ? super B > getSecond()
+	{
+		return second;
+	}
+
+	/**
+	 * Create a {@link ChainedConverter} with the same converters and its own
+	 * intermediate object. Nested {@link ChainedConverter ChainedConverters}
+	 * are copied as well.
+	 */
+	public ChainedConverter< A, I, B > copy()
+	{
+		return new ChainedConverter<>( copyIfChained( first ), copyIfChained( second ), intermediateSupplier );
+	}
+
+	/**
+	 * Returns an independent copy of {@code converter} if it is a
+	 * {@link ChainedConverter}, and {@code converter} itself otherwise.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public static < A, B > Converter< A, B > copyIfChained( final Converter< A, B > converter )
+	{
+		if ( converter instanceof ChainedConverter )
+			return ( ( ChainedConverter< A, ?, B > ) converter ).copy();
+		return converter;
+	}
+}
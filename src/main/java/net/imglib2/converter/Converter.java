@@ -34,10 +34,31 @@
 
 package net.imglib2.converter;
 
+import java.util.function.Supplier;
+
 /**
  * @author Stephan Preibisch
  */
 public interface Converter< A, B >
 {
 	public void convert( A input, B output );
+
+	/**
+	 * Returns a {@link Converter} that first applies this converter and then
+	 * {@code after}, passing the value through an intermediate object
+	 * created by {@code intermediate}.
+	 * <p>
+	 * The returned converter holds the intermediate object and must not be
+	 * used concurrently. Use {@link ChainedConverter#copy()} to obtain
+	 * independent instances.
+	 *
+	 * @param after
+	 *            converter applied to the output of this converter
+	 * @param intermediate
+	 *            creates the intermediate object
+	 */
+	default < C > ChainedConverter< A, B, C > andThen( final Converter< ? super B, ? super C > after, final Supplier< ? extends B > intermediate )
+	{
+		return new ChainedConverter<>( this, after, intermediate );
+	}
 }
@@ -91,7 +91,7 @@ public class Converters
 	 *         RandomAccesses} perform on-the-fly value conversion using the
 	 *         provided converter.
 	 */
-	@SuppressWarnings( "unchecked" )
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	final static public < A, B extends Type< B > > RandomAccessible< B > convert(
 			final RandomAccessible< A > source,
 			final Converter< ? super A, ? super B > converter,
@@ -99,6 +99,16 @@ public class Converters
 	{
 		if ( TypeIdentity.class.isInstance( converter ) )
 			return ( RandomAccessible< B > ) source;
+		if ( source instanceof ConvertedRandomAccessible )
+		{
+			final ConvertedRandomAccessible< ?, ? > c = ( ConvertedRandomAccessible< ?, ? > ) source;
+			return new ConvertedRandomAccessible<>( c.getSource(), chain( ( Converter ) c.getConverter(), c.getDestinationType()::copy, ( Converter ) converter ), b );
+		}
+		if ( source instanceof ConvertedRandomAccessibleInterval )
+		{
+			final ConvertedRandomAccessibleInterval< ?, ? > c = ( ConvertedRandomAccessibleInterval< ?, ? > ) source;
+			return new ConvertedRandomAccessible<>( c.getSource(), chain( ( Converter ) c.getConverter(), c.getDestinationType()::copy, ( Converter ) converter ), b );
+		}
 		return new ConvertedRandomAccessible<>( source, converter, b );
 	}
 
@@ -133,7 +143,7 @@ public class Converters
 	 *         {@link RandomAccess RandomAccesses} perform on-the-fly value
 	 *         conversion using the provided converter.
 	 */
-	@SuppressWarnings( "unchecked" )
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	final static public < A, B extends Type< B > > RandomAccessibleInterval< B > convert(
 			final RandomAccessibleInterval< A > source,
 			final Converter< ? super A, ? super B > converter,
@@ -141,6 +151,11 @@ public class Converters
 	{
 		if ( TypeIdentity.class.isInstance( converter ) )
 			return ( RandomAccessibleInterval< B > ) source;
+		if ( source instanceof ConvertedRandomAccessibleInterval )
+		{
+			final ConvertedRandomAccessibleInterval< ?, ? > c = ( ConvertedRandomAccessibleInterval< ?, ? > ) source;
+			return new ConvertedRandomAccessibleInterval<>( c.getSource(), chain( ( Converter ) c.getConverter(), c.getDestinationType()::copy, ( Converter ) converter ), b );
+		}
 		return new ConvertedRandomAccessibleInterval<>( source, converter, b );
 	}
 
@@ -174,7 +189,7 @@ public class Converters
 	 * @return a converted {@link IterableInterval} whose {@link Cursor Cursors}
 	 *         perform on-the-fly value conversion using the provided converter.
 	 */
-	@SuppressWarnings( "unchecked" )
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	final static public < A, B extends Type< B > > IterableInterval< B > convert(
 			final IterableInterval< A > source,
 			final Converter< ? super A, ? super B > converter,
@@ -182,6 +197,11 @@ public class Converters
 	{
 		if ( TypeIdentity.class.isInstance( converter ) )
 			return ( IterableInterval< B > ) source;
+		if ( source instanceof ConvertedIterableInterval )
+		{
+			final ConvertedIterableInterval< ?, ? > c = ( ConvertedIterableInterval< ?, ? > ) source;
+			return new ConvertedIterableInterval<>( c.getSource(), chain( ( Converter ) c.getConverter(), c.getDestinationType()::copy, ( Converter ) converter ), b );
+		}
 		return new ConvertedIterableInterval<>( source, converter, b );
 	}
 
@@ -235,7 +255,7 @@ public class Converters
 	 *         {@link RealRandomAccess RealRandomAccesses} perform on-the-fly value
 	 *         conversion using the provided converter.
 	 */
-	@SuppressWarnings( "unchecked" )
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	final static public < A, B extends Type< B > > RealRandomAccessibleRealInterval< B > convert(
 			final RealRandomAccessibleRealInterval< A > source,
 			final  Converter< ? super A, ? super B > converter,
@@ -243,6 +263,11 @@ public class Converters
 	{
 		if ( TypeIdentity.class.isInstance( converter ) )
 			return ( RealRandomAccessibleRealInterval< B > ) source;
+		if ( source instanceof ConvertedRealRandomAccessibleRealInterval )
+		{
+			final ConvertedRealRandomAccessibleRealInterval< ?, ? > c = ( ConvertedRealRandomAccessibleRealInterval< ?, ? > ) source;
+			return new ConvertedRealRandomAccessibleRealInterval<>( c.getSource(), chain( ( Converter ) c.getConverter(), c.getDestinationType()::copy, ( Converter ) converter ), b );
+		}
 		return new ConvertedRealRandomAccessibleRealInterval<>( source, converter, b );
 	}
 
@@ -259,7 +284,7 @@ public class Converters
 	 *         RealRandomAccesses} perform on-the-fly value conversion using the
 	 *         provided converter.
 	 */
-	@SuppressWarnings( "unchecked" )
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	final static public < A, B extends Type< B > > RealRandomAccessible< B > convert(
 			final RealRandomAccessible< A > source,
 			final  Converter< ? super A, ? super B > converter,
@@ -267,9 +292,32 @@ public class Converters
 	{
 		if ( TypeIdentity.class.isInstance( converter ) )
 			return ( RealRandomAccessible< B > ) source;
+		if ( source instanceof ConvertedRealRandomAccessible )
+		{
+			final ConvertedRealRandomAccessible< ?, ? > c = ( ConvertedRealRandomAccessible< ?, ? > ) source;
+			return new ConvertedRealRandomAccessible<>( c.getSource(), chain( ( Converter ) c.getConverter(), c.getDestinationType()::copy, ( Converter ) converter ), b );
+		}
+		if ( source instanceof ConvertedRealRandomAccessibleRealInterval )
+		{
+			final ConvertedRealRandomAccessibleRealInterval< ?, ? > c = ( ConvertedRealRandomAccessibleRealInterval< ?, ? > ) source;
+			return new ConvertedRealRandomAccessible<>( c.getSource(), chain( ( Converter ) c.getConverter(), c.getDestinationType()::copy, ( Converter ) converter ), b );
+		}
 		return new ConvertedRealRandomAccessible<>( source, converter, b );
 	}
 
+	/**
+	 * Fuse the converter of a converted source with {@code second}, so that
+	 * converting a converted source does not stack another wrapper on top of
+	 * it.
+	 */
+	private static < A, I, B > Converter< A, B > chain(
+			final Converter< ? super A, ? super I > first,
+			final Supplier< ? extends I > intermediate,
+			final Converter< ? super I, ? super B > second )
+	{
+		return new ChainedConverter<>( first, second, intermediate );
+	}
+
 	/**
 	 * Create a {@link WriteConvertedRandomAccessibleInterval} to one of the
 	 * four channels encoded in a {@link RandomAccessibleInterval} of
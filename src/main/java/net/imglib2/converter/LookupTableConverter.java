@@ -0,0 +1,172 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.converter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.imglib2.display.AbstractLinearRange;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+
+/**
+ * Base class for {@link Converter Converters} that map a {@link RealType}
+ * through a linear range into an {@code int} encoded output value.
+ * <p>
+ * For {@link UnsignedByteType} and {@link UnsignedShortType} inputs, the
+ * mapping of all possible input values is precomputed into a lookup table
+ * and conversion is a single array access. The tables are computed lazily
+ * and discarded whenever min or max change, or when a subclass calls
+ * {@link #invalidate()} because other parameters of its mapping changed.
+ * Tables are tagged with the parameter version they were computed for, so
+ * converters can be shared between threads while parameters change.
+ * Inputs of any other type are mapped directly.
+ *
+ * @param <R>
+ *            input type
+ * @param <B>
+ *            output type
+ */
+public abstract class LookupTableConverter< R extends RealType< ? >, B > extends AbstractLinearRange implements Converter< R, B >
+{
+	/**
+	 * A lookup table and the {@link #version} of the mapping parameters it
+	 * was computed for.
+	 */
+	private static final class Table
+	{
+		final int version;
+
+		final int[] lut;
+
+		Table( final int version, final int[] lut )
+		{
+			this.version = version;
+			this.lut = lut;
+		}
+	}
+
+	/**
+	 * Incremented whenever the mapping parameters change. A table is only
+	 * used while its version is current, so a table that was computed
+	 * concurrently with a parameter change is never used afterwards.
+	 */
+	private final AtomicInteger version = new AtomicInteger();
+
+	private volatile Table lut8 = null;
+
+	private volatile Table lut16 = null;
+
+	public LookupTableConverter()
+	{
+		super();
+	}
+
+	public LookupTableConverter( final double min, final double max )
+	{
+		super( min, max );
+	}
+
+	/**
+	 * Map {@code value} to the {@code int} encoded output.
+	 */
+	protected abstract int map( double value );
+
+	/**
+	 * Store the {@code int} encoded output {@code value} into {@code output}.
+	 */
+	protected abstract void set( int value, B output );
+
+	@Override
+	public void convert( final R input, final B output )
+	{
+		if ( input instanceof UnsignedByteType )
+			set( lut8()[ ( ( UnsignedByteType ) input ).get() ], output );
+		else if ( input instanceof UnsignedShortType )
+			set( lut16()[ ( ( UnsignedShortType ) input ).get() ], output );
+		else
+			set( map( input.getRealDouble() ), output );
+	}
+
+	@Override
+	public void setMin( final double min )
+	{
+		super.setMin( min );
+		invalidate();
+	}
+
+	@Override
+	public void setMax( final double max )
+	{
+		super.setMax( max );
+		invalidate();
+	}
+
+	/**
+	 * Discard the lookup tables. They will be recomputed on next use. Call
+	 * this after the parameters of the mapping changed.
+	 */
+	protected void invalidate()
+	{
+		version.incrementAndGet();
+	}
+
+	private int[] lut8()
+	{
+		final int v = version.get();
+		Table table = lut8;
+		if ( table == null || table.version != v )
+			lut8 = table = new Table( v, createTable( 1 << 8 ) );
+		return table.lut;
+	}
+
+	private int[] lut16()
+	{
+		final int v = version.get();
+		Table table = lut16;
+		if ( table == null || table.version != v )
+			lut16 = table = new Table( v, createTable( 1 << 16 ) );
+		return table.lut;
+	}
+
+	private int[] createTable( final int size )
+	{
+		final int[] lut = new int[ size ];
+		for ( int i = 0; i < size; ++i )
+			lut[ i ] = map( i );
+		return lut;
+	}
+}
@@ -34,7 +34,6 @@
 
 package net.imglib2.converter;
 
-import net.imglib2.display.AbstractLinearRange;
 import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.type.numeric.RealType;
 
@@ -43,7 +42,7 @@ import net.imglib2.type.numeric.RealType;
  * @author Stephan Saalfeld
  * @author Philipp Hanslovsky
  */
-public class RealARGBConverter< R extends RealType< ? > > extends AbstractLinearRange implements Converter< R, ARGBType >
+public class RealARGBConverter< R extends RealType< ? > > extends LookupTableConverter< R, ARGBType >
 {
 
 	private int alpha = 0xff000000;
@@ -59,17 +58,22 @@ public class RealARGBConverter< R extends RealType< ? > > extends AbstractLinear
 	}
 
 	@Override
-	public void convert( final R input, final ARGBType output )
+	protected int map( final double a )
 	{
-		final double a = input.getRealDouble();
 		final int b = Math.min( 255, roundPositive( Math.max( 0, ( a - min ) / scale * 255.0 ) ) );
-		final int argb = this.alpha | ( b << 8 | b ) << 8 | b;
+		return this.alpha | ( b << 8 | b ) << 8 | b;
+	}
+
+	@Override
+	protected void set( final int argb, final ARGBType output )
+	{
 		output.set( argb );
 	}
 
 	public void setAlpha( final int alpha )
 	{
 		this.alpha = ( alpha & 0xff ) << 24;
+		invalidate();
 	}
 
 	public int getAlpha()
@@ -34,7 +34,6 @@
 
 package net.imglib2.converter;
 
-import net.imglib2.display.AbstractLinearRange;
 import net.imglib2.display.ColorTable;
 import net.imglib2.display.ColorTable8;
 import net.imglib2.display.projector.composite.CompositeXYProjector;
@@ -44,6 +43,8 @@ import net.imglib2.type.numeric.RealType;
 /**
  * RealLUTConverter contains a {@link ColorTable8}, through which samples are
  * filtered. Input values are interpreted as indices into the color table.
+ * Changes to the contents of the color table are not detected; call
+ * {@link #colorTableChanged()} after modifying it.
  * 
  * @see CompositeXYProjector
  * @see RealARGBConverter for the code upon which this class was based.
@@ -53,7 +54,7 @@ import net.imglib2.type.numeric.RealType;
  * @author Curtis Rueden
  */
 public class RealLUTConverter< R extends RealType< R >> extends
-		AbstractLinearRange implements Converter< R, ARGBType >
+		LookupTableConverter< R, ARGBType >
 {
 
 	private ColorTable lut = null;
@@ -78,13 +79,27 @@ public class RealLUTConverter< R extends RealType< R >> extends
 	public void setLUT( final ColorTable lut )
 	{
 		this.lut = lut == null ? new ColorTable8() : lut;
+		invalidate();
+	}
+
+	/**
+	 * Recompute the lookup tables after the contents of the color table
+	 * changed.
+	 */
+	public void colorTableChanged()
+	{
+		invalidate();
+	}
+
+	@Override
+	protected int map( final double a )
+	{
+		return lut.lookupARGB( min, max, a );
 	}
 
 	@Override
-	public void convert( final R input, final ARGBType output )
+	protected void set( final int argb, final ARGBType output )
 	{
-		final double a = input.getRealDouble();
-		final int argb = lut.lookupARGB( min, max, a );
 		output.set( argb );
 	}
 
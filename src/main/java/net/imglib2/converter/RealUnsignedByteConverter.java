@@ -34,7 +34,6 @@
 
 package net.imglib2.converter;
 
-import net.imglib2.display.AbstractLinearRange;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 
@@ -43,7 +42,7 @@ import net.imglib2.type.numeric.integer.UnsignedByteType;
  * 
  * @author Stephan Saalfeld
  */
-public class RealUnsignedByteConverter< R extends RealType< R > > extends AbstractLinearRange implements Converter< R, UnsignedByteType >
+public class RealUnsignedByteConverter< R extends RealType< R > > extends LookupTableConverter< R, UnsignedByteType >
 {
 	public RealUnsignedByteConverter()
 	{
@@ -56,9 +55,14 @@ public class RealUnsignedByteConverter< R extends RealType< R > > extends Abstra
 	}
 
 	@Override
-	public void convert( final R input, final UnsignedByteType output )
+	protected int map( final double a )
 	{
-		final double a = input.getRealDouble();
-		output.set( Math.min( 255, roundPositive( Math.max( 0, ( ( a - min ) / scale * 255.0 ) ) ) ) );
+		return Math.min( 255, roundPositive( Math.max( 0, ( ( a - min ) / scale * 255.0 ) ) ) );
+	}
+
+	@Override
+	protected void set( final int value, final UnsignedByteType output )
+	{
+		output.set( value );
 	}
 }
@@ -36,6 +36,7 @@ package net.imglib2.converter.read;
 
 import net.imglib2.RealRandomAccess;
 import net.imglib2.converter.AbstractConvertedRealRandomAccess;
+import net.imglib2.converter.ChainedConverter;
 import net.imglib2.converter.Converter;
 import net.imglib2.type.Type;
 
@@ -52,7 +53,7 @@ final public class ConvertedRealRandomAccess< A, B extends Type< B > > extends A
 	public ConvertedRealRandomAccess( final RealRandomAccess< A > source, final Converter< ? super A, ? super B > converter, final B b )
 	{
 		super( source );
-		this.converter = converter;
+		this.converter = ChainedConverter.copyIfChained( converter );
 		this.converted = b.copy();
 	}
 
@@ -33,9 +33,17 @@
  */
 package net.imglib2.display.projector;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
 import net.imglib2.Point;
+import net.imglib2.converter.ChainedConverter;
+import net.imglib2.converter.Converter;
 import net.imglib2.display.projector.sampler.SamplingProjector2D;
 import net.imglib2.display.projector.specialized.ArrayImgXYByteProjector;
+import net.imglib2.util.Tasks;
 
 /**
  * Base class for 2D projectors. Projecting means in this case projecting from a
@@ -47,6 +55,15 @@ import net.imglib2.display.projector.specialized.ArrayImgXYByteProjector;
  * point to project data into a 2 dimensional representation. <br>
  * A basic example is the extraction of a data plain (containing the reference
  * point) by sampling two axes
+ * <p>
+ * Projectors that support it split the target into horizontal stripes that
+ * are rendered in parallel if an {@link ExecutorService} is set (see
+ * {@link #setExecutorService(ExecutorService, int)}). Each stripe needs its
+ * own {@link Converter}, so stripes are only rendered in parallel if the
+ * converter can be copied (see {@link #copySupplier(Converter)}) or a
+ * converter {@link Supplier} was given. A running {@link #map()} can be
+ * aborted with {@link #cancel()}.
+ * </p>
  * 
  * @author Michael Zinsmaier
  * @author Martin Horn
@@ -58,6 +75,22 @@ public abstract class AbstractProjector2D extends Point implements Projector
 
 	protected final long[] max;
 
+	/**
+	 * Renders stripes in parallel, or {@code null} to render in the calling
+	 * thread.
+	 */
+	protected ExecutorService executorService = null;
+
+	/**
+	 * Number of stripes to split the target into if
+	 * {@link #executorService} is set.
+	 */
+	protected int numTasks = 1;
+
+	protected volatile boolean canceled = false;
+
+	private volatile boolean lastCanceled = false;
+
 	/**
 	 * initializes a reference point with the specified number of dimensions.
 	 * Start position is 0,0,...,0
@@ -74,4 +107,134 @@ public abstract class AbstractProjector2D extends Point implements Projector
 		max = new long[ n ];
 	}
 
+	/**
+	 * Render stripes of the target in parallel on {@code service}. This has
+	 * no effect unless each stripe can get its own converter, i.e. the
+	 * converters can be copied (see {@link #copySupplier(Converter)}) or the
+	 * projector was created with converter {@link Supplier Suppliers}.
+	 * Otherwise the target is rendered as a single stripe.
+	 *
+	 * @param service
+	 *            the executor, {@code null} to render in the calling thread
+	 * @param numTasks
+	 *            number of stripes to split the target into
+	 */
+	public void setExecutorService( final ExecutorService service, final int numTasks )
+	{
+		this.executorService = service;
+		this.numTasks = Math.max( 1, numTasks );
+	}
+
+	/**
+	 * Abort the current {@link #map()}, or the next one if none is running.
+	 * The target is left partially rendered.
+	 */
+	public void cancel()
+	{
+		canceled = true;
+	}
+
+	/**
+	 * @return whether the last {@link #map()} was canceled, or
+	 *         {@link #cancel()} was called since.
+	 */
+	public boolean isCanceled()
+	{
+		return canceled || lastCanceled;
+	}
+
+	/**
+	 * Finish a {@link #map()}: remember whether it was canceled for
+	 * {@link #isCanceled()} and clear {@link #canceled} for the next one.
+	 */
+	protected void endMap()
+	{
+		lastCanceled = canceled;
+		canceled = false;
+	}
+
+	/**
+	 * @return a {@link Supplier} of independent copies of {@code converter} if
+	 *         it is a {@link ChainedConverter}, {@code null} otherwise.
+	 */
+	protected static < A, B > Supplier< Converter< A, B > > copySupplier( final Converter< A, B > converter )
+	{
+		if ( converter instanceof ChainedConverter )
+			return () -> ChainedConverter.copyIfChained( converter );
+		return null;
+	}
+
+	/**
+	 * Renders rows [{@code yMin}, {@code yMax}) (relative to the target min)
+	 * of the target. Implementations should return early if
+	 * {@link #canceled} is set.
+	 */
+	@FunctionalInterface
+	protected interface StripeMapper
+	{
+		void map( long yMin, long yMax );
+	}
+
+	/**
+	 * Render a target of the given height as stripes, in parallel if
+	 * {@link #executorService} is set, and {@link #endMap() end} the map.
+	 */
+	protected void mapStripes( final long height, final StripeMapper mapper )
+	{
+		mapStripes( height, true, mapper );
+	}
+
+	/**
+	 * Render a target of the given height as stripes, in parallel if
+	 * {@code parallel} and {@link #executorService} is set, and
+	 * {@link #endMap() end} the map.
+	 */
+	protected void mapStripes( final long height, final boolean parallel, final StripeMapper mapper )
+	{
+		try
+		{
+			final int numStripes = ( int ) Math.min( height, executorService == null || !parallel ? 1 : numTasks );
+			if ( numStripes <= 1 )
+			{
+				mapper.map( 0, height );
+				return;
+			}
+
+			final List< Runnable > tasks = new ArrayList<>( numStripes );
+			for ( int i = 0; i < numStripes; ++i )
+			{
+				final long yMin = height * i / numStripes;
+				final long yMax = height * ( i + 1 ) / numStripes;
+				tasks.add( () -> mapper.map( yMin, yMax ) );
+			}
+			runTasks( tasks );
+		}
+		finally
+		{
+			endMap();
+		}
+	}
+
+	/**
+	 * Run independent tasks on {@link #executorService}, or in the calling
+	 * thread if it is not set, and wait for all of them to finish. Sets
+	 * {@link #canceled} if interrupted or if a task fails.
+	 */
+	protected void runTasks( final List< Runnable > tasks )
+	{
+		try
+		{
+			Tasks.runInterruptibly( tasks, executorService );
+		}
+		catch ( final InterruptedException e )
+		{
+			canceled = true;
+			Thread.currentThread().interrupt();
+		}
+		catch ( final RuntimeException | Error e )
+		{
+			canceled = true;
+			throw e;
+		}
+	}
 }
@@ -33,6 +33,8 @@
  */
 package net.imglib2.display.projector;
 
+import java.util.function.Supplier;
+
 import net.imglib2.Cursor;
 import net.imglib2.FinalInterval;
 import net.imglib2.FlatIterationOrder;
@@ -65,6 +67,12 @@ public class IterableIntervalProjector2D< A, B > extends AbstractProjector2D
 {
 	final protected Converter< ? super A, B > converter;
 
+	/**
+	 * Creates a converter per stripe, {@code null} if {@link #converter}
+	 * cannot be copied and stripes are rendered sequentially.
+	 */
+	final protected Supplier< ? extends Converter< ? super A, B > > converterSupplier;
+
 	final protected RandomAccessible< A > source;
 
 	final protected IterableInterval< B > target;
@@ -95,9 +103,44 @@ public class IterableIntervalProjector2D< A, B > extends AbstractProjector2D
 		this.target = target;
 		this.source = source;
 		this.converter = converter;
+		this.converterSupplier = copySupplier( converter );
+		this.numDimensions = source.numDimensions();
+	}
+
+	/**
+	 * creates a new 2D projector that samples a plain in the dimensions dimX,
+	 * dimY, and renders stripes in parallel with converters created by
+	 * {@code converterSupplier}.
+	 *
+	 * @param dimX
+	 * @param dimY
+	 * @param source
+	 * @param target
+	 * @param converterSupplier
+	 *            creates independent converters that are applied to each
+	 *            point in the plain
+	 */
+	public IterableIntervalProjector2D( final int dimX, final int dimY, final RandomAccessible< A > source, final IterableInterval< B > target, final Supplier< ? extends Converter< ? super A, B > > converterSupplier )
+	{
+		super( source.numDimensions() );
+		this.dimX = dimX;
+		this.dimY = dimY;
+		this.target = target;
+		this.source = source;
+		this.converter = converterSupplier.get();
+		this.converterSupplier = converterSupplier;
 		this.numDimensions = source.numDimensions();
 	}
 
+	/**
+	 * @return a converter for one stripe: a new one from
+	 *         {@link #converterSupplier} if set, {@link #converter} otherwise.
+	 */
+	protected Converter< ? super A, B > stripeConverter()
+	{
+		return converterSupplier == null ? converter : converterSupplier.get();
+	}
+
 	/**
 	 * projects data from the source to the target and applies the former
 	 * specified {@link Converter} e.g. for normalization.
@@ -118,60 +161,76 @@ public class IterableIntervalProjector2D< A, B > extends AbstractProjector2D
 		// order fits in the case of one sized dims. Tobi?
 		final IterableInterval< A > ii = Views.iterable( Views.interval( source, new FinalInterval( min, max ) ) );
 
-		final Cursor< A > sourceCursor = ii.cursor();
+		final long width = target.dimension( 0 );
+		final long height = target.dimension( 1 );
+		final boolean flat = target.iterationOrder() instanceof FlatIterationOrder;
 
-		if ( target.iterationOrder().equals( ii.iterationOrder() ) && !( sourceCursor instanceof RandomAccessibleIntervalCursor ) )
+		if ( target.iterationOrder().equals( ii.iterationOrder() ) && !( ii.cursor() instanceof RandomAccessibleIntervalCursor ) )
 		{
-			final Cursor< B > targetCursor = target.cursor();
-			while ( targetCursor.hasNext() )
-			{
-				converter.convert( sourceCursor.next(), targetCursor.next() );
-			}
+			// stripes can only be located in flat iteration order
+			mapStripes( flat ? height : 1, converterSupplier != null, ( yMin, yMax ) -> {
+				final Converter< ? super A, B > stripeConverter = stripeConverter();
+				final Cursor< A > sourceCursor = ii.cursor();
+				final Cursor< B > targetCursor = target.cursor();
+				final long size = flat ? width * ( yMax - yMin ) : target.size();
+				sourceCursor.jumpFwd( yMin * width );
+				targetCursor.jumpFwd( yMin * width );
+				for ( long i = 0; i < size; ++i )
+				{
+					if ( i % width == 0 && canceled )
+						return;
+					stripeConverter.convert( sourceCursor.next(), targetCursor.next() );
+				}
+			} );
 		}
-		else if ( target.iterationOrder() instanceof FlatIterationOrder )
+		else if ( flat )
 		{
-			final Cursor< B > targetCursor = target.cursor();
-			targetCursor.fwd();
 			final FinalInterval sourceInterval = new FinalInterval( min, max );
-
-			// use localizing cursor
-			final RandomAccess< A > sourceRandomAccess = source.randomAccess( sourceInterval );
-			sourceRandomAccess.setPosition( position );
-
 			final long cr = -target.dimension( 0 );
 
-			final long width = target.dimension( 0 );
-			final long height = target.dimension( 1 );
+			mapStripes( height, converterSupplier != null, ( yMin, yMax ) -> {
+				final Converter< ? super A, B > stripeConverter = stripeConverter();
+				final Cursor< B > targetCursor = target.cursor();
+				targetCursor.jumpFwd( yMin * width + 1 );
 
-			sourceRandomAccess.setPosition( min );
-			for ( long y = 0; y < height; ++y )
-			{
-				for ( long x = 0; x < width; ++x )
+				// use localizing cursor
+				final RandomAccess< A > sourceRandomAccess = source.randomAccess( sourceInterval );
+				sourceRandomAccess.setPosition( min );
+				sourceRandomAccess.move( yMin, dimY );
+				for ( long y = yMin; y < yMax; ++y )
 				{
-					converter.convert( sourceRandomAccess.get(), targetCursor.get() );
-					sourceRandomAccess.fwd( dimX );
-					targetCursor.fwd();
+					if ( canceled )
+						return;
+					for ( long x = 0; x < width; ++x )
+					{
+						stripeConverter.convert( sourceRandomAccess.get(), targetCursor.get() );
+						sourceRandomAccess.fwd( dimX );
+						targetCursor.fwd();
+					}
+					sourceRandomAccess.move( cr, dimX );
+					sourceRandomAccess.fwd( dimY );
 				}
-				sourceRandomAccess.move( cr, dimX );
-				sourceRandomAccess.fwd( dimY );
-			}
-
+			} );
 		}
 		else
 		{
-			final Cursor< B > targetCursor = target.localizingCursor();
-			
-			// use localizing cursor
-			final RandomAccess< A > sourceRandomAccess = source.randomAccess();
-			sourceRandomAccess.setPosition( position );
-			while ( targetCursor.hasNext() )
-			{
-				final B b = targetCursor.next();
-				sourceRandomAccess.setPosition( targetCursor.getLongPosition( 0 ), dimX );
-				sourceRandomAccess.setPosition( targetCursor.getLongPosition( 1 ), dimY );
-
-				converter.convert( sourceRandomAccess.get(), b );
-			}
+			mapStripes( 1, ( yMin, yMax ) -> {
+				final Cursor< B > targetCursor = target.localizingCursor();
+
+				// use localizing cursor
+				final RandomAccess< A > sourceRandomAccess = source.randomAccess();
+				sourceRandomAccess.setPosition( position );
+				for ( long i = 0; targetCursor.hasNext(); ++i )
+				{
+					if ( i % width == 0 && canceled )
+						return;
+					final B b = targetCursor.next();
+					sourceRandomAccess.setPosition( targetCursor.getLongPosition( 0 ), dimX );
+					sourceRandomAccess.setPosition( targetCursor.getLongPosition( 1 ), dimY );
+
+					converter.convert( sourceRandomAccess.get(), b );
+				}
+			} );
 		}
 	}
 }
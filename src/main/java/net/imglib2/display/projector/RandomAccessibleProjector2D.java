@@ -33,6 +33,8 @@
  */
 package net.imglib2.display.projector;
 
+import java.util.function.Supplier;
+
 import net.imglib2.FinalInterval;
 import net.imglib2.FlatIterationOrder;
 import net.imglib2.IterableInterval;
@@ -68,6 +70,12 @@ public class RandomAccessibleProjector2D< A, B > extends AbstractProjector2D
 
 	final protected Converter< ? super A, B > converter;
 
+	/**
+	 * Creates a converter per stripe, {@code null} if {@link #converter}
+	 * cannot be copied and stripes are rendered sequentially.
+	 */
+	final protected Supplier< ? extends Converter< ? super A, B > > converterSupplier;
+
 	final protected RandomAccessibleInterval< B > target;
 
 	final protected RandomAccessible< A > source;
@@ -102,6 +110,32 @@ public class RandomAccessibleProjector2D< A, B > extends AbstractProjector2D
 		this.target = target;
 		this.source = source;
 		this.converter = converter;
+		this.converterSupplier = copySupplier( converter );
+		this.numDimensions = source.numDimensions();
+	}
+
+	/**
+	 * creates a new 2D projector that samples a plain in the dimensions dimX,
+	 * dimY, and renders stripes in parallel with converters created by
+	 * {@code converterSupplier}.
+	 *
+	 * @param dimX
+	 * @param dimY
+	 * @param source
+	 * @param target
+	 * @param converterSupplier
+	 *            creates independent converters that are applied to each
+	 *            point in the plain
+	 */
+	public RandomAccessibleProjector2D( final int dimX, final int dimY, final RandomAccessible< A > source, final RandomAccessibleInterval< B > target, final Supplier< ? extends Converter< ? super A, B > > converterSupplier )
+	{
+		super( source.numDimensions() );
+		this.dimX = dimX;
+		this.dimY = dimY;
+		this.target = target;
+		this.source = source;
+		this.converter = converterSupplier.get();
+		this.converterSupplier = converterSupplier;
 		this.numDimensions = source.numDimensions();
 	}
 
@@ -123,27 +157,33 @@ public class RandomAccessibleProjector2D< A, B > extends AbstractProjector2D
 
 		final long cr = -target.dimension( dimX );
 
-		final RandomAccess< B > targetRandomAccess = target.randomAccess( target );
-		final RandomAccess< A > sourceRandomAccess = source.randomAccess( sourceInterval );
-
 		final long width = target.dimension( dimX );
 		final long height = target.dimension( dimY );
 
-		sourceRandomAccess.setPosition( min );
-		targetRandomAccess.setPosition( min[ dimX ], dimX );
-		targetRandomAccess.setPosition( min[ dimY ], dimY );
-		for ( long y = 0; y < height; ++y )
-		{
-			for ( long x = 0; x < width; ++x )
+		mapStripes( height, converterSupplier != null, ( yMin, yMax ) -> {
+			final Converter< ? super A, B > stripeConverter = converterSupplier == null ? converter : converterSupplier.get();
+			final RandomAccess< B > targetRandomAccess = target.randomAccess( target );
+			final RandomAccess< A > sourceRandomAccess = source.randomAccess( sourceInterval );
+
+			sourceRandomAccess.setPosition( min );
+			sourceRandomAccess.move( yMin, dimY );
+			targetRandomAccess.setPosition( min[ dimX ], dimX );
+			targetRandomAccess.setPosition( min[ dimY ] + yMin, dimY );
+			for ( long y = yMin; y < yMax; ++y )
 			{
-				converter.convert( sourceRandomAccess.get(), targetRandomAccess.get() );
-				sourceRandomAccess.fwd( dimX );
-				targetRandomAccess.fwd( dimX );
+				if ( canceled )
+					return;
+				for ( long x = 0; x < width; ++x )
+				{
+					stripeConverter.convert( sourceRandomAccess.get(), targetRandomAccess.get() );
+					sourceRandomAccess.fwd( dimX );
+					targetRandomAccess.fwd( dimX );
+				}
+				sourceRandomAccess.move( cr, dimX );
+				targetRandomAccess.move( cr, dimX );
+				sourceRandomAccess.fwd( dimY );
+				targetRandomAccess.fwd( dimY );
 			}
-			sourceRandomAccess.move( cr, dimX );
-			targetRandomAccess.move( cr, dimX );
-			sourceRandomAccess.fwd( dimY );
-			targetRandomAccess.fwd( dimY );
-		}
+		} );
 	}
 }
@@ -35,21 +35,27 @@
 package net.imglib2.display.projector.composite;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 import net.imglib2.Cursor;
 import net.imglib2.FinalInterval;
+import net.imglib2.FlatIterationOrder;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.converter.Converter;
 import net.imglib2.display.projector.AbstractProjector2D;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.IntArray;
 import net.imglib2.type.numeric.ARGBType;
 
 /**
  * Creates a composite image from across multiple dimensional positions along an
  * axis (typically, but not necessarily, channels). Each dimensional position
- * has its own {@link Converter}. The results of the conversions are summed into
- * the final value. Positions along the axis can be individually toggled for
+ * has its own {@link Converter}. The results of the conversions are combined
+ * into the final value according to the {@link CompositeMode}, by default they
+ * are summed. Positions along the axis can be individually toggled for
  * inclusion in the computed composite value using the {@link #setComposite}
  * methods.
  *
@@ -62,9 +68,29 @@ import net.imglib2.type.numeric.ARGBType;
  */
 public class CompositeXYProjector< A > extends AbstractProjector2D
 {
+	/**
+	 * How the converted ARGB values of the composited positions are combined.
+	 */
+	public enum CompositeMode
+	{
+		/** sum of each channel, clamped to 255 */
+		ADD,
+		/** maximum of each channel */
+		MAX,
+		/** each position is drawn over the previous ones by its alpha */
+		ALPHA_OVER
+	}
+
+	private CompositeMode compositeMode = CompositeMode.ADD;
 
 	private final ArrayList< Converter< A, ARGBType >> converters;
 
+	/**
+	 * creates independent copies of {@link #converters} for parallel
+	 * stripes, or {@code null}.
+	 */
+	private final List< ? extends Supplier< ? extends Converter< A, ARGBType > > > converterSuppliers;
+
 	private final int dimIndex;
 
 	private final long positionCount;
@@ -81,13 +107,28 @@ public class CompositeXYProjector< A > extends AbstractProjector2D
 
 	private final RandomAccessibleInterval< A > source;
 
-	@SuppressWarnings( "unchecked" )
 	public CompositeXYProjector( final RandomAccessibleInterval< A > source, final IterableInterval< ARGBType > target, final ArrayList< Converter< A, ARGBType >> converters, final int dimIndex )
+	{
+		this( source, target, converters, null, dimIndex );
+	}
+
+	/**
+	 * Creates a projector that renders stripes in parallel with converters
+	 * created by {@code converterSuppliers}, one per dimensional position.
+	 */
+	public CompositeXYProjector( final RandomAccessibleInterval< A > source, final IterableInterval< ARGBType > target, final List< ? extends Supplier< ? extends Converter< A, ARGBType > > > converterSuppliers, final int dimIndex )
+	{
+		this( source, target, get( converterSuppliers ), converterSuppliers, dimIndex );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private CompositeXYProjector( final RandomAccessibleInterval< A > source, final IterableInterval< ARGBType > target, final ArrayList< Converter< A, ARGBType >> converters, final List< ? extends Supplier< ? extends Converter< A, ARGBType > > > converterSuppliers, final int dimIndex )
 	{
 		super( source.numDimensions() );
 		this.source = source;
 		this.target = target;
 		this.converters = converters;
+		this.converterSuppliers = converterSuppliers;
 		this.dimIndex = dimIndex;
 
 		// check that there is one converter per dimensional position
@@ -102,6 +143,14 @@ public class CompositeXYProjector< A > extends AbstractProjector2D
 		currentConverters = new Converter[ converterCount ];
 	}
 
+	private static < A > ArrayList< Converter< A, ARGBType > > get( final List< ? extends Supplier< ? extends Converter< A, ARGBType > > > converterSuppliers )
+	{
+		final ArrayList< Converter< A, ARGBType > > converters = new ArrayList<>();
+		for ( final Supplier< ? extends Converter< A, ARGBType > > supplier : converterSuppliers )
+			converters.add( supplier.get() );
+		return converters;
+	}
+
 	// -- CompositeXYProjector methods --
 
 	/** Toggles the given position index's inclusion in composite values. */
@@ -137,6 +186,16 @@ public class CompositeXYProjector< A > extends AbstractProjector2D
 		return true;
 	}
 
+	public void setCompositeMode( final CompositeMode mode )
+	{
+		compositeMode = mode;
+	}
+
+	public CompositeMode getCompositeMode()
+	{
+		return compositeMode;
+	}
+
 	// -- Projector methods --
 
 	// private static long calls = 0;
@@ -182,41 +241,7 @@ public class CompositeXYProjector< A > extends AbstractProjector2D
 			return;
 		}
 
-		final Cursor< ARGBType > targetCursor = target.localizingCursor();
-		final ARGBType bi = new ARGBType();
-
-		while ( targetCursor.hasNext() )
-		{
-			targetCursor.fwd();
-			sourceRandomAccess.setPosition( targetCursor.getLongPosition( 0 ), 0 );
-			sourceRandomAccess.setPosition( targetCursor.getLongPosition( 1 ), 1 );
-			int aSum = 0, rSum = 0, gSum = 0, bSum = 0;
-			for ( int i = 0; i < size; i++ )
-			{
-				sourceRandomAccess.setPosition( currentPositions[ i ], dimIndex );
-				currentConverters[ i ].convert( sourceRandomAccess.get(), bi );
-
-				// accumulate converted result
-				final int value = bi.get();
-				final int a = ARGBType.alpha( value );
-				final int r = ARGBType.red( value );
-				final int g = ARGBType.green( value );
-				final int b = ARGBType.blue( value );
-				aSum += a;
-				rSum += r;
-				gSum += g;
-				bSum += b;
-			}
-			if ( aSum > 255 )
-				aSum = 255;
-			if ( rSum > 255 )
-				rSum = 255;
-			if ( gSum > 255 )
-				gSum = 255;
-			if ( bSum > 255 )
-				bSum = 255;
-			targetCursor.get().set( ARGBType.rgba( rSum, gSum, bSum, aSum ) );
-		}
+		mapLines( sourceRandomAccess, size, true );
 	}
 
 	// -- Helper methods --
@@ -265,13 +290,206 @@ public class CompositeXYProjector< A > extends AbstractProjector2D
 
 	protected void mapSingle( final RandomAccess< A > sourceRandomAccess, final Converter< A, ARGBType > conv )
 	{
-		final Cursor< ARGBType > targetCursor = target.localizingCursor();
-		while ( targetCursor.hasNext() )
+		currentConverters[ 0 ] = conv;
+		mapLines( sourceRandomAccess, 1, false );
+	}
+
+	/**
+	 * Render the target line by line. For each line, the first {@code size}
+	 * {@link #currentConverters} convert their channel into an
+	 * <code>int[]</code> buffer, then the buffers are blended according to
+	 * {@link #getCompositeMode()}. If the target is an {@link ArrayImg} backed
+	 * by an {@link IntArray} (e.g. an ARGBScreenImage), the result is copied
+	 * directly into its storage array. Lines consist of a single pixel if the
+	 * target is not in {@link FlatIterationOrder}.
+	 *
+	 * @param sourceRandomAccess
+	 *            access positioned in all dimensions but X and Y
+	 * @param size
+	 *            number of channels
+	 * @param setChannelPositions
+	 *            whether to position {@link #dimIndex} at
+	 *            {@link #currentPositions} for each channel
+	 */
+	private void mapLines( final RandomAccess< A > sourceRandomAccess, final int size, final boolean setChannelPositions )
+	{
+		final boolean flat = target.iterationOrder() instanceof FlatIterationOrder;
+		final int width = ( int ) target.dimension( 0 );
+		final int lineLength = flat ? width : 1;
+		final int[] targetArray = targetStorage();
+		final CompositeMode mode = compositeMode;
+
+		final List< Supplier< ? extends Converter< A, ARGBType > > > suppliers = currentSuppliers( size );
+		mapStripes( numStripes(), suppliers != null, ( yMin, yMax ) -> {
+			final Cursor< ARGBType > targetCursor = target.localizingCursor();
+			final RandomAccess< A > stripeAccess = sourceRandomAccess.copyRandomAccess();
+			final Converter< A, ARGBType >[] stripeConverters = suppliers == null ? currentConverters : get( suppliers, size );
+			final ARGBType bi = new ARGBType();
+			final int[][] lines = new int[ size ][ lineLength ];
+			final int[] out = new int[ lineLength ];
+			final long numLines = stripeSize( yMin, yMax ) / lineLength;
+			targetCursor.jumpFwd( yMin * width );
+
+			for ( long l = 0; l < numLines; ++l )
+			{
+				if ( canceled )
+					return;
+				targetCursor.fwd();
+				final long x0 = targetCursor.getLongPosition( 0 );
+				stripeAccess.setPosition( targetCursor.getLongPosition( 1 ), 1 );
+				for ( int i = 0; i < size; ++i )
+				{
+					if ( setChannelPositions )
+						stripeAccess.setPosition( currentPositions[ i ], dimIndex );
+					stripeAccess.setPosition( x0, 0 );
+					final int[] line = lines[ i ];
+					final Converter< A, ARGBType > conv = stripeConverters[ i ];
+					for ( int x = 0; x < lineLength; ++x )
+					{
+						if ( x > 0 )
+							stripeAccess.fwd( 0 );
+						conv.convert( stripeAccess.get(), bi );
+						line[ x ] = bi.get();
+					}
+				}
+
+				blend( mode, lines, size, out );
+
+				if ( targetArray != null )
+				{
+					System.arraycopy( out, 0, targetArray, ( int ) ( ( yMin + l ) * width ), lineLength );
+					targetCursor.jumpFwd( lineLength - 1 );
+				}
+				else
+				{
+					targetCursor.get().set( out[ 0 ] );
+					for ( int x = 1; x < lineLength; ++x )
+						targetCursor.next().set( out[ x ] );
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Blend the first {@code size} channel lines into {@code out}.
+	 */
+	static void blend( final CompositeMode mode, final int[][] lines, final int size, final int[] out )
+	{
+		System.arraycopy( lines[ 0 ], 0, out, 0, out.length );
+		for ( int i = 1; i < size; ++i )
+		{
+			final int[] line = lines[ i ];
+			switch ( mode )
+			{
+			case MAX:
+				for ( int x = 0; x < out.length; ++x )
+				{
+					final int s = line[ x ];
+					final int d = out[ x ];
+					out[ x ] = Math.max( s >>> 24, d >>> 24 ) << 24
+							| Math.max( s & 0xff0000, d & 0xff0000 )
+							| Math.max( s & 0xff00, d & 0xff00 )
+							| Math.max( s & 0xff, d & 0xff );
+				}
+				break;
+			case ALPHA_OVER:
+				for ( int x = 0; x < out.length; ++x )
+				{
+					final int s = line[ x ];
+					final int d = out[ x ];
+					final int sa = s >>> 24;
+					final int da = 255 - sa;
+					final int a = sa + ( ( d >>> 24 ) * da + 127 ) / 255;
+					final int r = ( ( ( s >> 16 ) & 0xff ) * sa + ( ( d >> 16 ) & 0xff ) * da + 127 ) / 255;
+					final int g = ( ( ( s >> 8 ) & 0xff ) * sa + ( ( d >> 8 ) & 0xff ) * da + 127 ) / 255;
+					final int b = ( ( s & 0xff ) * sa + ( d & 0xff ) * da + 127 ) / 255;
+					out[ x ] = ( a << 24 ) | ( r << 16 ) | ( g << 8 ) | b;
+				}
+				break;
+			default:
+				for ( int x = 0; x < out.length; ++x )
+				{
+					final int s = line[ x ];
+					final int d = out[ x ];
+					final int a = Math.min( 255, ( s >>> 24 ) + ( d >>> 24 ) );
+					final int r = Math.min( 255, ( ( s >> 16 ) & 0xff ) + ( ( d >> 16 ) & 0xff ) );
+					final int g = Math.min( 255, ( ( s >> 8 ) & 0xff ) + ( ( d >> 8 ) & 0xff ) );
+					final int b = Math.min( 255, ( s & 0xff ) + ( d & 0xff ) );
+					out[ x ] = ( a << 24 ) | ( r << 16 ) | ( g << 8 ) | b;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the storage array of the target if it is an {@link ArrayImg}
+	 *         backed by an {@link IntArray}, {@code null} otherwise.
+	 */
+	private int[] targetStorage()
+	{
+		if ( target instanceof ArrayImg )
 		{
-			targetCursor.fwd();
-			sourceRandomAccess.setPosition( targetCursor.getLongPosition( 0 ), 0 );
-			sourceRandomAccess.setPosition( targetCursor.getLongPosition( 1 ), 1 );
-			conv.convert( sourceRandomAccess.get(), targetCursor.get() );
+			final Object access = ( ( ArrayImg< ?, ? > ) target ).update( null );
+			if ( access instanceof IntArray )
+				return ( ( IntArray ) access ).getCurrentStorageArray();
 		}
+		return null;
+	}
+
+	/**
+	 * Stripes can only be located in flat iteration order, otherwise the
+	 * target is rendered as a single stripe.
+	 */
+	private long numStripes()
+	{
+		return target.iterationOrder() instanceof FlatIterationOrder ? target.dimension( 1 ) : 1;
+	}
+
+	/**
+	 * Number of target pixels in rows [{@code yMin}, {@code yMax}) as passed
+	 * by {@link #mapStripes}.
+	 */
+	private long stripeSize( final long yMin, final long yMax )
+	{
+		return target.iterationOrder() instanceof FlatIterationOrder ? ( yMax - yMin ) * target.dimension( 0 ) : target.size();
+	}
+
+	/**
+	 * Stripes are only rendered in parallel if each can get its own copy of
+	 * the first {@code size} {@link #currentConverters}, from
+	 * {@link #converterSuppliers} or by {@link #copySupplier(Converter)}.
+	 *
+	 * @return suppliers of the first {@code size} {@link #currentConverters},
+	 *         {@code null} if one of them cannot be copied.
+	 */
+	private List< Supplier< ? extends Converter< A, ARGBType > > > currentSuppliers( final int size )
+	{
+		final List< Supplier< ? extends Converter< A, ARGBType > > > suppliers = new ArrayList<>();
+		for ( int i = 0; i < size; ++i )
+		{
+			final Supplier< ? extends Converter< A, ARGBType > > supplier = supplier( currentConverters[ i ] );
+			if ( supplier == null )
+				return null;
+			suppliers.add( supplier );
+		}
+		return suppliers;
+	}
+
+	private Supplier< ? extends Converter< A, ARGBType > > supplier( final Converter< A, ARGBType > converter )
+	{
+		if ( converterSuppliers != null )
+			for ( int i = 0; i < converters.size(); ++i )
+				if ( converters.get( i ) == converter )
+					return converterSuppliers.get( i );
+		return copySupplier( converter );
+	}
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	private static < A > Converter< A, ARGBType >[] get( final List< Supplier< ? extends Converter< A, ARGBType > > > suppliers, final int size )
+	{
+		final Converter< A, ARGBType >[] copies = new Converter[ size ];
+		for ( int i = 0; i < size; ++i )
+			copies[ i ] = suppliers.get( i ).get();
+		return copies;
 	}
 }
@@ -0,0 +1,368 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.display.projector.sampler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converter;
+import net.imglib2.display.projector.AbstractProjector2D;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+
+/**
+ * Intensity projection (maximum, minimum, mean, sum or front-to-back alpha
+ * composite) of a {@link RealType} source along one dimension into a 2D
+ * target. In contrast to a {@link SamplingProjector2D} with an
+ * {@link IntervalSampler}, which walks the projected dimension separately for
+ * each target pixel, the source is traversed in its memory order (lowest
+ * dimension fastest) and accumulated into a <code>double[]</code> buffer of
+ * target size. The buffer is then written to the target through a
+ * {@link Converter}.
+ * <p>
+ * If an executor is set (see
+ * {@link #setExecutorService(java.util.concurrent.ExecutorService, int)}), the
+ * source is split into chunks that cover disjoint parts of the target: along
+ * the cell grid for {@link AbstractCellImg CellImgs}, into bands of the y
+ * dimension otherwise.
+ * </p>
+ *
+ * @param <A>
+ *            source type
+ * @param <B>
+ *            target type
+ */
+public class IntensityProjector2D< A extends RealType< A >, B > extends AbstractProjector2D
+{
+	public enum Mode
+	{
+		MAX, MIN, MEAN, SUM,
+		/**
+		 * Front-to-back alpha composite in ascending order of the projected
+		 * dimension. The opacity of each sample is its intensity normalized
+		 * to the {@link IntensityProjector2D#setAlphaRange(double, double)
+		 * alpha range}.
+		 */
+		ALPHA
+	}
+
+	private final static int X = 0;
+
+	private final static int Y = 1;
+
+	protected final RandomAccessibleInterval< A > source;
+
+	protected final IterableInterval< B > target;
+
+	protected final Converter< ? super DoubleType, B > converter;
+
+	protected final int dimX;
+
+	protected final int dimY;
+
+	protected final int projectedDimension;
+
+	protected final Mode mode;
+
+	protected double alphaMin;
+
+	protected double alphaMax;
+
+	/**
+	 * accumulated values, one per target pixel in flat order
+	 */
+	protected double[] buffer;
+
+	/**
+	 * accumulated opacity for {@link Mode#ALPHA}
+	 */
+	protected double[] opacity;
+
+	/**
+	 * @param dimX
+	 *            the x dimension of the created plain
+	 * @param dimY
+	 *            the y dimension of the created plain
+	 * @param source
+	 * @param target
+	 * @param converter
+	 *            converts the accumulated value to the target type
+	 * @param projectedDimension
+	 *            the dimension along which to project, its full extent in
+	 *            source is used
+	 * @param mode
+	 */
+	public IntensityProjector2D( final int dimX, final int dimY, final RandomAccessibleInterval< A > source, final IterableInterval< B > target, final Converter< ? super DoubleType, B > converter, final int projectedDimension, final Mode mode )
+	{
+		super( source.numDimensions() );
+		if ( dimX == dimY || dimX == projectedDimension || dimY == projectedDimension )
+			throw new IllegalArgumentException( "x, y and projected dimension must be distinct" );
+		if ( target.size() > Integer.MAX_VALUE )
+			throw new IllegalArgumentException( "Target is too large for a projection buffer" );
+
+		this.dimX = dimX;
+		this.dimY = dimY;
+		this.source = source;
+		this.target = target;
+		this.converter = converter;
+		this.projectedDimension = projectedDimension;
+		this.mode = mode;
+
+		// the range of floating-point types is too large to map to opacity
+		final A type = source.randomAccess().get();
+		if ( type instanceof IntegerType )
+		{
+			alphaMin = type.getMinValue();
+			alphaMax = type.getMaxValue();
+		}
+		else
+		{
+			alphaMin = 0;
+			alphaMax = 1;
+		}
+	}
+
+	/**
+	 * Set the intensity range that is mapped to opacity 0..1 for
+	 * {@link Mode#ALPHA}. Defaults to the range of the source type for
+	 * {@link IntegerType integer} sources and to [0, 1] otherwise.
+	 */
+	public void setAlphaRange( final double min, final double max )
+	{
+		alphaMin = min;
+		alphaMax = max;
+	}
+
+	public Mode getMode()
+	{
+		return mode;
+	}
+
+	@Override
+	public void map()
+	{
+		try
+		{
+			// fix interval for all dimensions
+			for ( int d = 0; d < position.length; ++d )
+				min[ d ] = max[ d ] = position[ d ];
+
+			min[ dimX ] = target.min( X );
+			min[ dimY ] = target.min( Y );
+			max[ dimX ] = target.max( X );
+			max[ dimY ] = target.max( Y );
+			min[ projectedDimension ] = source.min( projectedDimension );
+			max[ projectedDimension ] = source.max( projectedDimension );
+
+			final int size = ( int ) target.size();
+			if ( buffer == null || buffer.length != size )
+			{
+				buffer = new double[ size ];
+				opacity = mode == Mode.ALPHA ? new double[ size ] : null;
+			}
+			switch ( mode )
+			{
+			case MAX:
+				Arrays.fill( buffer, Double.NEGATIVE_INFINITY );
+				break;
+			case MIN:
+				Arrays.fill( buffer, Double.POSITIVE_INFINITY );
+				break;
+			case ALPHA:
+				Arrays.fill( opacity, 0 );
+				Arrays.fill( buffer, 0 );
+				break;
+			default:
+				Arrays.fill( buffer, 0 );
+			}
+
+			final List< Runnable > tasks = new ArrayList<>();
+			for ( final long[][] chunk : chunks() )
+				tasks.add( () -> accumulate( chunk[ 0 ], chunk[ 1 ] ) );
+			runTasks( tasks );
+			if ( canceled )
+				return;
+
+			final double scale = mode == Mode.MEAN ? 1.0 / ( max[ projectedDimension ] - min[ projectedDimension ] + 1 ) : 1.0;
+			final long width = target.dimension( X );
+			final DoubleType value = new DoubleType();
+			final Cursor< B > targetCursor = target.localizingCursor();
+			while ( targetCursor.hasNext() )
+			{
+				final B b = targetCursor.next();
+				final long i = targetCursor.getLongPosition( X ) - min[ dimX ] + ( targetCursor.getLongPosition( Y ) - min[ dimY ] ) * width;
+				value.set( buffer[ ( int ) i ] * scale );
+				converter.convert( value, b );
+			}
+		}
+		finally
+		{
+			endMap();
+		}
+	}
+
+	/**
+	 * Split the source interval into chunks {min, max} that map to disjoint
+	 * parts of the target.
+	 */
+	protected List< long[][] > chunks()
+	{
+		final List< long[][] > chunks = new ArrayList<>();
+		if ( executorService == null )
+		{
+			chunks.add( new long[][] { min.clone(), max.clone() } );
+			return chunks;
+		}
+
+		final List< long[] > xRanges;
+		final List< long[] > yRanges;
+		if ( source instanceof AbstractCellImg )
+		{
+			final CellGrid grid = ( ( AbstractCellImg< ?, ?, ?, ? > ) source ).getCellGrid();
+			xRanges = cellRanges( min[ dimX ], max[ dimX ], grid.cellDimension( dimX ) );
+			yRanges = cellRanges( min[ dimY ], max[ dimY ], grid.cellDimension( dimY ) );
+		}
+		else
+		{
+			xRanges = new ArrayList<>();
+			xRanges.add( new long[] { min[ dimX ], max[ dimX ] } );
+			yRanges = new ArrayList<>();
+			final long height = max[ dimY ] - min[ dimY ] + 1;
+			final long numBands = Math.min( height, numTasks );
+			for ( long i = 0; i < numBands; ++i )
+				yRanges.add( new long[] { min[ dimY ] + height * i / numBands, min[ dimY ] + height * ( i + 1 ) / numBands - 1 } );
+		}
+
+		for ( final long[] y : yRanges )
+			for ( final long[] x : xRanges )
+			{
+				final long[] chunkMin = min.clone();
+				final long[] chunkMax = max.clone();
+				chunkMin[ dimX ] = x[ 0 ];
+				chunkMax[ dimX ] = x[ 1 ];
+				chunkMin[ dimY ] = y[ 0 ];
+				chunkMax[ dimY ] = y[ 1 ];
+				chunks.add( new long[][] { chunkMin, chunkMax } );
+			}
+		return chunks;
+	}
+
+	/**
+	 * Split [{@code min}, {@code max}] at multiples of {@code cellSize}.
+	 */
+	private static List< long[] > cellRanges( final long min, final long max, final int cellSize )
+	{
+		final List< long[] > ranges = new ArrayList<>();
+		for ( long start = min; start <= max; )
+		{
+			final long end = Math.min( max, Math.floorDiv( start, cellSize ) * cellSize + cellSize - 1 );
+			ranges.add( new long[] { start, end } );
+			start = end + 1;
+		}
+		return ranges;
+	}
+
+	/**
+	 * Accumulate the source interval [{@code chunkMin}, {@code chunkMax}] into
+	 * {@link #buffer}, iterating the x, y and projected dimension such that
+	 * the lowest dimension is fastest.
+	 */
+	protected void accumulate( final long[] chunkMin, final long[] chunkMax )
+	{
+		final int[] dims = { dimX, dimY, projectedDimension };
+		Arrays.sort( dims );
+		final long width = target.dimension( X );
+		final long[] steps = new long[ 3 ];
+		final long[] strides = new long[ 3 ];
+		for ( int k = 0; k < 3; ++k )
+		{
+			steps[ k ] = chunkMax[ dims[ k ] ] - chunkMin[ dims[ k ] ] + 1;
+			strides[ k ] = dims[ k ] == dimX ? 1 : dims[ k ] == dimY ? width : 0;
+		}
+
+		final RandomAccess< A > access = source.randomAccess();
+		access.setPosition( chunkMin );
+		final long offset = chunkMin[ dimX ] - min[ dimX ] + ( chunkMin[ dimY ] - min[ dimY ] ) * width;
+		final double alphaScale = 1.0 / ( alphaMax - alphaMin );
+
+		for ( long k2 = 0; k2 < steps[ 2 ]; ++k2 )
+		{
+			access.setPosition( chunkMin[ dims[ 2 ] ] + k2, dims[ 2 ] );
+			for ( long k1 = 0; k1 < steps[ 1 ]; ++k1 )
+			{
+				if ( canceled )
+					return;
+				access.setPosition( chunkMin[ dims[ 1 ] ] + k1, dims[ 1 ] );
+				access.setPosition( chunkMin[ dims[ 0 ] ], dims[ 0 ] );
+				int i = ( int ) ( offset + k2 * strides[ 2 ] + k1 * strides[ 1 ] );
+				final int stride = ( int ) strides[ 0 ];
+				for ( long k0 = 0; k0 < steps[ 0 ]; ++k0, i += stride )
+				{
+					if ( k0 > 0 )
+						access.fwd( dims[ 0 ] );
+					final double v = access.get().getRealDouble();
+					switch ( mode )
+					{
+					case MAX:
+						if ( v > buffer[ i ] )
+							buffer[ i ] = v;
+						break;
+					case MIN:
+						if ( v < buffer[ i ] )
+							buffer[ i ] = v;
+						break;
+					case ALPHA:
+						final double alpha = Math.min( 1, Math.max( 0, ( v - alphaMin ) * alphaScale ) );
+						final double w = ( 1 - opacity[ i ] ) * alpha;
+						buffer[ i ] += w * v;
+						opacity[ i ] += w;
+						break;
+					default:
+						buffer[ i ] += v;
+					}
+				}
+			}
+		}
+	}
+}
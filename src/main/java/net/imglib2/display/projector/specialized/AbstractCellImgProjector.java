@@ -0,0 +1,176 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.display.projector.specialized;
+
+import net.imglib2.RandomAccess;
+import net.imglib2.display.projector.AbstractProjector2D;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.type.NativeType;
+
+/**
+ * Base class for fast {@link AbstractProjector2D projectors} that select an
+ * axis-aligned 2D plane (XY, XZ, YZ, ...) from an {@link AbstractCellImg} and
+ * copy it, normalized, from the primitive arrays of the cells into the
+ * primitive array of an ArrayImg target. The cells must be backed by
+ * {@link ArrayDataAccess}. The target has the size of the
+ * source in {@link #dimX} &times; {@link #dimY}.
+ * <p>
+ * The plane is processed cell by cell. Rows of cells along {@link #dimY} are
+ * rendered in parallel if an executor is set.
+ * </p>
+ *
+ * @param <A>
+ *            source type
+ * @param <S>
+ *            primitive array type of source cells
+ * @param <T>
+ *            primitive array type of the target
+ */
+public abstract class AbstractCellImgProjector< A extends NativeType< A >, S, T > extends AbstractProjector2D
+{
+	protected final AbstractCellImg< A, ?, ?, ? > source;
+
+	protected final CellGrid grid;
+
+	protected final T targetArray;
+
+	protected final int dimX;
+
+	protected final int dimY;
+
+	protected final int width;
+
+	protected final double min;
+
+	protected final double normalizationFactor;
+
+	/**
+	 * @param source
+	 * @param targetArray
+	 *            storage of the target, of size
+	 *            {@code source.dimension( dimX ) * source.dimension( dimY )}
+	 * @param targetSize
+	 *            number of elements of the target
+	 * @param dimX
+	 *            the x dimension of the created plain
+	 * @param dimY
+	 *            the y dimension of the created plain
+	 * @param normalizationFactor
+	 * @param min
+	 */
+	public AbstractCellImgProjector( final AbstractCellImg< A, ?, ?, ? > source, final T targetArray, final long targetSize, final int dimX, final int dimY, final double normalizationFactor, final double min )
+	{
+		super( source.numDimensions() );
+		if ( dimX == dimY || dimX >= source.numDimensions() || dimY >= source.numDimensions() )
+			throw new IllegalArgumentException( "Invalid plane dimensions " + dimX + ", " + dimY );
+		if ( targetSize != source.dimension( dimX ) * source.dimension( dimY ) )
+			throw new IllegalArgumentException( "Target must have size " + source.dimension( dimX ) + "x" + source.dimension( dimY ) );
+		if ( !( source.getCells().firstElement().getData() instanceof ArrayDataAccess ) )
+			throw new IllegalArgumentException( "Cells must be backed by an ArrayDataAccess" );
+
+		this.source = source;
+		this.grid = source.getCellGrid();
+		this.targetArray = targetArray;
+		this.dimX = dimX;
+		this.dimY = dimY;
+		this.width = ( int ) source.dimension( dimX );
+		this.normalizationFactor = normalizationFactor;
+		this.min = min;
+	}
+
+	@Override
+	public void map()
+	{
+		final long[] gridPosition = new long[ n ];
+		grid.getCellPosition( position, gridPosition );
+		final long[] gridDimensions = grid.getGridDimensions();
+
+		mapStripes( gridDimensions[ dimY ], ( gyMin, gyMax ) -> {
+			final RandomAccess< ? extends Cell< ? > > cells = source.getCells().randomAccess();
+			cells.setPosition( gridPosition );
+			final long[] cellMin = new long[ n ];
+			final int[] cellDims = new int[ n ];
+			for ( long gy = gyMin; gy < gyMax; ++gy )
+			{
+				cells.setPosition( gy, dimY );
+				for ( long gx = 0; gx < gridDimensions[ dimX ]; ++gx )
+				{
+					if ( canceled )
+						return;
+					cells.setPosition( gx, dimX );
+					final Cell< ? > cell = cells.get();
+					cell.min( cellMin );
+					cell.dimensions( cellDims );
+
+					// strides and offset of the plane in the flat cell storage
+					int stride = 1;
+					int offset = 0;
+					int strideX = 0;
+					int strideY = 0;
+					for ( int d = 0; d < n; ++d )
+					{
+						if ( d == dimX )
+							strideX = stride;
+						else if ( d == dimY )
+							strideY = stride;
+						else
+							offset += ( int ) ( position[ d ] - cellMin[ d ] ) * stride;
+						stride *= cellDims[ d ];
+					}
+
+					@SuppressWarnings( "unchecked" )
+					final S data = ( S ) ( ( ArrayDataAccess< ? > ) cell.getData() ).getCurrentStorageArray();
+					final int cellWidth = cellDims[ dimX ];
+					final int cellHeight = cellDims[ dimY ];
+					int targetOffset = ( int ) ( cellMin[ dimY ] * width + cellMin[ dimX ] );
+					for ( int y = 0; y < cellHeight; ++y, offset += strideY, targetOffset += width )
+						copy( data, offset, strideX, targetOffset, cellWidth );
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Normalize {@code length} elements of {@code source} starting at
+	 * {@code sourceOffset} with stride {@code sourceStride} into
+	 * consecutive elements of {@link #targetArray} starting at
+	 * {@code targetOffset}.
+	 */
+	protected abstract void copy( final S source, final int sourceOffset, final int sourceStride, final int targetOffset, final int length );
+}
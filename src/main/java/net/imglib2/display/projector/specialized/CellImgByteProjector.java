@@ -0,0 +1,93 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.display.projector.specialized;
+
+import net.imglib2.display.projector.AbstractProjector2D;
+import net.imglib2.display.screenimage.awt.UnsignedByteAWTScreenImage;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.type.numeric.integer.GenericByteType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+
+/**
+ * Fast implementation of a {@link AbstractProjector2D} that selects a 2D data
+ * plain from a ByteType CellImg. The map method implements a normalization
+ * function. The resulting image is a UnsignedByteType ArrayImg.
+ *
+ * @param <A>
+ */
+public class CellImgByteProjector< A extends GenericByteType< A > > extends AbstractCellImgProjector< A, byte[], byte[] >
+{
+	private final boolean isSigned;
+
+	/**
+	 * Normalizes the plane spanned by {@code dimX} and {@code dimY} of a
+	 * CellImg and writes the result into target. This can be used in
+	 * conjunction with {@link UnsignedByteAWTScreenImage} for direct
+	 * displaying. A value is normalized by: normalizedValue = (value - min) *
+	 * normalizationFactor, and clamped to 0..255.
+	 *
+	 * @param source
+	 *            Signed/Unsigned input data
+	 * @param target
+	 *            Unsigned output
+	 * @param dimX
+	 * @param dimY
+	 * @param normalizationFactor
+	 * @param min
+	 */
+	public CellImgByteProjector( final AbstractCellImg< A, ?, ?, ? > source, final ArrayImg< UnsignedByteType, ByteArray > target, final int dimX, final int dimY, final double normalizationFactor, final double min )
+	{
+		super( source, target.update( null ).getCurrentStorageArray(), target.size(), dimX, dimY, normalizationFactor, min );
+		this.isSigned = source.firstElement().getMinValue() < 0;
+	}
+
+	@Override
+	protected void copy( final byte[] source, final int sourceOffset, final int sourceStride, final int targetOffset, final int length )
+	{
+		if ( !isSigned && min == 0 && normalizationFactor == 1 && sourceStride == 1 )
+		{
+			System.arraycopy( source, sourceOffset, targetArray, targetOffset, length );
+			return;
+		}
+		for ( int i = 0, s = sourceOffset; i < length; ++i, s += sourceStride )
+		{
+			final int value = isSigned ? source[ s ] : source[ s ] & 0xFF;
+			targetArray[ targetOffset + i ] = ( byte ) Math.min( 255, Math.max( 0, Math.round( ( value - min ) * normalizationFactor ) ) );
+		}
+	}
+}
@@ -33,9 +33,8 @@
  */
 package net.imglib2.display.projector.volatiles;
 
-import net.imglib2.Cursor;
-import net.imglib2.FinalInterval;
-import net.imglib2.IterableInterval;
+import java.util.function.Supplier;
+
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
@@ -48,16 +47,70 @@ import net.imglib2.view.Views;
  * {@link IterableIntervalProjector2D} for {@link Volatile} input. After each
  * {@link #map()} call, the projector has a {@link #isValid() state} that
  * signalizes whether all projected pixels were valid.
+ * <p>
+ * The target is rendered in tiles of {@link #getTileWidth()} &times;
+ * {@link #getTileHeight()} pixels and the validity of each tile is recorded
+ * in a mask (see {@link #isTileValid(int, int)}). {@link #mapInvalid()}
+ * re-renders only the tiles that contained invalid pixels in the previous
+ * pass, such that the target converges incrementally while lazily loaded data
+ * becomes available. A tile size of 1 yields a per-pixel mask.
+ * </p>
  *
  * @author Stephan Saalfeld
  */
 public class Volatile2DRandomAccessibleProjector< T, A extends Volatile< T >, B > extends IterableIntervalProjector2D< A, B >
 {
+	public static final int DEFAULT_TILE_SIZE = 64;
+
 	protected boolean valid = false;
 
+	final protected RandomAccessibleInterval< B > targetInterval;
+
+	final protected int tileWidth;
+
+	final protected int tileHeight;
+
+	final protected int numTilesX;
+
+	final protected int numTilesY;
+
+	/**
+	 * Validity of all tiles in row-major order, {@code null} if nothing has
+	 * been rendered yet.
+	 */
+	protected boolean[] validTiles = null;
+
 	public Volatile2DRandomAccessibleProjector( final int dimX, final int dimY, final RandomAccessible< A > source, final RandomAccessibleInterval< B > target, final Converter< ? super A, B > converter )
+	{
+		this( dimX, dimY, source, target, converter, DEFAULT_TILE_SIZE, DEFAULT_TILE_SIZE );
+	}
+
+	public Volatile2DRandomAccessibleProjector( final int dimX, final int dimY, final RandomAccessible< A > source, final RandomAccessibleInterval< B > target, final Converter< ? super A, B > converter, final int tileWidth, final int tileHeight )
 	{
 		super( dimX, dimY, source, Views.iterable( target ), converter );
+		if ( tileWidth < 1 || tileHeight < 1 )
+			throw new IllegalArgumentException( "Tile size must be positive, got " + tileWidth + "x" + tileHeight );
+		this.targetInterval = target;
+		this.tileWidth = tileWidth;
+		this.tileHeight = tileHeight;
+		numTilesX = ( int ) ( ( target.dimension( 0 ) + tileWidth - 1 ) / tileWidth );
+		numTilesY = ( int ) ( ( target.dimension( 1 ) + tileHeight - 1 ) / tileHeight );
+	}
+
+	/**
+	 * Renders rows of tiles in parallel with converters created by
+	 * {@code converterSupplier}.
+	 */
+	public Volatile2DRandomAccessibleProjector( final int dimX, final int dimY, final RandomAccessible< A > source, final RandomAccessibleInterval< B > target, final Supplier< ? extends Converter< ? super A, B > > converterSupplier, final int tileWidth, final int tileHeight )
+	{
+		super( dimX, dimY, source, Views.iterable( target ), converterSupplier );
+		if ( tileWidth < 1 || tileHeight < 1 )
+			throw new IllegalArgumentException( "Tile size must be positive, got " + tileWidth + "x" + tileHeight );
+		this.targetInterval = target;
+		this.tileWidth = tileWidth;
+		this.tileHeight = tileHeight;
+		numTilesX = ( int ) ( ( target.dimension( 0 ) + tileWidth - 1 ) / tileWidth );
+		numTilesY = ( int ) ( ( target.dimension( 1 ) + tileHeight - 1 ) / tileHeight );
 	}
 
 	/**
@@ -68,12 +121,71 @@ public class Volatile2DRandomAccessibleProjector< T, A extends Volatile< T >, B
 		return valid;
 	}
 
+	public int getTileWidth()
+	{
+		return tileWidth;
+	}
+
+	public int getTileHeight()
+	{
+		return tileHeight;
+	}
+
+	public int getNumTilesX()
+	{
+		return numTilesX;
+	}
+
+	public int getNumTilesY()
+	{
+		return numTilesY;
+	}
+
+	/**
+	 * @return true if all pixels of tile ({@code tileX}, {@code tileY}) were
+	 *         {@link Volatile#isValid() valid} when it was last rendered.
+	 */
+	public boolean isTileValid( final int tileX, final int tileY )
+	{
+		return validTiles != null && validTiles[ tileY * numTilesX + tileX ];
+	}
+
+	/**
+	 * @return a copy of the validity mask, one entry per tile in row-major
+	 *         order. All entries are false if nothing has been rendered yet.
+	 */
+	public boolean[] getValidityMask()
+	{
+		return validTiles == null ? new boolean[ numTilesX * numTilesY ] : validTiles.clone();
+	}
+
+	/**
+	 * Mark all tiles invalid, e.g. after the source or the position changed,
+	 * such that the next {@link #mapInvalid()} renders the complete target.
+	 */
+	public void invalidate()
+	{
+		validTiles = null;
+		valid = false;
+	}
+
 	/**
 	 * projects data from the source to the target and applies the former
 	 * specified {@link Converter} e.g. for normalization.
 	 */
 	@Override
 	public void map()
+	{
+		invalidate();
+		mapInvalid();
+	}
+
+	/**
+	 * Re-render only those tiles that contained invalid pixels in the previous
+	 * pass. Renders the complete target if the mask has been
+	 * {@link #invalidate() invalidated} or nothing has been rendered yet.
+	 */
+	public void mapInvalid()
 	{
 		// fix interval for all dimensions
 		for ( int d = 0; d < position.length; ++d )
@@ -84,30 +196,62 @@ public class Volatile2DRandomAccessibleProjector< T, A extends Volatile< T >, B
 		max[ 0 ] = target.max( 0 );
 		max[ 1 ] = target.max( 1 );
 
-		final IterableInterval< A > srcIterable = Views.iterable( Views.interval( source, new FinalInterval( min, max ) ) );
-		final Cursor< B > targetCursor = target.localizingCursor();
+		final boolean[] previous = validTiles;
+		final boolean[] next = previous == null ? new boolean[ numTilesX * numTilesY ] : previous.clone();
 
-		if ( target.iterationOrder().equals( srcIterable.iterationOrder() ) )
-		{
-			// use cursors
-			final Cursor< A > sourceCursor = srcIterable.cursor();
-			while ( targetCursor.hasNext() )
+		mapStripes( numTilesY, converterSupplier != null, ( tyMin, tyMax ) -> {
+			final RandomAccess< A > sourceRandomAccess = source.randomAccess();
+			sourceRandomAccess.setPosition( min );
+			final RandomAccess< B > targetRandomAccess = targetInterval.randomAccess();
+			final Converter< ? super A, B > stripeConverter = stripeConverter();
+			for ( int ty = ( int ) tyMin; ty < tyMax; ++ty )
 			{
-				converter.convert( sourceCursor.next(), targetCursor.next() );
+				for ( int tx = 0; tx < numTilesX; ++tx )
+				{
+					if ( canceled )
+						return;
+					final int i = ty * numTilesX + tx;
+					if ( previous == null || !previous[ i ] )
+						next[ i ] = mapTile( tx, ty, sourceRandomAccess, targetRandomAccess, stripeConverter );
+				}
 			}
-		}
-		else
+		} );
+
+		// tiles that were not reached after cancel keep their previous state
+		validTiles = next;
+		valid = !isCanceled();
+		for ( final boolean v : next )
+			valid &= v;
+	}
+
+	/**
+	 * Render one tile.
+	 *
+	 * @return true if all pixels of the tile were valid.
+	 */
+	protected boolean mapTile( final int tileX, final int tileY, final RandomAccess< A > sourceRandomAccess, final RandomAccess< B > targetRandomAccess, final Converter< ? super A, B > conv )
+	{
+		final long x0 = min[ 0 ] + ( long ) tileX * tileWidth;
+		final long y0 = min[ 1 ] + ( long ) tileY * tileHeight;
+		final long x1 = Math.min( x0 + tileWidth - 1, max[ 0 ] );
+		final long y1 = Math.min( y0 + tileHeight - 1, max[ 1 ] );
+
+		boolean tileValid = true;
+		for ( long y = y0; y <= y1; ++y )
 		{
-			// use localizing cursor
-			final RandomAccess< A > sourceRandomAccess = source.randomAccess();
-			while ( targetCursor.hasNext() )
+			sourceRandomAccess.setPosition( y, 1 );
+			targetRandomAccess.setPosition( y, 1 );
+			sourceRandomAccess.setPosition( x0, 0 );
+			targetRandomAccess.setPosition( x0, 0 );
+			for ( long x = x0; x <= x1; ++x )
 			{
-				final B b = targetCursor.next();
-				sourceRandomAccess.setPosition( targetCursor.getLongPosition( 0 ), 0 );
-				sourceRandomAccess.setPosition( targetCursor.getLongPosition( 1 ), 1 );
-
-				converter.convert( sourceRandomAccess.get(), b );
+				final A a = sourceRandomAccess.get();
+				conv.convert( a, targetRandomAccess.get() );
+				tileValid &= a.isValid();
+				sourceRandomAccess.fwd( 0 );
+				targetRandomAccess.fwd( 0 );
 			}
 		}
+		return tileValid;
 	}
 }
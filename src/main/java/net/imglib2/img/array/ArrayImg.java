@@ -143,7 +143,8 @@ public class ArrayImg< T extends NativeType< T >, A > extends AbstractNativeImg<
 	{
 		final int dimLength = fastCursorAvailable( interval );
 
-		assert dimLength > 0;
+		if ( dimLength <= 0 )
+			return new ArrayIntervalCursor< T >( this, interval );
 
 		return new ArraySubIntervalCursor< T >( this, ( int ) offset( interval ), ( int ) size( interval, dimLength ) );
 	}
@@ -209,7 +210,8 @@ public class ArrayImg< T extends NativeType< T >, A > extends AbstractNativeImg<
 	{
 		final int dimLength = fastCursorAvailable( interval );
 
-		assert dimLength > 0;
+		if ( dimLength <= 0 )
+			return new ArrayIntervalCursor< T >( this, interval );
 
 		return new ArrayLocalizingSubIntervalCursor< T >( this, ( int ) offset( interval ), ( int ) size( interval, dimLength ) );
 	}
@@ -220,7 +222,7 @@ public class ArrayImg< T extends NativeType< T >, A > extends AbstractNativeImg<
 	@Override
 	public boolean supportsOptimizedCursor( final Interval interval )
 	{
-		return fastCursorAvailable( interval ) > 0;
+		return Intervals.contains( this, interval );
 	}
 
 	/**
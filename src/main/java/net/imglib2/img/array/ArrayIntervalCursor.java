@@ -0,0 +1,217 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.img.array;
+
+import net.imglib2.AbstractLocalizingCursorInt;
+import net.imglib2.Cursor;
+import net.imglib2.Interval;
+import net.imglib2.type.NativeType;
+import net.imglib2.util.IntervalIndexer;
+
+/**
+ * Localizing {@link Cursor} on an arbitrary {@link Interval} of an
+ * {@link ArrayImg}, iterating in flat order. Within a line (dimension 0) the
+ * cursor steps the array index by one. At the end of a line, it jumps by a
+ * precomputed offset to the start of the next line.
+ *
+ * @param <T>
+ */
+public final class ArrayIntervalCursor< T extends NativeType< T > > extends AbstractLocalizingCursorInt< T >
+{
+	/**
+	 * An instance of T.
+	 */
+	private final T type;
+
+	/**
+	 * The underlying source {@link ArrayImg}.
+	 */
+	private final ArrayImg< T, ? > img;
+
+	/**
+	 * Minimum of the iterated interval.
+	 */
+	private final int[] min;
+
+	/**
+	 * Maximum of the iterated interval.
+	 */
+	private final int[] max;
+
+	/**
+	 * {@code jump[d]} is the index offset from the last element of a
+	 * (d-1)-dimensional block to the first element of the next one.
+	 */
+	private final int[] jump;
+
+	/**
+	 * Index of the first element.
+	 */
+	private final int firstIndex;
+
+	/**
+	 * Index of the last element.
+	 */
+	private final int lastIndex;
+
+	private ArrayIntervalCursor( final ArrayIntervalCursor< T > cursor )
+	{
+		super( cursor.numDimensions() );
+
+		img = cursor.img;
+		type = img.createLinkedType();
+		min = cursor.min;
+		max = cursor.max;
+		jump = cursor.jump;
+		firstIndex = cursor.firstIndex;
+		lastIndex = cursor.lastIndex;
+
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = cursor.position[ d ];
+
+		type.updateIndex( cursor.type.getIndex() );
+		type.updateContainer( this );
+	}
+
+	/**
+	 * @param img
+	 *            the {@link ArrayImg} to iterate.
+	 * @param interval
+	 *            the interval to iterate, must be contained in {@code img}.
+	 */
+	public ArrayIntervalCursor( final ArrayImg< T, ? > img, final Interval interval )
+	{
+		super( img.numDimensions() );
+
+		this.img = img;
+		type = img.createLinkedType();
+		min = new int[ n ];
+		max = new int[ n ];
+		jump = new int[ n ];
+
+		for ( int d = 0; d < n; ++d )
+		{
+			min[ d ] = ( int ) interval.min( d );
+			max[ d ] = ( int ) interval.max( d );
+		}
+
+		int stride = 1;
+		int span = 0;
+		for ( int d = 0; d < n; ++d )
+		{
+			jump[ d ] = stride - span;
+			span += ( max[ d ] - min[ d ] ) * stride;
+			stride *= img.dim[ d ];
+		}
+
+		firstIndex = IntervalIndexer.positionToIndex( min, img.dim );
+		lastIndex = IntervalIndexer.positionToIndex( max, img.dim );
+
+		reset();
+	}
+
+	@Override
+	public T get()
+	{
+		return type;
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return type.getIndex() < lastIndex;
+	}
+
+	@Override
+	public void fwd()
+	{
+		if ( ++position[ 0 ] <= max[ 0 ] )
+		{
+			type.incIndex();
+			return;
+		}
+
+		position[ 0 ] = min[ 0 ];
+		for ( int d = 1; d < n; ++d )
+		{
+			if ( ++position[ d ] <= max[ d ] )
+			{
+				type.incIndex( jump[ d ] );
+				return;
+			}
+			position[ d ] = min[ d ];
+		}
+	}
+
+	@Override
+	public void jumpFwd( final long steps )
+	{
+		// linear index within the interval
+		long linear = 0;
+		for ( int d = n - 1; d >= 0; --d )
+			linear = linear * ( max[ d ] - min[ d ] + 1 ) + ( position[ d ] - min[ d ] );
+		linear += steps;
+		for ( int d = 0; d < n; ++d )
+		{
+			final long size = max[ d ] - min[ d ] + 1;
+			position[ d ] = min[ d ] + ( int ) ( linear % size );
+			linear /= size;
+		}
+		type.updateIndex( IntervalIndexer.positionToIndex( position, img.dim ) );
+	}
+
+	@Override
+	public void reset()
+	{
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = min[ d ];
+		position[ 0 ]--;
+		type.updateIndex( firstIndex - 1 );
+		type.updateContainer( this );
+	}
+
+	@Override
+	public ArrayIntervalCursor< T > copy()
+	{
+		return new ArrayIntervalCursor< T >( this );
+	}
+
+	@Override
+	public ArrayIntervalCursor< T > copyCursor()
+	{
+		return copy();
+	}
+}
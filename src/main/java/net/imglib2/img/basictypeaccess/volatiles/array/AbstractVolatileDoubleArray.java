@@ -34,6 +34,7 @@
 package net.imglib2.img.basictypeaccess.volatiles.array;
 
 import net.imglib2.img.basictypeaccess.array.AbstractDoubleArray;
+import net.imglib2.img.basictypeaccess.volatiles.MutableVolatileAccess;
 import net.imglib2.img.basictypeaccess.volatiles.VolatileArrayDataAccess;
 
 /**
@@ -41,9 +42,9 @@ import net.imglib2.img.basictypeaccess.volatiles.VolatileArrayDataAccess;
  */
 public abstract class AbstractVolatileDoubleArray< A extends AbstractVolatileDoubleArray< A > >
 		extends AbstractDoubleArray< A >
-		implements VolatileArrayDataAccess< A >
+		implements VolatileArrayDataAccess< A >, MutableVolatileAccess
 {
-	final protected boolean isValid;
+	protected volatile boolean isValid;
 
 	public AbstractVolatileDoubleArray( final int numEntities, final boolean isValid )
 	{
@@ -63,6 +64,12 @@ public abstract class AbstractVolatileDoubleArray< A extends AbstractVolatileDou
 		return isValid;
 	}
 
+	@Override
+	public void setValid()
+	{
+		isValid = true;
+	}
+
 	@Override
 	public A createArray( final int numEntities )
 	{
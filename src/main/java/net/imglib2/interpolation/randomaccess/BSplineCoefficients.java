@@ -0,0 +1,372 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.interpolation.randomaccess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.DoubleArray;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.img.cell.LazyCellImg;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Tasks;
+import net.imglib2.view.Views;
+
+/**
+ * Compute B-spline coefficient images, such that the B-spline of a given
+ * order with these coefficients interpolates the source samples.
+ * <p>
+ * Coefficients are obtained by recursive prefiltering with the poles of the
+ * B-spline (Unser, Aldroubi &amp; Eden, 1991) using mirror boundary
+ * conditions, i.e. the interpolant is that of the source extended by
+ * single-boundary mirroring. Coefficient images are zero-min and have the
+ * dimensions of the source.
+ * </p>
+ * <p>
+ * {@link #computeLazy} computes coefficients per cell when a cell is first
+ * accessed. Each cell is prefiltered in a neighborhood that extends far
+ * enough for the influence of the neighborhood boundary to decay below
+ * {@link #TOLERANCE}, so the result matches {@link #compute} up to that
+ * tolerance.
+ * </p>
+ */
+public final class BSplineCoefficients
+{
+	private BSplineCoefficients()
+	{
+		// prevent from instantiation.
+	}
+
+	/**
+	 * Relative tolerance for truncating the infinite recursive filters.
+	 */
+	public static final double TOLERANCE = 1e-10;
+
+	/**
+	 * Check that B-splines of the given order are supported.
+	 */
+	static void checkOrder( final int order )
+	{
+		if ( order < 2 || order > 5 )
+			throw new IllegalArgumentException( "B-spline order must be in [2, 5], but is " + order );
+	}
+
+	/**
+	 * Poles of the B-spline prefilter of the given order.
+	 */
+	static double[] poles( final int order )
+	{
+		switch ( order )
+		{
+		case 2:
+			return new double[] { Math.sqrt( 8.0 ) - 3.0 };
+		case 3:
+			return new double[] { Math.sqrt( 3.0 ) - 2.0 };
+		case 4:
+			return new double[] {
+					Math.sqrt( 664.0 - Math.sqrt( 438976.0 ) ) + Math.sqrt( 304.0 ) - 19.0,
+					Math.sqrt( 664.0 + Math.sqrt( 438976.0 ) ) - Math.sqrt( 304.0 ) - 19.0 };
+		case 5:
+			return new double[] {
+					Math.sqrt( 135.0 / 2.0 - Math.sqrt( 17745.0 / 4.0 ) ) + Math.sqrt( 105.0 / 4.0 ) - 13.0 / 2.0,
+					Math.sqrt( 135.0 / 2.0 + Math.sqrt( 17745.0 / 4.0 ) ) - Math.sqrt( 105.0 / 4.0 ) - 13.0 / 2.0 };
+		default:
+			checkOrder( order );
+			return null;
+		}
+	}
+
+	/**
+	 * Number of samples after which the impulse response of the prefilter
+	 * has decayed below {@link #TOLERANCE}.
+	 */
+	static int horizon( final double[] poles )
+	{
+		double maxAbs = 0;
+		for ( final double z : poles )
+			maxAbs = Math.max( maxAbs, Math.abs( z ) );
+		return ( int ) Math.ceil( Math.log( TOLERANCE ) / Math.log( maxAbs ) );
+	}
+
+	/**
+	 * Compute the coefficient image of {@code source} at once.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the source has more than {@link Integer#MAX_VALUE}
+	 *             pixels.
+	 */
+	public static ArrayImg< DoubleType, DoubleArray > compute( final RandomAccessibleInterval< ? extends RealType< ? > > source, final int order )
+	{
+		final double[] poles = poles( order );
+		final long size = Intervals.numElements( source );
+		if ( size > Integer.MAX_VALUE )
+			throw new IllegalArgumentException( "source is too large for a single coefficient array, use computeLazy instead" );
+		final long[] shape = Intervals.dimensionsAsLongArray( source );
+		final double[] data = read( source, source );
+		prefilter( data, shape, poles );
+		return ArrayImgs.doubles( data, shape );
+	}
+
+	/**
+	 * Create a coefficient image of {@code source} that computes its cells
+	 * when they are first accessed.
+	 *
+	 * @param cellDimensions
+	 *            dimensions of the cells of the coefficient image
+	 */
+	public static LazyCellImg< DoubleType, DoubleArray > computeLazy( final RandomAccessibleInterval< ? extends RealType< ? > > source, final int order, final int... cellDimensions )
+	{
+		final double[] poles = poles( order );
+		final CellGrid grid = new CellGrid( Intervals.dimensionsAsLongArray( source ), cellDimensions );
+		return new LazyCellImg<>( grid, new DoubleType(), new CellLoader( source, grid, poles ) );
+	}
+
+	/**
+	 * Compute all cells of a coefficient image created by
+	 * {@link #computeLazy}, in parallel.
+	 */
+	public static void computeAll( final LazyCellImg< DoubleType, DoubleArray > coefficients, final ExecutorService service )
+	{
+		final long numCells = Intervals.numElements( coefficients.getCellGrid().getGridDimensions() );
+		final List< Runnable > tasks = new ArrayList<>();
+		for ( long i = 0; i < numCells; ++i )
+		{
+			final long index = i;
+			tasks.add( () -> {
+				final RandomAccess< Cell< DoubleArray > > access = coefficients.getCells().randomAccess();
+				final long[] position = new long[ coefficients.numDimensions() ];
+				coefficients.getCellGrid().getCellGridPositionFlat( index, position );
+				access.setPosition( position );
+				access.get();
+			} );
+		}
+		Tasks.run( tasks, service );
+	}
+
+	private static class CellLoader implements LazyCellImg.Get< Cell< DoubleArray > >
+	{
+		private final RandomAccessibleInterval< ? extends RealType< ? > > source;
+
+		private final CellGrid grid;
+
+		private final double[] poles;
+
+		private final int padding;
+
+		private final ConcurrentHashMap< Long, Cell< DoubleArray > > cells = new ConcurrentHashMap<>();
+
+		CellLoader( final RandomAccessibleInterval< ? extends RealType< ? > > source, final CellGrid grid, final double[] poles )
+		{
+			this.source = source;
+			this.grid = grid;
+			this.poles = poles;
+			padding = horizon( poles );
+		}
+
+		@Override
+		public Cell< DoubleArray > get( final long index )
+		{
+			return cells.computeIfAbsent( index, this::load );
+		}
+
+		private Cell< DoubleArray > load( final long index )
+		{
+			final int n = grid.numDimensions();
+			final long[] cellMin = new long[ n ];
+			final int[] cellDims = new int[ n ];
+			grid.getCellDimensions( index, cellMin, cellDims );
+
+			// prefilter a neighborhood of the cell (in source coordinates)
+			final long[] min = new long[ n ];
+			final long[] max = new long[ n ];
+			for ( int d = 0; d < n; ++d )
+			{
+				min[ d ] = Math.max( source.min( d ), source.min( d ) + cellMin[ d ] - padding );
+				max[ d ] = Math.min( source.max( d ), source.min( d ) + cellMin[ d ] + cellDims[ d ] - 1 + padding );
+			}
+			final Interval region = new FinalInterval( min, max );
+			final long[] shape = Intervals.dimensionsAsLongArray( region );
+			final double[] data = read( source, region );
+			prefilter( data, shape, poles );
+
+			// crop the cell
+			final double[] cell = new double[ ( int ) Intervals.numElements( cellDims ) ];
+			final int[] pos = new int[ n ];
+			int regionOffset = 0;
+			int stride = 1;
+			for ( int d = 0; d < n; ++d )
+			{
+				regionOffset += ( source.min( d ) + cellMin[ d ] - min[ d ] ) * stride;
+				stride *= shape[ d ];
+			}
+			final int w = cellDims[ 0 ];
+			for ( int i = 0; i < cell.length; i += w )
+			{
+				int o = regionOffset;
+				stride = 1;
+				for ( int d = 0; d < n; ++d )
+				{
+					o += pos[ d ] * stride;
+					stride *= shape[ d ];
+				}
+				System.arraycopy( data, o, cell, i, w );
+				for ( int d = 1; d < n; ++d )
+				{
+					if ( ++pos[ d ] < cellDims[ d ] )
+						break;
+					pos[ d ] = 0;
+				}
+			}
+			return new Cell<>( cellDims, cellMin, new DoubleArray( cell ) );
+		}
+	}
+
+	/**
+	 * Read {@code interval} of {@code source} into a flat array.
+	 */
+	private static double[] read( final RandomAccessibleInterval< ? extends RealType< ? > > source, final Interval interval )
+	{
+		final double[] data = new double[ ( int ) Intervals.numElements( interval ) ];
+		final Cursor< ? extends RealType< ? > > c = Views.flatIterable( Views.interval( source, interval ) ).cursor();
+		for ( int i = 0; i < data.length; ++i )
+			data[ i ] = c.next().getRealDouble();
+		return data;
+	}
+
+	/**
+	 * Prefilter all lines of a flat array of the given shape, along every
+	 * dimension.
+	 */
+	static void prefilter( final double[] data, final long[] shape, final double[] poles )
+	{
+		final int n = shape.length;
+		for ( int d = 0; d < n; ++d )
+		{
+			final int length = ( int ) shape[ d ];
+			if ( length < 2 )
+				continue;
+			int inner = 1;
+			for ( int e = 0; e < d; ++e )
+				inner *= shape[ e ];
+			int outer = 1;
+			for ( int e = d + 1; e < n; ++e )
+				outer *= shape[ e ];
+			final double[] line = new double[ length ];
+			for ( int o = 0; o < outer; ++o )
+			{
+				for ( int r = 0; r < inner; ++r )
+				{
+					final int offset = o * length * inner + r;
+					for ( int i = 0; i < length; ++i )
+						line[ i ] = data[ offset + i * inner ];
+					prefilter( line, poles );
+					for ( int i = 0; i < length; ++i )
+						data[ offset + i * inner ] = line[ i ];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Prefilter a line of at least 2 samples in place.
+	 */
+	static void prefilter( final double[] c, final double[] poles )
+	{
+		final int length = c.length;
+
+		double gain = 1;
+		for ( final double z : poles )
+			gain *= ( 1.0 - z ) * ( 1.0 - 1.0 / z );
+		for ( int i = 0; i < length; ++i )
+			c[ i ] *= gain;
+
+		for ( final double z : poles )
+		{
+			c[ 0 ] = initialCausal( c, z );
+			for ( int i = 1; i < length; ++i )
+				c[ i ] += z * c[ i - 1 ];
+			c[ length - 1 ] = ( z / ( z * z - 1.0 ) ) * ( z * c[ length - 2 ] + c[ length - 1 ] );
+			for ( int i = length - 2; i >= 0; --i )
+				c[ i ] = z * ( c[ i + 1 ] - c[ i ] );
+		}
+	}
+
+	/**
+	 * Initial value of the causal filter for mirror boundary conditions.
+	 */
+	private static double initialCausal( final double[] c, final double z )
+	{
+		final int length = c.length;
+		final int horizon = ( int ) Math.ceil( Math.log( TOLERANCE ) / Math.log( Math.abs( z ) ) );
+		if ( horizon < length )
+		{
+			double zn = z;
+			double sum = c[ 0 ];
+			for ( int i = 1; i < horizon; ++i )
+			{
+				sum += zn * c[ i ];
+				zn *= z;
+			}
+			return sum;
+		}
+		else
+		{
+			double zn = z;
+			final double iz = 1.0 / z;
+			double z2n = Math.pow( z, length - 1 );
+			double sum = c[ 0 ] + z2n * c[ length - 1 ];
+			z2n *= z2n * iz;
+			for ( int i = 1; i < length - 1; ++i )
+			{
+				sum += ( zn + z2n ) * c[ i ];
+				zn *= z;
+				z2n *= iz;
+			}
+			return sum / ( 1.0 - zn * zn );
+		}
+	}
+}
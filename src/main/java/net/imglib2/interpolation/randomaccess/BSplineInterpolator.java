@@ -0,0 +1,195 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.interpolation.randomaccess;
+
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RealPoint;
+import net.imglib2.RealRandomAccess;
+import net.imglib2.position.transform.Floor;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+
+/**
+ * B-spline interpolation of order 2 to 5 from a precomputed coefficient
+ * image (see {@link BSplineCoefficients}).
+ * <p>
+ * The kernel is separable: for each position the order + 1 weights per
+ * dimension are computed once and combined while iterating the
+ * (order + 1)<sup>n</sup> coefficients.
+ * </p>
+ *
+ * @param <T>
+ *            type of the interpolated values
+ */
+public class BSplineInterpolator< T extends RealType< T > > extends RealPoint implements RealRandomAccess< T >
+{
+	final protected int order;
+
+	final protected RandomAccessible< DoubleType > coefficients;
+
+	final protected RandomAccess< DoubleType > access;
+
+	final protected T value;
+
+	/**
+	 * B-spline weights per dimension for the current position.
+	 */
+	final protected double[][] weights;
+
+	final protected double[] products;
+
+	final protected int[] counter;
+
+	/**
+	 * @param coefficients
+	 *            the coefficient image, must be defined in the neighborhood
+	 *            of all positions that are interpolated (e.g. extended by
+	 *            mirroring)
+	 * @param order
+	 *            B-spline order in [2, 5]
+	 * @param type
+	 *            type of the interpolated values
+	 */
+	public BSplineInterpolator( final RandomAccessible< DoubleType > coefficients, final int order, final T type )
+	{
+		super( coefficients.numDimensions() );
+		BSplineCoefficients.checkOrder( order );
+		this.order = order;
+		this.coefficients = coefficients;
+		access = coefficients.randomAccess();
+		value = type.createVariable();
+		weights = new double[ n ][ order + 1 ];
+		products = new double[ n + 1 ];
+		products[ n ] = 1.0;
+		counter = new int[ n ];
+	}
+
+	protected BSplineInterpolator( final BSplineInterpolator< T > interpolator )
+	{
+		this( interpolator.coefficients, interpolator.order, interpolator.value );
+		setPosition( interpolator );
+	}
+
+	/**
+	 * Centered B-spline of the given order at {@code x}, evaluated as a sum of
+	 * truncated powers.
+	 */
+	static double bspline( final double x, final int order )
+	{
+		final double h = 0.5 * ( order + 1 );
+		if ( x <= -h || x >= h )
+			return 0;
+		double sum = 0;
+		double binomial = 1;
+		for ( int j = 0; j <= order + 1; ++j )
+		{
+			final double t = x + h - j;
+			if ( t <= 0 )
+				break;
+			double power = 1;
+			for ( int k = 0; k < order; ++k )
+				power *= t;
+			sum += ( ( j & 1 ) == 0 ? binomial : -binomial ) * power;
+			binomial = binomial * ( order + 1 - j ) / ( j + 1 );
+		}
+		double factorial = 1;
+		for ( int k = 2; k <= order; ++k )
+			factorial *= k;
+		return sum / factorial;
+	}
+
+	/**
+	 * Coordinate of the first of the order + 1 coefficients contributing at
+	 * {@code x}.
+	 */
+	static long start( final double x, final int order )
+	{
+		return Floor.floor( x - 0.5 * ( order - 1 ) );
+	}
+
+	@Override
+	public T get()
+	{
+		for ( int d = 0; d < n; ++d )
+		{
+			final long s = start( position[ d ], order );
+			access.setPosition( s, d );
+			final double[] w = weights[ d ];
+			for ( int i = 0; i <= order; ++i )
+				w[ i ] = bspline( position[ d ] - s - i, order );
+			counter[ d ] = 0;
+		}
+		for ( int d = n - 1; d >= 0; --d )
+			products[ d ] = weights[ d ][ 0 ] * products[ d + 1 ];
+
+		double sum = 0;
+		A: while ( true )
+		{
+			sum += access.get().getRealDouble() * products[ 0 ];
+
+			for ( int d = 0; d < n; ++d )
+			{
+				access.fwd( d );
+				final int i = ++counter[ d ];
+				if ( i <= order )
+				{
+					products[ d ] = weights[ d ][ i ] * products[ d + 1 ];
+					for ( int e = d - 1; e >= 0; --e )
+						products[ e ] = weights[ e ][ 0 ] * products[ e + 1 ];
+					continue A;
+				}
+				counter[ d ] = 0;
+				access.move( -order - 1, d );
+			}
+			break;
+		}
+
+		value.setReal( sum );
+		return value;
+	}
+
+	@Override
+	public BSplineInterpolator< T > copy()
+	{
+		return new BSplineInterpolator< T >( this );
+	}
+
+	@Override
+	public BSplineInterpolator< T > copyRealRandomAccess()
+	{
+		return copy();
+	}
+}
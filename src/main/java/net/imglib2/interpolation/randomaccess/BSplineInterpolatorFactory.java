@@ -0,0 +1,191 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.interpolation.randomaccess;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.RealInterval;
+import net.imglib2.img.basictypeaccess.array.DoubleArray;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.cell.LazyCellImg;
+import net.imglib2.interpolation.InterpolatorFactory;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory.Boundary;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.ExtendedRandomAccessibleInterval;
+import net.imglib2.view.Views;
+
+/**
+ * Creates {@link BSplineInterpolator}s of order 2 to 5.
+ * <p>
+ * The source must be a {@link RandomAccessibleInterval} or an
+ * {@link ExtendedRandomAccessibleInterval} with single-boundary
+ * {@link OutOfBoundsMirrorFactory mirror} extension; other out-of-bounds
+ * strategies are rejected. Its coefficient image is computed from the
+ * underlying interval only, with mirror boundary conditions, and shared by
+ * all interpolators created for the same source.
+ * Coefficients of {@link AbstractCellImg} sources (and of sources too large
+ * for a single array) are computed lazily per cell. If an
+ * {@link ExecutorService} is given, all cells are computed in parallel
+ * instead.
+ * </p>
+ *
+ * @param <T>
+ *            pixel type
+ */
+public class BSplineInterpolatorFactory< T extends RealType< T > > implements InterpolatorFactory< T, RandomAccessible< T > >
+{
+	/**
+	 * Cell size for lazy coefficients of sources that are not
+	 * {@link AbstractCellImg}s.
+	 */
+	public static final int DEFAULT_CELL_SIZE = 64;
+
+	final protected int order;
+
+	final protected ExecutorService service;
+
+	private RandomAccessible< T > lastSource;
+
+	private RandomAccessible< DoubleType > lastCoefficients;
+
+	/**
+	 * Creates a factory for cubic B-spline interpolation.
+	 */
+	public BSplineInterpolatorFactory()
+	{
+		this( 3 );
+	}
+
+	/**
+	 * @param order
+	 *            B-spline order in [2, 5]
+	 */
+	public BSplineInterpolatorFactory( final int order )
+	{
+		this( order, null );
+	}
+
+	/**
+	 * @param order
+	 *            B-spline order in [2, 5]
+	 * @param service
+	 *            computes the cells of lazy coefficient images in parallel
+	 *            when the first interpolator for a source is created,
+	 *            {@code null} to compute them on demand
+	 */
+	public BSplineInterpolatorFactory( final int order, final ExecutorService service )
+	{
+		BSplineCoefficients.checkOrder( order );
+		this.order = order;
+		this.service = service;
+	}
+
+	public int getOrder()
+	{
+		return order;
+	}
+
+	@Override
+	public BSplineInterpolator< T > create( final RandomAccessible< T > randomAccessible )
+	{
+		final RandomAccessibleInterval< T > source = sourceInterval( randomAccessible );
+		return new BSplineInterpolator<>( coefficients( randomAccessible, source ), order, Util.getTypeFromInterval( source ) );
+	}
+
+	/**
+	 * For now, ignore the {@link RealInterval} and return
+	 * {@link #create(RandomAccessible)}.
+	 */
+	@Override
+	public BSplineInterpolator< T > create( final RandomAccessible< T > randomAccessible, final RealInterval interval )
+	{
+		return create( randomAccessible );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private RandomAccessibleInterval< T > sourceInterval( final RandomAccessible< T > randomAccessible )
+	{
+		if ( randomAccessible instanceof RandomAccessibleInterval )
+			return ( RandomAccessibleInterval< T > ) randomAccessible;
+		if ( randomAccessible instanceof ExtendedRandomAccessibleInterval )
+		{
+			final ExtendedRandomAccessibleInterval< T, ? > extended = ( ExtendedRandomAccessibleInterval< T, ? > ) randomAccessible;
+			final OutOfBoundsFactory< T, ? > factory = extended.getOutOfBoundsFactory();
+			if ( !( factory instanceof OutOfBoundsMirrorFactory ) || ( ( OutOfBoundsMirrorFactory< ?, ? > ) factory ).getBoundary() != Boundary.SINGLE )
+				throw new IllegalArgumentException( "B-spline interpolation only supports single-boundary mirror extension, not " + factory.getClass().getSimpleName() );
+			return extended.getSource();
+		}
+		throw new IllegalArgumentException( "B-spline interpolation requires a RandomAccessibleInterval or an ExtendedRandomAccessibleInterval" );
+	}
+
+	/**
+	 * Get the (mirror-extended) coefficients of {@code source}, reusing those
+	 * of the previous call for the same {@code randomAccessible}.
+	 */
+	private synchronized RandomAccessible< DoubleType > coefficients( final RandomAccessible< T > randomAccessible, final RandomAccessibleInterval< T > source )
+	{
+		if ( randomAccessible != lastSource )
+		{
+			final RandomAccessibleInterval< DoubleType > coefficients;
+			final boolean fits = Intervals.numElements( source ) <= Integer.MAX_VALUE;
+			if ( source instanceof AbstractCellImg || !fits )
+			{
+				final int[] cellDimensions = new int[ source.numDimensions() ];
+				if ( source instanceof AbstractCellImg )
+					( ( AbstractCellImg< ?, ?, ?, ? > ) source ).getCellGrid().cellDimensions( cellDimensions );
+				else
+					Arrays.fill( cellDimensions, DEFAULT_CELL_SIZE );
+				final LazyCellImg< DoubleType, DoubleArray > lazy = BSplineCoefficients.computeLazy( source, order, cellDimensions );
+				if ( service != null )
+					BSplineCoefficients.computeAll( lazy, service );
+				coefficients = lazy;
+			}
+			else
+				coefficients = BSplineCoefficients.compute( source, order );
+
+			lastCoefficients = Views.extendMirrorSingle( Views.translate( coefficients, Intervals.minAsLongArray( source ) ) );
+			lastSource = randomAccessible;
+		}
+		return lastCoefficients;
+	}
+}
@@ -44,6 +44,12 @@ import net.imglib2.type.numeric.RealType;
 /**
  * n-dimensional double-based Lanczos Interpolation
  * 
+ * The kernel is separable, so for each position the 2&middot;alpha weights
+ * per dimension are computed once and combined while iterating the
+ * (2&middot;alpha)<sup>n</sup> neighbours. Weights are either interpolated
+ * from a lookup table with a configurable number of samples per unit or, if
+ * the lookup table scale is 0, evaluated exactly.
+ * 
  * @author Stephan Preibisch
  * @author Stephan Saalfeld
  */
@@ -51,6 +57,9 @@ public class LanczosInterpolator< T extends RealType< T > > extends FloorOffset<
 {
 	final static protected double piSquare = Math.PI * Math.PI;
 
+	/**
+	 * Default number of lookup table samples per unit.
+	 */
 	final static protected int lutScale = 10;
 
 	final protected int alpha;
@@ -65,6 +74,19 @@ public class LanczosInterpolator< T extends RealType< T > > extends FloorOffset<
 
 	final protected double[] lut, products;
 
+	/**
+	 * Number of lookup table samples per unit, 0 if the kernel is evaluated
+	 * exactly.
+	 */
+	final protected int scale;
+
+	/**
+	 * Kernel weights per dimension for the current position.
+	 */
+	final protected double[][] weights;
+
+	final protected int[] counter;
+
 	final static private long[] createOffset( final int a, final int n )
 	{
 		final long[] offset = new long[ n ];
@@ -89,14 +111,43 @@ public class LanczosInterpolator< T extends RealType< T > > extends FloorOffset<
 	 *            - range for clipping (ignored if min==max)
 	 */
 	public LanczosInterpolator( final RandomAccessible< T > randomAccessible, final int alpha, final boolean clip, final double min, final double max )
+	{
+		this( randomAccessible, alpha, clip, min, max, lutScale );
+	}
+
+	/**
+	 * Creates a new Lanczos-interpolation
+	 * 
+	 * @param randomAccessible
+	 *            - the {@link RandomAccessible} to work on
+	 * @param alpha
+	 *            - the radius of values to incorporate (typically 2 or 3)
+	 * @param clip
+	 *            - clips the value to range of the {@link RealType}, i.e. tests
+	 *            if the interpolated value is out of range
+	 * @param min
+	 *            - range for clipping (ignored if min==max)
+	 * @param max
+	 *            - range for clipping (ignored if min==max)
+	 * @param lutScale
+	 *            - number of kernel lookup table samples per unit, 0 to
+	 *            evaluate the kernel exactly
+	 */
+	public LanczosInterpolator( final RandomAccessible< T > randomAccessible, final int alpha, final boolean clip, final double min, final double max, final int lutScale )
 	{
 		super( randomAccessible.randomAccess(), createOffset( alpha, randomAccessible.numDimensions() ) );
 
+		if ( lutScale < 0 )
+			throw new IllegalArgumentException( "lutScale must not be negative" );
+
 		this.alpha = alpha;
 
-		lut = createLanczosLUT( alpha, lutScale );
+		scale = lutScale;
+		lut = lutScale == 0 ? null : createLanczosLUT( alpha, lutScale );
 		products = new double[ n + 1 ];
 		products[ n ] = 1.0;
+		weights = new double[ n ][ 2 * alpha ];
+		counter = new int[ n ];
 
 		this.size = new long[ n ];
 		this.max = new long[ n ];
@@ -126,8 +177,12 @@ public class LanczosInterpolator< T extends RealType< T > > extends FloorOffset<
 
 		this.alpha = interpolator.alpha;
 
-		lut = interpolator.lut.clone();
+		/* the lookup table is never modified and can be shared */
+		scale = interpolator.scale;
+		lut = interpolator.lut;
 		products = interpolator.products.clone();
+		weights = new double[ n ][ 2 * alpha ];
+		counter = new int[ n ];
 
 		this.size = interpolator.size.clone();
 		this.max = interpolator.max.clone();
@@ -139,39 +194,43 @@ public class LanczosInterpolator< T extends RealType< T > > extends FloorOffset<
 		this.maxValue = interpolator.maxValue;
 	}
 
-	final static private double[] createLanczosLUT( final int max, final int scale )
+	final static double[] createLanczosLUT( final int max, final int scale )
 	{
 		final double[] lut = new double[ max * scale + 2 ];
 		for ( int i = 0; i < lut.length; ++i )
 		{
-			final double x = ( double ) i / ( double ) lutScale;
+			final double x = ( double ) i / ( double ) scale;
 			lut[ i ] = lanczos( x, max );
 		}
 		return lut;
 	}
 
-	final protected void resetKernel()
+	/**
+	 * Compute the kernel weights of all 2&middot;alpha samples in each
+	 * dimension for the current position.
+	 */
+	final protected void updateWeights()
 	{
-		for ( int d = n - 1; d >= 0; --d )
+		for ( int d = 0; d < n; ++d )
 		{
-			final long p = target.getLongPosition( d );
-			max[ d ] = p + size[ d ];
-			products[ d ] = lookUpLanczos( position[ d ] - p ) * products[ d + 1 ];
+			final double[] weightsD = weights[ d ];
+			final double x = position[ d ] - target.getLongPosition( d );
+			for ( int i = 0; i < weightsD.length; ++i )
+				weightsD[ i ] = kernel( x - i );
 		}
 	}
 
-	final protected void accumulate( final int d )
-	{
-		for ( int e = d; e >= 0; --e )
-			products[ e ] = lookUpLanczos( position[ e ] - target.getLongPosition( e ) ) * products[ e + 1 ];
-	}
-
 	@Override
 	public T get()
 	{
 		double convolved = 0;
 
-		resetKernel();
+		updateWeights();
+		for ( int d = n - 1; d >= 0; --d )
+		{
+			counter[ d ] = 0;
+			products[ d ] = weights[ d ][ 0 ] * products[ d + 1 ];
+		}
 
 		boolean proceed = true;
 
@@ -182,14 +241,16 @@ public class LanczosInterpolator< T extends RealType< T > > extends FloorOffset<
 			for ( int d = 0; d < n; ++d )
 			{
 				target.fwd( d );
-				final long p = target.getLongPosition( d );
-				if ( p < max[ d ] )
+				final int i = ++counter[ d ];
+				if ( i < size[ d ] )
 				{
-					products[ d ] = lookUpLanczos( position[ d ] - p ) * products[ ++d ];
+					products[ d ] = weights[ d ][ i ] * products[ d + 1 ];
+					for ( int e = d - 1; e >= 0; --e )
+						products[ e ] = weights[ e ][ 0 ] * products[ e + 1 ];
 					continue A;
 				}
+				counter[ d ] = 0;
 				target.move( -size[ d ], d );
-				accumulate( d );
 			}
 			proceed = false;
 		}
@@ -209,30 +270,42 @@ public class LanczosInterpolator< T extends RealType< T > > extends FloorOffset<
 		return interpolatedValue;
 	}
 
-	private static final double lanczos( final double x, final double a )
+	static final double lanczos( final double x, final double a )
 	{
 		if ( x == 0 )
 			return 1;
 		return ( ( a * Math.sin( Math.PI * x ) * Math.sin( Math.PI * x / a ) ) / ( piSquare * x * x ) );
 	}
 
-	final private double lookUpLanczos( final double x )
+	final private double kernel( final double x )
+	{
+		return kernel( x, alpha, lut, scale );
+	}
+
+	/**
+	 * Kernel weight at offset {@code x}, interpolated from {@code lut} with
+	 * {@code scale} samples per unit, or evaluated exactly if {@code lut} is
+	 * {@code null}.
+	 */
+	static final double kernel( final double x, final int alpha, final double[] lut, final int scale )
 	{
-		final double y = x < 0 ? -lutScale * x : lutScale * x;
+		if ( lut == null )
+			return lanczos( x, alpha );
+		final double y = x < 0 ? -scale * x : scale * x;
 		final int yi = ( int ) y;
 		final double d = y - yi;
 		return ( lut[ yi + 1 ] - lut[ yi ] ) * d + lut[ yi ];
 	}
 
 	@Override
-	public Sampler< T > copy()
+	public LanczosInterpolator< T > copy()
 	{
-		return copy();
+		return new LanczosInterpolator< T >( this );
 	}
 
 	@Override
 	public RealRandomAccess< T > copyRealRandomAccess()
 	{
-		return new LanczosInterpolator< T >( this );
+		return copy();
 	}
 }
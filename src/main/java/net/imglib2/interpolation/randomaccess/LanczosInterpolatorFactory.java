@@ -52,6 +52,8 @@ public class LanczosInterpolatorFactory< T extends RealType< T > > implements In
 
 	double min, max;
 
+	int lutScale = LanczosInterpolator.lutScale;
+
 	/**
 	 * Creates a new {@link LanczosInterpolatorFactory} using the Lanczos (sinc)
 	 * interpolation in a certain window
@@ -128,7 +130,7 @@ public class LanczosInterpolatorFactory< T extends RealType< T > > implements In
 	@Override
 	public LanczosInterpolator< T > create( final RandomAccessible< T > randomAccessible )
 	{
-		return new LanczosInterpolator< T >( randomAccessible, alpha, clipping, min, max );
+		return new LanczosInterpolator< T >( randomAccessible, alpha, clipping, min, max, lutScale );
 	}
 
 	/**
@@ -166,6 +168,18 @@ public class LanczosInterpolatorFactory< T extends RealType< T > > implements In
 		this.clipping = clipping;
 	}
 
+	/**
+	 * Set the number of kernel lookup table samples per unit. Larger values
+	 * approximate the kernel more closely, 0 evaluates the kernel exactly.
+	 *
+	 * @param lutScale
+	 *            samples per unit (10)
+	 */
+	public void setLutScale( final int lutScale )
+	{
+		this.lutScale = lutScale;
+	}
+
 	/**
 	 * @return rectangular radius of the window for perfoming the lanczos
 	 *         interpolation
@@ -182,4 +196,13 @@ public class LanczosInterpolatorFactory< T extends RealType< T > > implements In
 	{
 		return clipping;
 	}
+
+	/**
+	 * @return number of kernel lookup table samples per unit, 0 if the kernel
+	 *         is evaluated exactly
+	 */
+	public int getLutScale()
+	{
+		return lutScale;
+	}
 }
@@ -34,6 +34,8 @@
 
 package net.imglib2.interpolation.randomaccess;
 
+import java.lang.reflect.Array;
+
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessible;
 import net.imglib2.RealRandomAccess;
@@ -44,6 +46,13 @@ import net.imglib2.util.IntervalIndexer;
 /**
  * Performs multi-linear interpolation.
  *
+ * <p>
+ * Optionally, the samples at the corners of the current cell are cached and
+ * only reloaded when the floor position changes. This speeds up sampling at
+ * many positions within a cell, e.g. when upsampling, but the cached values
+ * are not updated if the source is modified in between.
+ * </p>
+ *
  * @param <T>
  *
  * @author Stephan Preibisch
@@ -90,6 +99,20 @@ public class NLinearInterpolator< T extends NumericType< T > > extends Floor< Ra
 
 	final protected T tmp;
 
+	/**
+	 * Cached samples of the <em>2x2x...x2</em> hypercube of pixels, in the
+	 * same order as {@link #weights}, or {@code null} if samples are not
+	 * cached.
+	 */
+	final protected T[] corners;
+
+	/**
+	 * Floor position for which {@link #corners} were loaded.
+	 */
+	final protected long[] cornersOrigin;
+
+	protected boolean cornersValid;
+
 	protected NLinearInterpolator( final NLinearInterpolator< T > interpolator )
 	{
 		super( interpolator.target.copyRandomAccess() );
@@ -98,6 +121,9 @@ public class NLinearInterpolator< T extends NumericType< T > > extends Floor< Ra
 		code = interpolator.code;
 		accumulator = interpolator.accumulator.createVariable();
 		tmp = interpolator.tmp.createVariable();
+		corners = interpolator.corners == null ? null : createCorners( tmp, weights.length );
+		cornersOrigin = new long[ n ];
+		cornersValid = false;
 
 		for ( int d = 0; d < n; ++d )
 		{
@@ -107,12 +133,34 @@ public class NLinearInterpolator< T extends NumericType< T > > extends Floor< Ra
 	}
 
 	protected NLinearInterpolator( final RandomAccessible< T > randomAccessible, final T type )
+	{
+		this( randomAccessible, type, false );
+	}
+
+	/**
+	 * @param cacheCorners
+	 *            whether to cache the samples of the current cell, see
+	 *            {@link NLinearInterpolator}
+	 */
+	protected NLinearInterpolator( final RandomAccessible< T > randomAccessible, final T type, final boolean cacheCorners )
 	{
 		super( randomAccessible.randomAccess() );
 		weights = new double[ 1 << n ];
 		code = 0;
 		accumulator = type.createVariable();
 		tmp = type.createVariable();
+		corners = cacheCorners ? createCorners( type, weights.length ) : null;
+		cornersOrigin = new long[ n ];
+		cornersValid = false;
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private static < T extends NumericType< T > > T[] createCorners( final T type, final int size )
+	{
+		final T[] corners = ( T[] ) Array.newInstance( type.getClass(), size );
+		for ( int i = 0; i < size; ++i )
+			corners[ i ] = type.createVariable();
+		return corners;
 	}
 
 	protected NLinearInterpolator( final RandomAccessible< T > randomAccessible )
@@ -179,6 +227,64 @@ public class NLinearInterpolator< T extends NumericType< T > > extends Floor< Ra
 //		System.out.println();
 	}
 
+	/**
+	 * Load the samples of the current cell into {@link #corners}, unless
+	 * they were already loaded for the current floor position.
+	 *
+	 * <p>
+	 * The cell is traversed in Gray code order, such that only one dimension
+	 * of the target position is modified per move.
+	 * </p>
+	 */
+	final protected void updateCorners()
+	{
+		if ( cornersValid )
+		{
+			boolean same = true;
+			for ( int d = 0; d < n && same; ++d )
+				same = cornersOrigin[ d ] == target.getLongPosition( d );
+			if ( same )
+				return;
+		}
+
+		target.localize( cornersOrigin );
+		corners[ 0 ].set( target.get() );
+		int gray = 0;
+		for ( int i = 1; i < corners.length; ++i )
+		{
+			final int d = Integer.numberOfTrailingZeros( i );
+			gray ^= 1 << d;
+			if ( ( gray & ( 1 << d ) ) != 0 )
+				target.fwd( d );
+			else
+				target.bck( d );
+			corners[ gray ].set( target.get() );
+		}
+		if ( n > 0 )
+			target.bck( n - 1 );
+		cornersValid = true;
+	}
+
+	/**
+	 * Interpolate from the cached {@link #corners} with the current
+	 * {@link #weights}.
+	 */
+	final protected T getFromCorners()
+	{
+		fillWeights();
+		updateCorners();
+
+		accumulator.set( corners[ 0 ] );
+		accumulator.mul( weights[ 0 ] );
+		for ( int i = 1; i < corners.length; ++i )
+		{
+			tmp.set( corners[ i ] );
+			tmp.mul( weights[ i ] );
+			accumulator.add( tmp );
+		}
+		return accumulator;
+	}
+
 	/**
 	 * Get the interpolated value at the current position.
 	 *
@@ -196,6 +302,9 @@ public class NLinearInterpolator< T extends NumericType< T > > extends Floor< Ra
 	@Override
 	public T get()
 	{
+		if ( corners != null )
+			return getFromCorners();
+
 		fillWeights();
 
 		accumulator.set( target.get() );
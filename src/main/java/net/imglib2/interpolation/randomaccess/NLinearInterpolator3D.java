@@ -62,6 +62,11 @@ public class NLinearInterpolator3D< T extends NumericType< T > > extends NLinear
 		super( randomAccessible );
 	}
 
+	protected NLinearInterpolator3D( final RandomAccessible< T > randomAccessible, final T type, final boolean cacheCorners )
+	{
+		super( randomAccessible, type, cacheCorners );
+	}
+
 	@Override
 	final public int numDimensions()
 	{
@@ -91,6 +96,9 @@ public class NLinearInterpolator3D< T extends NumericType< T > > extends NLinear
 	@Override
 	public T get()
 	{
+		if ( corners != null )
+			return getFromCorners();
+
 		fillWeights();
 
 		accumulator.set( target.get() );
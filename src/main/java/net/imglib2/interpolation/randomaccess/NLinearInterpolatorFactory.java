@@ -48,9 +48,40 @@ import net.imglib2.type.numeric.NumericType;
  */
 public class NLinearInterpolatorFactory< T extends NumericType< T > > implements InterpolatorFactory< T, RandomAccessible< T > >
 {
+	final protected boolean cacheCorners;
+
+	public NLinearInterpolatorFactory()
+	{
+		this( false );
+	}
+
+	/**
+	 * @param cacheCorners
+	 *            whether the created interpolators cache the samples of the
+	 *            current cell and reload them only when the floor position
+	 *            changes. This is faster when sampling many positions per
+	 *            cell (e.g. upsampling), but must not be used if the source
+	 *            is modified while the interpolator is in use. Only applies
+	 *            to three or more dimensions; in 1D and 2D the specialised
+	 *            interpolators read the few samples directly at least as
+	 *            fast (see {@code NLinearInterpolatorBenchmark}).
+	 */
+	public NLinearInterpolatorFactory( final boolean cacheCorners )
+	{
+		this.cacheCorners = cacheCorners;
+	}
+
 	@Override
 	public NLinearInterpolator< T > create( final RandomAccessible< T > randomAccessible )
 	{
+		if ( cacheCorners && randomAccessible.numDimensions() >= 3 )
+		{
+			final T type = randomAccessible.randomAccess().get();
+			if ( randomAccessible.numDimensions() == 3 )
+				return new NLinearInterpolator3D< T >( randomAccessible, type, true );
+			return new NLinearInterpolator< T >( randomAccessible, type, true );
+		}
+
 		switch ( randomAccessible.numDimensions() )
 		{
 		case 1:
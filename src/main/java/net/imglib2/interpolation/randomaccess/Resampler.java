@@ -0,0 +1,680 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.interpolation.randomaccess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.RealRandomAccess;
+import net.imglib2.interpolation.InterpolatorFactory;
+import net.imglib2.position.transform.Floor;
+import net.imglib2.position.transform.Round;
+import net.imglib2.type.Type;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Tasks;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+/**
+ * Resample an interpolated {@link RandomAccessible} onto a raster in bulk.
+ * <p>
+ * Target pixel {@code x} is set to the interpolated source value at
+ * {@code offset + scale * x} (per dimension). This is equivalent to
+ * rastering the interpolated source after scaling and translating it, but
+ * the target is processed in tiles, line by line:
+ * </p>
+ * <ul>
+ * <li>For {@link NearestNeighborInterpolatorFactory} and
+ * {@link FloorInterpolatorFactory}, the source coordinates of each target
+ * row are computed once per tile and samples are copied.</li>
+ * <li>For {@link NLinearInterpolatorFactory} and
+ * {@link LanczosInterpolatorFactory} on {@link RealType}s, the kernel is
+ * separable. The weights of each target row are computed once per tile and
+ * the tile is resampled one dimension at a time in double precision. Only
+ * the source samples that are read are gathered, so downsampling does not
+ * read the whole source bounding box of a tile. Tiles that would need too
+ * large buffers fall back to the interpolator. Values are accumulated in
+ * {@code double} and rounded once, so for integer types the result can
+ * differ by rounding from {@link NLinearInterpolator}, which accumulates in
+ * the pixel type.</li>
+ * <li>For any other {@link InterpolatorFactory}, one interpolator per tile
+ * walks along the target lines.</li>
+ * </ul>
+ * <p>
+ * Tiles are processed in parallel if an {@link ExecutorService} is given.
+ * </p>
+ */
+public final class Resampler
+{
+	private Resampler()
+	{
+		// prevent from instantiation.
+	}
+
+	/**
+	 * Default edge length of the tiles the target is split into.
+	 */
+	public static final int DEFAULT_TILE_SIZE = 64;
+
+	/**
+	 * Set each pixel of {@code target} to the interpolated {@code source}
+	 * value at the same position.
+	 */
+	public static < T extends Type< T > > void resample(
+			final RandomAccessible< T > source,
+			final InterpolatorFactory< T, ? super RandomAccessible< T > > factory,
+			final RandomAccessibleInterval< T > target )
+	{
+		final double[] scale = new double[ target.numDimensions() ];
+		Arrays.fill( scale, 1 );
+		resample( source, factory, scale, new double[ target.numDimensions() ], target );
+	}
+
+	/**
+	 * Set each pixel {@code x} of {@code target} to the interpolated
+	 * {@code source} value at {@code offset + scale * x}.
+	 */
+	public static < T extends Type< T > > void resample(
+			final RandomAccessible< T > source,
+			final InterpolatorFactory< T, ? super RandomAccessible< T > > factory,
+			final double[] scale,
+			final double[] offset,
+			final RandomAccessibleInterval< T > target )
+	{
+		resample( source, factory, scale, offset, target, null, DEFAULT_TILE_SIZE );
+	}
+
+	/**
+	 * Set each pixel {@code x} of {@code target} to the interpolated
+	 * {@code source} value at {@code offset + scale * x}.
+	 *
+	 * @param source
+	 *            the source, must be defined wherever the interpolator reads
+	 * @param factory
+	 *            the interpolation scheme
+	 * @param scale
+	 *            source step per target pixel, per dimension
+	 * @param offset
+	 *            source position of target pixel 0, per dimension
+	 * @param target
+	 *            the raster to write to
+	 * @param service
+	 *            processes tiles in parallel, {@code null} to process them in
+	 *            the calling thread
+	 * @param tileSize
+	 *            edge length of the tiles the target is split into
+	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	public static < T extends Type< T > > void resample(
+			final RandomAccessible< T > source,
+			final InterpolatorFactory< T, ? super RandomAccessible< T > > factory,
+			final double[] scale,
+			final double[] offset,
+			final RandomAccessibleInterval< T > target,
+			final ExecutorService service,
+			final int tileSize )
+	{
+		final int n = target.numDimensions();
+		if ( source.numDimensions() != n || scale.length != n || offset.length != n )
+			throw new IllegalArgumentException( "source, scale, offset, and target must have the same number of dimensions" );
+		if ( tileSize < 1 )
+			throw new IllegalArgumentException( "tileSize must be positive" );
+
+		final boolean isReal = Util.getTypeFromInterval( target ) instanceof RealType;
+		final TileResampler tileResampler;
+		if ( factory instanceof NearestNeighborInterpolatorFactory )
+			tileResampler = tile -> copy( source, tile, target, scale, offset, true );
+		else if ( factory instanceof FloorInterpolatorFactory )
+			tileResampler = tile -> copy( source, tile, target, scale, offset, false );
+		else if ( isReal && factory.getClass() == NLinearInterpolatorFactory.class )
+		{
+			final SeparableKernel kernel = new LinearKernel();
+			tileResampler = tile -> {
+				if ( !separable( ( RandomAccessible ) source, kernel, tile, ( RandomAccessibleInterval ) target, scale, offset ) )
+					interpolate( source, factory, tile, target, scale, offset );
+			};
+		}
+		else if ( isReal && factory.getClass() == LanczosInterpolatorFactory.class )
+		{
+			final SeparableKernel kernel = new LanczosKernel( ( LanczosInterpolatorFactory< ? > ) factory, ( RealType< ? > ) source.randomAccess().get() );
+			tileResampler = tile -> {
+				if ( !separable( ( RandomAccessible ) source, kernel, tile, ( RandomAccessibleInterval ) target, scale, offset ) )
+					interpolate( source, factory, tile, target, scale, offset );
+			};
+		}
+		else
+			tileResampler = tile -> interpolate( source, factory, tile, target, scale, offset );
+
+		final List< Runnable > tasks = new ArrayList<>();
+		for ( final Interval tile : tiles( target, tileSize ) )
+			tasks.add( () -> tileResampler.resample( tile ) );
+		Tasks.run( tasks, service );
+	}
+
+	private interface TileResampler
+	{
+		void resample( Interval tile );
+	}
+
+	/**
+	 * Split {@code interval} into tiles of (at most) {@code tileSize} pixels
+	 * per dimension.
+	 */
+	static List< Interval > tiles( final Interval interval, final int tileSize )
+	{
+		final int n = interval.numDimensions();
+		final List< Interval > tiles = new ArrayList<>();
+		for ( int d = 0; d < n; ++d )
+			if ( interval.dimension( d ) <= 0 )
+				return tiles;
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		interval.min( min );
+		while ( true )
+		{
+			for ( int d = 0; d < n; ++d )
+				max[ d ] = Math.min( min[ d ] + tileSize - 1, interval.max( d ) );
+			tiles.add( new FinalInterval( min, max ) );
+
+			int d = 0;
+			for ( ; d < n; ++d )
+			{
+				min[ d ] += tileSize;
+				if ( min[ d ] <= interval.max( d ) )
+					break;
+				min[ d ] = interval.min( d );
+			}
+			if ( d == n )
+				return tiles;
+		}
+	}
+
+	/**
+	 * Nearest neighbor or floor: copy the source samples at precomputed
+	 * coordinates.
+	 */
+	private static < T extends Type< T > > void copy(
+			final RandomAccessible< T > source,
+			final Interval tile,
+			final RandomAccessibleInterval< T > target,
+			final double[] scale,
+			final double[] offset,
+			final boolean round )
+	{
+		final int n = tile.numDimensions();
+		final long[][] coordinates = new long[ n ][];
+		for ( int d = 0; d < n; ++d )
+		{
+			final long[] c = new long[ ( int ) tile.dimension( d ) ];
+			for ( int i = 0; i < c.length; ++i )
+			{
+				final double p = offset[ d ] + scale[ d ] * ( tile.min( d ) + i );
+				c[ i ] = round ? Round.round( p ) : Floor.floor( p );
+			}
+			coordinates[ d ] = c;
+		}
+
+		final RandomAccess< T > in = source.randomAccess( sourceInterval( coordinates, 1 ) );
+		final RandomAccess< T > out = target.randomAccess( tile );
+		final long[] xs = coordinates[ 0 ];
+		final int[] line = new int[ n ];
+		do
+		{
+			for ( int d = 1; d < n; ++d )
+			{
+				in.setPosition( coordinates[ d ][ line[ d ] ], d );
+				out.setPosition( tile.min( d ) + line[ d ], d );
+			}
+			out.setPosition( tile.min( 0 ), 0 );
+			for ( int i = 0; i < xs.length; ++i )
+			{
+				in.setPosition( xs[ i ], 0 );
+				out.get().set( in.get() );
+				out.fwd( 0 );
+			}
+		}
+		while ( nextLine( line, tile ) );
+	}
+
+	/**
+	 * Any other interpolator: walk along target lines, setting only the
+	 * position in dimension 0 for each pixel.
+	 */
+	private static < T extends Type< T > > void interpolate(
+			final RandomAccessible< T > source,
+			final InterpolatorFactory< T, ? super RandomAccessible< T > > factory,
+			final Interval tile,
+			final RandomAccessibleInterval< T > target,
+			final double[] scale,
+			final double[] offset )
+	{
+		final int n = tile.numDimensions();
+		final RealRandomAccess< T > in = factory.create( source );
+		final RandomAccess< T > out = target.randomAccess( tile );
+		final long w = tile.dimension( 0 );
+		final int[] line = new int[ n ];
+		do
+		{
+			for ( int d = 1; d < n; ++d )
+			{
+				final long x = tile.min( d ) + line[ d ];
+				in.setPosition( offset[ d ] + scale[ d ] * x, d );
+				out.setPosition( x, d );
+			}
+			out.setPosition( tile.min( 0 ), 0 );
+			for ( long i = 0; i < w; ++i )
+			{
+				in.setPosition( offset[ 0 ] + scale[ 0 ] * ( tile.min( 0 ) + i ), 0 );
+				out.get().set( in.get() );
+				out.fwd( 0 );
+			}
+		}
+		while ( nextLine( line, tile ) );
+	}
+
+	/**
+	 * Advance {@code line} to the next line of {@code tile} (dimensions 1 and
+	 * up, relative to the tile min).
+	 *
+	 * @return {@code false} if there is no next line.
+	 */
+	private static boolean nextLine( final int[] line, final Interval tile )
+	{
+		for ( int d = 1; d < line.length; ++d )
+		{
+			if ( ++line[ d ] < tile.dimension( d ) )
+				return true;
+			line[ d ] = 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Bounding box of the source samples read for the given first sample
+	 * coordinates and number of samples per target pixel.
+	 */
+	private static Interval sourceInterval( final long[][] start, final int taps )
+	{
+		final int n = start.length;
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			long lo = Long.MAX_VALUE;
+			long hi = Long.MIN_VALUE;
+			for ( final long s : start[ d ] )
+			{
+				lo = Math.min( lo, s );
+				hi = Math.max( hi, s );
+			}
+			min[ d ] = lo;
+			max[ d ] = hi + taps - 1;
+		}
+		return new FinalInterval( min, max );
+	}
+
+	/**
+	 * A separable interpolation kernel with a fixed number of samples per
+	 * dimension.
+	 */
+	private static abstract class SeparableKernel
+	{
+		final int taps;
+
+		SeparableKernel( final int taps )
+		{
+			this.taps = taps;
+		}
+
+		/**
+		 * Coordinate of the first sample for position {@code p}.
+		 */
+		abstract long start( double p );
+
+		/**
+		 * Weight of the sample at {@code start( p ) + k}.
+		 */
+		abstract double weight( double p, long start, int k );
+
+		double clip( final double value )
+		{
+			return value;
+		}
+	}
+
+	private static class LinearKernel extends SeparableKernel
+	{
+		LinearKernel()
+		{
+			super( 2 );
+		}
+
+		@Override
+		long start( final double p )
+		{
+			return Floor.floor( p );
+		}
+
+		@Override
+		double weight( final double p, final long start, final int k )
+		{
+			final double t = p - start;
+			return k == 0 ? 1 - t : t;
+		}
+	}
+
+	private static class LanczosKernel extends SeparableKernel
+	{
+		final int alpha;
+
+		final int scale;
+
+		final double[] lut;
+
+		final boolean clip;
+
+		final double minValue, maxValue;
+
+		LanczosKernel( final LanczosInterpolatorFactory< ? > factory, final RealType< ? > type )
+		{
+			super( 2 * factory.alpha );
+			alpha = factory.alpha;
+			scale = factory.lutScale;
+			lut = scale == 0 ? null : LanczosInterpolator.createLanczosLUT( alpha, scale );
+			clip = factory.clipping;
+			if ( factory.min == factory.max )
+			{
+				minValue = type.getMinValue();
+				maxValue = type.getMaxValue();
+			}
+			else
+			{
+				minValue = factory.min;
+				maxValue = factory.max;
+			}
+		}
+
+		@Override
+		long start( final double p )
+		{
+			return Floor.floor( p ) - alpha + 1;
+		}
+
+		@Override
+		double weight( final double p, final long start, final int k )
+		{
+			return LanczosInterpolator.kernel( p - start - k, alpha, lut, scale );
+		}
+
+		@Override
+		double clip( final double value )
+		{
+			if ( clip )
+			{
+				if ( value < minValue )
+					return minValue;
+				if ( value > maxValue )
+					return maxValue;
+			}
+			return value;
+		}
+	}
+
+	/**
+	 * Maximum number of values that {@link #separable} buffers per tile.
+	 * Tiles that would need more (large tiles in four and more dimensions,
+	 * kernels with many taps, strong downsampling) are resampled by
+	 * {@link #interpolate}.
+	 */
+	static final int MAX_BUFFER_SIZE = 1 << 22;
+
+	/**
+	 * Separable kernels: read the source samples of the tile and resample
+	 * them one dimension at a time. Only source coordinates that are read by
+	 * some target pixel are gathered, dimension 0 is resampled while
+	 * gathering.
+	 *
+	 * @return {@code false} if the tile needs too large buffers, in which
+	 *         case nothing was written.
+	 */
+	private static < A extends RealType< A >, B extends RealType< B > > boolean separable(
+			final RandomAccessible< A > source,
+			final SeparableKernel kernel,
+			final Interval tile,
+			final RandomAccessibleInterval< B > target,
+			final double[] scale,
+			final double[] offset )
+	{
+		final int n = tile.numDimensions();
+		final int taps = kernel.taps;
+
+		/*
+		 * For each dimension, the sorted source coordinates that are read
+		 * (coordinates[ d ]), and for each target pixel the index into
+		 * coordinates[ d ] of its first tap (first[ d ]) and its weights.
+		 * The taps of a pixel are consecutive source coordinates, so they
+		 * are consecutive in coordinates[ d ] as well.
+		 */
+		final long[][] coordinates = new long[ n ][];
+		final int[][] first = new int[ n ][];
+		final double[][] weights = new double[ n ][];
+		final long[] shape = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			final int m = ( int ) tile.dimension( d );
+			final long[] s = new long[ m ];
+			final double[] w = new double[ m * taps ];
+			final long[] used = new long[ m * taps ];
+			for ( int i = 0; i < m; ++i )
+			{
+				final double p = offset[ d ] + scale[ d ] * ( tile.min( d ) + i );
+				s[ i ] = kernel.start( p );
+				for ( int k = 0; k < taps; ++k )
+				{
+					w[ i * taps + k ] = kernel.weight( p, s[ i ], k );
+					used[ i * taps + k ] = s[ i ] + k;
+				}
+			}
+			final long[] c = unique( used );
+			final int[] f = new int[ m ];
+			for ( int i = 0; i < m; ++i )
+				f[ i ] = Arrays.binarySearch( c, s[ i ] );
+			coordinates[ d ] = c;
+			first[ d ] = f;
+			weights[ d ] = w;
+			shape[ d ] = d == 0 ? m : c.length;
+		}
+		final long[] targetShape = new long[ n ];
+		tile.dimensions( targetShape );
+		if ( peakBufferSize( shape, targetShape ) > MAX_BUFFER_SIZE )
+			return false;
+
+		double[] in = gather( source, coordinates, first[ 0 ], weights[ 0 ], taps, shape );
+
+		for ( int d = 1; d < n; ++d )
+		{
+			final int m = first[ d ].length;
+			int inner = 1;
+			for ( int e = 0; e < d; ++e )
+				inner *= shape[ e ];
+			int outer = 1;
+			for ( int e = d + 1; e < n; ++e )
+				outer *= shape[ e ];
+			final int srcSize = ( int ) shape[ d ];
+			final double[] out = new double[ inner * m * outer ];
+			final int[] f = first[ d ];
+			final double[] w = weights[ d ];
+			for ( int o = 0; o < outer; ++o )
+			{
+				final int inOffset = o * srcSize * inner;
+				final int outOffset = o * m * inner;
+				for ( int i = 0; i < m; ++i )
+				{
+					final int outRow = outOffset + i * inner;
+					final int inRow = inOffset + f[ i ] * inner;
+					for ( int k = 0; k < taps; ++k )
+					{
+						final double wk = w[ i * taps + k ];
+						final int inTap = inRow + k * inner;
+						for ( int r = 0; r < inner; ++r )
+							out[ outRow + r ] += wk * in[ inTap + r ];
+					}
+				}
+			}
+			in = out;
+			shape[ d ] = m;
+		}
+
+		int j = 0;
+		for ( final B b : Views.flatIterable( Views.interval( target, tile ) ) )
+			b.setReal( kernel.clip( in[ j++ ] ) );
+		return true;
+	}
+
+	/**
+	 * Size of the largest buffer {@link #separable} allocates. The gathered
+	 * buffer has {@code sourceShape}, and resampling dimension {@code d}
+	 * replaces {@code sourceShape[ d ]} by {@code targetShape[ d ]}. When
+	 * upsampling, the last buffer (the whole tile) is the largest.
+	 */
+	static long peakBufferSize( final long[] sourceShape, final long[] targetShape )
+	{
+		long size = Intervals.numElements( sourceShape );
+		long peak = size;
+		for ( int d = 1; d < sourceShape.length; ++d )
+		{
+			size = size / sourceShape[ d ] * targetShape[ d ];
+			peak = Math.max( peak, size );
+		}
+		return peak;
+	}
+
+	/**
+	 * Read the source samples at {@code coordinates} (all combinations,
+	 * dimension 0 fastest) and resample them in dimension 0.
+	 *
+	 * @return a buffer of {@code shape} ({@code shape[ 0 ]} target pixels by
+	 *         {@code coordinates[ d ].length} source coordinates in the other
+	 *         dimensions).
+	 */
+	private static < A extends RealType< A > > double[] gather(
+			final RandomAccessible< A > source,
+			final long[][] coordinates,
+			final int[] first,
+			final double[] weights,
+			final int taps,
+			final long[] shape )
+	{
+		final int n = coordinates.length;
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			min[ d ] = coordinates[ d ][ 0 ];
+			max[ d ] = coordinates[ d ][ coordinates[ d ].length - 1 ];
+		}
+		final RandomAccess< A > access = source.randomAccess( new FinalInterval( min, max ) );
+
+		final long[] xs = coordinates[ 0 ];
+		final double[] line = new double[ xs.length ];
+		final int m = first.length;
+		final double[] out = new double[ ( int ) Intervals.numElements( shape ) ];
+		final int[] pos = new int[ n ];
+		int o = 0;
+		do
+		{
+			for ( int d = 1; d < n; ++d )
+				access.setPosition( coordinates[ d ][ pos[ d ] ], d );
+			access.setPosition( xs[ 0 ], 0 );
+			line[ 0 ] = access.get().getRealDouble();
+			for ( int x = 1; x < xs.length; ++x )
+			{
+				if ( xs[ x ] == xs[ x - 1 ] + 1 )
+					access.fwd( 0 );
+				else
+					access.setPosition( xs[ x ], 0 );
+				line[ x ] = access.get().getRealDouble();
+			}
+			for ( int i = 0; i < m; ++i )
+			{
+				double sum = 0;
+				for ( int k = 0; k < taps; ++k )
+					sum += weights[ i * taps + k ] * line[ first[ i ] + k ];
+				out[ o++ ] = sum;
+			}
+		}
+		while ( next( pos, coordinates ) );
+		return out;
+	}
+
+	/**
+	 * Advance {@code pos} to the next combination of indices into
+	 * {@code coordinates} (dimensions 1 and up).
+	 *
+	 * @return {@code false} if there is no next combination.
+	 */
+	private static boolean next( final int[] pos, final long[][] coordinates )
+	{
+		for ( int d = 1; d < pos.length; ++d )
+		{
+			if ( ++pos[ d ] < coordinates[ d ].length )
+				return true;
+			pos[ d ] = 0;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the distinct values of {@code values}, sorted.
+	 */
+	private static long[] unique( final long[] values )
+	{
+		final long[] sorted = values.clone();
+		Arrays.sort( sorted );
+		int j = 0;
+		for ( int i = 0; i < sorted.length; ++i )
+			if ( i == 0 || sorted[ i ] != sorted[ j - 1 ] )
+				sorted[ j++ ] = sorted[ i ];
+		return Arrays.copyOf( sorted, j );
+	}
+}
@@ -0,0 +1,573 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.loops;
+
+import net.imglib2.util.Util;
+
+/**
+ * Element-wise kernels operating directly on the primitive storage arrays of
+ * {@link net.imglib2.type.numeric.real.FloatType FloatType},
+ * {@link net.imglib2.type.numeric.real.DoubleType DoubleType},
+ * {@link net.imglib2.type.numeric.integer.UnsignedShortType UnsignedShortType}
+ * and {@link net.imglib2.type.numeric.integer.UnsignedByteType
+ * UnsignedByteType} pixels.
+ * <p>
+ * {@code short[]} and {@code byte[]} arrays are interpreted as unsigned values,
+ * as stored by {@code UnsignedShortType} and {@code UnsignedByteType}. The
+ * kernels give the same results as the corresponding per-pixel operations on
+ * the types: {@code add} and {@code mul} wrap around for integer types, and
+ * real values written to integer types are rounded with
+ * {@link Util#round(double)}, then wrapped. Kernels are simple counted loops
+ * without method calls or branches in the loop body, which the JIT compiler
+ * can unroll and auto-vectorise.
+ * </p>
+ * <p>
+ * Source and destination arrays may be the same array for in-place
+ * operation.
+ * </p>
+ *
+ * @see ElementWise
+ */
+public final class ArrayKernels
+{
+	private ArrayKernels()
+	{
+		// prevent from instantiation.
+	}
+
+	/**
+	 * {@code dest[i] = a[i] + b[i]} for {@code FloatType} pixels.
+	 */
+	public static void add( final float[] a, final float[] b, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = a[ i ] + b[ i ];
+	}
+
+	/**
+	 * {@code dest[i] = a[i] + b[i]} for {@code DoubleType} pixels.
+	 */
+	public static void add( final double[] a, final double[] b, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = a[ i ] + b[ i ];
+	}
+
+	/**
+	 * {@code dest[i] = a[i] + b[i]} for {@code UnsignedShortType} pixels.
+	 */
+	public static void add( final short[] a, final short[] b, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) ( a[ i ] + b[ i ] );
+	}
+
+	/**
+	 * {@code dest[i] = a[i] + b[i]} for {@code UnsignedByteType} pixels.
+	 */
+	public static void add( final byte[] a, final byte[] b, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) ( a[ i ] + b[ i ] );
+	}
+
+	/**
+	 * {@code dest[i] = a[i] * b[i]} for {@code FloatType} pixels.
+	 */
+	public static void mul( final float[] a, final float[] b, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = a[ i ] * b[ i ];
+	}
+
+	/**
+	 * {@code dest[i] = a[i] * b[i]} for {@code DoubleType} pixels.
+	 */
+	public static void mul( final double[] a, final double[] b, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = a[ i ] * b[ i ];
+	}
+
+	/**
+	 * {@code dest[i] = a[i] * b[i]} for {@code UnsignedShortType} pixels.
+	 */
+	public static void mul( final short[] a, final short[] b, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) ( a[ i ] * b[ i ] );
+	}
+
+	/**
+	 * {@code dest[i] = a[i] * b[i]} for {@code UnsignedByteType} pixels.
+	 */
+	public static void mul( final byte[] a, final byte[] b, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) ( a[ i ] * b[ i ] );
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code FloatType} to {@code FloatType} pixels.
+	 */
+	public static void convert( final float[] src, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = src[ i ];
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code FloatType} to {@code DoubleType} pixels.
+	 */
+	public static void convert( final float[] src, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = src[ i ];
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code FloatType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void convert( final float[] src, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) Util.round( ( double ) src[ i ] );
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code FloatType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void convert( final float[] src, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) Util.round( ( double ) src[ i ] );
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code DoubleType} to {@code FloatType} pixels.
+	 */
+	public static void convert( final double[] src, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( float ) src[ i ];
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code DoubleType} to {@code DoubleType} pixels.
+	 */
+	public static void convert( final double[] src, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = src[ i ];
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code DoubleType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void convert( final double[] src, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) Util.round( src[ i ] );
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code DoubleType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void convert( final double[] src, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) Util.round( src[ i ] );
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code UnsignedShortType} to {@code FloatType} pixels.
+	 */
+	public static void convert( final short[] src, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = src[ i ] & 0xffff;
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code UnsignedShortType} to {@code DoubleType} pixels.
+	 */
+	public static void convert( final short[] src, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = src[ i ] & 0xffff;
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code UnsignedShortType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void convert( final short[] src, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = src[ i ];
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code UnsignedShortType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void convert( final short[] src, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) src[ i ];
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code UnsignedByteType} to {@code FloatType} pixels.
+	 */
+	public static void convert( final byte[] src, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = src[ i ] & 0xff;
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code UnsignedByteType} to {@code DoubleType} pixels.
+	 */
+	public static void convert( final byte[] src, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = src[ i ] & 0xff;
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code UnsignedByteType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void convert( final byte[] src, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) ( src[ i ] & 0xff );
+	}
+
+	/**
+	 * {@code dest[i] = src[i]}, from {@code UnsignedByteType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void convert( final byte[] src, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = src[ i ];
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code FloatType} to {@code FloatType} pixels.
+	 */
+	public static void scaleOffset( final float[] src, final double scale, final double offset, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( float ) ( src[ i ] * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code FloatType} to {@code DoubleType} pixels.
+	 */
+	public static void scaleOffset( final float[] src, final double scale, final double offset, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = src[ i ] * scale + offset;
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code FloatType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void scaleOffset( final float[] src, final double scale, final double offset, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) Util.round( src[ i ] * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code FloatType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void scaleOffset( final float[] src, final double scale, final double offset, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) Util.round( src[ i ] * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code DoubleType} to {@code FloatType} pixels.
+	 */
+	public static void scaleOffset( final double[] src, final double scale, final double offset, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( float ) ( src[ i ] * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code DoubleType} to {@code DoubleType} pixels.
+	 */
+	public static void scaleOffset( final double[] src, final double scale, final double offset, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = src[ i ] * scale + offset;
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code DoubleType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void scaleOffset( final double[] src, final double scale, final double offset, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) Util.round( src[ i ] * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code DoubleType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void scaleOffset( final double[] src, final double scale, final double offset, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) Util.round( src[ i ] * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code UnsignedShortType} to {@code FloatType} pixels.
+	 */
+	public static void scaleOffset( final short[] src, final double scale, final double offset, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( float ) ( ( src[ i ] & 0xffff ) * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code UnsignedShortType} to {@code DoubleType} pixels.
+	 */
+	public static void scaleOffset( final short[] src, final double scale, final double offset, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( src[ i ] & 0xffff ) * scale + offset;
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code UnsignedShortType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void scaleOffset( final short[] src, final double scale, final double offset, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) Util.round( ( src[ i ] & 0xffff ) * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code UnsignedShortType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void scaleOffset( final short[] src, final double scale, final double offset, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) Util.round( ( src[ i ] & 0xffff ) * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code UnsignedByteType} to {@code FloatType} pixels.
+	 */
+	public static void scaleOffset( final byte[] src, final double scale, final double offset, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( float ) ( ( src[ i ] & 0xff ) * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code UnsignedByteType} to {@code DoubleType} pixels.
+	 */
+	public static void scaleOffset( final byte[] src, final double scale, final double offset, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( src[ i ] & 0xff ) * scale + offset;
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code UnsignedByteType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void scaleOffset( final byte[] src, final double scale, final double offset, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) Util.round( ( src[ i ] & 0xff ) * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = src[i] * scale + offset}, from {@code UnsignedByteType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void scaleOffset( final byte[] src, final double scale, final double offset, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) Util.round( ( src[ i ] & 0xff ) * scale + offset );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code FloatType} to {@code FloatType} pixels.
+	 */
+	public static void clamp( final float[] src, final double min, final double max, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( float ) Math.min( Math.max( src[ i ], min ), max );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code FloatType} to {@code DoubleType} pixels.
+	 */
+	public static void clamp( final float[] src, final double min, final double max, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = Math.min( Math.max( src[ i ], min ), max );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code FloatType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void clamp( final float[] src, final double min, final double max, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) Util.round( Math.min( Math.max( src[ i ], min ), max ) );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code FloatType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void clamp( final float[] src, final double min, final double max, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) Util.round( Math.min( Math.max( src[ i ], min ), max ) );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code DoubleType} to {@code FloatType} pixels.
+	 */
+	public static void clamp( final double[] src, final double min, final double max, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( float ) Math.min( Math.max( src[ i ], min ), max );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code DoubleType} to {@code DoubleType} pixels.
+	 */
+	public static void clamp( final double[] src, final double min, final double max, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = Math.min( Math.max( src[ i ], min ), max );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code DoubleType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void clamp( final double[] src, final double min, final double max, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) Util.round( Math.min( Math.max( src[ i ], min ), max ) );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code DoubleType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void clamp( final double[] src, final double min, final double max, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) Util.round( Math.min( Math.max( src[ i ], min ), max ) );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code UnsignedShortType} to {@code FloatType} pixels.
+	 */
+	public static void clamp( final short[] src, final double min, final double max, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( float ) Math.min( Math.max( ( src[ i ] & 0xffff ), min ), max );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code UnsignedShortType} to {@code DoubleType} pixels.
+	 */
+	public static void clamp( final short[] src, final double min, final double max, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = Math.min( Math.max( ( src[ i ] & 0xffff ), min ), max );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code UnsignedShortType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void clamp( final short[] src, final double min, final double max, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) Util.round( Math.min( Math.max( ( src[ i ] & 0xffff ), min ), max ) );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code UnsignedShortType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void clamp( final short[] src, final double min, final double max, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) Util.round( Math.min( Math.max( ( src[ i ] & 0xffff ), min ), max ) );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code UnsignedByteType} to {@code FloatType} pixels.
+	 */
+	public static void clamp( final byte[] src, final double min, final double max, final float[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( float ) Math.min( Math.max( ( src[ i ] & 0xff ), min ), max );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code UnsignedByteType} to {@code DoubleType} pixels.
+	 */
+	public static void clamp( final byte[] src, final double min, final double max, final double[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = Math.min( Math.max( ( src[ i ] & 0xff ), min ), max );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code UnsignedByteType} to {@code UnsignedShortType} pixels.
+	 */
+	public static void clamp( final byte[] src, final double min, final double max, final short[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( short ) Util.round( Math.min( Math.max( ( src[ i ] & 0xff ), min ), max ) );
+	}
+
+	/**
+	 * {@code dest[i] = min(max(src[i], min), max)}, from {@code UnsignedByteType} to {@code UnsignedByteType} pixels.
+	 */
+	public static void clamp( final byte[] src, final double min, final double max, final byte[] dest, final int length )
+	{
+		for ( int i = 0; i < length; ++i )
+			dest[ i ] = ( byte ) Util.round( Math.min( Math.max( ( src[ i ] & 0xff ), min ), max ) );
+	}
+}
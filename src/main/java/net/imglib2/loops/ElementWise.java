@@ -0,0 +1,508 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.loops;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.WrappedImg;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+
+/**
+ * Element-wise operations on {@link RealType} images.
+ * <p>
+ * If all images are {@link ArrayImg}s, {@link PlanarImg}s, or
+ * {@link AbstractCellImg}s with the same memory layout, and the pixel types
+ * are {@link FloatType}, {@link DoubleType}, {@link UnsignedShortType}, or
+ * {@link UnsignedByteType}, the operation is run directly on the storage
+ * arrays using {@link ArrayKernels}. Otherwise, it falls back to a
+ * {@link LoopBuilder} loop over the pixels. Both paths give the same
+ * results.
+ * </p>
+ */
+public final class ElementWise
+{
+	private ElementWise()
+	{
+		// prevent from instantiation.
+	}
+
+	/**
+	 * {@code dest = a + b}, with the semantics of
+	 * {@link net.imglib2.type.operators.Add#add(Object)}.
+	 */
+	public static < T extends RealType< T > > void add( final RandomAccessibleInterval< T > a, final RandomAccessibleInterval< T > b, final RandomAccessibleInterval< T > dest )
+	{
+		final Kind kind = kindOf( dest );
+		if ( kind != null && run( addKernel( kind ), a, b, dest ) )
+			return;
+
+		final T tmp = Util.getTypeFromInterval( dest ).createVariable();
+		LoopBuilder.setImages( a, b, dest ).forEachPixel( ( x, y, z ) -> {
+			tmp.set( x );
+			tmp.add( y );
+			z.set( tmp );
+		} );
+	}
+
+	/**
+	 * {@code dest = a * b}, with the semantics of
+	 * {@link net.imglib2.type.operators.Mul#mul(Object)}.
+	 */
+	public static < T extends RealType< T > > void mul( final RandomAccessibleInterval< T > a, final RandomAccessibleInterval< T > b, final RandomAccessibleInterval< T > dest )
+	{
+		final Kind kind = kindOf( dest );
+		if ( kind != null && run( mulKernel( kind ), a, b, dest ) )
+			return;
+
+		final T tmp = Util.getTypeFromInterval( dest ).createVariable();
+		LoopBuilder.setImages( a, b, dest ).forEachPixel( ( x, y, z ) -> {
+			tmp.set( x );
+			tmp.mul( y );
+			z.set( tmp );
+		} );
+	}
+
+	/**
+	 * Convert {@code src} to the type of {@code dest}, that is
+	 * {@code dest.setReal( src.getRealDouble() )} for every pixel.
+	 */
+	public static < A extends RealType< A >, B extends RealType< B > > void convert( final RandomAccessibleInterval< A > src, final RandomAccessibleInterval< B > dest )
+	{
+		final Kind srcKind = kindOf( src );
+		final Kind destKind = kindOf( dest );
+		if ( srcKind != null && destKind != null && run( convertKernel( srcKind, destKind ), src, dest ) )
+			return;
+
+		LoopBuilder.setImages( src, dest ).forEachPixel( ( s, d ) -> d.setReal( s.getRealDouble() ) );
+	}
+
+	/**
+	 * {@code dest.setReal( src.getRealDouble() * scale + offset )} for every
+	 * pixel.
+	 */
+	public static < A extends RealType< A >, B extends RealType< B > > void scaleOffset( final RandomAccessibleInterval< A > src, final double scale, final double offset, final RandomAccessibleInterval< B > dest )
+	{
+		final Kind srcKind = kindOf( src );
+		final Kind destKind = kindOf( dest );
+		if ( srcKind != null && destKind != null && run( scaleOffsetKernel( srcKind, destKind, scale, offset ), src, dest ) )
+			return;
+
+		LoopBuilder.setImages( src, dest ).forEachPixel( ( s, d ) -> d.setReal( s.getRealDouble() * scale + offset ) );
+	}
+
+	/**
+	 * {@code dest.setReal( min( max( src.getRealDouble(), min ), max ) )} for
+	 * every pixel.
+	 */
+	public static < A extends RealType< A >, B extends RealType< B > > void clamp( final RandomAccessibleInterval< A > src, final double min, final double max, final RandomAccessibleInterval< B > dest )
+	{
+		final Kind srcKind = kindOf( src );
+		final Kind destKind = kindOf( dest );
+		if ( srcKind != null && destKind != null && run( clampKernel( srcKind, destKind, min, max ), src, dest ) )
+			return;
+
+		LoopBuilder.setImages( src, dest ).forEachPixel( ( s, d ) -> d.setReal( Math.min( Math.max( s.getRealDouble(), min ), max ) ) );
+	}
+
+	/**
+	 * Pixel types supported by {@link ArrayKernels}.
+	 */
+	private enum Kind
+	{
+		FLOAT, DOUBLE, UNSIGNED_SHORT, UNSIGNED_BYTE
+	}
+
+	private static Kind kindOf( final RandomAccessibleInterval< ? > image )
+	{
+		if ( Intervals.numElements( image ) == 0 )
+			return null;
+		final Class< ? > c = Util.getTypeFromInterval( image ).getClass();
+		if ( c == FloatType.class )
+			return Kind.FLOAT;
+		if ( c == DoubleType.class )
+			return Kind.DOUBLE;
+		if ( c == UnsignedShortType.class )
+			return Kind.UNSIGNED_SHORT;
+		if ( c == UnsignedByteType.class )
+			return Kind.UNSIGNED_BYTE;
+		return null;
+	}
+
+	private interface UnaryKernel
+	{
+		void apply( Object src, Object dest, int length );
+	}
+
+	private interface BinaryKernel
+	{
+		void apply( Object a, Object b, Object dest, int length );
+	}
+
+	/**
+	 * Run {@code kernel} on all chunks of the storage of {@code src} and
+	 * {@code dest}.
+	 *
+	 * @return {@code false} if the images do not have flat storage with the
+	 *         same layout.
+	 */
+	private static boolean run( final UnaryKernel kernel, final RandomAccessibleInterval< ? > src, final RandomAccessibleInterval< ? > dest )
+	{
+		final FlatChunks s = FlatChunks.of( src );
+		final FlatChunks d = FlatChunks.of( dest );
+		if ( s == null || d == null || !s.layout.equals( d.layout ) )
+			return false;
+		for ( int i = 0; i < s.arrays.size(); ++i )
+			kernel.apply( s.arrays.get( i ), d.arrays.get( i ), s.lengths.get( i ) );
+		return true;
+	}
+
+	/**
+	 * Run {@code kernel} on all chunks of the storage of {@code a}, {@code b},
+	 * and {@code dest}.
+	 *
+	 * @return {@code false} if the images do not have flat storage with the
+	 *         same layout.
+	 */
+	private static boolean run( final BinaryKernel kernel, final RandomAccessibleInterval< ? > a, final RandomAccessibleInterval< ? > b, final RandomAccessibleInterval< ? > dest )
+	{
+		final FlatChunks ca = FlatChunks.of( a );
+		final FlatChunks cb = FlatChunks.of( b );
+		final FlatChunks cd = FlatChunks.of( dest );
+		if ( ca == null || cb == null || cd == null || !ca.layout.equals( cb.layout ) || !ca.layout.equals( cd.layout ) )
+			return false;
+		for ( int i = 0; i < ca.arrays.size(); ++i )
+			kernel.apply( ca.arrays.get( i ), cb.arrays.get( i ), cd.arrays.get( i ), ca.lengths.get( i ) );
+		return true;
+	}
+
+	/**
+	 * The storage arrays of an {@link ArrayImg}, {@link PlanarImg}, or
+	 * {@link AbstractCellImg}, in a fixed order. Two images with equal
+	 * {@link #layout} have storage arrays that correspond element by element.
+	 */
+	private static final class FlatChunks
+	{
+		final CellGrid layout;
+
+		final List< Object > arrays = new ArrayList<>();
+
+		final List< Integer > lengths = new ArrayList<>();
+
+		private FlatChunks( final CellGrid layout )
+		{
+			this.layout = layout;
+		}
+
+		private boolean add( final Object access, final long length )
+		{
+			if ( !( access instanceof ArrayDataAccess ) )
+				return false;
+			arrays.add( ( ( ArrayDataAccess< ? > ) access ).getCurrentStorageArray() );
+			lengths.add( ( int ) length );
+			return true;
+		}
+
+		static FlatChunks of( final RandomAccessibleInterval< ? > image )
+		{
+			if ( image instanceof WrappedImg )
+				return of( ( ( WrappedImg< ? > ) image ).getImg() );
+
+			final int n = image.numDimensions();
+			final long[] dimensions = new long[ n ];
+			image.dimensions( dimensions );
+			final int[] cellDimensions = new int[ n ];
+			if ( image instanceof ArrayImg )
+			{
+				for ( int d = 0; d < n; ++d )
+					cellDimensions[ d ] = ( int ) dimensions[ d ];
+				final FlatChunks chunks = new FlatChunks( new CellGrid( dimensions, cellDimensions ) );
+				return chunks.add( ( ( ArrayImg< ?, ? > ) image ).update( null ), Intervals.numElements( dimensions ) ) ? chunks : null;
+			}
+			else if ( image instanceof PlanarImg )
+			{
+				final PlanarImg< ?, ? > img = ( PlanarImg< ?, ? > ) image;
+				for ( int d = 0; d < n; ++d )
+					cellDimensions[ d ] = d < 2 ? ( int ) dimensions[ d ] : 1;
+				final FlatChunks chunks = new FlatChunks( new CellGrid( dimensions, cellDimensions ) );
+				final long planeSize = Intervals.numElements( cellDimensions );
+				for ( int i = 0; i < img.numSlices(); ++i )
+					if ( !chunks.add( img.getPlane( i ), planeSize ) )
+						return null;
+				return chunks;
+			}
+			else if ( image instanceof AbstractCellImg )
+			{
+				final AbstractCellImg< ?, ?, ?, ? > img = ( AbstractCellImg< ?, ?, ?, ? > ) image;
+				final FlatChunks chunks = new FlatChunks( img.getCellGrid() );
+				final Cursor< ? extends Cell< ? > > cells = img.getCells().cursor();
+				while ( cells.hasNext() )
+				{
+					final Cell< ? > cell = cells.next();
+					if ( !chunks.add( cell.getData(), cell.size() ) )
+						return null;
+				}
+				return chunks;
+			}
+			return null;
+		}
+	}
+
+	private static BinaryKernel addKernel( final Kind kind )
+	{
+		switch ( kind )
+		{
+		case FLOAT:
+			return ( a, b, d, l ) -> ArrayKernels.add( ( float[] ) a, ( float[] ) b, ( float[] ) d, l );
+		case DOUBLE:
+			return ( a, b, d, l ) -> ArrayKernels.add( ( double[] ) a, ( double[] ) b, ( double[] ) d, l );
+		case UNSIGNED_SHORT:
+			return ( a, b, d, l ) -> ArrayKernels.add( ( short[] ) a, ( short[] ) b, ( short[] ) d, l );
+		case UNSIGNED_BYTE:
+			return ( a, b, d, l ) -> ArrayKernels.add( ( byte[] ) a, ( byte[] ) b, ( byte[] ) d, l );
+		}
+		throw new IllegalArgumentException();
+	}
+
+	private static BinaryKernel mulKernel( final Kind kind )
+	{
+		switch ( kind )
+		{
+		case FLOAT:
+			return ( a, b, d, l ) -> ArrayKernels.mul( ( float[] ) a, ( float[] ) b, ( float[] ) d, l );
+		case DOUBLE:
+			return ( a, b, d, l ) -> ArrayKernels.mul( ( double[] ) a, ( double[] ) b, ( double[] ) d, l );
+		case UNSIGNED_SHORT:
+			return ( a, b, d, l ) -> ArrayKernels.mul( ( short[] ) a, ( short[] ) b, ( short[] ) d, l );
+		case UNSIGNED_BYTE:
+			return ( a, b, d, l ) -> ArrayKernels.mul( ( byte[] ) a, ( byte[] ) b, ( byte[] ) d, l );
+		}
+		throw new IllegalArgumentException();
+	}
+
+	private static UnaryKernel convertKernel( final Kind src, final Kind dest )
+	{
+		switch ( src )
+		{
+		case FLOAT:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.convert( ( float[] ) s, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.convert( ( float[] ) s, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.convert( ( float[] ) s, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.convert( ( float[] ) s, ( byte[] ) d, l );
+			}
+			break;
+		case DOUBLE:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.convert( ( double[] ) s, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.convert( ( double[] ) s, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.convert( ( double[] ) s, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.convert( ( double[] ) s, ( byte[] ) d, l );
+			}
+			break;
+		case UNSIGNED_SHORT:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.convert( ( short[] ) s, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.convert( ( short[] ) s, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.convert( ( short[] ) s, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.convert( ( short[] ) s, ( byte[] ) d, l );
+			}
+			break;
+		case UNSIGNED_BYTE:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.convert( ( byte[] ) s, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.convert( ( byte[] ) s, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.convert( ( byte[] ) s, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.convert( ( byte[] ) s, ( byte[] ) d, l );
+			}
+			break;
+		}
+		throw new IllegalArgumentException();
+	}
+
+	private static UnaryKernel scaleOffsetKernel( final Kind src, final Kind dest, final double scale, final double offset )
+	{
+		switch ( src )
+		{
+		case FLOAT:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( float[] ) s, scale, offset, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( float[] ) s, scale, offset, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( float[] ) s, scale, offset, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( float[] ) s, scale, offset, ( byte[] ) d, l );
+			}
+			break;
+		case DOUBLE:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( double[] ) s, scale, offset, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( double[] ) s, scale, offset, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( double[] ) s, scale, offset, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( double[] ) s, scale, offset, ( byte[] ) d, l );
+			}
+			break;
+		case UNSIGNED_SHORT:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( short[] ) s, scale, offset, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( short[] ) s, scale, offset, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( short[] ) s, scale, offset, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( short[] ) s, scale, offset, ( byte[] ) d, l );
+			}
+			break;
+		case UNSIGNED_BYTE:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( byte[] ) s, scale, offset, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( byte[] ) s, scale, offset, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( byte[] ) s, scale, offset, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.scaleOffset( ( byte[] ) s, scale, offset, ( byte[] ) d, l );
+			}
+			break;
+		}
+		throw new IllegalArgumentException();
+	}
+
+	private static UnaryKernel clampKernel( final Kind src, final Kind dest, final double min, final double max )
+	{
+		switch ( src )
+		{
+		case FLOAT:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( float[] ) s, min, max, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( float[] ) s, min, max, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( float[] ) s, min, max, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( float[] ) s, min, max, ( byte[] ) d, l );
+			}
+			break;
+		case DOUBLE:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( double[] ) s, min, max, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( double[] ) s, min, max, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( double[] ) s, min, max, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( double[] ) s, min, max, ( byte[] ) d, l );
+			}
+			break;
+		case UNSIGNED_SHORT:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( short[] ) s, min, max, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( short[] ) s, min, max, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( short[] ) s, min, max, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( short[] ) s, min, max, ( byte[] ) d, l );
+			}
+			break;
+		case UNSIGNED_BYTE:
+			switch ( dest )
+			{
+			case FLOAT:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( byte[] ) s, min, max, ( float[] ) d, l );
+			case DOUBLE:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( byte[] ) s, min, max, ( double[] ) d, l );
+			case UNSIGNED_SHORT:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( byte[] ) s, min, max, ( short[] ) d, l );
+			case UNSIGNED_BYTE:
+				return ( s, d, l ) -> ArrayKernels.clamp( ( byte[] ) s, min, max, ( byte[] ) d, l );
+			}
+			break;
+		}
+		throw new IllegalArgumentException();
+	}
+}
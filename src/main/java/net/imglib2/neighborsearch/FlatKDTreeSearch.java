@@ -0,0 +1,363 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.neighborsearch;
+
+import java.util.Arrays;
+
+import net.imglib2.FlatKDTree;
+
+/**
+ * Nearest-neighbor and radius search on one or several {@link FlatKDTree
+ * FlatKDTrees}. A search is started with {@link #startNearest(double)} or
+ * {@link #startRadius(boolean)} and then continued in each tree. Nodes can
+ * be skipped by a deletion mask, and are reported with a per-tree offset,
+ * such that nodes of several trees can be told apart.
+ * <p>
+ * This is the {@link FlatKDTree} part of the searches in this package, which
+ * hold one {@link FlatKDTreeSearch} each and read the results from its
+ * fields.
+ * </p>
+ */
+class FlatKDTreeSearch
+{
+	final int n;
+
+	/**
+	 * the reference position.
+	 */
+	final double[] pos;
+
+	final int k;
+
+	/**
+	 * the away branch of a node is only searched if it may contain points
+	 * closer than the current best distance divided by (1 + epsilon). This is
+	 * (1 + epsilon)<sup>2</sup>.
+	 */
+	double squEpsilonFactor = 1;
+
+	int maxNodeVisits = Integer.MAX_VALUE;
+
+	int numNodeVisits;
+
+	/**
+	 * lower bound on the squared distance of the points in all subtrees that
+	 * were skipped by the approximate search.
+	 */
+	double minSkippedSquDistance;
+
+	/**
+	 * the k nearest nodes (plus offset), -1 for slots that were not filled.
+	 */
+	final int[] bestNodes;
+
+	final double[] bestSquDistances;
+
+	/**
+	 * nodes (plus offset) within radius, valid up to {@link #numResults}.
+	 */
+	int[] resultNodes = new int[ 16 ];
+
+	/**
+	 * squared distances of the nodes within radius, valid up to
+	 * {@link #numResults}.
+	 */
+	double[] resultSquDistances = new double[ 16 ];
+
+	int numResults;
+
+	/**
+	 * number of nodes within radius, if the radius search only counts.
+	 */
+	int count;
+
+	private boolean countOnly;
+
+	private FlatKDTree< ? > tree;
+
+	private boolean[] deleted;
+
+	private int nodeOffset;
+
+	/**
+	 * lower bound on the squared distance of the points in the subtree that
+	 * is currently searched.
+	 */
+	private double subtreeSquBound;
+
+	FlatKDTreeSearch( final int n, final int k )
+	{
+		this.n = n;
+		this.pos = new double[ n ];
+		this.k = k;
+		this.bestNodes = new int[ k ];
+		this.bestSquDistances = new double[ k ];
+		startNearest( Double.MAX_VALUE );
+	}
+
+	/**
+	 * Start a search for the k nearest nodes with squared distance smaller
+	 * than {@code squBound} to {@link #pos}. Slots that are not filled keep
+	 * node -1 and distance {@code squBound}.
+	 */
+	void startNearest( final double squBound )
+	{
+		for ( int i = 0; i < k; ++i )
+		{
+			bestSquDistances[ i ] = squBound;
+			bestNodes[ i ] = -1;
+		}
+		numNodeVisits = 0;
+		subtreeSquBound = 0;
+		minSkippedSquDistance = Double.MAX_VALUE;
+	}
+
+	/**
+	 * Continue the k-nearest-neighbor search in {@code tree}, skipping nodes
+	 * flagged in {@code deleted} ({@code null} for none). Nodes are reported
+	 * as {@code nodeOffset + node}.
+	 */
+	void searchNearest( final FlatKDTree< ? > tree, final boolean[] deleted, final int nodeOffset )
+	{
+		if ( tree.size() == 0 )
+			return;
+		set( tree, deleted, nodeOffset );
+		searchNode( 0, 0 );
+		set( null, null, 0 );
+	}
+
+	/**
+	 * Start a radius search (or a count if {@code countOnly}) about
+	 * {@link #pos}.
+	 */
+	void startRadius( final boolean countOnly )
+	{
+		this.countOnly = countOnly;
+		if ( countOnly )
+			count = 0;
+		else
+			numResults = 0;
+	}
+
+	/**
+	 * Continue the radius search in {@code tree}, skipping nodes flagged in
+	 * {@code deleted} ({@code null} for none). Nodes are reported as
+	 * {@code nodeOffset + node}.
+	 */
+	void searchRadius( final FlatKDTree< ? > tree, final boolean[] deleted, final int nodeOffset, final double squRadius )
+	{
+		if ( tree.size() == 0 )
+			return;
+		set( tree, deleted, nodeOffset );
+		searchNode( 0, 0, squRadius );
+		set( null, null, 0 );
+	}
+
+	/**
+	 * Sort the radius search results by ascending distance, and by node at
+	 * equal distance.
+	 */
+	void sortResults()
+	{
+		sort( 0, numResults - 1 );
+	}
+
+	/**
+	 * Copy reference position and results from {@code search}.
+	 */
+	void set( final FlatKDTreeSearch search )
+	{
+		System.arraycopy( search.pos, 0, pos, 0, n );
+		squEpsilonFactor = search.squEpsilonFactor;
+		maxNodeVisits = search.maxNodeVisits;
+		numNodeVisits = search.numNodeVisits;
+		minSkippedSquDistance = search.minSkippedSquDistance;
+		System.arraycopy( search.bestNodes, 0, bestNodes, 0, k );
+		System.arraycopy( search.bestSquDistances, 0, bestSquDistances, 0, k );
+		resultNodes = Arrays.copyOf( search.resultNodes, search.resultNodes.length );
+		resultSquDistances = Arrays.copyOf( search.resultSquDistances, search.resultSquDistances.length );
+		numResults = search.numResults;
+		count = search.count;
+	}
+
+	private void set( final FlatKDTree< ? > tree, final boolean[] deleted, final int nodeOffset )
+	{
+		this.tree = tree;
+		this.deleted = deleted;
+		this.nodeOffset = nodeOffset;
+	}
+
+	private void skip( final double squBound )
+	{
+		if ( squBound < minSkippedSquDistance )
+			minSkippedSquDistance = squBound;
+	}
+
+	private void searchNode( final int current, final int d )
+	{
+		if ( numNodeVisits == maxNodeVisits )
+		{
+			skip( subtreeSquBound );
+			return;
+		}
+		++numNodeVisits;
+
+		// consider the current node
+		if ( deleted == null || !deleted[ current ] )
+		{
+			final double squDistance = tree.squDistance( current, pos );
+			if ( squDistance < bestSquDistances[ k - 1 ] )
+			{
+				int i = k - 1;
+				for ( int j = i - 1; i > 0 && squDistance < bestSquDistances[ j ]; --i, --j )
+				{
+					bestSquDistances[ i ] = bestSquDistances[ j ];
+					bestNodes[ i ] = bestNodes[ j ];
+				}
+				bestSquDistances[ i ] = squDistance;
+				bestNodes[ i ] = nodeOffset + current;
+			}
+		}
+
+		final double axisDiff = pos[ d ] - tree.getDoublePosition( current, d );
+		final double axisSquDistance = axisDiff * axisDiff;
+		final boolean leftIsNearBranch = axisDiff < 0;
+
+		// search the near branch
+		final int nearChild = leftIsNearBranch ? FlatKDTree.leftChild( current ) : FlatKDTree.rightChild( current );
+		final int awayChild = leftIsNearBranch ? FlatKDTree.rightChild( current ) : FlatKDTree.leftChild( current );
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		if ( nearChild < tree.size() )
+			searchNode( nearChild, dChild );
+
+		// search the away branch - maybe
+		if ( awayChild < tree.size() )
+		{
+			final double squBound = Math.max( subtreeSquBound, axisSquDistance );
+			if ( squBound * squEpsilonFactor <= bestSquDistances[ k - 1 ] )
+			{
+				final double parentSquBound = subtreeSquBound;
+				subtreeSquBound = squBound;
+				searchNode( awayChild, dChild );
+				subtreeSquBound = parentSquBound;
+			}
+			else if ( squBound < bestSquDistances[ k - 1 ] )
+				skip( squBound );
+		}
+	}
+
+	private void searchNode( final int current, final int d, final double squRadius )
+	{
+		// consider the current node
+		if ( deleted == null || !deleted[ current ] )
+		{
+			final double squDistance = tree.squDistance( current, pos );
+			if ( squDistance <= squRadius )
+			{
+				if ( countOnly )
+					++count;
+				else
+				{
+					if ( numResults == resultNodes.length )
+					{
+						resultNodes = Arrays.copyOf( resultNodes, 2 * numResults );
+						resultSquDistances = Arrays.copyOf( resultSquDistances, 2 * numResults );
+					}
+					resultNodes[ numResults ] = nodeOffset + current;
+					resultSquDistances[ numResults ] = squDistance;
+					++numResults;
+				}
+			}
+		}
+
+		final double axisDiff = pos[ d ] - tree.getDoublePosition( current, d );
+		final double axisSquDistance = axisDiff * axisDiff;
+		final boolean leftIsNearBranch = axisDiff < 0;
+
+		// search the near branch
+		final int nearChild = leftIsNearBranch ? FlatKDTree.leftChild( current ) : FlatKDTree.rightChild( current );
+		final int awayChild = leftIsNearBranch ? FlatKDTree.rightChild( current ) : FlatKDTree.leftChild( current );
+		final int dChild = ( d + 1 == n ) ? 0 : d + 1;
+		if ( nearChild < tree.size() )
+			searchNode( nearChild, dChild, squRadius );
+
+		// search the away branch - maybe
+		if ( ( axisSquDistance <= squRadius ) && ( awayChild < tree.size() ) )
+			searchNode( awayChild, dChild, squRadius );
+	}
+
+	/**
+	 * Sort results {@code i} ... {@code j} by ascending distance and node.
+	 */
+	private void sort( int i, final int j )
+	{
+		while ( i < j )
+		{
+			final int p = i + ( j - i ) / 2;
+			final double pivot = resultSquDistances[ p ];
+			final int pivotNode = resultNodes[ p ];
+			int l = i;
+			int r = j;
+			while ( l <= r )
+			{
+				while ( compare( l, pivot, pivotNode ) < 0 )
+					++l;
+				while ( compare( r, pivot, pivotNode ) > 0 )
+					--r;
+				if ( l <= r )
+					swap( l++, r-- );
+			}
+			sort( i, r );
+			i = l;
+		}
+	}
+
+	private int compare( final int i, final double squDistance, final int node )
+	{
+		final int c = Double.compare( resultSquDistances[ i ], squDistance );
+		return c != 0 ? c : Integer.compare( resultNodes[ i ], node );
+	}
+
+	private void swap( final int a, final int b )
+	{
+		final double tmpDistance = resultSquDistances[ a ];
+		resultSquDistances[ a ] = resultSquDistances[ b ];
+		resultSquDistances[ b ] = tmpDistance;
+		final int tmpNode = resultNodes[ a ];
+		resultNodes[ a ] = resultNodes[ b ];
+		resultNodes[ b ] = tmpNode;
+	}
+}
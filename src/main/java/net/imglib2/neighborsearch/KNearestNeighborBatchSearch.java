@@ -0,0 +1,263 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.neighborsearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import net.imglib2.FlatKDTree;
+import net.imglib2.IterableRealInterval;
+import net.imglib2.RealCursor;
+import net.imglib2.util.Tasks;
+
+/**
+ * <em>k</em>-nearest-neighbor search for many queries at once on a
+ * {@link FlatKDTree}. Results are returned as flat arrays of value indices
+ * (see {@link FlatKDTree#valueIndex(int)}) and squared distances, such that no
+ * per-query objects are created.
+ * <p>
+ * Queries are processed in Z-order of their coordinates, in chunks of
+ * {@link #CHUNK_SIZE} that run in parallel if an {@link ExecutorService} is
+ * given. Within a chunk, the neighbors of the previous query bound the search
+ * radius of the next one.
+ * </p>
+ */
+public class KNearestNeighborBatchSearch
+{
+	public static final int CHUNK_SIZE = 1024;
+
+	/**
+	 * Result of a batch search.
+	 */
+	public static class Result
+	{
+		private final int k;
+
+		private final int numQueries;
+
+		private final int[] indices;
+
+		private final double[] squDistances;
+
+		Result( final int k, final int numQueries )
+		{
+			this.k = k;
+			this.numQueries = numQueries;
+			this.indices = new int[ k * numQueries ];
+			this.squDistances = new double[ k * numQueries ];
+		}
+
+		public int getK()
+		{
+			return k;
+		}
+
+		public int numQueries()
+		{
+			return numQueries;
+		}
+
+		/**
+		 * Value index of the <em>i</em><sup>th</sup> nearest neighbor of
+		 * query {@code q} is at {@code q * k + i}, -1 if the tree has less
+		 * than k nodes.
+		 */
+		public int[] getIndices()
+		{
+			return indices;
+		}
+
+		/**
+		 * Squared distance of the <em>i</em><sup>th</sup> nearest neighbor of
+		 * query {@code q} is at {@code q * k + i}.
+		 */
+		public double[] getSquareDistances()
+		{
+			return squDistances;
+		}
+
+		public int getIndex( final int q, final int i )
+		{
+			return indices[ q * k + i ];
+		}
+
+		public double getSquareDistance( final int q, final int i )
+		{
+			return squDistances[ q * k + i ];
+		}
+	}
+
+	private final FlatKDTree< ? > tree;
+
+	private final int n;
+
+	private final int k;
+
+	public KNearestNeighborBatchSearch( final FlatKDTree< ? > tree, final int k )
+	{
+		this.tree = tree;
+		this.n = tree.numDimensions();
+		this.k = k;
+	}
+
+	/**
+	 * Search the k nearest neighbors of each query.
+	 *
+	 * @param queries
+	 *            query coordinates, {@code queries[ d ][ q ]} is coordinate
+	 *            {@code d} of query {@code q}
+	 * @param service
+	 *            executor to run chunks of queries on, {@code null} to run in
+	 *            the calling thread
+	 */
+	public Result search( final double[][] queries, final ExecutorService service )
+	{
+		final int numQueries = queries[ 0 ].length;
+		if ( numQueries > Integer.MAX_VALUE / k )
+			throw new IllegalArgumentException( "Too many queries: " + numQueries );
+		final Result result = new Result( k, numQueries );
+		final int[] order = zOrder( queries );
+
+		final List< Runnable > tasks = new ArrayList<>();
+		for ( int start = 0; start < numQueries; start += CHUNK_SIZE )
+		{
+			final int from = start;
+			final int to = Math.min( numQueries, start + CHUNK_SIZE );
+			tasks.add( () -> search( queries, order, from, to, result ) );
+		}
+		Tasks.run( tasks, service );
+		return result;
+	}
+
+	/**
+	 * Search the k nearest neighbors of each element of {@code queries}, e.g.
+	 * a {@link net.imglib2.RealPointSampleList}. Results are in iteration
+	 * order of {@code queries}.
+	 */
+	public Result search( final IterableRealInterval< ? > queries, final ExecutorService service )
+	{
+		if ( queries.size() > Integer.MAX_VALUE )
+			throw new IllegalArgumentException( "Too many queries: " + queries.size() );
+		final double[][] coordinates = new double[ n ][ ( int ) queries.size() ];
+		final RealCursor< ? > cursor = queries.localizingCursor();
+		for ( int q = 0; cursor.hasNext(); ++q )
+		{
+			cursor.fwd();
+			for ( int d = 0; d < n; ++d )
+				coordinates[ d ][ q ] = cursor.getDoublePosition( d );
+		}
+		return search( coordinates, service );
+	}
+
+	/**
+	 * Search queries {@code order[ from ]} ... {@code order[ to - 1 ]}.
+	 */
+	private void search( final double[][] queries, final int[] order, final int from, final int to, final Result result )
+	{
+		final FlatKDTreeSearch search = new FlatKDTreeSearch( n, k );
+		final double[] pos = search.pos;
+		boolean havePrevious = false;
+		for ( int j = from; j < to; ++j )
+		{
+			final int q = order[ j ];
+			for ( int d = 0; d < n; ++d )
+				pos[ d ] = queries[ d ][ q ];
+
+			// the k neighbors of the previous query bound the k-th distance
+			double bound = Double.MAX_VALUE;
+			if ( havePrevious )
+			{
+				bound = 0;
+				for ( int i = 0; i < k; ++i )
+					bound = Math.max( bound, tree.squDistance( search.bestNodes[ i ], pos ) );
+				bound = Math.nextUp( bound );
+			}
+			search.startNearest( bound );
+			search.searchNearest( tree, null, 0 );
+			havePrevious = search.bestNodes[ k - 1 ] >= 0;
+
+			final int o = q * k;
+			for ( int i = 0; i < k; ++i )
+			{
+				final int node = search.bestNodes[ i ];
+				result.indices[ o + i ] = node < 0 ? -1 : tree.valueIndex( node );
+				result.squDistances[ o + i ] = node < 0 ? Double.MAX_VALUE : search.bestSquDistances[ i ];
+			}
+		}
+	}
+
+	/**
+	 * Order queries along a Z-order curve through the bounding box of the
+	 * tree.
+	 */
+	private int[] zOrder( final double[][] queries )
+	{
+		final int numQueries = queries[ 0 ].length;
+		final int[] order = new int[ numQueries ];
+		// keys are the interleaved quantized coordinates (at most 32 bits)
+		// above the query index in the lower 31 bits, such that the sign bit
+		// stays clear and the signed sort orders keys correctly
+		final int bits = 32 / n;
+		if ( bits == 0 || tree.size() == 0 )
+		{
+			for ( int q = 0; q < numQueries; ++q )
+				order[ q ] = q;
+			return order;
+		}
+
+		final long cells = 1L << bits;
+		final long[] keys = new long[ numQueries ];
+		for ( int q = 0; q < numQueries; ++q )
+		{
+			long key = 0;
+			for ( int d = 0; d < n; ++d )
+			{
+				final double extent = tree.realMax( d ) - tree.realMin( d );
+				final double x = extent > 0 ? ( queries[ d ][ q ] - tree.realMin( d ) ) / extent : 0;
+				final long cell = Math.min( cells - 1, Math.max( 0, ( long ) ( x * cells ) ) );
+				for ( int b = 0; b < bits; ++b )
+					key |= ( ( cell >> b ) & 1 ) << ( b * n + d );
+			}
+			keys[ q ] = ( key << 31 ) | q;
+		}
+		Arrays.sort( keys );
+		for ( int q = 0; q < numQueries; ++q )
+			order[ q ] = ( int ) ( keys[ q ] & Integer.MAX_VALUE );
+		return order;
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.neighborsearch;
+
+import net.imglib2.DynamicKDTree;
+import net.imglib2.FlatKDTree;
+import net.imglib2.RealLocalizable;
+import net.imglib2.Sampler;
+
+/**
+ * Implementation of {@link KNearestNeighborSearch} search for a
+ * {@link DynamicKDTree}. Runs the {@link FlatKDTree} search on all blocks of
+ * the tree, carrying
+ * the k best distances found so far from block to block, and skips deleted
+ * entries.
+ */
+public class KNearestNeighborSearchOnDynamicKDTree< T > implements KNearestNeighborSearch< T >
+{
+	protected final DynamicKDTree< T > tree;
+
+	protected final int n;
+
+	protected final int k;
+
+	/**
+	 * searches the blocks, reports the nearest entries by
+	 * {@link DynamicKDTree#index(int, int) index}.
+	 */
+	private final FlatKDTreeSearch blockSearch;
+
+	protected final DynamicKDTree< T >.Ref[] bestRefs;
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	public KNearestNeighborSearchOnDynamicKDTree( final DynamicKDTree< T > tree, final int k )
+	{
+		this.tree = tree;
+		this.n = tree.numDimensions();
+		this.k = k;
+		this.blockSearch = new FlatKDTreeSearch( n, k );
+		this.bestRefs = new DynamicKDTree.Ref[ k ];
+		for ( int i = 0; i < k; ++i )
+			bestRefs[ i ] = tree.createRef();
+	}
+
+	@Override
+	public int numDimensions()
+	{
+		return n;
+	}
+
+	@Override
+	public int getK()
+	{
+		return k;
+	}
+
+	@Override
+	public void search( final RealLocalizable reference )
+	{
+		reference.localize( blockSearch.pos );
+		blockSearch.startNearest( Double.MAX_VALUE );
+		for ( int i = 0; i < tree.numBlocks(); ++i )
+		{
+			final FlatKDTree< T > block = tree.getBlock( i );
+			if ( block != null )
+				blockSearch.searchNearest( block, tree.getDeleted( i ), DynamicKDTree.index( i, 0 ) );
+		}
+		for ( int i = 0; i < k; ++i )
+			bestRefs[ i ].setIndex( blockSearch.bestNodes[ i ] );
+	}
+
+	@Override
+	public Sampler< T > getSampler( final int i )
+	{
+		return bestRefs[ i ];
+	}
+
+	@Override
+	public RealLocalizable getPosition( final int i )
+	{
+		return bestRefs[ i ];
+	}
+
+	@Override
+	public double getSquareDistance( final int i )
+	{
+		return blockSearch.bestSquDistances[ i ];
+	}
+
+	@Override
+	public double getDistance( final int i )
+	{
+		return Math.sqrt( blockSearch.bestSquDistances[ i ] );
+	}
+
+	/* NearestNeighborSearch */
+
+	@Override
+	public RealLocalizable getPosition()
+	{
+		return getPosition( 0 );
+	}
+
+	@Override
+	public Sampler< T > getSampler()
+	{
+		return getSampler( 0 );
+	}
+
+	@Override
+	public double getSquareDistance()
+	{
+		return getSquareDistance( 0 );
+	}
+
+	@Override
+	public double getDistance()
+	{
+		return getDistance( 0 );
+	}
+
+	@Override
+	public KNearestNeighborSearchOnDynamicKDTree< T > copy()
+	{
+		final KNearestNeighborSearchOnDynamicKDTree< T > copy = new KNearestNeighborSearchOnDynamicKDTree< T >( tree, k );
+		copy.blockSearch.set( blockSearch );
+		for ( int i = 0; i < k; ++i )
+			copy.bestRefs[ i ].set( bestRefs[ i ] );
+		return copy;
+	}
+}
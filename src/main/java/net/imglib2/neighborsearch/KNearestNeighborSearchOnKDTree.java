@@ -34,13 +34,15 @@
 
 package net.imglib2.neighborsearch;
 
+import net.imglib2.FlatKDTree;
 import net.imglib2.KDTree;
 import net.imglib2.KDTreeNode;
 import net.imglib2.RealLocalizable;
 import net.imglib2.Sampler;
 
 /**
- * Implementation of {@link KNearestNeighborSearch} search for kd-trees.
+ * Implementation of {@link KNearestNeighborSearch} search for kd-trees. Works
+ * on a {@link KDTree} or a {@link FlatKDTree}.
  * 
  * @author Tobias Pietzsch
  */
@@ -48,6 +50,8 @@ public class KNearestNeighborSearchOnKDTree< T > implements KNearestNeighborSear
 {
 	protected KDTree< T > tree;
 
+	protected FlatKDTree< T > flatTree;
+
 	protected final int n;
 
 	protected final double[] pos;
@@ -58,6 +62,40 @@ public class KNearestNeighborSearchOnKDTree< T > implements KNearestNeighborSear
 
 	protected double[] bestSquDistances;
 
+	/**
+	 * the nearest nodes of a {@link #flatTree}.
+	 */
+	protected FlatKDTree< T >.NodeRef[] bestRefs;
+
+	/**
+	 * searches the {@link #flatTree}, shares {@link #pos} and
+	 * {@link #bestSquDistances}.
+	 */
+	private final FlatKDTreeSearch flatSearch;
+
+	/**
+	 * the away branch of a node is only searched if it may contain points
+	 * closer than the current best distance divided by (1 + epsilon). This is
+	 * (1 + epsilon)<sup>2</sup>.
+	 */
+	protected double squEpsilonFactor = 1;
+
+	protected int maxNodeVisits = Integer.MAX_VALUE;
+
+	protected int numNodeVisits;
+
+	/**
+	 * lower bound on the squared distance of the points in the subtree that
+	 * is currently searched.
+	 */
+	protected double subtreeSquBound;
+
+	/**
+	 * lower bound on the squared distance of the points in all subtrees that
+	 * were skipped by the approximate search.
+	 */
+	protected double minSkippedSquDistance;
+
 	@SuppressWarnings( "unchecked" )
 	public KNearestNeighborSearchOnKDTree( final KDTree< T > tree, final int k )
 	{
@@ -69,6 +107,21 @@ public class KNearestNeighborSearchOnKDTree< T > implements KNearestNeighborSear
 		this.bestSquDistances = new double[ k ];
 		for ( int i = 0; i < k; ++i )
 			bestSquDistances[ i ] = Double.MAX_VALUE;
+		this.flatSearch = null;
+	}
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	public KNearestNeighborSearchOnKDTree( final FlatKDTree< T > tree, final int k )
+	{
+		this.flatTree = tree;
+		this.n = tree.numDimensions();
+		this.k = k;
+		this.flatSearch = new FlatKDTreeSearch( n, k );
+		this.pos = flatSearch.pos;
+		this.bestSquDistances = flatSearch.bestSquDistances;
+		this.bestRefs = new FlatKDTree.NodeRef[ k ];
+		for ( int i = 0; i < k; ++i )
+			bestRefs[ i ] = tree.createRef();
 	}
 
 	@Override
@@ -77,6 +130,71 @@ public class KNearestNeighborSearchOnKDTree< T > implements KNearestNeighborSear
 		return n;
 	}
 
+	/**
+	 * Set the approximation parameter epsilon. Subtrees are only searched if
+	 * they may contain points closer than the current best distance divided by
+	 * (1 + epsilon), such that reported distances are at most (1 + epsilon)
+	 * times the true distances. The default 0 gives exact search.
+	 */
+	public void setEpsilon( final double epsilon )
+	{
+		if ( epsilon < 0 )
+			throw new IllegalArgumentException( "epsilon must not be negative" );
+		squEpsilonFactor = ( 1 + epsilon ) * ( 1 + epsilon );
+	}
+
+	public double getEpsilon()
+	{
+		return Math.sqrt( squEpsilonFactor ) - 1;
+	}
+
+	/**
+	 * Set the maximum number of tree nodes that are visited per search. The
+	 * search stops when the budget is exhausted, and
+	 * {@link #getErrorBound()} reports how far off the result may be. The
+	 * default {@link Integer#MAX_VALUE} gives exact search.
+	 */
+	public void setMaxNodeVisits( final int maxNodeVisits )
+	{
+		if ( maxNodeVisits < 1 )
+			throw new IllegalArgumentException( "maxNodeVisits must be positive" );
+		this.maxNodeVisits = maxNodeVisits;
+	}
+
+	public int getMaxNodeVisits()
+	{
+		return maxNodeVisits;
+	}
+
+	/**
+	 * @return the number of tree nodes visited by the last search.
+	 */
+	public int getNumNodeVisits()
+	{
+		return numNodeVisits;
+	}
+
+	/**
+	 * Get an upper bound on the ratio of the distances reported by the last
+	 * search to the true distances. This is 1 if the last search was exact,
+	 * at most 1 + epsilon if it was only limited by
+	 * {@link #setEpsilon(double) epsilon}, and can be arbitrarily large if
+	 * the {@link #setMaxNodeVisits(int) node budget} was exhausted.
+	 */
+	public double getErrorBound()
+	{
+		final double squDistance = bestSquDistances[ k - 1 ];
+		if ( squDistance <= minSkippedSquDistance )
+			return 1;
+		return Math.sqrt( squDistance / minSkippedSquDistance );
+	}
+
+	private void skip( final double squBound )
+	{
+		if ( squBound < minSkippedSquDistance )
+			minSkippedSquDistance = squBound;
+	}
+
 	@Override
 	public int getK()
 	{
@@ -87,13 +205,37 @@ public class KNearestNeighborSearchOnKDTree< T > implements KNearestNeighborSear
 	public void search( final RealLocalizable reference )
 	{
 		reference.localize( pos );
-		for ( int i = 0; i < k; ++i )
-			bestSquDistances[ i ] = Double.MAX_VALUE;
-		searchNode( tree.getRoot() );
+		if ( flatTree != null )
+		{
+			flatSearch.squEpsilonFactor = squEpsilonFactor;
+			flatSearch.maxNodeVisits = maxNodeVisits;
+			flatSearch.startNearest( Double.MAX_VALUE );
+			flatSearch.searchNearest( flatTree, null, 0 );
+			numNodeVisits = flatSearch.numNodeVisits;
+			minSkippedSquDistance = flatSearch.minSkippedSquDistance;
+			for ( int i = 0; i < k; ++i )
+				bestRefs[ i ].setNode( flatSearch.bestNodes[ i ] );
+		}
+		else
+		{
+			for ( int i = 0; i < k; ++i )
+				bestSquDistances[ i ] = Double.MAX_VALUE;
+			numNodeVisits = 0;
+			subtreeSquBound = 0;
+			minSkippedSquDistance = Double.MAX_VALUE;
+			searchNode( tree.getRoot() );
+		}
 	}
 
 	protected void searchNode( final KDTreeNode< T > current )
 	{
+		if ( numNodeVisits == maxNodeVisits )
+		{
+			skip( subtreeSquBound );
+			return;
+		}
+		++numNodeVisits;
+
 		// consider the current node
 		final double squDistance = current.squDistanceTo( pos );
 		if ( squDistance < bestSquDistances[ k - 1 ] )
@@ -119,20 +261,31 @@ public class KNearestNeighborSearchOnKDTree< T > implements KNearestNeighborSear
 			searchNode( nearChild );
 
 		// search the away branch - maybe
-		if ( ( axisSquDistance <= bestSquDistances[ k - 1 ] ) && ( awayChild != null ) )
-			searchNode( awayChild );
+		if ( awayChild != null )
+		{
+			final double squBound = Math.max( subtreeSquBound, axisSquDistance );
+			if ( squBound * squEpsilonFactor <= bestSquDistances[ k - 1 ] )
+			{
+				final double parentSquBound = subtreeSquBound;
+				subtreeSquBound = squBound;
+				searchNode( awayChild );
+				subtreeSquBound = parentSquBound;
+			}
+			else if ( squBound < bestSquDistances[ k - 1 ] )
+				skip( squBound );
+		}
 	}
 
 	@Override
 	public Sampler< T > getSampler( final int i )
 	{
-		return bestPoints[ i ];
+		return flatTree != null ? bestRefs[ i ] : bestPoints[ i ];
 	}
 
 	@Override
 	public RealLocalizable getPosition( final int i )
 	{
-		return bestPoints[ i ];
+		return flatTree != null ? bestRefs[ i ] : bestPoints[ i ];
 	}
 
 	@Override
@@ -176,11 +329,20 @@ public class KNearestNeighborSearchOnKDTree< T > implements KNearestNeighborSear
 	@Override
 	public KNearestNeighborSearchOnKDTree< T > copy()
 	{
-		final KNearestNeighborSearchOnKDTree< T > copy = new KNearestNeighborSearchOnKDTree< T >( tree, k );
+		final KNearestNeighborSearchOnKDTree< T > copy = flatTree != null ? new KNearestNeighborSearchOnKDTree< T >( flatTree, k ) : new KNearestNeighborSearchOnKDTree< T >( tree, k );
 		System.arraycopy( pos, 0, copy.pos, 0, pos.length );
+		copy.squEpsilonFactor = squEpsilonFactor;
+		copy.maxNodeVisits = maxNodeVisits;
+		copy.numNodeVisits = numNodeVisits;
+		copy.minSkippedSquDistance = minSkippedSquDistance;
+		if ( flatTree != null )
+			copy.flatSearch.set( flatSearch );
 		for ( int i = 0; i < k; ++i )
 		{
-			copy.bestPoints[ i ] = bestPoints[ i ];
+			if ( flatTree != null )
+				copy.bestRefs[ i ].setNode( flatSearch.bestNodes[ i ] );
+			else
+				copy.bestPoints[ i ] = bestPoints[ i ];
 			copy.bestSquDistances[ i ] = bestSquDistances[ i ];
 		}
 		return copy;
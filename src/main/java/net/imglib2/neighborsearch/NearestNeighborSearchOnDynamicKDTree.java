@@ -0,0 +1,124 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.neighborsearch;
+
+import net.imglib2.DynamicKDTree;
+import net.imglib2.FlatKDTree;
+import net.imglib2.RealLocalizable;
+import net.imglib2.Sampler;
+
+/**
+ * Implementation of {@link NearestNeighborSearch} search for a
+ * {@link DynamicKDTree}. Runs the {@link FlatKDTree} search on all blocks of
+ * the tree, carrying
+ * the best distance found so far from block to block, and skips deleted
+ * entries.
+ */
+public class NearestNeighborSearchOnDynamicKDTree< T > implements NearestNeighborSearch< T >
+{
+	protected final DynamicKDTree< T > tree;
+
+	protected final int n;
+
+	/**
+	 * searches the blocks, reports the nearest entry by
+	 * {@link DynamicKDTree#index(int, int) index}.
+	 */
+	private final FlatKDTreeSearch blockSearch;
+
+	protected final DynamicKDTree< T >.Ref bestRef;
+
+	public NearestNeighborSearchOnDynamicKDTree( final DynamicKDTree< T > tree )
+	{
+		this.tree = tree;
+		this.n = tree.numDimensions();
+		this.blockSearch = new FlatKDTreeSearch( n, 1 );
+		this.bestRef = tree.createRef();
+	}
+
+	@Override
+	public int numDimensions()
+	{
+		return n;
+	}
+
+	@Override
+	public void search( final RealLocalizable p )
+	{
+		p.localize( blockSearch.pos );
+		blockSearch.startNearest( Double.MAX_VALUE );
+		for ( int i = 0; i < tree.numBlocks(); ++i )
+		{
+			final FlatKDTree< T > block = tree.getBlock( i );
+			if ( block != null )
+				blockSearch.searchNearest( block, tree.getDeleted( i ), DynamicKDTree.index( i, 0 ) );
+		}
+		bestRef.setIndex( blockSearch.bestNodes[ 0 ] );
+	}
+
+	@Override
+	public Sampler< T > getSampler()
+	{
+		return bestRef;
+	}
+
+	@Override
+	public RealLocalizable getPosition()
+	{
+		return bestRef;
+	}
+
+	@Override
+	public double getSquareDistance()
+	{
+		return blockSearch.bestSquDistances[ 0 ];
+	}
+
+	@Override
+	public double getDistance()
+	{
+		return Math.sqrt( blockSearch.bestSquDistances[ 0 ] );
+	}
+
+	@Override
+	public NearestNeighborSearchOnDynamicKDTree< T > copy()
+	{
+		final NearestNeighborSearchOnDynamicKDTree< T > copy = new NearestNeighborSearchOnDynamicKDTree< T >( tree );
+		copy.blockSearch.set( blockSearch );
+		copy.bestRef.set( bestRef );
+		return copy;
+	}
+}
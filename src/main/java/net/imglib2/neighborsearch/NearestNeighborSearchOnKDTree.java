@@ -34,13 +34,15 @@
 
 package net.imglib2.neighborsearch;
 
+import net.imglib2.FlatKDTree;
 import net.imglib2.KDTree;
 import net.imglib2.KDTreeNode;
 import net.imglib2.RealLocalizable;
 import net.imglib2.Sampler;
 
 /**
- * Implementation of {@link NearestNeighborSearch} search for kd-trees.
+ * Implementation of {@link NearestNeighborSearch} search for kd-trees. Works on
+ * a {@link KDTree} or a {@link FlatKDTree}.
  * 
  * 
  * @author Tobias Pietzsch
@@ -49,19 +51,64 @@ public class NearestNeighborSearchOnKDTree< T > implements NearestNeighborSearch
 {
 	protected KDTree< T > tree;
 
+	protected FlatKDTree< T > flatTree;
+
 	protected final int n;
 
 	protected final double[] pos;
 
 	protected KDTreeNode< T > bestPoint;
 
+	/**
+	 * the nearest node of a {@link #flatTree}.
+	 */
+	protected FlatKDTree< T >.NodeRef bestRef;
+
+	/**
+	 * searches the {@link #flatTree}, shares {@link #pos}.
+	 */
+	private final FlatKDTreeSearch flatSearch;
+
 	protected double bestSquDistance;
 
+	/**
+	 * the away branch of a node is only searched if it may contain points
+	 * closer than the current best distance divided by (1 + epsilon). This is
+	 * (1 + epsilon)<sup>2</sup>.
+	 */
+	protected double squEpsilonFactor = 1;
+
+	protected int maxNodeVisits = Integer.MAX_VALUE;
+
+	protected int numNodeVisits;
+
+	/**
+	 * lower bound on the squared distance of the points in the subtree that
+	 * is currently searched.
+	 */
+	protected double subtreeSquBound;
+
+	/**
+	 * lower bound on the squared distance of the points in all subtrees that
+	 * were skipped by the approximate search.
+	 */
+	protected double minSkippedSquDistance;
+
 	public NearestNeighborSearchOnKDTree( final KDTree< T > tree )
 	{
 		n = tree.numDimensions();
 		pos = new double[ n ];
 		this.tree = tree;
+		this.flatSearch = null;
+	}
+
+	public NearestNeighborSearchOnKDTree( final FlatKDTree< T > tree )
+	{
+		n = tree.numDimensions();
+		flatSearch = new FlatKDTreeSearch( n, 1 );
+		pos = flatSearch.pos;
+		this.flatTree = tree;
+		this.bestRef = tree.createRef();
 	}
 
 	@Override
@@ -70,16 +117,104 @@ public class NearestNeighborSearchOnKDTree< T > implements NearestNeighborSearch
 		return n;
 	}
 
+	/**
+	 * Set the approximation parameter epsilon. Subtrees are only searched if
+	 * they may contain points closer than the current best distance divided by
+	 * (1 + epsilon), such that reported distances are at most (1 + epsilon)
+	 * times the true distances. The default 0 gives exact search.
+	 */
+	public void setEpsilon( final double epsilon )
+	{
+		if ( epsilon < 0 )
+			throw new IllegalArgumentException( "epsilon must not be negative" );
+		squEpsilonFactor = ( 1 + epsilon ) * ( 1 + epsilon );
+	}
+
+	public double getEpsilon()
+	{
+		return Math.sqrt( squEpsilonFactor ) - 1;
+	}
+
+	/**
+	 * Set the maximum number of tree nodes that are visited per search. The
+	 * search stops when the budget is exhausted, and
+	 * {@link #getErrorBound()} reports how far off the result may be. The
+	 * default {@link Integer#MAX_VALUE} gives exact search.
+	 */
+	public void setMaxNodeVisits( final int maxNodeVisits )
+	{
+		if ( maxNodeVisits < 1 )
+			throw new IllegalArgumentException( "maxNodeVisits must be positive" );
+		this.maxNodeVisits = maxNodeVisits;
+	}
+
+	public int getMaxNodeVisits()
+	{
+		return maxNodeVisits;
+	}
+
+	/**
+	 * @return the number of tree nodes visited by the last search.
+	 */
+	public int getNumNodeVisits()
+	{
+		return numNodeVisits;
+	}
+
+	/**
+	 * Get an upper bound on the ratio of the distances reported by the last
+	 * search to the true distances. This is 1 if the last search was exact,
+	 * at most 1 + epsilon if it was only limited by
+	 * {@link #setEpsilon(double) epsilon}, and can be arbitrarily large if
+	 * the {@link #setMaxNodeVisits(int) node budget} was exhausted.
+	 */
+	public double getErrorBound()
+	{
+		if ( bestSquDistance <= minSkippedSquDistance )
+			return 1;
+		return Math.sqrt( bestSquDistance / minSkippedSquDistance );
+	}
+
+	private void skip( final double squBound )
+	{
+		if ( squBound < minSkippedSquDistance )
+			minSkippedSquDistance = squBound;
+	}
+
 	@Override
 	public void search( final RealLocalizable p )
 	{
 		p.localize( pos );
-		bestSquDistance = Double.MAX_VALUE;
-		searchNode( tree.getRoot() );
+		if ( flatTree != null )
+		{
+			flatSearch.squEpsilonFactor = squEpsilonFactor;
+			flatSearch.maxNodeVisits = maxNodeVisits;
+			flatSearch.startNearest( Double.MAX_VALUE );
+			flatSearch.searchNearest( flatTree, null, 0 );
+			bestSquDistance = flatSearch.bestSquDistances[ 0 ];
+			numNodeVisits = flatSearch.numNodeVisits;
+			minSkippedSquDistance = flatSearch.minSkippedSquDistance;
+			bestRef.setNode( flatSearch.bestNodes[ 0 ] );
+		}
+		else
+		{
+			bestSquDistance = Double.MAX_VALUE;
+			numNodeVisits = 0;
+			subtreeSquBound = 0;
+			minSkippedSquDistance = Double.MAX_VALUE;
+			searchNode( tree.getRoot() );
+		}
 	}
 
 	protected void searchNode( final KDTreeNode< T > current )
 	{
+		if ( numNodeVisits == maxNodeVisits )
+		{
+			skip( subtreeSquBound );
+			return;
+		}
+		++numNodeVisits;
+
 		// consider the current node
 		final double distance = current.squDistanceTo( pos );
 		if ( distance < bestSquDistance )
@@ -99,20 +234,31 @@ public class NearestNeighborSearchOnKDTree< T > implements NearestNeighborSearch
 			searchNode( nearChild );
 
 		// search the away branch - maybe
-		if ( ( axisSquDistance <= bestSquDistance ) && ( awayChild != null ) )
-			searchNode( awayChild );
+		if ( awayChild != null )
+		{
+			final double squBound = Math.max( subtreeSquBound, axisSquDistance );
+			if ( squBound * squEpsilonFactor <= bestSquDistance )
+			{
+				final double parentSquBound = subtreeSquBound;
+				subtreeSquBound = squBound;
+				searchNode( awayChild );
+				subtreeSquBound = parentSquBound;
+			}
+			else if ( squBound < bestSquDistance )
+				skip( squBound );
+		}
 	}
 
 	@Override
 	public Sampler< T > getSampler()
 	{
-		return bestPoint;
+		return flatTree != null ? bestRef : bestPoint;
 	}
 
 	@Override
 	public RealLocalizable getPosition()
 	{
-		return bestPoint;
+		return flatTree != null ? bestRef : bestPoint;
 	}
 
 	@Override
@@ -130,9 +276,18 @@ public class NearestNeighborSearchOnKDTree< T > implements NearestNeighborSearch
 	@Override
 	public NearestNeighborSearchOnKDTree< T > copy()
 	{
-		final NearestNeighborSearchOnKDTree< T > copy = new NearestNeighborSearchOnKDTree< T >( tree );
+		final NearestNeighborSearchOnKDTree< T > copy = flatTree != null ? new NearestNeighborSearchOnKDTree< T >( flatTree ) : new NearestNeighborSearchOnKDTree< T >( tree );
 		System.arraycopy( pos, 0, copy.pos, 0, pos.length );
+		copy.squEpsilonFactor = squEpsilonFactor;
+		copy.maxNodeVisits = maxNodeVisits;
+		copy.numNodeVisits = numNodeVisits;
+		copy.minSkippedSquDistance = minSkippedSquDistance;
 		copy.bestPoint = bestPoint;
+		if ( flatTree != null )
+		{
+			copy.flatSearch.set( flatSearch );
+			copy.bestRef.setNode( flatSearch.bestNodes[ 0 ] );
+		}
 		copy.bestSquDistance = bestSquDistance;
 		return copy;
 	}
@@ -0,0 +1,155 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.neighborsearch;
+
+import java.util.ArrayList;
+
+import net.imglib2.DynamicKDTree;
+import net.imglib2.FlatKDTree;
+import net.imglib2.RealLocalizable;
+import net.imglib2.Sampler;
+
+/**
+ * Implementation of {@link RadiusNeighborSearch} search for a
+ * {@link DynamicKDTree}. Runs the {@link FlatKDTree} search on all blocks of
+ * the tree and skips
+ * deleted entries. Results are collected in primitive buffers that are
+ * reused between searches. Entries at equal distance are sorted by block and
+ * node.
+ */
+public class RadiusNeighborSearchOnDynamicKDTree< T > implements RadiusNeighborSearch< T >
+{
+	protected final DynamicKDTree< T > tree;
+
+	protected final int n;
+
+	/**
+	 * searches the blocks, reports the entries within radius by
+	 * {@link DynamicKDTree#index(int, int) index}.
+	 */
+	private final FlatKDTreeSearch blockSearch;
+
+	protected final ArrayList< DynamicKDTree< T >.Ref > resultRefs = new ArrayList<>();
+
+	public RadiusNeighborSearchOnDynamicKDTree( final DynamicKDTree< T > tree )
+	{
+		this.tree = tree;
+		this.n = tree.numDimensions();
+		this.blockSearch = new FlatKDTreeSearch( n, 1 );
+	}
+
+	@Override
+	public int numDimensions()
+	{
+		return n;
+	}
+
+	@Override
+	public void search( final RealLocalizable reference, final double radius, final boolean sortResults )
+	{
+		assert radius >= 0;
+		reference.localize( blockSearch.pos );
+		blockSearch.startRadius( false );
+		searchBlocks( radius * radius );
+		if ( sortResults )
+			blockSearch.sortResults();
+	}
+
+	/**
+	 * Count the neighbors within radius about a reference coordinate. The
+	 * results of the last {@link #search(RealLocalizable, double, boolean)}
+	 * are not modified.
+	 *
+	 * @return the number of points with distance smaller or equal the radius.
+	 */
+	public int count( final RealLocalizable reference, final double radius )
+	{
+		assert radius >= 0;
+		reference.localize( blockSearch.pos );
+		blockSearch.startRadius( true );
+		searchBlocks( radius * radius );
+		return blockSearch.count;
+	}
+
+	private void searchBlocks( final double squRadius )
+	{
+		for ( int i = 0; i < tree.numBlocks(); ++i )
+		{
+			final FlatKDTree< T > block = tree.getBlock( i );
+			if ( block != null )
+				blockSearch.searchRadius( block, tree.getDeleted( i ), DynamicKDTree.index( i, 0 ), squRadius );
+		}
+	}
+
+	private DynamicKDTree< T >.Ref resultRef( final int i )
+	{
+		while ( resultRefs.size() <= i )
+			resultRefs.add( tree.createRef() );
+		final DynamicKDTree< T >.Ref ref = resultRefs.get( i );
+		ref.setIndex( blockSearch.resultNodes[ i ] );
+		return ref;
+	}
+
+	@Override
+	public int numNeighbors()
+	{
+		return blockSearch.numResults;
+	}
+
+	@Override
+	public Sampler< T > getSampler( final int i )
+	{
+		return resultRef( i );
+	}
+
+	@Override
+	public RealLocalizable getPosition( final int i )
+	{
+		return resultRef( i );
+	}
+
+	@Override
+	public double getSquareDistance( final int i )
+	{
+		return blockSearch.resultSquDistances[ i ];
+	}
+
+	@Override
+	public double getDistance( final int i )
+	{
+		return Math.sqrt( blockSearch.resultSquDistances[ i ] );
+	}
+}
@@ -35,17 +35,29 @@
 package net.imglib2.neighborsearch;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 
+import net.imglib2.FlatKDTree;
 import net.imglib2.KDTree;
 import net.imglib2.KDTreeNode;
 import net.imglib2.RealLocalizable;
 import net.imglib2.Sampler;
-import net.imglib2.util.ValuePair;
 
 /**
- * Implementation of {@link RadiusNeighborSearch} search for kd-trees.
+ * Implementation of {@link RadiusNeighborSearch} search for kd-trees. Works on
+ * a {@link KDTree} or a {@link FlatKDTree}.
+ * <p>
+ * Results are collected in primitive buffers that are reused between
+ * searches and sorted in place, such that a search does not allocate once
+ * the buffers have grown to the number of hits.
+ * {@link #count(RealLocalizable, double)} only counts the neighbors within
+ * radius.
+ * </p>
+ * <p>
+ * Sorting is not stable: neighbors at equal distance are ordered by node
+ * index for a {@link FlatKDTree}, and in unspecified order for a
+ * {@link KDTree}.
+ * </p>
  * 
  * @author Tobias Pietzsch
  */
@@ -53,18 +65,58 @@ public class RadiusNeighborSearchOnKDTree< T > implements RadiusNeighborSearch<
 {
 	protected KDTree< T > tree;
 
+	protected FlatKDTree< T > flatTree;
+
 	protected final int n;
 
 	protected final double[] pos;
 
-	protected ArrayList< ValuePair< KDTreeNode< T >, Double > > resultPoints;
+	/**
+	 * nodes of a {@link #tree} within radius, valid up to
+	 * {@link #numResults}.
+	 */
+	protected KDTreeNode< T >[] resultTreeNodes;
+
+	/**
+	 * squared distances of the nodes within radius, valid up to
+	 * {@link #numResults}.
+	 */
+	protected double[] resultSquDistances;
+
+	protected int numResults;
+
+	/**
+	 * if set, nodes within radius are only counted in {@link #count}.
+	 */
+	protected boolean countOnly = false;
+
+	protected int count;
+
+	protected final ArrayList< FlatKDTree< T >.NodeRef > resultRefs = new ArrayList<>();
 
+	/**
+	 * searches the {@link #flatTree}, shares {@link #pos}.
+	 */
+	private final FlatKDTreeSearch flatSearch;
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	public RadiusNeighborSearchOnKDTree( final KDTree< T > tree )
 	{
 		this.tree = tree;
 		this.n = tree.numDimensions();
 		this.pos = new double[ n ];
-		this.resultPoints = new ArrayList< ValuePair< KDTreeNode< T >, Double > >();
+		this.resultTreeNodes = new KDTreeNode[ 16 ];
+		this.resultSquDistances = new double[ 16 ];
+		this.flatSearch = null;
+	}
+
+	public RadiusNeighborSearchOnKDTree( final FlatKDTree< T > tree )
+	{
+		this.flatTree = tree;
+		this.n = tree.numDimensions();
+		this.flatSearch = new FlatKDTreeSearch( n, 1 );
+		this.pos = flatSearch.pos;
+		this.resultSquDistances = flatSearch.resultSquDistances;
 	}
 
 	@Override
@@ -72,21 +124,52 @@ public class RadiusNeighborSearchOnKDTree< T > implements RadiusNeighborSearch<
 	{
 		assert radius >= 0;
 		reference.localize( pos );
-		resultPoints.clear();
-		searchNode( tree.getRoot(), radius * radius );
-		if ( sortResults )
+		if ( flatTree != null )
 		{
-			Collections.sort( resultPoints, new Comparator< ValuePair< KDTreeNode< T >, Double > >()
-			{
-				@Override
-				public int compare( final ValuePair< KDTreeNode< T >, Double > o1, final ValuePair< KDTreeNode< T >, Double > o2 )
-				{
-					return Double.compare( o1.b, o2.b );
-				}
-			} );
+			flatSearch.startRadius( false );
+			flatSearch.searchRadius( flatTree, null, 0, radius * radius );
+			if ( sortResults )
+				flatSearch.sortResults();
+			resultSquDistances = flatSearch.resultSquDistances;
+			numResults = flatSearch.numResults;
+		}
+		else
+		{
+			numResults = 0;
+			countOnly = false;
+			searchNode( tree.getRoot(), radius * radius );
+			if ( sortResults )
+				sort( 0, numResults - 1 );
 		}
 	}
 
+	/**
+	 * Count the neighbors within radius about a reference coordinate. The
+	 * results of the last {@link #search(RealLocalizable, double, boolean)}
+	 * are not modified.
+	 *
+	 * @return the number of points with distance smaller or equal the radius.
+	 */
+	public int count( final RealLocalizable reference, final double radius )
+	{
+		assert radius >= 0;
+		reference.localize( pos );
+		if ( flatTree != null )
+		{
+			flatSearch.startRadius( true );
+			flatSearch.searchRadius( flatTree, null, 0, radius * radius );
+			count = flatSearch.count;
+		}
+		else
+		{
+			count = 0;
+			countOnly = true;
+			searchNode( tree.getRoot(), radius * radius );
+			countOnly = false;
+		}
+		return count;
+	}
+
 	@Override
 	public int numDimensions()
 	{
@@ -99,7 +182,15 @@ public class RadiusNeighborSearchOnKDTree< T > implements RadiusNeighborSearch<
 		final double squDistance = current.squDistanceTo( pos );
 		if ( squDistance <= squRadius )
 		{
-			resultPoints.add( new ValuePair< KDTreeNode< T >, Double >( current, squDistance ) );
+			if ( countOnly )
+				++count;
+			else
+			{
+				ensureCapacity();
+				resultTreeNodes[ numResults ] = current;
+				resultSquDistances[ numResults ] = squDistance;
+				++numResults;
+			}
 		}
 
 		final double axisDiff = pos[ current.getSplitDimension() ] - current.getSplitCoordinate();
@@ -117,33 +208,91 @@ public class RadiusNeighborSearchOnKDTree< T > implements RadiusNeighborSearch<
 			searchNode( awayChild, squRadius );
 	}
 
+	/**
+	 * Grow the result buffers if they are full.
+	 */
+	private void ensureCapacity()
+	{
+		if ( numResults == resultSquDistances.length )
+		{
+			final int capacity = 2 * numResults;
+			resultSquDistances = Arrays.copyOf( resultSquDistances, capacity );
+			resultTreeNodes = Arrays.copyOf( resultTreeNodes, capacity );
+		}
+	}
+
+	/**
+	 * Sort results {@code i} ... {@code j} of a {@link #tree} by ascending
+	 * distance.
+	 */
+	private void sort( int i, final int j )
+	{
+		while ( i < j )
+		{
+			final int p = i + ( j - i ) / 2;
+			final double pivot = resultSquDistances[ p ];
+			int l = i;
+			int r = j;
+			while ( l <= r )
+			{
+				while ( resultSquDistances[ l ] < pivot )
+					++l;
+				while ( resultSquDistances[ r ] > pivot )
+					--r;
+				if ( l <= r )
+					swap( l++, r-- );
+			}
+			sort( i, r );
+			i = l;
+		}
+	}
+
+	private void swap( final int a, final int b )
+	{
+		final double tmpDistance = resultSquDistances[ a ];
+		resultSquDistances[ a ] = resultSquDistances[ b ];
+		resultSquDistances[ b ] = tmpDistance;
+		final KDTreeNode< T > tmpNode = resultTreeNodes[ a ];
+		resultTreeNodes[ a ] = resultTreeNodes[ b ];
+		resultTreeNodes[ b ] = tmpNode;
+	}
+
+	private FlatKDTree< T >.NodeRef resultRef( final int i )
+	{
+		while ( resultRefs.size() <= i )
+			resultRefs.add( flatTree.createRef() );
+		final FlatKDTree< T >.NodeRef ref = resultRefs.get( i );
+		ref.setNode( flatSearch.resultNodes[ i ] );
+		return ref;
+	}
+
 	@Override
 	public int numNeighbors()
 	{
-		return resultPoints.size();
+		return numResults;
 	}
 
 	@Override
 	public Sampler< T > getSampler( final int i )
 	{
-		return resultPoints.get( i ).a;
+		return flatTree != null ? resultRef( i ) : resultTreeNodes[ i ];
 	}
 
 	@Override
 	public RealLocalizable getPosition( final int i )
 	{
-		return resultPoints.get( i ).a;
+		return flatTree != null ? resultRef( i ) : resultTreeNodes[ i ];
 	}
 
 	@Override
 	public double getSquareDistance( final int i )
 	{
-		return resultPoints.get( i ).b;
+		return resultSquDistances[ i ];
 	}
 
 	@Override
 	public double getDistance( final int i )
 	{
-		return Math.sqrt( resultPoints.get( i ).b );
+		return Math.sqrt( resultSquDistances[ i ] );
 	}
 }
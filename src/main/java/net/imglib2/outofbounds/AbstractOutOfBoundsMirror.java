@@ -45,6 +45,11 @@ import net.imglib2.util.Util;
  * Internally used coordinates use an interval [0<sup><em>n</em></sup>,max<sup>
  * <em>n</em></sup>-min<sup><em>n</em></sup>] and compensate for min-shift on
  * localization and positioning.
+ * <p>
+ * If constructed with a border, the source coordinates for positions in
+ * [min - border, max + border] are precomputed per dimension and positioning
+ * within that range is a table lookup.
+ * </p>
  *
  * @param <T>
  *
@@ -86,6 +91,18 @@ public abstract class AbstractOutOfBoundsMirror< T > implements OutOfBounds< T >
 
 	protected boolean isOutOfBounds = false;
 
+	/**
+	 * Position corresponding to the first entry of {@link #map} in each
+	 * dimension, {@code null} if no coordinate maps were precomputed.
+	 */
+	final protected long[] mapMin;
+
+	/**
+	 * Precomputed source coordinates per dimension (shared between copies),
+	 * {@code null} if no coordinate maps were precomputed.
+	 */
+	final protected long[][] map;
+
 	protected AbstractOutOfBoundsMirror( final AbstractOutOfBoundsMirror< T > outOfBounds )
 	{
 		n = outOfBounds.numDimensions();
@@ -104,11 +121,26 @@ public abstract class AbstractOutOfBoundsMirror< T > implements OutOfBounds< T >
 			dimIsOutOfBounds[ d ] = outOfBounds.dimIsOutOfBounds[ d ];
 			inc[ d ] = outOfBounds.inc[ d ];
 		}
+		isOutOfBounds = outOfBounds.isOutOfBounds;
+		mapMin = outOfBounds.mapMin;
+		map = outOfBounds.map;
 
 		outOfBoundsRandomAccess = outOfBounds.outOfBoundsRandomAccess.copyRandomAccess();
 	}
 
 	public < F extends Interval & RandomAccessible< T > > AbstractOutOfBoundsMirror( final F f )
+	{
+		this( f, ( CoordinateMaps ) null );
+	}
+
+	/**
+	 * @param f
+	 *            the source
+	 * @param maps
+	 *            precomputed source coordinates, {@code null} to compute all
+	 *            coordinates arithmetically.
+	 */
+	< F extends Interval & RandomAccessible< T > > AbstractOutOfBoundsMirror( final F f, final CoordinateMaps maps )
 	{
 		n = f.numDimensions();
 		dimension = new long[ n ];
@@ -122,9 +154,39 @@ public abstract class AbstractOutOfBoundsMirror< T > implements OutOfBounds< T >
 		for ( int i = 0; i < dimension.length; ++i )
 			inc[ i ] = true;
 
+		mapMin = maps == null ? null : maps.mapMin;
+		map = maps == null ? null : maps.map;
+
 		outOfBoundsRandomAccess = f.randomAccess();
 	}
 
+	/**
+	 * Set the position in dimension {@code d} from the precomputed coordinate
+	 * map.
+	 *
+	 * @return {@code false} if {@code position} is not covered by the map,
+	 *         in which case nothing was changed.
+	 */
+	final protected boolean setMappedPosition( final long position, final int d )
+	{
+		final long[] mapD = map[ d ];
+		final long i = position - mapMin[ d ];
+		if ( mapD == null || i < 0 || i >= mapD.length )
+			return false;
+
+		final long x = position - min[ d ];
+		zeroMinPos[ d ] = x;
+		if ( x < 0 || x >= dimension[ d ] )
+			dimIsOutOfBounds[ d ] = isOutOfBounds = true;
+		else if ( isOutOfBounds )
+		{
+			dimIsOutOfBounds[ d ] = false;
+			checkOutOfBounds();
+		}
+		outOfBoundsRandomAccess.setPosition( mapD[ ( int ) i ], d );
+		return true;
+	}
+
 	final protected void checkOutOfBounds()
 	{
 		for ( int d = 0; d < n; ++d )
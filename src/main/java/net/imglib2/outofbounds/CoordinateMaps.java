@@ -0,0 +1,132 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.outofbounds;
+
+import java.util.function.LongBinaryOperator;
+
+import net.imglib2.Interval;
+
+/**
+ * Precomputed per-dimension coordinate maps for out-of-bounds strategies that
+ * remap positions into the source interval (periodic, mirror).
+ * <p>
+ * The maps depend only on the source interval, the border and the remapping,
+ * so factories compute them once per source interval and share them between
+ * all strategies they create.
+ * </p>
+ */
+final class CoordinateMaps
+{
+	/**
+	 * min and dimensions of the source interval.
+	 */
+	private final long[] min;
+
+	private final long[] dimension;
+
+	/**
+	 * position corresponding to the first entry of {@link #map} in each
+	 * dimension.
+	 */
+	final long[] mapMin;
+
+	/**
+	 * source coordinates per dimension. Dimensions where the map would not
+	 * fit into an array are {@code null}.
+	 */
+	final long[][] map;
+
+	/**
+	 * Compute, for each dimension {@code d}, the source coordinates of all
+	 * positions in [min - border, max + border] of {@code interval}.
+	 *
+	 * @param interval
+	 *            the source interval
+	 * @param border
+	 *            border width per dimension (negative values are treated as
+	 *            0)
+	 * @param remap
+	 *            maps an offset {@code x} from min and the size of the
+	 *            source interval to an offset in [0, size)
+	 */
+	CoordinateMaps( final Interval interval, final long[] border, final LongBinaryOperator remap )
+	{
+		final int n = interval.numDimensions();
+		if ( border.length != n )
+			throw new IllegalArgumentException( "border has " + border.length + " dimensions, expected " + n );
+
+		min = new long[ n ];
+		dimension = new long[ n ];
+		interval.min( min );
+		interval.dimensions( dimension );
+		mapMin = new long[ n ];
+		map = new long[ n ][];
+		for ( int d = 0; d < n; ++d )
+		{
+			final long b = Math.max( 0, border[ d ] );
+			final long size = dimension[ d ];
+			mapMin[ d ] = min[ d ] - b;
+			final long length = size + 2 * b;
+			if ( length > Integer.MAX_VALUE - 8 )
+				continue;
+			final long[] mapD = new long[ ( int ) length ];
+			for ( int i = 0; i < mapD.length; ++i )
+				mapD[ i ] = min[ d ] + remap.applyAsLong( i - b, size );
+			map[ d ] = mapD;
+		}
+	}
+
+	/**
+	 * @return whether these maps were computed for a source with the same min
+	 *         and dimensions as {@code interval}.
+	 */
+	boolean matches( final Interval interval )
+	{
+		if ( interval.numDimensions() != min.length )
+			return false;
+		for ( int d = 0; d < min.length; ++d )
+			if ( interval.min( d ) != min[ d ] || interval.dimension( d ) != dimension[ d ] )
+				return false;
+		return true;
+	}
+
+	/**
+	 * Get maps for {@code interval}, reusing {@code maps} if they match.
+	 */
+	static CoordinateMaps get( final CoordinateMaps maps, final Interval interval, final long[] border, final LongBinaryOperator remap )
+	{
+		return maps != null && maps.matches( interval ) ? maps : new CoordinateMaps( interval, border, remap );
+	}
+}
@@ -57,16 +57,60 @@ public class OutOfBoundsMirrorFactory< T, F extends Interval & RandomAccessible<
 
 	final protected Boundary boundary;
 
+	final protected long[] border;
+
+	/**
+	 * coordinate maps for the last source, shared by all strategies created
+	 * for that source.
+	 */
+	private volatile CoordinateMaps maps;
+
 	public OutOfBoundsMirrorFactory( final Boundary boundary )
+	{
+		this( boundary, null );
+	}
+
+	/**
+	 * Create a factory for strategies that precompute the source coordinates
+	 * for positions in [min - border, max + border] of the extended interval.
+	 *
+	 * @param boundary
+	 *            whether boundary pixels are repeated
+	 * @param border
+	 *            border width per dimension, {@code null} to compute all
+	 *            coordinates arithmetically.
+	 */
+	public OutOfBoundsMirrorFactory( final Boundary boundary, final long[] border )
 	{
 		this.boundary = boundary;
+		this.border = border == null ? null : border.clone();
+	}
+
+	public Boundary getBoundary()
+	{
+		return boundary;
+	}
+
+	/**
+	 * @return the border width per dimension for which coordinates are
+	 *         precomputed, or {@code null}.
+	 */
+	public long[] getBorder()
+	{
+		return border == null ? null : border.clone();
 	}
 
 	@Override
 	public AbstractOutOfBoundsMirror< T > create( final F f )
 	{
-		if ( boundary == Boundary.SINGLE )
-			return new OutOfBoundsMirrorSingleBoundary< T >( f );
-		return new OutOfBoundsMirrorDoubleBoundary< T >( f );
+		final boolean single = boundary == Boundary.SINGLE;
+		if ( border == null )
+			return single ? new OutOfBoundsMirrorSingleBoundary< T >( f ) : new OutOfBoundsMirrorDoubleBoundary< T >( f );
+		final CoordinateMaps m = CoordinateMaps.get( maps, f, border,
+				single ? OutOfBoundsMirrorSingleBoundary::mirror : OutOfBoundsMirrorDoubleBoundary::mirror );
+		maps = m;
+		if ( single )
+			return new OutOfBoundsMirrorSingleBoundary< T >( f, m );
+		return new OutOfBoundsMirrorDoubleBoundary< T >( f, m );
 	}
 }
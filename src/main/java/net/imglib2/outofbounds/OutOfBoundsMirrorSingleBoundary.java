@@ -67,12 +67,47 @@ public class OutOfBoundsMirrorSingleBoundary< T > extends AbstractOutOfBoundsMir
 
 	public < F extends Interval & RandomAccessible< T > > OutOfBoundsMirrorSingleBoundary( final F f )
 	{
-		super( f );
+		this( f, ( CoordinateMaps ) null );
+	}
+
+	/**
+	 * Create a mirror out-of-bounds strategy that precomputes the source
+	 * coordinates for positions in [min - border, max + border].
+	 *
+	 * @param f
+	 *            the source
+	 * @param border
+	 *            border width per dimension, {@code null} to compute all
+	 *            coordinates arithmetically.
+	 */
+	public < F extends Interval & RandomAccessible< T > > OutOfBoundsMirrorSingleBoundary( final F f, final long[] border )
+	{
+		this( f, border == null ? null : new CoordinateMaps( f, border, OutOfBoundsMirrorSingleBoundary::mirror ) );
+	}
+
+	< F extends Interval & RandomAccessible< T > > OutOfBoundsMirrorSingleBoundary( final F f, final CoordinateMaps maps )
+	{
+		super( f, maps );
 
 		for ( int i = 0; i < dimension.length; ++i )
 			p[ i ] = 2 * dimension[ i ] - 2;
 	}
 
+	/**
+	 * Mirrored coordinate in [0, size) for an offset {@code x} from the min of
+	 * an interval of the given size, not repeating boundary pixels.
+	 */
+	static long mirror( final long x, final long size )
+	{
+		final long period = 2 * size - 2;
+		if ( period == 0 )
+			return 0;
+		long r = x % period;
+		if ( r < 0 )
+			r += period;
+		return r < size ? r : period - r;
+	}
+
 	/* Sampler */
 
 	@Override
@@ -94,6 +129,12 @@ public class OutOfBoundsMirrorSingleBoundary< T > extends AbstractOutOfBoundsMir
 	@Override
 	final public void fwd( final int d )
 	{
+		if ( map != null )
+		{
+			setPosition( zeroMinPos[ d ] + min[ d ] + 1, d );
+			return;
+		}
+
 		final long x = ++zeroMinPos[ d ];
 		if ( x == 0 )
 		{
@@ -130,6 +171,12 @@ public class OutOfBoundsMirrorSingleBoundary< T > extends AbstractOutOfBoundsMir
 	@Override
 	final public void bck( final int d )
 	{
+		if ( map != null )
+		{
+			setPosition( zeroMinPos[ d ] + min[ d ] - 1, d );
+			return;
+		}
+
 		final long x = zeroMinPos[ d ]--;
 		if ( x == 0 )
 			dimIsOutOfBounds[ d ] = isOutOfBounds = true;
@@ -166,6 +213,9 @@ public class OutOfBoundsMirrorSingleBoundary< T > extends AbstractOutOfBoundsMir
 	@Override
 	final public void setPosition( long position, final int d )
 	{
+		if ( map != null && setMappedPosition( position, d ) )
+			return;
+
 		position -= min[ d ];
 		this.zeroMinPos[ d ] = position;
 		final long mod = dimension[ d ];
@@ -56,6 +56,13 @@ import net.imglib2.util.Util;
  * }
  * </pre>
  *
+ * If constructed with a border, the source coordinates for positions in
+ * [min - border, max + border] are precomputed per dimension, and
+ * {@link #setPosition(long, int)} and {@link #move(long, int)} replace the
+ * modulo arithmetic by a table lookup for those positions. This is useful
+ * for filtering with a fixed-size kernel, where the border is known in
+ * advance.
+ *
  * @param <T>
  *
  * @author Stephan Saalfeld
@@ -87,6 +94,18 @@ public class OutOfBoundsPeriodic< T > extends AbstractLocalizable implements Out
 
 	protected boolean isOutOfBounds = false;
 
+	/**
+	 * Position corresponding to the first entry of {@link #map} in each
+	 * dimension, {@code null} if no coordinate maps were precomputed.
+	 */
+	final protected long[] mapMin;
+
+	/**
+	 * Precomputed source coordinates per dimension (shared between copies),
+	 * {@code null} if no coordinate maps were precomputed.
+	 */
+	final protected long[][] map;
+
 	public OutOfBoundsPeriodic( final OutOfBoundsPeriodic< T > outOfBounds )
 	{
 		super( outOfBounds.numDimensions() );
@@ -106,11 +125,34 @@ public class OutOfBoundsPeriodic< T > extends AbstractLocalizable implements Out
 			position[ d ] = outOfBounds.position[ d ];
 			dimIsOutOfBounds[ d ] = outOfBounds.dimIsOutOfBounds[ d ];
 		}
+		isOutOfBounds = outOfBounds.isOutOfBounds;
+		mapMin = outOfBounds.mapMin;
+		map = outOfBounds.map;
 
 		outOfBoundsRandomAccess = outOfBounds.outOfBoundsRandomAccess.copyRandomAccess();
 	}
 
 	public < F extends Interval & RandomAccessible< T > > OutOfBoundsPeriodic( final F f )
+	{
+		this( f, ( CoordinateMaps ) null );
+	}
+
+	/**
+	 * Create a periodic out-of-bounds strategy that precomputes the source
+	 * coordinates for positions in [min - border, max + border].
+	 *
+	 * @param f
+	 *            the source
+	 * @param border
+	 *            border width per dimension, {@code null} to compute all
+	 *            coordinates arithmetically.
+	 */
+	public < F extends Interval & RandomAccessible< T > > OutOfBoundsPeriodic( final F f, final long[] border )
+	{
+		this( f, border == null ? null : new CoordinateMaps( f, border, OutOfBoundsPeriodic::wrap ) );
+	}
+
+	< F extends Interval & RandomAccessible< T > > OutOfBoundsPeriodic( final F f, final CoordinateMaps maps )
 	{
 		super( f.numDimensions() );
 		dimension = new long[ n ];
@@ -128,9 +170,22 @@ public class OutOfBoundsPeriodic< T > extends AbstractLocalizable implements Out
 		}
 		dimIsOutOfBounds = new boolean[ n ];
 
+		mapMin = maps == null ? null : maps.mapMin;
+		map = maps == null ? null : maps.map;
+
 		outOfBoundsRandomAccess = f.randomAccess();
 	}
 
+	/**
+	 * Periodic coordinate in [0, size) for an offset {@code x} from the min
+	 * of an interval of the given size.
+	 */
+	static long wrap( final long x, final long size )
+	{
+		final long r = x % size;
+		return r < 0 ? r + size : r;
+	}
+
 	final protected void checkOutOfBounds()
 	{
 		for ( int d = 0; d < n; ++d )
@@ -220,6 +275,23 @@ public class OutOfBoundsPeriodic< T > extends AbstractLocalizable implements Out
 		this.position[ d ] = position;
 		final long minD = min[ d ];
 		final long maxD = max[ d ];
+		if ( map != null )
+		{
+			final long[] mapD = map[ d ];
+			final long i = position - mapMin[ d ];
+			if ( mapD != null && i >= 0 && i < mapD.length )
+			{
+				outOfBoundsRandomAccess.setPosition( mapD[ ( int ) i ], d );
+				if ( position < minD || position > maxD )
+					dimIsOutOfBounds[ d ] = isOutOfBounds = true;
+				else if ( isOutOfBounds )
+				{
+					dimIsOutOfBounds[ d ] = false;
+					checkOutOfBounds();
+				}
+				return;
+			}
+		}
 		if ( position < minD )
 		{
 			outOfBoundsRandomAccess.setPosition( maxD - ( maxD - position ) % dimension[ d ], d );
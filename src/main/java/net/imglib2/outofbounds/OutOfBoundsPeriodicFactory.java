@@ -47,9 +47,48 @@ import net.imglib2.RandomAccessibleInterval;
  */
 public class OutOfBoundsPeriodicFactory< T, F extends Interval & RandomAccessible< T > > implements OutOfBoundsFactory< T, F >
 {
+	final protected long[] border;
+
+	/**
+	 * coordinate maps for the last source, shared by all strategies created
+	 * for that source.
+	 */
+	private volatile CoordinateMaps maps;
+
+	public OutOfBoundsPeriodicFactory()
+	{
+		this( null );
+	}
+
+	/**
+	 * Create a factory for strategies that precompute the source coordinates
+	 * for positions in [min - border, max + border] of the extended interval.
+	 *
+	 * @param border
+	 *            border width per dimension, {@code null} to compute all
+	 *            coordinates arithmetically.
+	 */
+	public OutOfBoundsPeriodicFactory( final long[] border )
+	{
+		this.border = border == null ? null : border.clone();
+	}
+
+	/**
+	 * @return the border width per dimension for which coordinates are
+	 *         precomputed, or {@code null}.
+	 */
+	public long[] getBorder()
+	{
+		return border == null ? null : border.clone();
+	}
+
 	@Override
 	public OutOfBoundsPeriodic< T > create( final F f )
 	{
-		return new OutOfBoundsPeriodic< T >( f );
+		if ( border == null )
+			return new OutOfBoundsPeriodic< T >( f );
+		final CoordinateMaps m = CoordinateMaps.get( maps, f, border, OutOfBoundsPeriodic::wrap );
+		maps = m;
+		return new OutOfBoundsPeriodic< T >( f, m );
 	}
 }
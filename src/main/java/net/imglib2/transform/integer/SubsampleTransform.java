@@ -0,0 +1,204 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.transform.integer;
+
+import net.imglib2.Localizable;
+import net.imglib2.Positionable;
+import net.imglib2.concatenate.Concatenable;
+import net.imglib2.concatenate.PreConcatenable;
+import net.imglib2.transform.Transform;
+
+/**
+ * Integer scaling transform: target = source * steps. This is the transform
+ * to source of a {@link net.imglib2.view.SubsampleView}.
+ */
+public class SubsampleTransform implements Transform, BoundingBoxTransform, Concatenable< SubsampleTransform >, PreConcatenable< SubsampleTransform >
+{
+	/**
+	 * target = source * steps.
+	 */
+	protected final long[] steps;
+
+	public SubsampleTransform( final long[] steps )
+	{
+		this.steps = steps.clone();
+	}
+
+	@Override
+	public int numSourceDimensions()
+	{
+		return steps.length;
+	}
+
+	@Override
+	public int numTargetDimensions()
+	{
+		return steps.length;
+	}
+
+	public void getSteps( final long[] s )
+	{
+		assert s.length >= steps.length;
+		for ( int d = 0; d < steps.length; ++d )
+			s[ d ] = steps[ d ];
+	}
+
+	public long getStep( final int d )
+	{
+		return steps[ d ];
+	}
+
+	/**
+	 * @return true if all steps are 1.
+	 */
+	public boolean isIdentity()
+	{
+		for ( final long s : steps )
+			if ( s != 1 )
+				return false;
+		return true;
+	}
+
+	@Override
+	public void apply( final long[] source, final long[] target )
+	{
+		assert source.length >= steps.length;
+		assert target.length >= steps.length;
+
+		for ( int d = 0; d < steps.length; ++d )
+			target[ d ] = source[ d ] * steps[ d ];
+	}
+
+	@Override
+	public void apply( final int[] source, final int[] target )
+	{
+		assert source.length >= steps.length;
+		assert target.length >= steps.length;
+
+		for ( int d = 0; d < steps.length; ++d )
+			target[ d ] = source[ d ] * ( int ) steps[ d ];
+	}
+
+	@Override
+	public void apply( final Localizable source, final Positionable target )
+	{
+		assert source.numDimensions() >= steps.length;
+		assert target.numDimensions() >= steps.length;
+
+		for ( int d = 0; d < steps.length; ++d )
+			target.setPosition( source.getLongPosition( d ) * steps[ d ], d );
+	}
+
+	@Override
+	public BoundingBox transform( final BoundingBox boundingBox )
+	{
+		assert boundingBox.numDimensions() == steps.length;
+
+		apply( boundingBox.corner1, boundingBox.corner1 );
+		apply( boundingBox.corner2, boundingBox.corner2 );
+		return boundingBox;
+	}
+
+	@Override
+	public SubsampleTransform concatenate( final SubsampleTransform t )
+	{
+		assert steps.length == t.steps.length;
+
+		final long[] s = new long[ steps.length ];
+		for ( int d = 0; d < steps.length; ++d )
+			s[ d ] = steps[ d ] * t.steps[ d ];
+		return new SubsampleTransform( s );
+	}
+
+	@Override
+	public Class< SubsampleTransform > getConcatenableClass()
+	{
+		return SubsampleTransform.class;
+	}
+
+	@Override
+	public SubsampleTransform preConcatenate( final SubsampleTransform t )
+	{
+		return t.concatenate( this );
+	}
+
+	@Override
+	public Class< SubsampleTransform > getPreConcatenableClass()
+	{
+		return SubsampleTransform.class;
+	}
+
+	/**
+	 * Try to swap this {@link SubsampleTransform} with a {@link Mixed}
+	 * transform applied before it. That is, find {@code m'} and {@code s'} such
+	 * that {@code this * mixed = m' * s'}. This is possible if no two non-zero
+	 * target components of {@code mixed} take the same source component with
+	 * different steps.
+	 *
+	 * @return {@code { m', s' }}, or {@code null} if the transforms cannot be
+	 *         swapped.
+	 */
+	public Transform[] swapWith( final Mixed mixed )
+	{
+		assert mixed.numTargetDimensions() == steps.length;
+
+		final int n = mixed.numSourceDimensions();
+		final int m = steps.length;
+		final long[] s = new long[ n ];
+		for ( int d = 0; d < m; ++d )
+		{
+			if ( mixed.getComponentZero( d ) )
+				continue;
+			final int c = mixed.getComponentMapping( d );
+			if ( s[ c ] == 0 )
+				s[ c ] = steps[ d ];
+			else if ( s[ c ] != steps[ d ] )
+				return null;
+		}
+		for ( int d = 0; d < n; ++d )
+			if ( s[ d ] == 0 )
+				s[ d ] = 1;
+
+		final MixedTransform swapped = new MixedTransform( n, m );
+		swapped.set( mixed );
+		final long[] translation = new long[ m ];
+		mixed.getTranslation( translation );
+		for ( int d = 0; d < m; ++d )
+			translation[ d ] *= steps[ d ];
+		swapped.setTranslation( translation );
+		return new Transform[] { swapped, new SubsampleTransform( s ) };
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs lists of independent tasks on an {@link ExecutorService} and waits for
+ * all of them to finish.
+ */
+public class Tasks
+{
+	/**
+	 * Run {@code tasks} on {@code service}, or in the calling thread if
+	 * {@code service} is {@code null}, and wait for all of them to finish.
+	 * If the calling thread is interrupted, the remaining tasks are canceled,
+	 * the interrupt status is restored, and a {@link RuntimeException} is
+	 * thrown.
+	 *
+	 * @see #runInterruptibly(List, ExecutorService)
+	 */
+	public static void run( final List< ? extends Runnable > tasks, final ExecutorService service )
+	{
+		try
+		{
+			runInterruptibly( tasks, service );
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		}
+	}
+
+	/**
+	 * Run {@code tasks} on {@code service}, or in the calling thread if
+	 * {@code service} is {@code null}, and wait for all of them to finish. If
+	 * a task fails, the remaining tasks are canceled and its exception is
+	 * rethrown (wrapped in a {@link RuntimeException} if it is checked).
+	 *
+	 * @throws InterruptedException
+	 *             if the calling thread was interrupted while waiting. The
+	 *             remaining tasks are canceled.
+	 */
+	public static void runInterruptibly( final List< ? extends Runnable > tasks, final ExecutorService service ) throws InterruptedException
+	{
+		if ( service == null || tasks.size() <= 1 )
+		{
+			for ( final Runnable task : tasks )
+				task.run();
+			return;
+		}
+
+		final List< Future< ? > > futures = new ArrayList<>( tasks.size() );
+		for ( final Runnable task : tasks )
+			futures.add( service.submit( task ) );
+		try
+		{
+			for ( final Future< ? > future : futures )
+				future.get();
+		}
+		catch ( final InterruptedException e )
+		{
+			futures.forEach( f -> f.cancel( true ) );
+			throw e;
+		}
+		catch ( final ExecutionException e )
+		{
+			futures.forEach( f -> f.cancel( true ) );
+			final Throwable cause = e.getCause();
+			if ( cause instanceof RuntimeException )
+				throw ( RuntimeException ) cause;
+			if ( cause instanceof Error )
+				throw ( Error ) cause;
+			throw new RuntimeException( cause );
+		}
+	}
+}
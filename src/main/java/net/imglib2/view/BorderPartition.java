@@ -0,0 +1,184 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.view;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.util.Intervals;
+
+/**
+ * Partition of a target {@link Interval} of an
+ * {@link ExtendedRandomAccessibleInterval} into an interior region, where all
+ * accesses fall inside the extended source, and thin border slabs, where
+ * out-of-bounds handling is needed.
+ * <p>
+ * For neighborhood operations, a kernel interval gives the offsets that are
+ * accessed relative to each target position (e.g. {@code [-r, r]} in every
+ * dimension for a kernel of radius {@code r}). A target position is interior
+ * if all its offsets lie inside the source.
+ * <p>
+ * The {@link #interior() interior} view is defined directly on the source, so
+ * its accessors and cursors bypass the {@link net.imglib2.outofbounds.OutOfBounds}
+ * wrapper entirely. Only the {@link #borders() border} views are defined on
+ * the extended source. The interior and border intervals are disjoint and
+ * together cover the target interval.
+ */
+public class BorderPartition< T >
+{
+	private final ExtendedRandomAccessibleInterval< T, ? > extended;
+
+	private final Interval interior;
+
+	private final List< Interval > borders;
+
+	/**
+	 * Partition {@code target} into interior and border, for accessing single
+	 * pixels.
+	 *
+	 * @param extended
+	 *            the extended source.
+	 * @param target
+	 *            the interval to partition.
+	 */
+	public BorderPartition( final ExtendedRandomAccessibleInterval< T, ? > extended, final Interval target )
+	{
+		this( extended, target, new FinalInterval( new long[ target.numDimensions() ], new long[ target.numDimensions() ] ) );
+	}
+
+	/**
+	 * Partition {@code target} into interior and border, for accessing a
+	 * neighborhood given by {@code kernel} around each pixel.
+	 *
+	 * @param extended
+	 *            the extended source.
+	 * @param target
+	 *            the interval to partition.
+	 * @param kernel
+	 *            offsets accessed relative to each target position.
+	 */
+	public BorderPartition( final ExtendedRandomAccessibleInterval< T, ? > extended, final Interval target, final Interval kernel )
+	{
+		final int n = target.numDimensions();
+		assert extended.numDimensions() == n;
+		assert kernel.numDimensions() == n;
+
+		this.extended = extended;
+		final RandomAccessibleInterval< T > source = extended.getSource();
+
+		final long[] min = Intervals.minAsLongArray( target );
+		final long[] max = Intervals.maxAsLongArray( target );
+		final List< Interval > slabs = new ArrayList<>();
+		boolean empty = false;
+
+		// Peel slabs starting with the highest dimension, so that slabs span
+		// complete lines where possible.
+		for ( int d = n - 1; d >= 0; --d )
+		{
+			final long imin = source.min( d ) - kernel.min( d );
+			final long imax = source.max( d ) - kernel.max( d );
+			if ( imin > imax || imin > max[ d ] || imax < min[ d ] )
+			{
+				empty = true;
+				break;
+			}
+			if ( imin > min[ d ] )
+			{
+				final long[] smax = max.clone();
+				smax[ d ] = imin - 1;
+				slabs.add( new FinalInterval( min.clone(), smax ) );
+				min[ d ] = imin;
+			}
+			if ( imax < max[ d ] )
+			{
+				final long[] smin = min.clone();
+				smin[ d ] = imax + 1;
+				slabs.add( new FinalInterval( smin, max.clone() ) );
+				max[ d ] = imax;
+			}
+		}
+
+		if ( empty )
+		{
+			slabs.add( new FinalInterval( min, max ) );
+			interior = null;
+		}
+		else
+			interior = new FinalInterval( min, max );
+
+		borders = Collections.unmodifiableList( slabs );
+	}
+
+	/**
+	 * @return the interior interval, or {@code null} if it is empty.
+	 */
+	public Interval getInteriorInterval()
+	{
+		return interior;
+	}
+
+	/**
+	 * @return the border slab intervals.
+	 */
+	public List< Interval > getBorderIntervals()
+	{
+		return borders;
+	}
+
+	/**
+	 * @return the interior region as a view on the source (without
+	 *         out-of-bounds handling), or {@code null} if it is empty.
+	 */
+	public RandomAccessibleInterval< T > interior()
+	{
+		return interior == null ? null : Views.interval( extended.getSource(), interior );
+	}
+
+	/**
+	 * @return the border slabs as views on the extended source.
+	 */
+	public List< RandomAccessibleInterval< T > > borders()
+	{
+		final List< RandomAccessibleInterval< T > > views = new ArrayList<>( borders.size() );
+		for ( final Interval border : borders )
+			views.add( Views.interval( extended, border ) );
+		return views;
+	}
+}
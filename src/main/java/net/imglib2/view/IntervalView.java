@@ -64,6 +64,8 @@ public class IntervalView< T > extends AbstractInterval implements RandomAccessi
 	 * TODO Javadoc
 	 */
 	protected RandomAccessible< T > fullViewRandomAccessible;
+
+	protected final TransformBuilderCache< T > transformBuilderCache = new TransformBuilderCache<>( this );
 	
 	/**
 	 * TODO Javadoc
@@ -120,7 +122,7 @@ public class IntervalView< T > extends AbstractInterval implements RandomAccessi
 	@Override
 	public RandomAccess< T > randomAccess( final Interval interval )
 	{
-		return TransformBuilder.getEfficientRandomAccessible( interval, this ).randomAccess();
+		return transformBuilderCache.getEfficientRandomAccessible( interval ).randomAccess();
 	}
 
 	@Override
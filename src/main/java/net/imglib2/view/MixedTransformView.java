@@ -55,6 +55,8 @@ public class MixedTransformView< T > implements TransformedRandomAccessible< T >
 
 	protected RandomAccessible< T > fullViewRandomAccessible;
 
+	protected final TransformBuilderCache< T > transformBuilderCache = new TransformBuilderCache<>( this );
+
 	public MixedTransformView( RandomAccessible< T > source, final Mixed transformToSource )
 	{
 		assert source.numDimensions() == transformToSource.numTargetDimensions();
@@ -112,7 +114,7 @@ public class MixedTransformView< T > implements TransformedRandomAccessible< T >
 	@Override
 	public RandomAccess< T > randomAccess( final Interval interval )
 	{
-		return TransformBuilder.getEfficientRandomAccessible( interval, this ).randomAccess();
+		return transformBuilderCache.getEfficientRandomAccessible( interval ).randomAccess();
 	}
 
 	@Override
@@ -33,11 +33,13 @@
  */
 package net.imglib2.view;
 
+import java.util.Arrays;
+
 import net.imglib2.Interval;
 import net.imglib2.Localizable;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessible;
-import net.imglib2.View;
+import net.imglib2.transform.integer.SubsampleTransform;
 
 /**
  * {@link SubsampleView} is a view that provides access to only every
@@ -50,7 +52,7 @@ import net.imglib2.View;
  * 
  * @author Stephan Saalfeld
  */
-public class SubsampleView< T > implements RandomAccessible< T >, View
+public class SubsampleView< T > implements TransformedRandomAccessible< T >
 {
 	final protected RandomAccessible< T > source;
 
@@ -272,11 +274,18 @@ public class SubsampleView< T > implements RandomAccessible< T >, View
 		return new SubsampleRandomAccess( interval );
 	}
 	
+	@Override
 	public RandomAccessible< T > getSource()
 	{
 		return source;
 	}
 
+	@Override
+	public SubsampleTransform getTransformToSource()
+	{
+		return new SubsampleTransform( Arrays.copyOf( steps, source.numDimensions() ) );
+	}
+
 	/**
 	 * @return sub-sampling steps
 	 */
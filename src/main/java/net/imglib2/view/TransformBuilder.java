@@ -34,13 +34,19 @@
 
 package net.imglib2.view;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.ListIterator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import net.imglib2.Interval;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.read.ConvertedRandomAccessible;
+import net.imglib2.converter.read.ConvertedRandomAccessibleInterval;
 import net.imglib2.img.WrappedImg;
 import net.imglib2.transform.Transform;
 import net.imglib2.transform.integer.BoundingBox;
@@ -48,6 +54,7 @@ import net.imglib2.transform.integer.BoundingBoxTransform;
 import net.imglib2.transform.integer.Mixed;
 import net.imglib2.transform.integer.MixedTransform;
 import net.imglib2.transform.integer.SlicingTransform;
+import net.imglib2.transform.integer.SubsampleTransform;
 import net.imglib2.transform.integer.TranslationTransform;
 import net.imglib2.util.Intervals;
 
@@ -99,6 +106,22 @@ public class TransformBuilder< T >
 	 */
 	protected LinkedList< Transform > transforms;
 
+	/**
+	 * Read converters that were passed while traversing the view hierarchy.
+	 * Conversion is pointwise, so the converters are re-applied on top of the
+	 * {@link #transforms}, innermost converter first.
+	 */
+	@SuppressWarnings( "rawtypes" )
+	protected LinkedList< UnaryOperator< RandomAccessible > > converters;
+
+	/**
+	 * Conditions on the interval under which the traversal of the view
+	 * hierarchy makes the same decisions (out-of-bounds extension needed or
+	 * not, stack slice selected). If all conditions hold for another interval,
+	 * the {@link #build() built} RandomAccessible can be reused for it.
+	 */
+	protected List< Predicate< Interval > > conditions;
+
 	/**
 	 * Create a new TransformBuilder. Starting from {@code randomAccessible}, go
 	 * down the view hierarchy to the RandomAccessible that will provide the
@@ -117,6 +140,8 @@ public class TransformBuilder< T >
 	protected TransformBuilder( final Interval interval, final RandomAccessible< T > randomAccessible )
 	{
 		transforms = new LinkedList< Transform >();
+		converters = new LinkedList<>();
+		conditions = new ArrayList<>();
 		boundingBox = ( interval == null ) ? null : new BoundingBox( interval );
 		// System.out.println( randomAccessible );
 		visit( randomAccessible );
@@ -145,8 +170,9 @@ public class TransformBuilder< T >
 	 * Visit a RandomAccessible (while traversing the view hierarchy). The
 	 * {@code randomAccessible} is handled by
 	 * {@link #visitTransformed(TransformedRandomAccessible)} or
-	 * {@link #visitExtended(ExtendedRandomAccessibleInterval)} when it has the
-	 * appropriate type. Otherwise, the traversal stops and
+	 * {@link #visitExtended(ExtendedRandomAccessibleInterval)},
+	 * {@link #visitStack(StackView)} or {@link #visitConverted(RandomAccessible)}
+	 * when it has the appropriate type. Otherwise, the traversal stops and
 	 * {@code randomAccessible} is set as the {@link #source}.
 	 * 
 	 * @param randomAccessible
@@ -170,6 +196,14 @@ public class TransformBuilder< T >
 		{
 			visit( ( ( WrappedImg< T > ) randomAccessible ).getImg() );
 		}
+		else if ( StackView.class.isInstance( randomAccessible ) )
+		{
+			visitStack( ( StackView< T > ) randomAccessible );
+		}
+		else if ( ConvertedRandomAccessible.class.isInstance( randomAccessible ) || ConvertedRandomAccessibleInterval.class.isInstance( randomAccessible ) )
+		{
+			visitConverted( randomAccessible );
+		}
 		else
 		{
 			source = randomAccessible;
@@ -201,12 +235,121 @@ public class TransformBuilder< T >
 	protected void visitExtended( final ExtendedRandomAccessibleInterval< T, ? > randomAccessible )
 	{
 		final RandomAccessibleInterval< T > sourceInterval = randomAccessible.getSource();
-		if ( ( boundingBox != null ) && Intervals.contains( sourceInterval, boundingBox.getInterval() ) )
+		final boolean contained = ( boundingBox != null ) && Intervals.contains( sourceInterval, boundingBox.getInterval() );
+		final List< Transform > path = new ArrayList<>( transforms );
+		conditions.add( interval -> {
+			final BoundingBox b = transformBoundingBox( path, interval );
+			return contained == ( ( b != null ) && Intervals.contains( sourceInterval, b.getInterval() ) );
+		} );
+		if ( contained )
 			visit( sourceInterval );
 		else
 			source = randomAccessible;
 	}
 
+	/**
+	 * Visit a StackView (while traversing the view hierarchy). If the current
+	 * bounding box lies within a single slice, slice the stack and
+	 * {@link #visit(RandomAccessible)} that slice. Otherwise, the traversal
+	 * stops and {@code randomAccessible} is set as the {@link #source}.
+	 * 
+	 * @param randomAccessible
+	 */
+	protected void visitStack( final StackView< T > randomAccessible )
+	{
+		final List< RandomAccessibleInterval< T > > slices = randomAccessible.getSourceSlices();
+		final int sd = randomAccessible.numDimensions() - 1;
+		final long slice = selectSlice( boundingBox, sd, slices.size() );
+		final List< Transform > path = new ArrayList<>( transforms );
+		conditions.add( interval -> slice == selectSlice( transformBoundingBox( path, interval ), sd, slices.size() ) );
+		if ( slice == NO_SLICE || slice == MULTIPLE_SLICES )
+		{
+			/*
+			 * For several slices, the StackView creates RandomAccesses on its
+			 * slices for the sliced bounding box, which lets every slice view
+			 * simplify itself (and memoize the result).
+			 */
+			source = randomAccessible;
+		}
+		else
+		{
+			prependTransform( new MixedTransform( sd + 1, sd ) );
+			visit( slices.get( ( int ) slice ) );
+		}
+	}
+
+	private static final long NO_SLICE = -1;
+
+	private static final long MULTIPLE_SLICES = -2;
+
+	/**
+	 * @return the index of the slice of a stack with {@code numSlices} slices
+	 *         along dimension {@code sd} that contains {@code boundingBox},
+	 *         {@link #MULTIPLE_SLICES} if {@code boundingBox} spans several
+	 *         slices, or {@link #NO_SLICE} if {@code boundingBox} is
+	 *         {@code null} or not contained in the stack.
+	 */
+	private static long selectSlice( final BoundingBox boundingBox, final int sd, final int numSlices )
+	{
+		if ( boundingBox == null )
+			return NO_SLICE;
+		final Interval interval = boundingBox.getInterval();
+		final long zmin = interval.min( sd );
+		final long zmax = interval.max( sd );
+		if ( zmin < 0 || zmax >= numSlices )
+			return NO_SLICE;
+		return zmin == zmax ? zmin : MULTIPLE_SLICES;
+	}
+
+	/**
+	 * Transform {@code interval} into a bounding box in the coordinate system
+	 * at the end of {@code path}, where {@code path} is a snapshot of
+	 * {@link #transforms} taken while traversing the view hierarchy.
+	 * 
+	 * @return the transformed bounding box, or {@code null} if
+	 *         {@code interval} is {@code null} or a transform on the path is
+	 *         not a {@link BoundingBoxTransform}.
+	 */
+	static BoundingBox transformBoundingBox( final List< Transform > path, final Interval interval )
+	{
+		if ( interval == null )
+			return null;
+		BoundingBox b = new BoundingBox( interval );
+		for ( final ListIterator< Transform > i = path.listIterator( path.size() ); i.hasPrevious(); )
+		{
+			final Transform t = i.previous();
+			if ( !BoundingBoxTransform.class.isInstance( t ) )
+				return null;
+			b = ( ( BoundingBoxTransform ) t ).transform( b );
+		}
+		return b;
+	}
+
+	/**
+	 * Visit a ConvertedRandomAccessible or ConvertedRandomAccessibleInterval
+	 * (while traversing the view hierarchy). Conversion does not change
+	 * coordinates, so remember to re-apply the converter on top of the final
+	 * result and {@link #visit(RandomAccessible)} the view's source.
+	 * 
+	 * @param randomAccessible
+	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	protected void visitConverted( final RandomAccessible< T > randomAccessible )
+	{
+		if ( ConvertedRandomAccessible.class.isInstance( randomAccessible ) )
+		{
+			final ConvertedRandomAccessible c = ( ConvertedRandomAccessible ) randomAccessible;
+			converters.addFirst( s -> new ConvertedRandomAccessible( s, c.getConverter(), c.getDestinationType() ) );
+			visit( c.getSource() );
+		}
+		else
+		{
+			final ConvertedRandomAccessibleInterval c = ( ConvertedRandomAccessibleInterval ) randomAccessible;
+			converters.addFirst( s -> new ConvertedRandomAccessible( s, c.getConverter(), c.getDestinationType() ) );
+			visit( ( RandomAccessible< T > ) c.getSource() );
+		}
+	}
+
 	public static boolean isIdentity( final Mixed t )
 	{
 		final int n = t.numSourceDimensions();
@@ -281,8 +424,11 @@ public class TransformBuilder< T >
 	}
 
 	/**
-	 * Simplify the {@link #transforms} list. First, concatenate neighboring
-	 * transforms if possible. Then, for every {@link Mixed} transform:
+	 * Simplify the {@link #transforms} list. First, move
+	 * {@link SubsampleTransform SubsampleTransforms} towards the view (past
+	 * {@link Mixed} transforms) where possible, and concatenate neighboring
+	 * transforms. Then, remove identity {@link SubsampleTransform
+	 * SubsampleTransforms} and for every {@link Mixed} transform:
 	 * <ul>
 	 * <li>remove it if it is the identity transforms.
 	 * <li>replace it by a {@link TranslationTransform} if it is a pure
@@ -292,12 +438,18 @@ public class TransformBuilder< T >
 	 */
 	protected void simplifyTransforms()
 	{
+		swapSubsampleTransforms();
 		net.imglib2.concatenate.ConcatenateUtils.join( transforms );
 
 		for ( final ListIterator< Transform > i = transforms.listIterator(); i.hasNext(); )
 		{
 			final Transform t = i.next();
-			if ( Mixed.class.isInstance( t ) )
+			if ( SubsampleTransform.class.isInstance( t ) )
+			{
+				if ( ( ( SubsampleTransform ) t ).isIdentity() )
+					i.remove();
+			}
+			else if ( Mixed.class.isInstance( t ) )
 			{
 				final Mixed mixed = ( Mixed ) t;
 				if ( isIdentity( mixed ) )
@@ -343,12 +495,45 @@ public class TransformBuilder< T >
 		}
 	}
 
+	/**
+	 * Swap every {@link SubsampleTransform} with a {@link Mixed} transform
+	 * that is applied before it (see
+	 * {@link SubsampleTransform#swapWith(Mixed)}), until no more swaps are
+	 * possible. This collects subsampling at the view end of the
+	 * {@link #transforms} list, where neighbors can be concatenated.
+	 */
+	protected void swapSubsampleTransforms()
+	{
+		boolean swapped;
+		do
+		{
+			swapped = false;
+			for ( int i = 0; i < transforms.size() - 1; ++i )
+			{
+				final Transform t = transforms.get( i );
+				final Transform next = transforms.get( i + 1 );
+				if ( SubsampleTransform.class.isInstance( t ) && Mixed.class.isInstance( next ) )
+				{
+					final Transform[] swap = ( ( SubsampleTransform ) t ).swapWith( ( Mixed ) next );
+					if ( swap != null )
+					{
+						transforms.set( i, swap[ 0 ] );
+						transforms.set( i + 1, swap[ 1 ] );
+						swapped = true;
+					}
+				}
+			}
+		}
+		while ( swapped );
+	}
+
 	/**
 	 * Create a sequence of wrapped RandomAccessibles from the
-	 * {@link #transforms} list.
+	 * {@link #transforms} list, and re-apply the {@link #converters}.
 	 * 
 	 * @return RandomAccessible on the interval specified in the constructor.
 	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
 	protected RandomAccessible< T > build()
 	{
 		RandomAccessible< T > result = source;
@@ -361,9 +546,13 @@ public class TransformBuilder< T >
 				result = wrapTranslationTransform( result, ( TranslationTransform ) t );
 			else if ( SlicingTransform.class.isInstance( t ) )
 				result = wrapSlicingTransform( result, ( SlicingTransform ) t );
+			else if ( SubsampleTransform.class.isInstance( t ) )
+				result = wrapSubsampleTransform( result, ( SubsampleTransform ) t );
 			else
 				result = wrapGenericTransform( result, t );
 		}
+		for ( final UnaryOperator< RandomAccessible > converter : converters )
+			result = converter.apply( result );
 		return result;
 	}
 
@@ -472,4 +661,31 @@ public class TransformBuilder< T >
 			}
 		};
 	}
+
+	protected RandomAccessible< T > wrapSubsampleTransform( final RandomAccessible< T > s, final SubsampleTransform t )
+	{
+		final long[] steps = new long[ t.numSourceDimensions() ];
+		t.getSteps( steps );
+		final SubsampleView< T > view = new SubsampleView< T >( s, steps );
+		return new RandomAccessible< T >()
+		{
+			@Override
+			public int numDimensions()
+			{
+				return t.numSourceDimensions();
+			}
+
+			@Override
+			public RandomAccess< T > randomAccess()
+			{
+				return view.randomAccess();
+			}
+
+			@Override
+			public RandomAccess< T > randomAccess( final Interval interval )
+			{
+				return view.randomAccess();
+			}
+		};
+	}
 }
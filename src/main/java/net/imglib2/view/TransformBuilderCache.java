@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.view;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessible;
+
+/**
+ * Memoizes the results of {@link TransformBuilder} for one view.
+ * <p>
+ * The RandomAccessible built for an interval depends on that interval only
+ * through the decisions taken while traversing the view hierarchy (whether
+ * out-of-bounds extension is needed, which slice of a stack is accessed).
+ * Intervals for which the traversal takes the same decisions form a class
+ * that shares one RandomAccessible. This cache keeps a few such classes, so
+ * that repeatedly creating a RandomAccess on a deep view hierarchy only costs
+ * the evaluation of the recorded conditions.
+ * <p>
+ * The cache is safe for concurrent use.
+ */
+public class TransformBuilderCache< T >
+{
+	private static final int MAX_ENTRIES = 4;
+
+	private static final class Entry< T >
+	{
+		final RandomAccessible< T > randomAccessible;
+
+		final List< Predicate< Interval > > conditions;
+
+		Entry( final RandomAccessible< T > randomAccessible, final List< Predicate< Interval > > conditions )
+		{
+			this.randomAccessible = randomAccessible;
+			this.conditions = conditions;
+		}
+
+		boolean matches( final Interval interval )
+		{
+			for ( final Predicate< Interval > condition : conditions )
+				if ( !condition.test( interval ) )
+					return false;
+			return true;
+		}
+	}
+
+	private final RandomAccessible< T > view;
+
+	private volatile Entry< T >[] entries;
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	public TransformBuilderCache( final RandomAccessible< T > view )
+	{
+		this.view = view;
+		this.entries = new Entry[ 0 ];
+	}
+
+	/**
+	 * Get a RandomAccessible which provides RandomAccess to the specified
+	 * {@code interval} of the view.
+	 *
+	 * @see TransformBuilder#getEfficientRandomAccessible(Interval,
+	 *      RandomAccessible)
+	 */
+	public RandomAccessible< T > getEfficientRandomAccessible( final Interval interval )
+	{
+		final Entry< T >[] current = entries;
+		for ( final Entry< T > entry : current )
+			if ( entry.matches( interval ) )
+				return entry.randomAccessible;
+
+		final TransformBuilder< T > builder = new TransformBuilder<>( interval, view );
+		final RandomAccessible< T > randomAccessible = builder.build();
+		add( new Entry<>( randomAccessible, builder.conditions ) );
+		return randomAccessible;
+	}
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	private synchronized void add( final Entry< T > entry )
+	{
+		final Entry< T >[] current = entries;
+		final int n = Math.min( current.length + 1, MAX_ENTRIES );
+		final Entry< T >[] updated = new Entry[ n ];
+		updated[ 0 ] = entry;
+		System.arraycopy( current, 0, updated, 1, n - 1 );
+		entries = updated;
+	}
+}
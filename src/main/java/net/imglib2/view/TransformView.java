@@ -56,6 +56,8 @@ public class TransformView< T > implements TransformedRandomAccessible< T >
 
 	protected RandomAccessible< T > fullViewRandomAccessible;
 
+	protected final TransformBuilderCache< T > transformBuilderCache = new TransformBuilderCache<>( this );
+
 	public TransformView( final RandomAccessible< T > source, final Transform transformToSource )
 	{
 		assert source.numDimensions() == transformToSource.numTargetDimensions();
@@ -89,7 +91,7 @@ public class TransformView< T > implements TransformedRandomAccessible< T >
 	@Override
 	public RandomAccess< T > randomAccess( final Interval interval )
 	{
-		return TransformBuilder.getEfficientRandomAccessible( interval, this ).randomAccess();
+		return transformBuilderCache.getEfficientRandomAccessible( interval ).randomAccess();
 	}
 
 	@Override
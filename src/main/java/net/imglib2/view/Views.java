@@ -1336,7 +1336,7 @@ public class Views
 	 */
 	public static < T > IntervalView< T > expandMirrorSingle( final RandomAccessibleInterval< T > source, final long... border )
 	{
-		return interval( extendMirrorSingle( source ), Intervals.expand( source, border ) );
+		return interval( extend( source, new OutOfBoundsMirrorFactory<>( OutOfBoundsMirrorFactory.Boundary.SINGLE, border ) ), Intervals.expand( source, border ) );
 	}
 
 	/**
@@ -1350,7 +1350,7 @@ public class Views
 	 */
 	public static < T > IntervalView< T > expandMirrorDouble( final RandomAccessibleInterval< T > source, final long... border )
 	{
-		return interval( extendMirrorDouble( source ), Intervals.expand( source, border ) );
+		return interval( extend( source, new OutOfBoundsMirrorFactory<>( OutOfBoundsMirrorFactory.Boundary.DOUBLE, border ) ), Intervals.expand( source, border ) );
 	}
 
 	/**
@@ -1412,7 +1412,7 @@ public class Views
 	 */
 	public static < T > IntervalView< T > expandPeriodic( final RandomAccessibleInterval< T > source, final long... border )
 	{
-		return interval( extendPeriodic( source ), Intervals.expand( source, border ) );
+		return interval( extend( source, new OutOfBoundsPeriodicFactory<>( border ) ), Intervals.expand( source, border ) );
 	}
 
 	/**
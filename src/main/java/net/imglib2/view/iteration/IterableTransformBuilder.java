@@ -43,6 +43,7 @@ import net.imglib2.Interval;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccessible;
 import net.imglib2.transform.integer.BoundingBox;
+import net.imglib2.transform.integer.Mixed;
 import net.imglib2.transform.integer.SlicingTransform;
 import net.imglib2.util.Intervals;
 import net.imglib2.view.IterableRandomAccessibleInterval;
@@ -221,6 +222,68 @@ public class IterableTransformBuilder< T > extends TransformBuilder< T >
 		}
 	}
 
+	/**
+	 * An {@link IterableInterval} on a translated {@link SubIntervalIterable}.
+	 */
+	private class PermutedTranslated extends AbstractWrappedInterval< Interval > implements IterableInterval< T >
+	{
+		final long numElements;
+
+		final SubIntervalIterable< T > iterableSource;
+
+		final Interval sourceInterval;
+
+		final Mixed transformToSource;
+
+		final boolean hasFlatIterationOrder;
+
+		public PermutedTranslated( final SubIntervalIterable< T > iterableSource, final Interval sourceInterval, final Mixed transformToSource, final boolean hasFlatIterationOrder )
+		{
+			super( interval );
+			numElements = Intervals.numElements( interval );
+			this.iterableSource = iterableSource;
+			this.sourceInterval = sourceInterval;
+			this.transformToSource = transformToSource;
+			this.hasFlatIterationOrder = hasFlatIterationOrder;
+		}
+
+		@Override
+		public long size()
+		{
+			return numElements;
+		}
+
+		@Override
+		public T firstElement()
+		{
+			return cursor().next();
+		}
+
+		@Override
+		public Object iterationOrder()
+		{
+			return hasFlatIterationOrder ? new FlatIterationOrder( interval ) : this;
+		}
+
+		@Override
+		public Iterator< T > iterator()
+		{
+			return cursor();
+		}
+
+		@Override
+		public Cursor< T > cursor()
+		{
+			return new PermutedTranslatedCursor< T >( iterableSource.cursor( sourceInterval ), transformToSource );
+		}
+
+		@Override
+		public Cursor< T > localizingCursor()
+		{
+			return new PermutedTranslatedCursor< T >( iterableSource.localizingCursor( sourceInterval ), transformToSource );
+		}
+	}
+
 	/**
 	 * Create an {@link IterableInterval} on the {@link Interval} specified in
 	 * the constructor of the {@link RandomAccessible} specified in the
@@ -237,6 +300,19 @@ public class IterableTransformBuilder< T > extends TransformBuilder< T >
 				if ( iterableSource.supportsOptimizedCursor( interval ) )
 					return new SubInterval( iterableSource );
 			}
+			else if ( transforms.size() == 1 && Mixed.class.isInstance( transforms.get( 0 ) ) && isTranslation( ( Mixed ) transforms.get( 0 ) ) )
+			{
+				// translation of the source (e.g. Views.translate,
+				// Views.zeroMin). Permuted views are not optimized, the memory
+				// order of the source would not be flat iteration order.
+				final Mixed t = ( Mixed ) transforms.get( 0 );
+				final Interval sourceInterval = t.transform( new BoundingBox( interval ) ).getInterval();
+				if ( iterableSource.supportsOptimizedCursor( sourceInterval ) )
+				{
+					final boolean flat = FlatIterationOrder.class.isInstance( iterableSource.subIntervalIterationOrder( sourceInterval ) );
+					return new PermutedTranslated( iterableSource, sourceInterval, t, flat );
+				}
+			}
 			else if ( transforms.size() == 1 && SlicingTransform.class.isInstance( transforms.get( 0 ) ) )
 			{
 				final SlicingTransform t = ( SlicingTransform ) transforms.get( 0 );
@@ -267,6 +343,13 @@ public class IterableTransformBuilder< T > extends TransformBuilder< T >
 							optimizable = false;
 				}
 
+				// 3.) Slice dimensions must not be permuted, otherwise they
+				// would be iterated in the memory order of the source instead
+				// of flat iteration order
+				for ( int d = 0; d < n - 1 && optimizable; ++d )
+					if ( sourceComponent[ d + 1 ] <= sourceComponent[ d ] )
+						optimizable = false;
+
 				if ( optimizable )
 				{
 //					System.out.println( "interval = " + Util.printInterval( interval ) );
@@ -275,10 +358,7 @@ public class IterableTransformBuilder< T > extends TransformBuilder< T >
 					if ( iterableSource.supportsOptimizedCursor( sliceInterval ) )
 					{
 						// check for FlatIterationOrder
-						boolean flat = FlatIterationOrder.class.isInstance( iterableSource.subIntervalIterationOrder( sliceInterval ) );
-						for ( int d = 0; d < n - 1; ++d )
-							if ( sourceComponent[ d + 1 ] <= sourceComponent[ d ] )
-								flat = false;
+						final boolean flat = FlatIterationOrder.class.isInstance( iterableSource.subIntervalIterationOrder( sliceInterval ) );
 						return new Slice( iterableSource, sliceInterval, t, flat );
 					}
 				}
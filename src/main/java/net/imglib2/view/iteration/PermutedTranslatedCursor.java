@@ -0,0 +1,210 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.view.iteration;
+
+import net.imglib2.AbstractEuclideanSpace;
+import net.imglib2.Cursor;
+import net.imglib2.Localizable;
+import net.imglib2.transform.integer.Mixed;
+
+/**
+ * Wrap a cursor that runs on a translated and permuted interval and apply the
+ * inverse coordinate transform on localize calls.
+ */
+public class PermutedTranslatedCursor< T > extends AbstractEuclideanSpace implements Cursor< T >
+{
+	/**
+	 * source Cursor. note that this is the <em>target</em> of the
+	 * transformToSource.
+	 */
+	private final Cursor< T > s;
+
+	/**
+	 * for each component of the view vector: from which source cursor
+	 * component should it be taken.
+	 */
+	private final int[] sourceComponent;
+
+	/**
+	 * for each component of the view vector: the translation to subtract from
+	 * the source cursor component.
+	 */
+	private final long[] translation;
+
+	/**
+	 * Create a Cursor that forwards all {@link Cursor} methods to
+	 * {@code source}, except {@link Localizable} methods. Localize calls are
+	 * propagated through the inverse of {@code transformToSource}, which must
+	 * be a permutation and translation without inversion.
+	 */
+	PermutedTranslatedCursor( final Cursor< T > source, final Mixed transformToSource )
+	{
+		super( transformToSource.numSourceDimensions() );
+
+		assert source.numDimensions() == transformToSource.numTargetDimensions();
+		assert n == transformToSource.numTargetDimensions();
+
+		s = source;
+		sourceComponent = new int[ n ];
+		translation = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+		{
+			final int c = transformToSource.getComponentMapping( d );
+			sourceComponent[ c ] = d;
+			translation[ c ] = transformToSource.getTranslation( d );
+		}
+	}
+
+	protected PermutedTranslatedCursor( final PermutedTranslatedCursor< T > cursor )
+	{
+		super( cursor.numDimensions() );
+		s = cursor.s.copyCursor();
+		sourceComponent = cursor.sourceComponent;
+		translation = cursor.translation;
+	}
+
+	@Override
+	public void localize( final int[] position )
+	{
+		assert position.length >= n;
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = getIntPosition( d );
+	}
+
+	@Override
+	public void localize( final long[] position )
+	{
+		assert position.length >= n;
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = getLongPosition( d );
+	}
+
+	@Override
+	public int getIntPosition( final int d )
+	{
+		assert d < n;
+		return s.getIntPosition( sourceComponent[ d ] ) - ( int ) translation[ d ];
+	}
+
+	@Override
+	public long getLongPosition( final int d )
+	{
+		assert d < n;
+		return s.getLongPosition( sourceComponent[ d ] ) - translation[ d ];
+	}
+
+	@Override
+	public void localize( final float[] position )
+	{
+		assert position.length >= n;
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = getFloatPosition( d );
+	}
+
+	@Override
+	public void localize( final double[] position )
+	{
+		assert position.length >= n;
+		for ( int d = 0; d < n; ++d )
+			position[ d ] = getDoublePosition( d );
+	}
+
+	@Override
+	public float getFloatPosition( final int d )
+	{
+		return getLongPosition( d );
+	}
+
+	@Override
+	public double getDoublePosition( final int d )
+	{
+		return getLongPosition( d );
+	}
+
+	@Override
+	public T get()
+	{
+		return s.get();
+	}
+
+	@Override
+	public PermutedTranslatedCursor< T > copy()
+	{
+		return new PermutedTranslatedCursor< T >( this );
+	}
+
+	@Override
+	public PermutedTranslatedCursor< T > copyCursor()
+	{
+		return copy();
+	}
+
+	@Override
+	public void jumpFwd( final long steps )
+	{
+		s.jumpFwd( steps );
+	}
+
+	@Override
+	public void fwd()
+	{
+		s.fwd();
+	}
+
+	@Override
+	public void reset()
+	{
+		s.reset();
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return s.hasNext();
+	}
+
+	@Override
+	public T next()
+	{
+		return s.next();
+	}
+
+	@Override
+	public void remove()
+	{
+		return;
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.blocks;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converters;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.list.ListImgFactory;
+import net.imglib2.img.planar.PlanarImgFactory;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+public class PrimitiveBlocksTest
+{
+	private final Random random = new Random( 42 );
+
+	private Img< IntType > fill( final Img< IntType > img )
+	{
+		for ( final IntType t : img )
+			t.set( random.nextInt( 1000 ) );
+		return img;
+	}
+
+	private static int[] copyReference( final RandomAccessible< IntType > source, final Interval interval )
+	{
+		final int[] data = new int[ ( int ) Intervals.numElements( interval ) ];
+		final Cursor< IntType > c = Views.flatIterable( Views.interval( source, interval ) ).cursor();
+		for ( int i = 0; i < data.length; ++i )
+			data[ i ] = c.next().get();
+		return data;
+	}
+
+	private static void assertCopyEquals( final RandomAccessible< IntType > source, final Interval interval )
+	{
+		final PrimitiveBlocks< IntType > blocks = PrimitiveBlocks.of( source );
+		assertTrue( "expected optimized copy for " + source, blocks instanceof ViewPrimitiveBlocks );
+		final int[] expected = copyReference( source, interval );
+		final int[] actual = new int[ expected.length ];
+		blocks.copy( interval, actual );
+		assertArrayEquals( expected, actual );
+	}
+
+	private Img< IntType >[] createImgs( final long... dimensions )
+	{
+		@SuppressWarnings( "unchecked" )
+		final Img< IntType >[] imgs = new Img[] {
+				fill( new ArrayImgFactory<>( new IntType() ).create( dimensions ) ),
+				fill( new PlanarImgFactory<>( new IntType() ).create( dimensions ) ),
+				fill( new CellImgFactory<>( new IntType(), 5, 4, 3 ).create( dimensions ) )
+		};
+		return imgs;
+	}
+
+	@Test
+	public void testContainers()
+	{
+		final Interval interval = Intervals.createMinSize( 2, 3, 1, 10, 8, 4 );
+		for ( final Img< IntType > img : createImgs( 17, 13, 7 ) )
+		{
+			assertCopyEquals( img, img );
+			assertCopyEquals( img, interval );
+		}
+	}
+
+	@Test
+	public void testTransforms()
+	{
+		for ( final Img< IntType > img : createImgs( 17, 13, 7 ) )
+		{
+			assertCopyEquals( Views.translate( img, 3, 2, 1 ), Intervals.createMinSize( 4, 3, 2, 11, 9, 4 ) );
+			assertCopyEquals( Views.permute( Views.translate( img, 3, 2, 1 ), 0, 2 ), Intervals.createMinSize( 1, 2, 3, 4, 9, 11 ) );
+			assertCopyEquals( Views.invertAxis( Views.translate( img, 3, 20, 1 ), 1 ), Intervals.createMinSize( 4, -30, 1, 10, 7, 4 ) );
+			assertCopyEquals( Views.rotate( Views.zeroMin( img ), 0, 1 ), Intervals.createMinSize( -10, 2, 1, 8, 12, 5 ) );
+			assertCopyEquals( Views.hyperSlice( img, 1, 5 ), Intervals.createMinSize( 1, 2, 12, 4 ) );
+			assertCopyEquals( Views.hyperSlice( img, 0, 5 ), Intervals.createMinSize( 1, 2, 12, 4 ) );
+			assertCopyEquals( Views.addDimension( img, 0, 3 ), Intervals.createMinSize( 1, 2, 0, 0, 12, 4, 5, 4 ) );
+		}
+	}
+
+	@Test
+	public void testExtensions()
+	{
+		final Interval interval = Intervals.createMinSize( -7, -5, -9, 31, 25, 30 );
+		for ( final Img< IntType > img : createImgs( 17, 13, 7 ) )
+		{
+			final RandomAccessibleInterval< IntType > source = Views.interval( img, Intervals.createMinSize( 1, 2, 0, 15, 10, 7 ) );
+			assertCopyEquals( Views.extendValue( source, new IntType( -1 ) ), interval );
+			assertCopyEquals( Views.extendBorder( source ), interval );
+			assertCopyEquals( Views.extendMirrorSingle( source ), interval );
+			assertCopyEquals( Views.extendMirrorDouble( source ), interval );
+			assertCopyEquals( Views.extendPeriodic( source ), interval );
+		}
+	}
+
+	@Test
+	public void testTransformedExtensions()
+	{
+		final Interval interval = Intervals.createMinSize( -7, -5, -9, 31, 25, 30 );
+		for ( final Img< IntType > img : createImgs( 17, 13, 7 ) )
+		{
+			final RandomAccessibleInterval< IntType > below = Views.permute( Views.translate( img, 4, -3, 2 ), 1, 2 );
+			assertCopyEquals( Views.extendMirrorSingle( below ), interval );
+			assertCopyEquals( Views.extendValue( below, new IntType( 7 ) ), interval );
+			assertCopyEquals( Views.invertAxis( Views.extendPeriodic( below ), 0 ), interval );
+			assertCopyEquals( Views.hyperSlice( Views.extendBorder( below ), 2, -3 ), Intervals.createMinSize( -7, -5, 31, 25 ) );
+			assertCopyEquals( Views.hyperSlice( Views.extendZero( below ), 2, -30 ), Intervals.createMinSize( -7, -5, 31, 25 ) );
+			assertCopyEquals( Views.permute( Views.extendMirrorDouble( below ), 0, 1 ), interval );
+		}
+	}
+
+	@Test
+	public void testOtherTypes()
+	{
+		final Img< FloatType > floats = new CellImgFactory<>( new FloatType(), 4, 4 ).create( 10, 10 );
+		for ( final FloatType t : floats )
+			t.set( random.nextFloat() );
+		final Interval interval = Intervals.createMinSize( -3, -3, 16, 16 );
+		final float[] expected = new float[ 16 * 16 ];
+		final Cursor< FloatType > c = Views.flatIterable( Views.interval( Views.extendMirrorSingle( floats ), interval ) ).cursor();
+		for ( int i = 0; i < expected.length; ++i )
+			expected[ i ] = c.next().get();
+		final float[] actual = new float[ expected.length ];
+		PrimitiveBlocks.copy( Views.extendMirrorSingle( floats ), interval, actual );
+		assertArrayEquals( expected, actual, 0 );
+
+		final Img< UnsignedShortType > shorts = new ArrayImgFactory<>( new UnsignedShortType() ).create( 10, 10 );
+		for ( final UnsignedShortType t : shorts )
+			t.set( random.nextInt( 65536 ) );
+		final short[] expectedShorts = new short[ 16 * 16 ];
+		final Cursor< UnsignedShortType > sc = Views.flatIterable( Views.interval( Views.extendValue( shorts, new UnsignedShortType( 60000 ) ), interval ) ).cursor();
+		for ( int i = 0; i < expectedShorts.length; ++i )
+			expectedShorts[ i ] = ( short ) sc.next().get();
+		final short[] actualShorts = new short[ expectedShorts.length ];
+		PrimitiveBlocks.copy( Views.extendValue( shorts, new UnsignedShortType( 60000 ) ), interval, actualShorts );
+		assertArrayEquals( expectedShorts, actualShorts );
+	}
+
+	@Test
+	public void testFallback()
+	{
+		final Img< IntType > list = fill( new ListImgFactory<>( new IntType() ).create( 10, 10 ) );
+		final RandomAccessible< IntType > converted = Converters.convert( ( RandomAccessible< IntType > ) list, ( a, b ) -> b.set( a.get() + 1 ), new IntType() );
+		final Interval interval = new FinalInterval( new long[] { 2, 3 }, new long[] { 8, 6 } );
+
+		final PrimitiveBlocks< IntType > blocks = PrimitiveBlocks.of( converted );
+		final int[] actual = new int[ ( int ) Intervals.numElements( interval ) ];
+		blocks.copy( interval, actual );
+		assertArrayEquals( copyReference( converted, interval ), actual );
+
+		final int[] actualList = new int[ actual.length ];
+		PrimitiveBlocks.copy( list, interval, actualList );
+		assertArrayEquals( copyReference( list, interval ), actualList );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testWrongArrayType()
+	{
+		final Img< IntType > img = new ArrayImgFactory<>( new IntType() ).create( 10, 10 );
+		PrimitiveBlocks.copy( img, img, new float[ 100 ] );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testArrayTooSmall()
+	{
+		final Img< IntType > img = new ArrayImgFactory<>( new IntType() ).create( 10, 10 );
+		PrimitiveBlocks.copy( img, img, new int[ 99 ] );
+	}
+}
@@ -42,10 +42,13 @@ import org.junit.Test;
 
 import net.imglib2.Cursor;
 import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.read.ConvertedRandomAccessibleInterval;
 import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.view.Views;
 
 /**
@@ -164,4 +167,41 @@ public class ConvertersTest
 		argb.randomAccess().get().set( new ARGBType( 0x00010203) );
 		Assert.assertArrayEquals( new byte[] { 1, 2, 3 }, pixels );
 	}
+
+	@Test
+	public void testFuseConverters()
+	{
+		final ArrayImg< UnsignedByteType, ? > source = ArrayImgs.unsignedBytes( testValues, 20, 30, 4 );
+		final RandomAccessibleInterval< FloatType > floats = Converters.convert(
+				( RandomAccessibleInterval< UnsignedByteType > ) source,
+				( a, b ) -> b.setReal( a.getRealDouble() * 0.5 ),
+				new FloatType() );
+		final RandomAccessibleInterval< DoubleType > doubles = Converters.convert(
+				floats,
+				( a, b ) -> b.setReal( a.getRealDouble() + 1 ),
+				new DoubleType() );
+
+		Assert.assertTrue( doubles instanceof ConvertedRandomAccessibleInterval );
+		Assert.assertSame( source, ( ( ConvertedRandomAccessibleInterval< ?, ? > ) doubles ).getSource() );
+
+		final Cursor< UnsignedByteType > expected = source.cursor();
+		final Cursor< DoubleType > actual = Views.flatIterable( doubles ).cursor();
+		while ( expected.hasNext() )
+			Assert.assertEquals( expected.next().get() * 0.5 + 1, actual.next().get(), 0 );
+	}
+
+	@Test
+	public void testAndThen()
+	{
+		final Converter< UnsignedByteType, FloatType > first = ( a, b ) -> b.setReal( a.get() * 2 );
+		final ChainedConverter< UnsignedByteType, FloatType, DoubleType > chained = first.andThen( ( a, b ) -> b.set( a.get() - 3 ), FloatType::new );
+		final ChainedConverter< UnsignedByteType, FloatType, DoubleType > copy = chained.copy();
+
+		final UnsignedByteType in = new UnsignedByteType( 100 );
+		final DoubleType out = new DoubleType();
+		chained.convert( in, out );
+		Assert.assertEquals( 197, out.get(), 0 );
+		copy.convert( in, out );
+		Assert.assertEquals( 197, out.get(), 0 );
+	}
 }
@@ -0,0 +1,155 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.converter;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import net.imglib2.display.ColorTable8;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
+
+public class LookupTableConverterTest
+{
+	@Test
+	public void testRealARGBConverter()
+	{
+		final RealARGBConverter< UnsignedShortType > c = new RealARGBConverter<>( 100, 40000 );
+		final RealARGBConverter< DoubleType > reference = new RealARGBConverter<>( 100, 40000 );
+		assertSameMapping( c, reference );
+
+		c.setMin( 1000 );
+		c.setAlpha( 0x80 );
+		reference.setMin( 1000 );
+		reference.setAlpha( 0x80 );
+		assertSameMapping( c, reference );
+	}
+
+	@Test
+	public void testRealLUTConverter()
+	{
+		final byte[] r = new byte[ 256 ];
+		final byte[] g = new byte[ 256 ];
+		final byte[] b = new byte[ 256 ];
+		for ( int i = 0; i < 256; ++i )
+		{
+			r[ i ] = ( byte ) i;
+			g[ i ] = ( byte ) ( 255 - i );
+			b[ i ] = ( byte ) ( i * 7 );
+		}
+		final RealLUTConverter< UnsignedShortType > c = new RealLUTConverter<>( 0, 1000, new ColorTable8( r, g, b ) );
+		final RealLUTConverter< DoubleType > reference = new RealLUTConverter<>( 0, 1000, new ColorTable8( r, g, b ) );
+		assertSameMapping( c, reference );
+
+		c.setLUT( new ColorTable8( b, r, g ) );
+		c.setMax( 20000 );
+		reference.setLUT( new ColorTable8( b, r, g ) );
+		reference.setMax( 20000 );
+		assertSameMapping( c, reference );
+
+		// modify the color table in place
+		final ColorTable8 lut = new ColorTable8( r, g, b );
+		c.setLUT( lut );
+		reference.setLUT( lut );
+		assertSameMapping( c, reference );
+		for ( int i = 0; i < 256; ++i )
+			r[ i ] = ( byte ) ( 255 - i );
+		c.colorTableChanged();
+		assertSameMapping( c, reference );
+	}
+
+	/**
+	 * A table that is computed while the parameters change must not be used
+	 * after the change.
+	 */
+	@Test
+	public void testInvalidateWhileCreatingTable()
+	{
+		final RealUnsignedByteConverter< UnsignedByteType > c = new RealUnsignedByteConverter< UnsignedByteType >( 0, 255 )
+		{
+			private boolean first = true;
+
+			@Override
+			protected int map( final double a )
+			{
+				if ( first )
+				{
+					first = false;
+					setMax( 127.5 );
+				}
+				return super.map( a );
+			}
+		};
+		final UnsignedByteType in = new UnsignedByteType( 100 );
+		final UnsignedByteType out = new UnsignedByteType();
+		c.convert( in, out );
+		c.convert( in, out );
+		assertEquals( 200, out.get() );
+	}
+
+	@Test
+	public void testRealUnsignedByteConverter()
+	{
+		final RealUnsignedByteConverter< UnsignedByteType > c = new RealUnsignedByteConverter<>( 10, 200 );
+		final UnsignedByteType in = new UnsignedByteType();
+		final UnsignedByteType out = new UnsignedByteType();
+		for ( int i = 0; i < 256; ++i )
+		{
+			in.set( i );
+			c.convert( in, out );
+			assertEquals( Math.min( 255, Math.max( 0, ( int ) Math.round( ( i - 10 ) / 190.0 * 255.0 ) ) ), out.get() );
+		}
+	}
+
+	private static void assertSameMapping( final Converter< UnsignedShortType, ARGBType > c, final Converter< DoubleType, ARGBType > reference )
+	{
+		final UnsignedShortType in = new UnsignedShortType();
+		final DoubleType inReference = new DoubleType();
+		final ARGBType out = new ARGBType();
+		final ARGBType outReference = new ARGBType();
+		for ( int i = 0; i < 1 << 16; ++i )
+		{
+			in.set( i );
+			inReference.set( i );
+			c.convert( in, out );
+			reference.convert( inReference, outReference );
+			assertEquals( outReference.get(), out.get() );
+		}
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.display.projector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import net.imglib2.Cursor;
+import net.imglib2.converter.ChainedConverter;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.RealARGBConverter;
+import net.imglib2.display.projector.composite.CompositeXYProjector;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelProjectorTest
+{
+	private final ArrayImg< UnsignedByteType, ? > source = ArrayImgs.unsignedBytes( 37, 23, 3 );
+
+	private ExecutorService service;
+
+	@Before
+	public void setUp()
+	{
+		final Random random = new Random( 42 );
+		for ( final UnsignedByteType t : source )
+			t.set( random.nextInt( 256 ) );
+		service = Executors.newFixedThreadPool( 4 );
+	}
+
+	@After
+	public void tearDown()
+	{
+		service.shutdown();
+	}
+
+	private static ArrayImg< ARGBType, IntArray > target()
+	{
+		return ArrayImgs.argbs( 37, 23 );
+	}
+
+	@Test
+	public void testRandomAccessibleProjector()
+	{
+		final ArrayImg< ARGBType, IntArray > expected = target();
+		final ArrayImg< ARGBType, IntArray > actual = target();
+		final RandomAccessibleProjector2D< UnsignedByteType, ARGBType > serial = new RandomAccessibleProjector2D<>( 0, 1, source, expected, new RealARGBConverter<>( 0, 255 ) );
+		final RandomAccessibleProjector2D< UnsignedByteType, ARGBType > parallel = new RandomAccessibleProjector2D<>( 0, 1, source, actual, () -> new RealARGBConverter<>( 0, 255 ) );
+		serial.setPosition( 1, 2 );
+		parallel.setPosition( 1, 2 );
+		parallel.setExecutorService( service, 5 );
+		serial.map();
+		parallel.map();
+		assertArrayEquals( expected.update( null ).getCurrentStorageArray(), actual.update( null ).getCurrentStorageArray() );
+	}
+
+	@Test
+	public void testIterableIntervalProjector()
+	{
+		final ArrayImg< ARGBType, IntArray > expected = target();
+		final ArrayImg< ARGBType, IntArray > actual = target();
+		final IterableIntervalProjector2D< UnsignedByteType, ARGBType > serial = new IterableIntervalProjector2D<>( 0, 1, source, expected, new RealARGBConverter<>( 0, 255 ) );
+		final IterableIntervalProjector2D< UnsignedByteType, ARGBType > parallel = new IterableIntervalProjector2D<>( 0, 1, source, actual, () -> new RealARGBConverter<>( 0, 255 ) );
+		serial.setPosition( 2, 2 );
+		parallel.setPosition( 2, 2 );
+		parallel.setExecutorService( service, 6 );
+		serial.map();
+		parallel.map();
+		assertArrayEquals( expected.update( null ).getCurrentStorageArray(), actual.update( null ).getCurrentStorageArray() );
+	}
+
+	@Test
+	public void testCompositeXYProjector()
+	{
+		for ( final boolean composite : new boolean[] { false, true } )
+		{
+			final ArrayImg< ARGBType, IntArray > expected = target();
+			final ArrayImg< ARGBType, IntArray > actual = target();
+			final CompositeXYProjector< UnsignedByteType > serial = new CompositeXYProjector<>( source, expected, converters(), 2 );
+			final CompositeXYProjector< UnsignedByteType > parallel = new CompositeXYProjector<>( source, actual, converters(), 2 );
+			serial.setComposite( composite );
+			parallel.setComposite( composite );
+			parallel.setExecutorService( service, 3 );
+			serial.map();
+			parallel.map();
+			assertArrayEquals( expected.update( null ).getCurrentStorageArray(), actual.update( null ).getCurrentStorageArray() );
+		}
+	}
+
+	@Test
+	public void testCompositeXYProjectorWithSuppliers()
+	{
+		final ArrayImg< ARGBType, IntArray > expected = target();
+		final ArrayImg< ARGBType, IntArray > actual = target();
+		final ArrayList< Converter< UnsignedByteType, ARGBType > > converters = new ArrayList<>();
+		final List< Supplier< RealARGBConverter< UnsignedByteType > > > suppliers = new ArrayList<>();
+		final AtomicInteger numCreated = new AtomicInteger();
+		for ( int i = 0; i < 3; ++i )
+		{
+			final int max = 100 + 50 * i;
+			converters.add( new RealARGBConverter<>( 0, max ) );
+			suppliers.add( () -> {
+				numCreated.incrementAndGet();
+				return new RealARGBConverter<>( 0, max );
+			} );
+		}
+		final CompositeXYProjector< UnsignedByteType > serial = new CompositeXYProjector<>( source, expected, converters, 2 );
+		final CompositeXYProjector< UnsignedByteType > parallel = new CompositeXYProjector<>( source, actual, suppliers, 2 );
+		serial.setComposite( true );
+		parallel.setComposite( true );
+		parallel.setExecutorService( service, 3 );
+		serial.map();
+		numCreated.set( 0 );
+		parallel.map();
+		assertEquals( 9, numCreated.get() );
+		assertArrayEquals( expected.update( null ).getCurrentStorageArray(), actual.update( null ).getCurrentStorageArray() );
+	}
+
+	@Test
+	public void testSingleStripeForUncopyableConverter()
+	{
+		final ArrayImg< ARGBType, IntArray > expected = target();
+		final ArrayImg< ARGBType, IntArray > actual = target();
+		final RealARGBConverter< UnsignedByteType > converter = new RealARGBConverter<>( 0, 255 );
+		final Set< Thread > threads = Collections.synchronizedSet( new HashSet<>() );
+		final RandomAccessibleProjector2D< UnsignedByteType, ARGBType > serial = new RandomAccessibleProjector2D<>( 0, 1, source, expected, converter );
+		final RandomAccessibleProjector2D< UnsignedByteType, ARGBType > parallel = new RandomAccessibleProjector2D<>( 0, 1, source, actual, ( a, b ) -> {
+			threads.add( Thread.currentThread() );
+			converter.convert( a, b );
+		} );
+		parallel.setExecutorService( service, 5 );
+		serial.map();
+		parallel.map();
+		assertEquals( 1, threads.size() );
+		assertArrayEquals( expected.update( null ).getCurrentStorageArray(), actual.update( null ).getCurrentStorageArray() );
+	}
+
+	@Test
+	public void testCancel()
+	{
+		final ArrayImg< ARGBType, IntArray > img = target();
+		final RandomAccessibleProjector2D< UnsignedByteType, ARGBType > projector = new RandomAccessibleProjector2D<>( 0, 1, source, img, new RealARGBConverter<>( 0, 255 ) );
+		projector.cancel();
+		assertTrue( projector.isCanceled() );
+
+		// a cancel before map() aborts that map()
+		projector.map();
+		assertTrue( projector.isCanceled() );
+		assertFalse( written( img ) );
+
+		projector.map();
+		assertFalse( projector.isCanceled() );
+		assertTrue( written( img ) );
+	}
+
+	private static boolean written( final ArrayImg< ARGBType, IntArray > img )
+	{
+		final Cursor< ARGBType > c = img.cursor();
+		boolean written = false;
+		while ( c.hasNext() )
+			written |= c.next().get() != 0;
+		return written;
+	}
+
+	private static ArrayList< Converter< UnsignedByteType, ARGBType > > converters()
+	{
+		final ArrayList< Converter< UnsignedByteType, ARGBType > > converters = new ArrayList<>();
+		for ( int i = 0; i < 3; ++i )
+		{
+			final int shift = 8 * i;
+			converters.add( new ChainedConverter<>(
+					( UnsignedByteType a, IntType v ) -> v.set( a.get() << shift ),
+					( v, b ) -> b.set( v.get() ),
+					IntType::new ) );
+		}
+		return converters;
+	}
+}
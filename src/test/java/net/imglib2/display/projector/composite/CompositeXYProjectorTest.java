@@ -0,0 +1,176 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.display.projector.composite;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.converter.Converter;
+import net.imglib2.display.projector.composite.CompositeXYProjector.CompositeMode;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.IntType;
+
+import org.junit.Test;
+
+public class CompositeXYProjectorTest
+{
+	private final Img< IntType > source = ArrayImgs.ints( 17, 5, 3 );
+
+	public CompositeXYProjectorTest()
+	{
+		final Random random = new Random( 5 );
+		for ( final IntType t : source )
+			t.set( random.nextInt() );
+	}
+
+	private static ArrayList< Converter< IntType, ARGBType > > converters()
+	{
+		final ArrayList< Converter< IntType, ARGBType > > converters = new ArrayList<>();
+		for ( int i = 0; i < 3; ++i )
+			converters.add( ( a, b ) -> b.set( a.get() ) );
+		return converters;
+	}
+
+	private static int reference( final CompositeMode mode, final int[] values )
+	{
+		int a = ARGBType.alpha( values[ 0 ] );
+		int r = ARGBType.red( values[ 0 ] );
+		int g = ARGBType.green( values[ 0 ] );
+		int b = ARGBType.blue( values[ 0 ] );
+		for ( int i = 1; i < values.length; ++i )
+		{
+			final int v = values[ i ];
+			switch ( mode )
+			{
+			case ADD:
+				a = Math.min( 255, a + ARGBType.alpha( v ) );
+				r = Math.min( 255, r + ARGBType.red( v ) );
+				g = Math.min( 255, g + ARGBType.green( v ) );
+				b = Math.min( 255, b + ARGBType.blue( v ) );
+				break;
+			case MAX:
+				a = Math.max( a, ARGBType.alpha( v ) );
+				r = Math.max( r, ARGBType.red( v ) );
+				g = Math.max( g, ARGBType.green( v ) );
+				b = Math.max( b, ARGBType.blue( v ) );
+				break;
+			case ALPHA_OVER:
+				final double sa = ARGBType.alpha( v ) / 255.0;
+				a = ( int ) Math.round( ARGBType.alpha( v ) + a * ( 1 - sa ) );
+				r = ( int ) Math.round( ARGBType.red( v ) * sa + r * ( 1 - sa ) );
+				g = ( int ) Math.round( ARGBType.green( v ) * sa + g * ( 1 - sa ) );
+				b = ( int ) Math.round( ARGBType.blue( v ) * sa + b * ( 1 - sa ) );
+			}
+		}
+		return ARGBType.rgba( r, g, b, a );
+	}
+
+	private void check( final Img< ARGBType > target, final CompositeMode mode )
+	{
+		final CompositeXYProjector< IntType > projector = new CompositeXYProjector<>( source, target, converters(), 2 );
+		projector.setComposite( true );
+		projector.setCompositeMode( mode );
+		projector.map();
+
+		final RandomAccess< IntType > access = source.randomAccess();
+		final int[] values = new int[ 3 ];
+		final Cursor< ARGBType > c = target.localizingCursor();
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			access.setPosition( c.getLongPosition( 0 ), 0 );
+			access.setPosition( c.getLongPosition( 1 ), 1 );
+			for ( int i = 0; i < 3; ++i )
+			{
+				access.setPosition( i, 2 );
+				values[ i ] = access.get().get();
+			}
+			final int expected = reference( mode, values );
+			final int actual = c.get().get();
+			if ( mode == CompositeMode.ALPHA_OVER )
+			{
+				// integer rounding may differ by one
+				assertEquals( ARGBType.alpha( expected ), ARGBType.alpha( actual ), 1 );
+				assertEquals( ARGBType.red( expected ), ARGBType.red( actual ), 1 );
+				assertEquals( ARGBType.green( expected ), ARGBType.green( actual ), 1 );
+				assertEquals( ARGBType.blue( expected ), ARGBType.blue( actual ), 1 );
+			}
+			else
+				assertEquals( expected, actual );
+		}
+	}
+
+	@Test
+	public void testArrayTarget()
+	{
+		for ( final CompositeMode mode : CompositeMode.values() )
+			check( ArrayImgs.argbs( 17, 5 ), mode );
+	}
+
+	@Test
+	public void testCellTarget()
+	{
+		for ( final CompositeMode mode : CompositeMode.values() )
+			check( new CellImgFactory<>( new ARGBType(), 4 ).create( 17, 5 ), mode );
+	}
+
+	@Test
+	public void testSingle()
+	{
+		final Img< ARGBType > target = ArrayImgs.argbs( 17, 5 );
+		final CompositeXYProjector< IntType > projector = new CompositeXYProjector<>( source, target, converters(), 2 );
+		projector.setComposite( false );
+		projector.setPosition( 1, 2 );
+		projector.map();
+		final RandomAccess< IntType > access = source.randomAccess();
+		access.setPosition( 1, 2 );
+		final Cursor< ARGBType > c = target.localizingCursor();
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			access.setPosition( c.getLongPosition( 0 ), 0 );
+			access.setPosition( c.getLongPosition( 1 ), 1 );
+			assertEquals( access.get().get(), c.get().get() );
+		}
+	}
+}
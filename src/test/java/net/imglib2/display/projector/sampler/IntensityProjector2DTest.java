@@ -0,0 +1,175 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.display.projector.sampler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.DoubleArray;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.real.DoubleType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IntensityProjector2DTest
+{
+	private final long[] dims = { 13, 11, 9, 2 };
+
+	private ExecutorService service;
+
+	@Before
+	public void setUp()
+	{
+		service = Executors.newFixedThreadPool( 3 );
+	}
+
+	@After
+	public void tearDown()
+	{
+		service.shutdown();
+	}
+
+	private Img< UnsignedByteType > fill( final Img< UnsignedByteType > img )
+	{
+		final Random random = new Random( 7 );
+		for ( final UnsignedByteType t : img )
+			t.set( random.nextInt( 256 ) );
+		return img;
+	}
+
+	/**
+	 * Projection by walking the projected dimension per target pixel.
+	 */
+	private double reference( final Img< UnsignedByteType > img, final int dimX, final int dimY, final int dimP, final long[] pos, final IntensityProjector2D.Mode mode )
+	{
+		final RandomAccess< UnsignedByteType > access = img.randomAccess();
+		access.setPosition( pos );
+		double acc = mode == IntensityProjector2D.Mode.MAX ? Double.NEGATIVE_INFINITY : mode == IntensityProjector2D.Mode.MIN ? Double.POSITIVE_INFINITY : 0;
+		double opacity = 0;
+		for ( long p = 0; p < img.dimension( dimP ); ++p )
+		{
+			access.setPosition( p, dimP );
+			final double v = access.get().get();
+			switch ( mode )
+			{
+			case MAX:
+				acc = Math.max( acc, v );
+				break;
+			case MIN:
+				acc = Math.min( acc, v );
+				break;
+			case ALPHA:
+				final double w = ( 1 - opacity ) * Math.min( 1, Math.max( 0, ( v - 50 ) / 150 ) );
+				acc += w * v;
+				opacity += w;
+				break;
+			default:
+				acc += v;
+			}
+		}
+		return mode == IntensityProjector2D.Mode.MEAN ? acc / img.dimension( dimP ) : acc;
+	}
+
+	private void check( final Img< UnsignedByteType > img, final int dimX, final int dimY, final int dimP, final ExecutorService es )
+	{
+		for ( final IntensityProjector2D.Mode mode : IntensityProjector2D.Mode.values() )
+		{
+			final ArrayImg< DoubleType, DoubleArray > target = ArrayImgs.doubles( dims[ dimX ], dims[ dimY ] );
+			final IntensityProjector2D< UnsignedByteType, DoubleType > projector = new IntensityProjector2D<>( dimX, dimY, img, target, ( a, b ) -> b.set( a ), dimP, mode );
+			projector.setAlphaRange( 50, 200 );
+			projector.setExecutorService( es, 4 );
+			projector.setPosition( 1, 3 );
+			projector.map();
+
+			final long[] pos = new long[ 4 ];
+			pos[ 3 ] = 1;
+			final Cursor< DoubleType > c = target.localizingCursor();
+			while ( c.hasNext() )
+			{
+				c.fwd();
+				pos[ dimX ] = c.getLongPosition( 0 );
+				pos[ dimY ] = c.getLongPosition( 1 );
+				assertEquals( mode.toString(), reference( img, dimX, dimY, dimP, pos, mode ), c.get().get(), 1e-9 );
+			}
+		}
+	}
+
+	@Test
+	public void testArrayImg()
+	{
+		final Img< UnsignedByteType > img = fill( new ArrayImgFactory<>( new UnsignedByteType() ).create( dims ) );
+		check( img, 0, 1, 2, null );
+		check( img, 0, 1, 2, service );
+		check( img, 0, 2, 1, service );
+		check( img, 2, 1, 0, service );
+	}
+
+	@Test
+	public void testCellImg()
+	{
+		final Img< UnsignedByteType > img = fill( new CellImgFactory<>( new UnsignedByteType(), 4, 5, 3, 1 ).create( dims ) );
+		check( img, 0, 1, 2, null );
+		check( img, 0, 1, 2, service );
+		check( img, 1, 2, 0, service );
+	}
+
+	@Test
+	public void testDefaultAlphaRangeOfDoubleType()
+	{
+		final ArrayImg< DoubleType, DoubleArray > img = ArrayImgs.doubles( 2, 1, 3 );
+		final double[] values = img.update( null ).getCurrentStorageArray();
+		final double[] expected = { 0.5 * 0.5 + 0.5 * 2, 0 };
+		values[ 0 ] = 0.5;
+		values[ 2 ] = 2;
+		values[ 4 ] = 7;
+		final ArrayImg< DoubleType, DoubleArray > target = ArrayImgs.doubles( 2, 1 );
+		new IntensityProjector2D<>( 0, 1, img, target, ( a, b ) -> b.set( a ), 2, IntensityProjector2D.Mode.ALPHA ).map();
+		assertArrayEquals( expected, target.update( null ).getCurrentStorageArray(), 1e-9 );
+	}
+}
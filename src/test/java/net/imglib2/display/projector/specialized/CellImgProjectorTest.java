@@ -0,0 +1,182 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.display.projector.specialized;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.img.cell.CellImg;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.FloatType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CellImgProjectorTest
+{
+	private final long[] dims = { 11, 9, 7, 2 };
+
+	private final int[][] planes = { { 0, 1 }, { 0, 2 }, { 1, 2 } };
+
+	private final long[] position = { 3, 4, 5, 1 };
+
+	private ExecutorService service;
+
+	@Before
+	public void setUp()
+	{
+		service = Executors.newFixedThreadPool( 3 );
+	}
+
+	@After
+	public void tearDown()
+	{
+		service.shutdown();
+	}
+
+	private < T extends NativeType< T > > CellImg< T, ? > create( final T type )
+	{
+		return new CellImgFactory<>( type, 4, 3, 5, 1 ).create( dims );
+	}
+
+	private interface Check< T, U >
+	{
+		void check( T source, U target );
+	}
+
+	private < T extends NativeType< T >, U extends NativeType< U > > void check( final CellImg< T, ? > source, final ArrayImg< U, ? > target, final int[] plane, final Check< T, U > check )
+	{
+		final RandomAccess< T > access = source.randomAccess();
+		access.setPosition( position );
+		final Cursor< U > c = target.localizingCursor();
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			access.setPosition( c.getLongPosition( 0 ), plane[ 0 ] );
+			access.setPosition( c.getLongPosition( 1 ), plane[ 1 ] );
+			check.check( access.get(), c.get() );
+		}
+	}
+
+	@Test
+	public void testByte()
+	{
+		final Random random = new Random( 1 );
+		final CellImg< ByteType, ? > img = create( new ByteType() );
+		img.forEach( t -> t.set( ( byte ) random.nextInt() ) );
+		for ( final int[] plane : planes )
+			for ( final ExecutorService es : new ExecutorService[] { null, service } )
+			{
+				final ArrayImg< UnsignedByteType, ByteArray > target = ArrayImgs.unsignedBytes( dims[ plane[ 0 ] ], dims[ plane[ 1 ] ] );
+				final CellImgByteProjector< ByteType > projector = new CellImgByteProjector<>( img, target, plane[ 0 ], plane[ 1 ], 2, -20 );
+				projector.setPosition( position );
+				projector.setExecutorService( es, 2 );
+				projector.map();
+				check( img, target, plane, ( s, t ) -> assertEquals( Math.min( 255, Math.max( 0, ( s.get() + 20 ) * 2 ) ), t.get() ) );
+			}
+	}
+
+	@Test
+	public void testShort()
+	{
+		final Random random = new Random( 2 );
+		final CellImg< UnsignedShortType, ? > img = create( new UnsignedShortType() );
+		img.forEach( t -> t.set( random.nextInt( 65536 ) ) );
+		for ( final int[] plane : planes )
+			for ( final ExecutorService es : new ExecutorService[] { null, service } )
+			{
+				final ArrayImg< UnsignedShortType, ShortArray > target = ArrayImgs.unsignedShorts( dims[ plane[ 0 ] ], dims[ plane[ 1 ] ] );
+				final CellImgShortProjector< UnsignedShortType > projector = new CellImgShortProjector<>( img, target, plane[ 0 ], plane[ 1 ], 1, 0 );
+				projector.setPosition( position );
+				projector.setExecutorService( es, 2 );
+				projector.map();
+				check( img, target, plane, ( s, t ) -> assertEquals( s.get(), t.get() ) );
+			}
+	}
+
+	@Test
+	public void testFloat()
+	{
+		final Random random = new Random( 3 );
+		final CellImg< FloatType, ? > img = create( new FloatType() );
+		img.forEach( t -> t.set( random.nextFloat() ) );
+		for ( final int[] plane : planes )
+		{
+			final ArrayImg< FloatType, FloatArray > target = ArrayImgs.floats( dims[ plane[ 0 ] ], dims[ plane[ 1 ] ] );
+			final CellImgFloatProjector projector = new CellImgFloatProjector( img, target, plane[ 0 ], plane[ 1 ], 4, 0.5 );
+			projector.setPosition( position );
+			projector.map();
+			check( img, target, plane, ( s, t ) -> assertEquals( ( s.get() - 0.5f ) * 4, t.get(), 1e-6 ) );
+		}
+	}
+
+	@Test
+	public void testARGB()
+	{
+		final Random random = new Random( 4 );
+		final CellImg< ARGBType, ? > img = create( new ARGBType() );
+		img.forEach( t -> t.set( random.nextInt() ) );
+		for ( final int[] plane : planes )
+		{
+			final ArrayImg< ARGBType, IntArray > target = ArrayImgs.argbs( dims[ plane[ 0 ] ], dims[ plane[ 1 ] ] );
+			final CellImgARGBProjector projector = new CellImgARGBProjector( img, target, plane[ 0 ], plane[ 1 ], 0.5, 0 );
+			projector.setPosition( position );
+			projector.map();
+			check( img, target, plane, ( s, t ) -> {
+				final int v = s.get();
+				final int expected = ARGBType.rgba( Math.round( ARGBType.red( v ) * 0.5f ), Math.round( ARGBType.green( v ) * 0.5f ), Math.round( ARGBType.blue( v ) * 0.5f ), ARGBType.alpha( v ) );
+				assertEquals( expected, t.get() );
+			} );
+		}
+	}
+}
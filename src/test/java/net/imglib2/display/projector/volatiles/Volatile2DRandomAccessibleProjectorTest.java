@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.display.projector.volatiles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import net.imglib2.Cursor;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.read.ConvertedRandomAccessible;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.type.volatiles.VolatileFloatType;
+
+import org.junit.Test;
+
+public class Volatile2DRandomAccessibleProjectorTest
+{
+	/** pixels with a value below this threshold are "loaded" */
+	private float threshold;
+
+	private final Converter< FloatType, VolatileFloatType > loader = ( a, b ) -> {
+		b.get().set( a.get() );
+		b.setValid( a.get() < threshold );
+	};
+
+	private final Converter< VolatileFloatType, FloatType > display = ( a, b ) -> b.set( a.isValid() ? a.get().get() : -1 );
+
+	private Volatile2DRandomAccessibleProjector< FloatType, VolatileFloatType, FloatType > projector( final ArrayImg< FloatType, FloatArray > target, final int tileSize )
+	{
+		// source value is the x coordinate
+		final ArrayImg< FloatType, FloatArray > img = ArrayImgs.floats( 10, 7 );
+		final Cursor< FloatType > c = img.localizingCursor();
+		while ( c.hasNext() )
+			c.next().set( c.getIntPosition( 0 ) );
+		final ConvertedRandomAccessible< FloatType, VolatileFloatType > source = new ConvertedRandomAccessible<>( img, loader, new VolatileFloatType() );
+		return new Volatile2DRandomAccessibleProjector<>( 0, 1, source, target, display, tileSize, tileSize );
+	}
+
+	@Test
+	public void testProgressiveRendering()
+	{
+		final ArrayImg< FloatType, FloatArray > target = ArrayImgs.floats( 10, 7 );
+		final Volatile2DRandomAccessibleProjector< FloatType, VolatileFloatType, FloatType > projector = projector( target, 4 );
+		assertEquals( 3, projector.getNumTilesX() );
+		assertEquals( 2, projector.getNumTilesY() );
+
+		threshold = 4;
+		projector.map();
+		assertFalse( projector.isValid() );
+		for ( int ty = 0; ty < 2; ++ty )
+		{
+			assertTrue( projector.isTileValid( 0, ty ) );
+			assertFalse( projector.isTileValid( 1, ty ) );
+			assertFalse( projector.isTileValid( 2, ty ) );
+		}
+
+		// valid tiles are not re-rendered
+		target.randomAccess().get().set( 100 );
+		threshold = 10;
+		projector.mapInvalid();
+		assertTrue( projector.isValid() );
+		final Cursor< FloatType > c = target.localizingCursor();
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			final float expected = c.getIntPosition( 0 ) == 0 && c.getIntPosition( 1 ) == 0 ? 100 : c.getIntPosition( 0 );
+			assertEquals( expected, c.get().get(), 0 );
+		}
+
+		// complete map renders everything
+		projector.map();
+		assertEquals( 0, target.randomAccess().get().get(), 0 );
+		assertTrue( projector.isValid() );
+	}
+
+	@Test
+	public void testPerPixelMask()
+	{
+		final ArrayImg< FloatType, FloatArray > target = ArrayImgs.floats( 10, 7 );
+		final Volatile2DRandomAccessibleProjector< FloatType, VolatileFloatType, FloatType > projector = projector( target, 1 );
+		threshold = 3;
+		projector.mapInvalid();
+		final boolean[] mask = projector.getValidityMask();
+		assertEquals( 70, mask.length );
+		for ( int i = 0; i < mask.length; ++i )
+			assertEquals( i % 10 < 3, mask[ i ] );
+	}
+}
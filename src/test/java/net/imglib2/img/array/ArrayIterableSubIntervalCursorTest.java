@@ -33,18 +33,26 @@
  */
 package net.imglib2.img.array;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Random;
 
+import net.imglib2.Cursor;
 import net.imglib2.FinalInterval;
+import net.imglib2.FlatIterationOrder;
 import net.imglib2.Interval;
+import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccess;
 import net.imglib2.img.AbstractSubIntervalIterableCursorTest;
 import net.imglib2.type.numeric.integer.IntType;
 import net.imglib2.util.IntervalIndexer;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.RandomAccessibleIntervalCursor;
 import net.imglib2.view.Views;
+import net.imglib2.view.iteration.PermutedTranslatedCursor;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -126,4 +134,70 @@ public class ArrayIterableSubIntervalCursorTest extends AbstractSubIntervalItera
 		assertTrue( ( Views.interval( img, intervalShifted ).localizingCursor() instanceof AbstractArrayLocalizingCursor ) );
 	}
 
+	@Test
+	public void testIntervalCursor()
+	{
+		final Interval interval = new FinalInterval( new long[] { 2, 3, 1, 0, 1 }, new long[] { 20, 25, 4, 2, 2 } );
+
+		final Cursor< IntType > cursor = Views.interval( img, interval ).cursor();
+		assertTrue( cursor instanceof ArrayIntervalCursor );
+		testCursorIteration( cursor, interval );
+		testCursorJumpFwd( Views.interval( img, interval ).localizingCursor(), interval );
+
+		final Cursor< IntType > reference = new RandomAccessibleIntervalCursor<>( Views.interval( img, interval ) );
+		final Cursor< IntType > c = Views.interval( img, interval ).cursor();
+		c.jumpFwd( 1000 );
+		reference.jumpFwd( 1000 );
+		while ( reference.hasNext() )
+		{
+			assertEquals( reference.next().get(), c.next().get() );
+			assertArrayEquals( position( reference ), position( c ) );
+		}
+		assertFalse( c.hasNext() );
+	}
+
+	@Test
+	public void testTranslatedCursor()
+	{
+		final Interval interval = new FinalInterval( new long[] { 2, 3, 1, 0, 1 }, new long[] { 20, 25, 4, 2, 2 } );
+		final IterableInterval< IntType > zeroMin = Views.iterable( Views.zeroMin( Views.interval( img, interval ) ) );
+		assertTrue( zeroMin.cursor() instanceof PermutedTranslatedCursor );
+		assertTrue( zeroMin.iterationOrder() instanceof FlatIterationOrder );
+
+		final RandomAccess< IntType > ra = img.randomAccess();
+		final long[] pos = new long[ interval.numDimensions() ];
+		final Cursor< IntType > c = zeroMin.localizingCursor();
+		long count = 0;
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			c.localize( pos );
+			for ( int d = 0; d < pos.length; ++d )
+				pos[ d ] += interval.min( d );
+			ra.setPosition( pos );
+			assertEquals( ra.get().get(), c.get().get() );
+			++count;
+		}
+		assertEquals( Intervals.numElements( interval ), count );
+
+		// permuted views keep flat iteration order
+		final IterableInterval< IntType > permuted = Views.iterable( Views.permute( Views.interval( img, interval ), 0, 2 ) );
+		assertFalse( permuted.cursor() instanceof PermutedTranslatedCursor );
+		assertTrue( permuted.iterationOrder() instanceof FlatIterationOrder );
+		final Cursor< IntType > reference = new RandomAccessibleIntervalCursor<>( Views.permute( Views.interval( img, interval ), 0, 2 ) );
+		final Cursor< IntType > pc = permuted.cursor();
+		while ( reference.hasNext() )
+		{
+			assertEquals( reference.next().get(), pc.next().get() );
+			assertArrayEquals( position( reference ), position( pc ) );
+		}
+		assertFalse( pc.hasNext() );
+	}
+
+	private static long[] position( final Cursor< ? > c )
+	{
+		final long[] p = new long[ c.numDimensions() ];
+		c.localize( p );
+		return p;
+	}
 }
@@ -0,0 +1,121 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.img.basictypeaccess.volatiles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileBooleanArray;
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileByteArray;
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileCharArray;
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileDoubleArray;
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileFloatArray;
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileIntArray;
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileLongArray;
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileShortArray;
+
+import org.junit.Test;
+
+public class MutableVolatileAccessTest
+{
+	@Test
+	public void testTransition()
+	{
+		final MutableVolatileAccess[] accesses = {
+				new VolatileBooleanArray( 10, false ),
+				new VolatileByteArray( 10, false ),
+				new VolatileCharArray( 10, false ),
+				new VolatileShortArray( 10, false ),
+				new VolatileIntArray( 10, false ),
+				new VolatileLongArray( 10, false ),
+				new VolatileFloatArray( 10, false ),
+				new VolatileDoubleArray( 10, false ) };
+		for ( final MutableVolatileAccess access : accesses )
+		{
+			assertFalse( access.isValid() );
+			access.setValid();
+			assertTrue( access.isValid() );
+			access.setValid();
+			assertTrue( access.isValid() );
+		}
+		final VolatileIntArray valid = new VolatileIntArray( 10, true );
+		assertTrue( valid.isValid() );
+		valid.setValid();
+		assertTrue( valid.isValid() );
+	}
+
+	/**
+	 * A reader that observes a valid access must see the data written before
+	 * {@link MutableVolatileAccess#setValid()}.
+	 */
+	@Test
+	public void testPublish() throws Exception
+	{
+		final ExecutorService service = Executors.newFixedThreadPool( 2 );
+		try
+		{
+			for ( int round = 0; round < 200; ++round )
+			{
+				final VolatileIntArray access = new VolatileIntArray( 1000, false );
+				final int value = round + 1;
+				final Future< Boolean > reader = service.submit( () -> {
+					while ( !access.isValid() )
+						Thread.yield();
+					for ( final int v : access.getCurrentStorageArray() )
+						if ( v != value )
+							return false;
+					return true;
+				} );
+				service.submit( () -> {
+					final int[] data = access.getCurrentStorageArray();
+					for ( int i = 0; i < data.length; ++i )
+						data[ i ] = value;
+					access.setValid();
+				} ).get();
+				assertEquals( true, reader.get() );
+			}
+		}
+		finally
+		{
+			service.shutdown();
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.interpolation.randomaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.RealRandomAccess;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.DoubleArray;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.cell.LazyCellImg;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory.Boundary;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+public class BSplineInterpolatorTest
+{
+	private static Img< FloatType > randomImg( final long... dims )
+	{
+		final Random rnd = new Random( 5 );
+		final Img< FloatType > img = new CellImgFactory<>( new FloatType(), 7, 5, 6 ).create( dims );
+		img.forEach( t -> t.set( rnd.nextFloat() ) );
+		return img;
+	}
+
+	@Test
+	public void testPartitionOfUnity()
+	{
+		for ( int order = 2; order <= 5; ++order )
+			for ( double x = -0.5; x < 0.5; x += 0.0625 )
+			{
+				double sum = 0;
+				for ( int i = -4; i <= 4; ++i )
+					sum += BSplineInterpolator.bspline( x - i, order );
+				assertEquals( 1, sum, 1e-12 );
+			}
+	}
+
+	@Test
+	public void testInterpolatesSamples()
+	{
+		final Img< FloatType > img = randomImg( 15, 11 );
+		for ( int order = 2; order <= 5; ++order )
+		{
+			final RealRandomAccess< FloatType > interpolator = new BSplineInterpolatorFactory< FloatType >( order ).create( Views.translate( img, -3, 4 ) );
+			final Cursor< FloatType > c = Views.translate( img, -3, 4 ).localizingCursor();
+			while ( c.hasNext() )
+			{
+				c.fwd();
+				interpolator.setPosition( c );
+				assertEquals( c.get().get(), interpolator.get().get(), 1e-5 );
+			}
+		}
+	}
+
+	@Test
+	public void testReproducesLinearFunctions()
+	{
+		final ArrayImg< DoubleType, DoubleArray > img = ArrayImgs.doubles( 64 );
+		final Cursor< DoubleType > c = img.localizingCursor();
+		while ( c.hasNext() )
+			c.next().set( 2 * c.getDoublePosition( 0 ) + 1 );
+		for ( int order = 2; order <= 5; ++order )
+		{
+			final RealRandomAccess< DoubleType > interpolator = new BSplineInterpolatorFactory< DoubleType >( order ).create( Views.extendMirrorSingle( img ) );
+			for ( double x = 28; x < 36; x += 0.1 )
+			{
+				interpolator.setPosition( x, 0 );
+				assertEquals( 2 * x + 1, interpolator.get().get(), 1e-6 );
+			}
+		}
+	}
+
+	@Test
+	public void testLazyCoefficients() throws Exception
+	{
+		final Img< FloatType > img = randomImg( 23, 17, 9 );
+		final ExecutorService service = Executors.newFixedThreadPool( 3 );
+		try
+		{
+			for ( int order = 2; order <= 5; ++order )
+			{
+				final RandomAccessibleInterval< DoubleType > expected = BSplineCoefficients.compute( img, order );
+				final LazyCellImg< DoubleType, DoubleArray > lazy = BSplineCoefficients.computeLazy( img, order, 7, 5, 6 );
+				final LazyCellImg< DoubleType, DoubleArray > parallel = BSplineCoefficients.computeLazy( img, order, 4, 4, 4 );
+				BSplineCoefficients.computeAll( parallel, service );
+				final RandomAccess< DoubleType > a = lazy.randomAccess();
+				final RandomAccess< DoubleType > b = parallel.randomAccess();
+				final Cursor< DoubleType > c = Views.iterable( expected ).localizingCursor();
+				while ( c.hasNext() )
+				{
+					c.fwd();
+					a.setPosition( c );
+					b.setPosition( c );
+					assertEquals( c.get().get(), a.get().get(), 1e-8 );
+					assertEquals( c.get().get(), b.get().get(), 1e-8 );
+				}
+			}
+
+			final RealRandomAccess< FloatType > fromCells = new BSplineInterpolatorFactory< FloatType >( 3, service ).create( img );
+			final RealRandomAccess< FloatType > fromArray = new BSplineInterpolatorFactory< FloatType >( 3 ).create( Views.interval( img, img ) );
+			final Random rnd = new Random( 7 );
+			for ( int i = 0; i < 1000; ++i )
+			{
+				for ( int d = 0; d < 3; ++d )
+				{
+					final double x = rnd.nextDouble() * ( img.dimension( d ) + 4 ) - 2;
+					fromCells.setPosition( x, d );
+					fromArray.setPosition( x, d );
+				}
+				assertEquals( fromArray.get().get(), fromCells.copyRealRandomAccess().get().get(), 1e-5 );
+			}
+		}
+		finally
+		{
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void testUnsupportedExtension()
+	{
+		final RandomAccessibleInterval< FloatType > img = ArrayImgs.floats( 8, 8 );
+		final BSplineInterpolatorFactory< FloatType > factory = new BSplineInterpolatorFactory<>();
+		factory.create( Views.extend( img, new OutOfBoundsMirrorFactory<>( Boundary.SINGLE, new long[] { 2, 2 } ) ) );
+		for ( final RandomAccessible< FloatType > extended : Arrays.asList(
+				Views.extendMirrorDouble( img ),
+				Views.extendPeriodic( img ),
+				Views.extendZero( img ) ) )
+		{
+			try
+			{
+				factory.create( extended );
+				fail();
+			}
+			catch ( final IllegalArgumentException e )
+			{}
+		}
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testUnsupportedOrder()
+	{
+		new BSplineInterpolatorFactory< FloatType >( 6 );
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.interpolation.randomaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.DoubleArray;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.view.Views;
+
+public class LanczosInterpolatorTest
+{
+	private static double lanczos( final double x, final int a )
+	{
+		if ( x == 0 )
+			return 1;
+		if ( Math.abs( x ) >= a )
+			return 0;
+		return a * Math.sin( Math.PI * x ) * Math.sin( Math.PI * x / a ) / ( Math.PI * Math.PI * x * x );
+	}
+
+	/**
+	 * Direct (non-separable) evaluation of the Lanczos sum in 3D.
+	 */
+	private static double lanczos3D( final RandomAccessible< DoubleType > source, final double[] p, final int a )
+	{
+		final RandomAccess< DoubleType > access = source.randomAccess();
+		final long[] f = new long[ 3 ];
+		for ( int d = 0; d < 3; ++d )
+			f[ d ] = ( long ) Math.floor( p[ d ] );
+		double sum = 0;
+		for ( long z = f[ 2 ] - a + 1; z <= f[ 2 ] + a; ++z )
+			for ( long y = f[ 1 ] - a + 1; y <= f[ 1 ] + a; ++y )
+				for ( long x = f[ 0 ] - a + 1; x <= f[ 0 ] + a; ++x )
+				{
+					access.setPosition( new long[] { x, y, z } );
+					sum += access.get().get() * lanczos( p[ 0 ] - x, a ) * lanczos( p[ 1 ] - y, a ) * lanczos( p[ 2 ] - z, a );
+				}
+		return sum;
+	}
+
+	@Test
+	public void testSeparableMatchesDirectSum()
+	{
+		final Random rnd = new Random( 1 );
+		final ArrayImg< DoubleType, DoubleArray > img = ArrayImgs.doubles( 11, 9, 7 );
+		img.forEach( t -> t.set( rnd.nextDouble() ) );
+		final RandomAccessible< DoubleType > source = Views.extendMirrorSingle( img );
+
+		for ( final int alpha : new int[] { 2, 3 } )
+		{
+			final LanczosInterpolator< DoubleType > exact = new LanczosInterpolator<>( source, alpha, false, 0, 0, 0 );
+			final LanczosInterpolator< DoubleType > fine = new LanczosInterpolator<>( source, alpha, false, 0, 0, 1000 );
+			final LanczosInterpolator< DoubleType > coarse = new LanczosInterpolator<>( source, alpha, false, 0, 0 );
+			final LanczosInterpolator< DoubleType > copy = exact.copy();
+			for ( int i = 0; i < 100; ++i )
+			{
+				final double[] p = { rnd.nextDouble() * 12 - 1, rnd.nextDouble() * 10 - 1, rnd.nextDouble() * 8 - 1 };
+				final double expected = lanczos3D( source, p, alpha );
+				exact.setPosition( p );
+				fine.setPosition( p );
+				coarse.setPosition( p );
+				copy.setPosition( p );
+				assertEquals( expected, exact.get().get(), 1e-10 );
+				assertEquals( expected, copy.get().get(), 1e-10 );
+				assertEquals( expected, fine.get().get(), 1e-5 );
+				assertEquals( expected, coarse.get().get(), 1e-2 );
+			}
+		}
+	}
+
+	@Test
+	public void testClipping()
+	{
+		final ArrayImg< DoubleType, DoubleArray > img = ArrayImgs.doubles( new double[] { 0, 0, 1, 1, 0, 0 }, 6 );
+		final LanczosInterpolatorFactory< DoubleType > factory = new LanczosInterpolatorFactory<>( 3, 0, 1 );
+		factory.setLutScale( 0 );
+		final LanczosInterpolator< DoubleType > interpolator = factory.create( Views.extendZero( img ) );
+		boolean clipped = false;
+		for ( double x = -1; x < 7; x += 0.125 )
+		{
+			double sum = 0;
+			for ( long i = ( long ) Math.floor( x ) - 2; i <= ( long ) Math.floor( x ) + 3; ++i )
+				if ( i == 2 || i == 3 )
+					sum += lanczos( x - i, 3 );
+			clipped |= sum < 0 || sum > 1;
+			interpolator.setPosition( x, 0 );
+			assertEquals( Math.min( 1, Math.max( 0, sum ) ), interpolator.get().get(), 1e-10 );
+		}
+		assertTrue( clipped );
+	}
+}
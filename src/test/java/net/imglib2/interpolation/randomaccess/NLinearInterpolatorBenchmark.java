@@ -0,0 +1,151 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.interpolation.randomaccess;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import net.imglib2.RealRandomAccess;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Compares {@link NLinearInterpolator} with and without cached cell corners,
+ * sampling each cell at {@code samplesPerCell} positions per dimension.
+ */
+@State( Scope.Benchmark )
+public class NLinearInterpolatorBenchmark
+{
+	@Param( { "2", "3", "4" } )
+	public int numDimensions;
+
+	@Param( { "1", "4" } )
+	public int samplesPerCell;
+
+	private RealRandomAccess< FloatType > cached;
+
+	private RealRandomAccess< FloatType > uncached;
+
+	private long[] targetSize;
+
+	@Setup
+	public void setup()
+	{
+		final long[] size = new long[ numDimensions ];
+		long numElements = 1;
+		for ( int d = 0; d < numDimensions; ++d )
+		{
+			size[ d ] = numDimensions == 4 ? 16 : numDimensions == 3 ? 40 : 256;
+			numElements *= size[ d ];
+		}
+		final float[] data = new float[ ( int ) numElements ];
+		final Random random = new Random( 1 );
+		for ( int i = 0; i < data.length; ++i )
+			data[ i ] = random.nextFloat();
+		final ArrayImg< FloatType, FloatArray > img = ArrayImgs.floats( data, size );
+
+		cached = new NLinearInterpolatorFactory< FloatType >( true ).create( img );
+		uncached = new NLinearInterpolatorFactory< FloatType >( false ).create( img );
+
+		targetSize = new long[ numDimensions ];
+		for ( int d = 0; d < numDimensions; ++d )
+			targetSize[ d ] = ( size[ d ] - 1 ) * samplesPerCell;
+	}
+
+	@Benchmark
+	public double benchmarkCached()
+	{
+		return sample( cached );
+	}
+
+	@Benchmark
+	public double benchmarkUncached()
+	{
+		return sample( uncached );
+	}
+
+	private double sample( final RealRandomAccess< FloatType > access )
+	{
+		final int n = targetSize.length;
+		final long[] position = new long[ n ];
+		final double scale = 1.0 / samplesPerCell;
+		double sum = 0;
+		for ( int d = 0; d < n; ++d )
+			access.setPosition( 0.0, d );
+		while ( true )
+		{
+			sum += access.get().getRealDouble();
+			int d = 0;
+			for ( ; d < n; ++d )
+			{
+				if ( ++position[ d ] < targetSize[ d ] )
+				{
+					access.setPosition( position[ d ] * scale, d );
+					break;
+				}
+				position[ d ] = 0;
+				access.setPosition( 0.0, d );
+			}
+			if ( d == n )
+				return sum;
+		}
+	}
+
+	public static void main( final String... args ) throws RunnerException
+	{
+		final Options opt = new OptionsBuilder()
+				.include( NLinearInterpolatorBenchmark.class.getSimpleName() )
+				.forks( 0 )
+				.warmupIterations( 8 )
+				.measurementIterations( 8 )
+				.warmupTime( TimeValue.milliseconds( 200 ) )
+				.measurementTime( TimeValue.milliseconds( 200 ) )
+				.build();
+		new Runner( opt ).run();
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.interpolation.randomaccess;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.RealRandomAccess;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.view.Views;
+
+public class NLinearInterpolatorTest
+{
+	private void compareCached( final int n )
+	{
+		final Random rnd = new Random( n );
+		final long[] dims = new long[ n ];
+		for ( int d = 0; d < n; ++d )
+			dims[ d ] = 5 + d;
+		final RandomAccessibleInterval< DoubleType > img = ArrayImgs.doubles( dims );
+		Views.flatIterable( img ).forEach( t -> t.set( rnd.nextDouble() ) );
+		final RandomAccessible< DoubleType > source = Views.extendBorder( img );
+
+		final RealRandomAccess< DoubleType > expected = new NLinearInterpolatorFactory< DoubleType >().create( source );
+		final RealRandomAccess< DoubleType > cached = new NLinearInterpolatorFactory< DoubleType >( true ).create( source );
+		RealRandomAccess< DoubleType > copy = null;
+		for ( int i = 0; i < 2000; ++i )
+		{
+			final int d = rnd.nextInt( n );
+			if ( rnd.nextBoolean() )
+			{
+				final double distance = rnd.nextDouble() * 0.6 - 0.3;
+				expected.move( distance, d );
+				cached.move( distance, d );
+			}
+			else
+			{
+				final double position = rnd.nextDouble() * ( dims[ d ] + 2 ) - 1;
+				expected.setPosition( position, d );
+				cached.setPosition( position, d );
+			}
+			assertEquals( expected.get().get(), cached.get().get(), 1e-12 );
+			if ( i == 1000 )
+				copy = cached.copyRealRandomAccess();
+		}
+		for ( int d = 0; d < n; ++d )
+			expected.setPosition( copy.getDoublePosition( d ), d );
+		assertEquals( expected.get().get(), copy.get().get(), 1e-12 );
+	}
+
+	@Test
+	public void testCachedCorners()
+	{
+		for ( int n = 1; n <= 4; ++n )
+			compareCached( n );
+	}
+
+	@Test
+	public void testCachedCornersAreReloadedOnCellChange()
+	{
+		final double[] data = new double[ 16 ];
+		for ( int i = 0; i < data.length; ++i )
+			data[ i ] = 10 * ( i % 4 );
+		final RandomAccessibleInterval< DoubleType > img = ArrayImgs.doubles( data, 4, 2, 2 );
+		final RealRandomAccess< DoubleType > interpolator = new NLinearInterpolatorFactory< DoubleType >( true ).create( img );
+		final double[] expected = { 0, 2.5, 5, 7.5, 10, 12.5, 15, 17.5, 20, 22.5, 25, 27.5 };
+		for ( int i = 0; i < expected.length; ++i )
+		{
+			interpolator.setPosition( new double[] { i * 0.25, 0.5, 0.5 } );
+			assertEquals( expected[ i ], interpolator.get().get(), 1e-12 );
+		}
+	}
+}
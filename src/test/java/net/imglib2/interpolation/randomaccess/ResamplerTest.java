@@ -0,0 +1,228 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.interpolation.randomaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.RealRandomAccess;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.interpolation.InterpolatorFactory;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+public class ResamplerTest
+{
+	private final double[] scale = { 0.7, -1.3, 2.1 };
+
+	private final double[] offset = { 1.25, 20.5, -0.3 };
+
+	private RandomAccessible< DoubleType > source()
+	{
+		final Random rnd = new Random( 3 );
+		final RandomAccessibleInterval< DoubleType > img = ArrayImgs.doubles( 13, 17, 11 );
+		Views.flatIterable( img ).forEach( t -> t.set( rnd.nextDouble() * 100 ) );
+		return Views.extendMirrorDouble( img );
+	}
+
+	private void assertResampled( final RandomAccessible< DoubleType > source, final InterpolatorFactory< DoubleType, RandomAccessible< DoubleType > > factory, final double tolerance, final ExecutorService service )
+	{
+		assertResampled( source, factory, scale, tolerance, service );
+	}
+
+	private void assertResampled( final RandomAccessible< DoubleType > source, final InterpolatorFactory< DoubleType, RandomAccessible< DoubleType > > factory, final double[] scale, final double tolerance, final ExecutorService service )
+	{
+		final RandomAccessibleInterval< DoubleType > target = Views.translate( ArrayImgs.doubles( 9, 15, 6 ), -2, 1, 0 );
+		Resampler.resample( source, factory, scale, offset, target, service, 4 );
+
+		final RealRandomAccess< DoubleType > interpolator = factory.create( source );
+		final Cursor< DoubleType > c = Views.iterable( target ).localizingCursor();
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			for ( int d = 0; d < 3; ++d )
+				interpolator.setPosition( offset[ d ] + scale[ d ] * c.getDoublePosition( d ), d );
+			assertEquals( interpolator.get().get(), c.get().get(), tolerance );
+		}
+	}
+
+	@Test
+	public void testNearestNeighbor()
+	{
+		assertResampled( source(), new NearestNeighborInterpolatorFactory<>(), 0, null );
+	}
+
+	@Test
+	public void testFloor()
+	{
+		assertResampled( source(), new FloorInterpolatorFactory<>(), 0, null );
+	}
+
+	@Test
+	public void testNLinear()
+	{
+		assertResampled( source(), new NLinearInterpolatorFactory<>(), 1e-10, null );
+	}
+
+	@Test
+	public void testLanczos()
+	{
+		final LanczosInterpolatorFactory< DoubleType > exact = new LanczosInterpolatorFactory<>( 3, false );
+		exact.setLutScale( 0 );
+		assertResampled( source(), exact, 1e-10, null );
+		assertResampled( source(), new LanczosInterpolatorFactory<>( 2, 10, 90 ), 1e-10, null );
+	}
+
+	@Test
+	public void testDownsampling()
+	{
+		final double[] downscale = { 4, -5.5, 8 };
+		assertResampled( source(), new NLinearInterpolatorFactory<>(), downscale, 1e-10, null );
+		assertResampled( source(), new LanczosInterpolatorFactory<>( 3, false ), downscale, 1e-10, null );
+
+		// too large for the separable buffers, falls back to the interpolator
+		final NLinearInterpolatorFactory< DoubleType > factory = new NLinearInterpolatorFactory<>();
+		final double[] s = { 4, 4, 4 };
+		final double[] o = { 0.5, 0.5, 0.5 };
+		final RandomAccessibleInterval< DoubleType > target = ArrayImgs.doubles( 110, 110, 110 );
+		Resampler.resample( source(), factory, s, o, target, null, 110 );
+		final RealRandomAccess< DoubleType > interpolator = factory.create( source() );
+		final Cursor< DoubleType > c = Views.iterable( target ).localizingCursor();
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			for ( int d = 0; d < 3; ++d )
+				interpolator.setPosition( o[ d ] + s[ d ] * c.getDoublePosition( d ), d );
+			assertEquals( interpolator.get().get(), c.get().get(), 0 );
+		}
+	}
+
+	@Test
+	public void testHighDimensionalUpsampling()
+	{
+		// the gathered samples fit, but the resampled tile does not
+		final long[] gathered = { 64, 33, 33, 33 };
+		final long[] tile = { 64, 64, 64, 64 };
+		assertTrue( Intervals.numElements( gathered ) <= Resampler.MAX_BUFFER_SIZE );
+		assertTrue( Resampler.peakBufferSize( gathered, tile ) > Resampler.MAX_BUFFER_SIZE );
+
+		final Random rnd = new Random( 5 );
+		final NLinearInterpolatorFactory< DoubleType > factory = new NLinearInterpolatorFactory<>();
+		assertUpsampled( rnd, factory, new long[] { 5, 4, 5, 4, 3 }, new long[] { 8, 7, 9, 6, 5 }, 16 );
+		assertUpsampled( rnd, factory, new long[] { 13, 13, 13, 13 }, new long[] { 24, 24, 24, 24 }, 24 );
+	}
+
+	private void assertUpsampled( final Random rnd, final NLinearInterpolatorFactory< DoubleType > factory, final long[] sourceSize, final long[] targetSize, final int tileSize )
+	{
+		final int n = sourceSize.length;
+		final RandomAccessibleInterval< DoubleType > img = ArrayImgs.doubles( sourceSize );
+		Views.flatIterable( img ).forEach( t -> t.set( rnd.nextDouble() * 100 ) );
+		final RandomAccessible< DoubleType > source = Views.extendMirrorDouble( img );
+		final double[] s = new double[ n ];
+		final double[] o = new double[ n ];
+		Arrays.fill( s, 0.5 );
+		Arrays.fill( o, -0.25 );
+		final RandomAccessibleInterval< DoubleType > target = ArrayImgs.doubles( targetSize );
+		Resampler.resample( source, factory, s, o, target, null, tileSize );
+
+		final RealRandomAccess< DoubleType > interpolator = factory.create( source );
+		final Cursor< DoubleType > c = Views.iterable( target ).localizingCursor();
+		while ( c.hasNext() )
+		{
+			c.fwd();
+			for ( int d = 0; d < n; ++d )
+				interpolator.setPosition( o[ d ] + s[ d ] * c.getDoublePosition( d ), d );
+			assertEquals( interpolator.get().get(), c.get().get(), 1e-10 );
+		}
+	}
+
+	@Test
+	public void testOtherInterpolator()
+	{
+		assertResampled( source(), new ClampingNLinearInterpolatorFactory<>(), 1e-10, null );
+	}
+
+	@Test
+	public void testParallel()
+	{
+		final ExecutorService service = Executors.newFixedThreadPool( 3 );
+		try
+		{
+			assertResampled( source(), new NearestNeighborInterpolatorFactory<>(), 0, service );
+			assertResampled( source(), new NLinearInterpolatorFactory<>(), 1e-10, service );
+			assertResampled( source(), new ClampingNLinearInterpolatorFactory<>(), 1e-10, service );
+		}
+		finally
+		{
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void testIdentity()
+	{
+		final RandomAccessibleInterval< UnsignedByteType > img = ArrayImgs.unsignedBytes( new byte[] { 1, 2, 3, 4, 5, 6 }, 3, 2 );
+		final RandomAccessibleInterval< UnsignedByteType > target = ArrayImgs.unsignedBytes( 3, 2 );
+		Resampler.resample( Views.extendBorder( img ), new NLinearInterpolatorFactory<>(), target );
+		final Cursor< UnsignedByteType > a = Views.flatIterable( img ).cursor();
+		for ( final UnsignedByteType t : Views.flatIterable( target ) )
+			assertEquals( a.next().get(), t.get() );
+	}
+
+	@Test
+	public void testNonRealType()
+	{
+		final RandomAccessibleInterval< ARGBType > img = ArrayImgs.argbs( new int[] { 1, 2, 3, 4 }, 4 );
+		final RandomAccessibleInterval< ARGBType > target = ArrayImgs.argbs( 8 );
+		Resampler.resample( Views.extendBorder( img ), new NearestNeighborInterpolatorFactory<>(), new double[] { 0.5 }, new double[] { 0 }, target );
+		final int[] expected = { 1, 2, 2, 3, 3, 4, 4, 4 };
+		int i = 0;
+		for ( final ARGBType t : Views.flatIterable( target ) )
+			assertEquals( expected[ i++ ], t.get() );
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.loops;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.ImgFactory;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.planar.PlanarImgFactory;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+public class ElementWiseTest
+{
+	private static final long[] dimensions = { 13, 7, 5 };
+
+	private final Random random = new Random( 1 );
+
+	private final List< RealType< ? > > types = Arrays.asList( new FloatType(), new DoubleType(), new UnsignedShortType(), new UnsignedByteType() );
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	private < T extends NativeType< T > & RealType< T > > Img< T > create( final RealType< ? > type, final int layout )
+	{
+		final ImgFactory< T > factory;
+		switch ( layout )
+		{
+		case 0:
+			factory = new ArrayImgFactory<>( ( T ) type );
+			break;
+		case 1:
+			factory = new PlanarImgFactory<>( ( T ) type );
+			break;
+		default:
+			factory = new CellImgFactory<>( ( T ) type, 4, 3, 2 );
+		}
+		final Img< T > img = factory.create( dimensions );
+		for ( final T t : img )
+			t.setReal( random.nextDouble() * 600 - 100 );
+		return img;
+	}
+
+	private static < A extends RealType< A >, B extends RealType< B > > void assertImagesEqual( final RandomAccessibleInterval< A > expected, final RandomAccessibleInterval< B > actual )
+	{
+		final Cursor< A > e = Views.flatIterable( expected ).cursor();
+		final Cursor< B > a = Views.flatIterable( actual ).cursor();
+		while ( e.hasNext() )
+			assertEquals( e.next().getRealDouble(), a.next().getRealDouble(), 0 );
+	}
+
+	/**
+	 * Wrap {@code img} in a View, which forces the per-pixel fallback.
+	 */
+	private static < T > RandomAccessibleInterval< T > slow( final RandomAccessibleInterval< T > img )
+	{
+		return Views.interval( img, img );
+	}
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	@Test
+	public void testBinary()
+	{
+		for ( final RealType type : types )
+		{
+			for ( int layout = 0; layout < 3; ++layout )
+			{
+				final Img a = create( type, layout );
+				final Img b = create( type, layout );
+				final Img expected = create( type, layout );
+				final Img actual = create( type, layout );
+
+				ElementWise.add( slow( a ), slow( b ), slow( expected ) );
+				ElementWise.add( a, b, actual );
+				assertImagesEqual( expected, actual );
+
+				ElementWise.mul( slow( a ), slow( b ), slow( expected ) );
+				ElementWise.mul( a, b, actual );
+				assertImagesEqual( expected, actual );
+
+				// in-place
+				ElementWise.add( slow( a ), slow( expected ), slow( expected ) );
+				ElementWise.add( a, actual, actual );
+				assertImagesEqual( expected, actual );
+			}
+		}
+	}
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	@Test
+	public void testUnary()
+	{
+		for ( final RealType srcType : types )
+		{
+			for ( final RealType destType : types )
+			{
+				for ( int layout = 0; layout < 3; ++layout )
+				{
+					final Img src = create( srcType, layout );
+					final Img expected = create( destType, layout );
+					final Img actual = create( destType, layout );
+
+					ElementWise.convert( slow( src ), slow( expected ) );
+					ElementWise.convert( src, actual );
+					assertImagesEqual( expected, actual );
+
+					ElementWise.scaleOffset( slow( src ), 0.37, -12.5, slow( expected ) );
+					ElementWise.scaleOffset( src, 0.37, -12.5, actual );
+					assertImagesEqual( expected, actual );
+
+					ElementWise.clamp( slow( src ), 10.2, 200.7, slow( expected ) );
+					ElementWise.clamp( src, 10.2, 200.7, actual );
+					assertImagesEqual( expected, actual );
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMixedLayouts()
+	{
+		final Img< FloatType > src = create( new FloatType(), 0 );
+		final Img< UnsignedShortType > expected = create( new UnsignedShortType(), 2 );
+		final Img< UnsignedShortType > actual = create( new UnsignedShortType(), 2 );
+		ElementWise.scaleOffset( slow( src ), 2, 1, slow( expected ) );
+		ElementWise.scaleOffset( src, 2, 1, actual );
+		assertImagesEqual( expected, actual );
+	}
+}
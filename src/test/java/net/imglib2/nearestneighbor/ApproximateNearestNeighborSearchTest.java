@@ -0,0 +1,170 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.nearestneighbor;
+
+import static net.imglib2.test.PointTestHelper.randomPoints;
+import static net.imglib2.test.PointTestHelper.sortedSquDistances;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import net.imglib2.FlatKDTree;
+import net.imglib2.KDTree;
+import net.imglib2.RealPoint;
+import net.imglib2.neighborsearch.KNearestNeighborSearchOnKDTree;
+import net.imglib2.neighborsearch.NearestNeighborSearchOnKDTree;
+
+import org.junit.Test;
+
+public class ApproximateNearestNeighborSearchTest
+{
+	private static final int n = 8;
+
+	private static final double tolerance = 1e-10;
+
+	private static double[] sortedDistances( final List< RealPoint > points, final RealPoint q )
+	{
+		final double[] distances = sortedSquDistances( points, q );
+		for ( int i = 0; i < distances.length; ++i )
+			distances[ i ] = Math.sqrt( distances[ i ] );
+		return distances;
+	}
+
+	private static void checkNearest( final NearestNeighborSearchOnKDTree< RealPoint > search, final List< RealPoint > points, final Random rnd )
+	{
+		final NearestNeighborSearchOnKDTree< RealPoint > exact = search.copy();
+		exact.setEpsilon( 0 );
+		exact.setMaxNodeVisits( Integer.MAX_VALUE );
+		for ( int q = 0; q < 100; ++q )
+		{
+			final RealPoint query = randomPoints( 1, n, 1, rnd ).get( 0 );
+			final double trueDistance = sortedDistances( points, query )[ 0 ];
+
+			exact.search( query );
+			assertEquals( trueDistance, exact.getDistance(), tolerance );
+			assertEquals( 1, exact.getErrorBound(), 0 );
+
+			search.search( query );
+			assertTrue( search.getNumNodeVisits() <= search.getMaxNodeVisits() );
+			assertTrue( search.getNumNodeVisits() <= exact.getNumNodeVisits() );
+			assertTrue( search.getErrorBound() >= 1 );
+			assertTrue( search.getDistance() >= trueDistance - tolerance );
+			assertTrue( search.getDistance() <= search.getErrorBound() * trueDistance + tolerance );
+			if ( search.getMaxNodeVisits() == Integer.MAX_VALUE )
+				assertTrue( search.getErrorBound() <= 1 + search.getEpsilon() + tolerance );
+		}
+	}
+
+	private static void checkKNearest( final KNearestNeighborSearchOnKDTree< RealPoint > search, final List< RealPoint > points, final Random rnd )
+	{
+		for ( int q = 0; q < 100; ++q )
+		{
+			final RealPoint query = randomPoints( 1, n, 1, rnd ).get( 0 );
+			final double[] trueDistances = sortedDistances( points, query );
+
+			search.search( query );
+			assertTrue( search.getNumNodeVisits() <= search.getMaxNodeVisits() );
+			for ( int i = 0; i < search.getK(); ++i )
+			{
+				assertTrue( search.getDistance( i ) >= trueDistances[ i ] - tolerance );
+				assertTrue( search.getDistance( i ) <= search.getErrorBound() * trueDistances[ i ] + tolerance );
+			}
+			if ( search.getMaxNodeVisits() == Integer.MAX_VALUE )
+				assertTrue( search.getErrorBound() <= 1 + search.getEpsilon() + tolerance );
+		}
+	}
+
+	@Test
+	public void testEpsilon()
+	{
+		final Random rnd = new Random( 12 );
+		final List< RealPoint > points = randomPoints( 5000, n, 1, rnd );
+
+		final NearestNeighborSearchOnKDTree< RealPoint > search = new NearestNeighborSearchOnKDTree<>( new KDTree<>( points, points ) );
+		search.setEpsilon( 0.5 );
+		checkNearest( search, points, rnd );
+
+		final NearestNeighborSearchOnKDTree< RealPoint > flatSearch = new NearestNeighborSearchOnKDTree<>( new FlatKDTree<>( points, points ) );
+		flatSearch.setEpsilon( 0.5 );
+		checkNearest( flatSearch, points, rnd );
+
+		final KNearestNeighborSearchOnKDTree< RealPoint > kSearch = new KNearestNeighborSearchOnKDTree<>( new KDTree<>( points, points ), 5 );
+		kSearch.setEpsilon( 0.5 );
+		checkKNearest( kSearch, points, rnd );
+
+		final KNearestNeighborSearchOnKDTree< RealPoint > flatKSearch = new KNearestNeighborSearchOnKDTree<>( new FlatKDTree<>( points, points ), 5 );
+		flatKSearch.setEpsilon( 0.5 );
+		checkKNearest( flatKSearch, points, rnd );
+	}
+
+	@Test
+	public void testMaxNodeVisits()
+	{
+		final Random rnd = new Random( 13 );
+		final List< RealPoint > points = randomPoints( 5000, n, 1, rnd );
+
+		final NearestNeighborSearchOnKDTree< RealPoint > search = new NearestNeighborSearchOnKDTree<>( new KDTree<>( points, points ) );
+		search.setMaxNodeVisits( 100 );
+		checkNearest( search, points, rnd );
+
+		final NearestNeighborSearchOnKDTree< RealPoint > flatSearch = new NearestNeighborSearchOnKDTree<>( new FlatKDTree<>( points, points ) );
+		flatSearch.setEpsilon( 0.2 );
+		flatSearch.setMaxNodeVisits( 100 );
+		checkNearest( flatSearch, points, rnd );
+
+		final KNearestNeighborSearchOnKDTree< RealPoint > kSearch = new KNearestNeighborSearchOnKDTree<>( new KDTree<>( points, points ), 5 );
+		kSearch.setMaxNodeVisits( 200 );
+		checkKNearest( kSearch, points, rnd );
+
+		final KNearestNeighborSearchOnKDTree< RealPoint > flatKSearch = new KNearestNeighborSearchOnKDTree<>( new FlatKDTree<>( points, points ), 5 );
+		flatKSearch.setMaxNodeVisits( 200 );
+		checkKNearest( flatKSearch, points, rnd );
+	}
+
+	@Test
+	public void testCopy()
+	{
+		final List< RealPoint > points = randomPoints( 100, n, 1, new Random( 14 ) );
+		final NearestNeighborSearchOnKDTree< RealPoint > search = new NearestNeighborSearchOnKDTree<>( new KDTree<>( points, points ) );
+		search.setEpsilon( 0.25 );
+		search.setMaxNodeVisits( 10 );
+		final NearestNeighborSearchOnKDTree< RealPoint > copy = search.copy();
+		assertEquals( 0.25, copy.getEpsilon(), tolerance );
+		assertEquals( 10, copy.getMaxNodeVisits() );
+	}
+}
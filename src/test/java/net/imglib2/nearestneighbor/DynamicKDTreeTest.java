@@ -0,0 +1,224 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.nearestneighbor;
+
+import static net.imglib2.test.PointTestHelper.randomGridPoint;
+import static net.imglib2.test.PointTestHelper.sortedSquDistances;
+import static net.imglib2.test.PointTestHelper.squDistance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.imglib2.DynamicKDTree;
+import net.imglib2.RealPoint;
+import net.imglib2.neighborsearch.KNearestNeighborSearchOnDynamicKDTree;
+import net.imglib2.neighborsearch.NearestNeighborSearchOnDynamicKDTree;
+import net.imglib2.neighborsearch.RadiusNeighborSearchOnDynamicKDTree;
+
+import org.junit.Test;
+
+public class DynamicKDTreeTest
+{
+	private static void checkSearches( final DynamicKDTree< RealPoint > tree, final List< RealPoint > points, final Random rnd )
+	{
+		assertEquals( points.size(), tree.size() );
+		final NearestNeighborSearchOnDynamicKDTree< RealPoint > nn = new NearestNeighborSearchOnDynamicKDTree<>( tree );
+		final int k = Math.min( 5, points.size() );
+		final KNearestNeighborSearchOnDynamicKDTree< RealPoint > knn = new KNearestNeighborSearchOnDynamicKDTree<>( tree, k );
+		final RadiusNeighborSearchOnDynamicKDTree< RealPoint > radius = new RadiusNeighborSearchOnDynamicKDTree<>( tree );
+		for ( int q = 0; q < 20; ++q )
+		{
+			final RealPoint query = randomGridPoint( 3, rnd );
+			final double[] expected = sortedSquDistances( points, query );
+
+			nn.search( query );
+			assertEquals( expected[ 0 ], nn.getSquareDistance(), 0 );
+			assertEquals( expected[ 0 ], squDistance( nn.getSampler().get(), query ), 0 );
+			assertTrue( points.contains( nn.getSampler().get() ) );
+
+			knn.search( query );
+			for ( int i = 0; i < k; ++i )
+			{
+				assertEquals( expected[ i ], knn.getSquareDistance( i ), 0 );
+				assertTrue( points.contains( knn.getSampler( i ).get() ) );
+			}
+
+			final double r = rnd.nextDouble() * 4;
+			int numExpected = 0;
+			while ( numExpected < expected.length && expected[ numExpected ] <= r * r )
+				++numExpected;
+			radius.search( query, r, true );
+			assertEquals( numExpected, radius.numNeighbors() );
+			for ( int i = 0; i < numExpected; ++i )
+			{
+				assertEquals( expected[ i ], radius.getSquareDistance( i ), 0 );
+				assertEquals( expected[ i ], squDistance( radius.getSampler( i ).get(), query ), 0 );
+			}
+			assertEquals( numExpected, radius.count( query, r ) );
+		}
+	}
+
+	@Test
+	public void testAddRemove()
+	{
+		final Random rnd = new Random( 7 );
+		final DynamicKDTree< RealPoint > tree = new DynamicKDTree<>( 3 );
+		final List< RealPoint > points = new ArrayList<>();
+		for ( int round = 0; round < 20; ++round )
+		{
+			for ( int i = 0; i < 100; ++i )
+			{
+				final RealPoint p = randomGridPoint( 3, rnd );
+				tree.add( p, p );
+				points.add( p );
+			}
+			final int numRemove = rnd.nextInt( points.size() );
+			for ( int i = 0; i < numRemove; ++i )
+			{
+				final RealPoint p = points.remove( rnd.nextInt( points.size() ) );
+				assertTrue( tree.remove( p, p ) );
+				assertFalse( tree.remove( p, p ) );
+			}
+			checkSearches( tree, points, rnd );
+		}
+
+		for ( final RealPoint p : points )
+			assertTrue( tree.remove( p, p ) );
+		assertEquals( 0, tree.size() );
+		for ( int b = 0; b < tree.numBlocks(); ++b )
+			assertEquals( null, tree.getBlock( b ) );
+	}
+
+	@Test
+	public void testBlockSizes()
+	{
+		final Random rnd = new Random( 8 );
+		final List< RealPoint > points = new ArrayList<>();
+		for ( int i = 0; i < 100; ++i )
+			points.add( randomGridPoint( 3, rnd ) );
+		final DynamicKDTree< RealPoint > tree = new DynamicKDTree<>( 3, points, points );
+		for ( int i = 0; i < 1000; ++i )
+		{
+			final RealPoint p = randomGridPoint( 3, rnd );
+			tree.add( p, p );
+			points.add( p );
+			for ( int b = 0; b < tree.numBlocks(); ++b )
+				if ( tree.getBlock( b ) != null )
+					assertTrue( tree.getBlock( b ).size() <= 1 << b );
+		}
+		checkSearches( tree, points, rnd );
+	}
+
+	@Test
+	public void testRemoveEqualValue()
+	{
+		final DynamicKDTree< String > tree = new DynamicKDTree<>( 2 );
+		final RealPoint p = new RealPoint( 1.0, 2.0 );
+		tree.add( "a", p );
+		tree.add( "b", p );
+		tree.add( "a", new RealPoint( 3.0, 4.0 ) );
+		assertFalse( tree.remove( "a", new RealPoint( 1.0, 2.5 ) ) );
+		assertTrue( tree.remove( new String( "a" ), p ) );
+		assertFalse( tree.remove( "a", p ) );
+
+		final NearestNeighborSearchOnDynamicKDTree< String > nn = new NearestNeighborSearchOnDynamicKDTree<>( tree );
+		nn.search( p );
+		assertSame( "b", nn.getSampler().get() );
+		assertEquals( 2, tree.size() );
+	}
+
+	@Test
+	public void testKNearestNeighborsResetUnfilledSlots()
+	{
+		final DynamicKDTree< String > tree = new DynamicKDTree<>( 2 );
+		tree.add( "a", new RealPoint( 0.0, 0.0 ) );
+		tree.add( "b", new RealPoint( 1.0, 0.0 ) );
+		tree.add( "c", new RealPoint( 2.0, 0.0 ) );
+
+		final KNearestNeighborSearchOnDynamicKDTree< String > knn = new KNearestNeighborSearchOnDynamicKDTree<>( tree, 3 );
+		knn.search( new RealPoint( 0.0, 0.0 ) );
+		assertSame( "c", knn.getSampler( 2 ).get() );
+
+		tree.remove( "c", new RealPoint( 2.0, 0.0 ) );
+		knn.search( new RealPoint( 0.0, 0.0 ) );
+		assertSame( "a", knn.getSampler( 0 ).get() );
+		assertSame( "b", knn.getSampler( 1 ).get() );
+		assertEquals( -1, ( ( DynamicKDTree< String >.Ref ) knn.getSampler( 2 ) ).getNode() );
+		assertEquals( Double.MAX_VALUE, knn.getSquareDistance( 2 ), 0 );
+	}
+
+	@Test
+	public void testCopy()
+	{
+		final DynamicKDTree< String > tree = new DynamicKDTree<>( 2 );
+		tree.add( "a", new RealPoint( 0.0, 0.0 ) );
+		tree.add( "b", new RealPoint( 1.0, 0.0 ) );
+		tree.add( "c", new RealPoint( 3.0, 0.0 ) );
+
+		final NearestNeighborSearchOnDynamicKDTree< String > nn = new NearestNeighborSearchOnDynamicKDTree<>( tree );
+		nn.search( new RealPoint( 1.2, 0.0 ) );
+		final NearestNeighborSearchOnDynamicKDTree< String > nnCopy = nn.copy();
+		nn.search( new RealPoint( 2.9, 0.0 ) );
+		assertSame( "b", nnCopy.getSampler().get() );
+		assertEquals( 0.04, nnCopy.getSquareDistance(), 1e-10 );
+		assertSame( "c", nn.getSampler().get() );
+
+		final KNearestNeighborSearchOnDynamicKDTree< String > knn = new KNearestNeighborSearchOnDynamicKDTree<>( tree, 2 );
+		knn.search( new RealPoint( 1.2, 0.0 ) );
+		final KNearestNeighborSearchOnDynamicKDTree< String > knnCopy = knn.copy();
+		knn.search( new RealPoint( 2.9, 0.0 ) );
+		assertSame( "b", knnCopy.getSampler( 0 ).get() );
+		assertSame( "a", knnCopy.getSampler( 1 ).get() );
+		assertEquals( 1.44, knnCopy.getSquareDistance( 1 ), 1e-10 );
+	}
+
+	@Test
+	public void testIndex()
+	{
+		for ( int block = 0; block < 31; ++block )
+			for ( final int node : new int[] { 0, ( 1 << block ) / 2, ( 1 << block ) - 1 } )
+			{
+				final int index = DynamicKDTree.index( block, node );
+				assertEquals( block, DynamicKDTree.block( index ) );
+				assertEquals( node, DynamicKDTree.node( index ) );
+			}
+	}
+}
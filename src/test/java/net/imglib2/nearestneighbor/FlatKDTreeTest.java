@@ -0,0 +1,160 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.nearestneighbor;
+
+import static net.imglib2.test.PointTestHelper.randomGridPoints;
+import static net.imglib2.test.PointTestHelper.sortedSquDistances;
+import static net.imglib2.test.PointTestHelper.squDistance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import net.imglib2.FlatKDTree;
+import net.imglib2.RealPoint;
+import net.imglib2.neighborsearch.KNearestNeighborSearchOnKDTree;
+import net.imglib2.neighborsearch.NearestNeighborSearchOnKDTree;
+import net.imglib2.neighborsearch.RadiusNeighborSearchOnKDTree;
+
+import org.junit.Test;
+
+public class FlatKDTreeTest
+{
+	/**
+	 * All nodes in the left subtree are less or equal, all nodes in the right
+	 * subtree greater or equal to the split coordinate of a node.
+	 */
+	private static < T > void checkSubtree( final FlatKDTree< T > tree, final int node, final int d, final double split, final boolean left )
+	{
+		if ( node >= tree.size() )
+			return;
+		final double x = tree.getDoublePosition( node, d );
+		assertTrue( left ? x <= split : x >= split );
+		checkSubtree( tree, FlatKDTree.leftChild( node ), d, split, left );
+		checkSubtree( tree, FlatKDTree.rightChild( node ), d, split, left );
+	}
+
+	@Test
+	public void testStructure()
+	{
+		final Random rnd = new Random( 1 );
+		for ( final int size : new int[] { 1, 2, 3, 7, 8, 100, 1023 } )
+		{
+			final List< RealPoint > points = randomGridPoints( size, 3, rnd );
+			final FlatKDTree< RealPoint > tree = new FlatKDTree<>( points, points );
+			assertEquals( size, tree.size() );
+			final boolean[] seen = new boolean[ size ];
+			for ( int i = 0; i < size; ++i )
+			{
+				final int d = tree.splitDimension( i );
+				final double split = tree.getDoublePosition( i, d );
+				checkSubtree( tree, FlatKDTree.leftChild( i ), d, split, true );
+				checkSubtree( tree, FlatKDTree.rightChild( i ), d, split, false );
+
+				final RealPoint value = tree.getValue( i );
+				assertSame( points.get( tree.valueIndex( i ) ), value );
+				assertEquals( 0, squDistance( value, positionOf( tree, i ) ), 0 );
+				seen[ tree.valueIndex( i ) ] = true;
+			}
+			for ( final boolean s : seen )
+				assertTrue( s );
+		}
+	}
+
+	private static RealPoint positionOf( final FlatKDTree< ? > tree, final int node )
+	{
+		final RealPoint p = new RealPoint( tree.numDimensions() );
+		for ( int d = 0; d < tree.numDimensions(); ++d )
+			p.setPosition( tree.getDoublePosition( node, d ), d );
+		return p;
+	}
+
+	@Test
+	public void testSearches()
+	{
+		final Random rnd = new Random( 2 );
+		final List< RealPoint > points = randomGridPoints( 500, 3, rnd );
+		final FlatKDTree< RealPoint > tree = new FlatKDTree<>( points, points );
+		final NearestNeighborSearchOnKDTree< RealPoint > nn = new NearestNeighborSearchOnKDTree<>( tree );
+		final KNearestNeighborSearchOnKDTree< RealPoint > knn = new KNearestNeighborSearchOnKDTree<>( tree, 5 );
+		final RadiusNeighborSearchOnKDTree< RealPoint > radius = new RadiusNeighborSearchOnKDTree<>( tree );
+
+		for ( final RealPoint q : randomGridPoints( 100, 3, rnd ) )
+		{
+			final double[] expected = sortedSquDistances( points, q );
+
+			nn.search( q );
+			assertEquals( expected[ 0 ], nn.getSquareDistance(), 0 );
+			assertEquals( expected[ 0 ], squDistance( nn.getSampler().get(), q ), 0 );
+			assertEquals( expected[ 0 ], squDistance( new RealPoint( nn.getPosition() ), q ), 0 );
+
+			knn.search( q );
+			for ( int i = 0; i < 5; ++i )
+			{
+				assertEquals( expected[ i ], knn.getSquareDistance( i ), 0 );
+				assertEquals( expected[ i ], squDistance( knn.getSampler( i ).get(), q ), 0 );
+			}
+
+			radius.search( q, 2.5, true );
+			int count = 0;
+			while ( count < expected.length && expected[ count ] <= 2.5 * 2.5 )
+				++count;
+			assertEquals( count, radius.numNeighbors() );
+			for ( int i = 0; i < count; ++i )
+			{
+				assertEquals( expected[ i ], radius.getSquareDistance( i ), 0 );
+				assertEquals( expected[ i ], squDistance( radius.getSampler( i ).get(), q ), 0 );
+			}
+		}
+	}
+
+	@Test
+	public void testArrayConstructor()
+	{
+		final double[][] coordinates = { { 3, 1, 2 }, { 0, 5, 4 } };
+		final FlatKDTree< String > tree = new FlatKDTree<>( Arrays.asList( "a", "b", "c" ), coordinates );
+		final NearestNeighborSearchOnKDTree< String > nn = new NearestNeighborSearchOnKDTree<>( tree );
+		nn.search( RealPoint.wrap( new double[] { 1.2, 4.9 } ) );
+		assertEquals( "b", nn.getSampler().get() );
+		final NearestNeighborSearchOnKDTree< String > copy = nn.copy();
+		assertEquals( "b", copy.getSampler().get() );
+		assertEquals( 1, tree.realMin( 0 ), 0 );
+		assertEquals( 5, tree.realMax( 1 ), 0 );
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.nearestneighbor;
+
+import static net.imglib2.test.PointTestHelper.randomPoints;
+import static net.imglib2.test.PointTestHelper.squDistance;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.imglib2.FlatKDTree;
+import net.imglib2.RealPoint;
+import net.imglib2.RealPointSampleList;
+import net.imglib2.neighborsearch.KNearestNeighborBatchSearch;
+import net.imglib2.neighborsearch.KNearestNeighborSearchOnKDTree;
+import net.imglib2.type.numeric.integer.IntType;
+
+import org.junit.Test;
+
+public class KNearestNeighborBatchSearchTest
+{
+	private static double[][] coordinates( final List< RealPoint > points )
+	{
+		final double[][] coordinates = new double[ 3 ][ points.size() ];
+		for ( int i = 0; i < points.size(); ++i )
+			for ( int d = 0; d < 3; ++d )
+				coordinates[ d ][ i ] = points.get( i ).getDoublePosition( d );
+		return coordinates;
+	}
+
+	private static void check( final List< RealPoint > points, final FlatKDTree< RealPoint > tree, final List< RealPoint > queries, final int k, final KNearestNeighborBatchSearch.Result result )
+	{
+		final KNearestNeighborSearchOnKDTree< RealPoint > search = new KNearestNeighborSearchOnKDTree<>( tree, k );
+		assertEquals( queries.size(), result.numQueries() );
+		for ( int q = 0; q < queries.size(); ++q )
+		{
+			search.search( queries.get( q ) );
+			for ( int i = 0; i < k; ++i )
+			{
+				assertEquals( search.getSquareDistance( i ), result.getSquareDistance( q, i ), 0 );
+				if ( i < tree.size() )
+				{
+					final RealPoint neighbor = points.get( result.getIndex( q, i ) );
+					assertEquals( result.getSquareDistance( q, i ), squDistance( neighbor, queries.get( q ) ), 0 );
+				}
+				else
+					assertEquals( -1, result.getIndex( q, i ) );
+			}
+		}
+	}
+
+	@Test
+	public void testBatch()
+	{
+		final Random rnd = new Random( 4 );
+		final List< RealPoint > points = randomPoints( 2000, 3, 10, rnd );
+		final List< RealPoint > queries = randomPoints( 2 * KNearestNeighborBatchSearch.CHUNK_SIZE + 5, 3, 10, rnd );
+		final FlatKDTree< RealPoint > tree = new FlatKDTree<>( points, points );
+		final KNearestNeighborBatchSearch batch = new KNearestNeighborBatchSearch( tree, 4 );
+
+		check( points, tree, queries, 4, batch.search( coordinates( queries ), null ) );
+
+		final ExecutorService service = Executors.newFixedThreadPool( 3 );
+		try
+		{
+			check( points, tree, queries, 4, batch.search( coordinates( queries ), service ) );
+
+			final RealPointSampleList< IntType > sampleList = new RealPointSampleList<>( 3 );
+			for ( final RealPoint q : queries )
+				sampleList.add( q, new IntType() );
+			check( points, tree, queries, 4, batch.search( sampleList, service ) );
+		}
+		finally
+		{
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void testFewerPointsThanK()
+	{
+		final Random rnd = new Random( 5 );
+		final List< RealPoint > points = randomPoints( 3, 3, 10, rnd );
+		final List< RealPoint > queries = randomPoints( 10, 3, 10, rnd );
+		final FlatKDTree< RealPoint > tree = new FlatKDTree<>( points, points );
+		check( points, tree, queries, 5, new KNearestNeighborBatchSearch( tree, 5 ).search( coordinates( queries ), null ) );
+	}
+}
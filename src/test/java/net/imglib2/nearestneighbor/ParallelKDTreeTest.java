@@ -0,0 +1,155 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.nearestneighbor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import net.imglib2.FlatKDTree;
+import net.imglib2.KDTree;
+import net.imglib2.KDTreeNode;
+import net.imglib2.RealPoint;
+import net.imglib2.RealPointSampleList;
+import net.imglib2.type.numeric.integer.IntType;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelKDTreeTest
+{
+	private static final int numPoints = 3 * KDTree.PARALLEL_THRESHOLD + 17;
+
+	private static ForkJoinPool pool;
+
+	private static List< RealPoint > points;
+
+	private static List< Integer > values;
+
+	@BeforeClass
+	public static void setUp()
+	{
+		pool = new ForkJoinPool( 4 );
+		final Random rnd = new Random( 3 );
+		points = new ArrayList<>();
+		values = new ArrayList<>();
+		for ( int i = 0; i < numPoints; ++i )
+		{
+			points.add( new RealPoint( rnd.nextDouble(), rnd.nextDouble(), rnd.nextDouble() ) );
+			values.add( i );
+		}
+	}
+
+	@AfterClass
+	public static void tearDown()
+	{
+		pool.shutdown();
+	}
+
+	private static < T > void assertSameTree( final KDTreeNode< T > expected, final KDTreeNode< T > actual )
+	{
+		if ( expected == null )
+		{
+			assertNull( actual );
+			return;
+		}
+		assertEquals( expected.getSplitDimension(), actual.getSplitDimension() );
+		for ( int d = 0; d < expected.numDimensions(); ++d )
+			assertEquals( expected.getDoublePosition( d ), actual.getDoublePosition( d ), 0 );
+		assertSame( expected.get(), actual.get() );
+		assertSameTree( expected.left, actual.left );
+		assertSameTree( expected.right, actual.right );
+	}
+
+	private static < T > void assertSameBounds( final KDTree< T > expected, final KDTree< T > actual )
+	{
+		for ( int d = 0; d < expected.numDimensions(); ++d )
+		{
+			assertEquals( expected.realMin( d ), actual.realMin( d ), 0 );
+			assertEquals( expected.realMax( d ), actual.realMax( d ), 0 );
+		}
+	}
+
+	@Test
+	public void testKDTree()
+	{
+		final KDTree< Integer > expected = new KDTree<>( values, new ArrayList<>( points ) );
+		final KDTree< Integer > actual = new KDTree<>( values, new ArrayList<>( points ), pool );
+		assertSameBounds( expected, actual );
+		assertSameTree( expected.getRoot(), actual.getRoot() );
+
+		final List< RealPoint > copy1 = new ArrayList<>( points );
+		final List< RealPoint > copy2 = new ArrayList<>( points );
+		final KDTree< RealPoint > expectedSelf = new KDTree<>( copy1, copy1 );
+		final KDTree< RealPoint > actualSelf = new KDTree<>( copy2, copy2, pool );
+		assertSameBounds( expectedSelf, actualSelf );
+		assertSameTree( expectedSelf.getRoot(), actualSelf.getRoot() );
+	}
+
+	@Test
+	public void testKDTreeFromInterval()
+	{
+		final RealPointSampleList< IntType > samples = new RealPointSampleList<>( 3 );
+		for ( int i = 0; i < numPoints; ++i )
+			samples.add( points.get( i ), new IntType( i ) );
+		final KDTree< IntType > expected = new KDTree<>( samples );
+		final KDTree< IntType > actual = new KDTree<>( samples, pool );
+		assertSameBounds( expected, actual );
+		assertSameTree( expected.getRoot(), actual.getRoot() );
+	}
+
+	@Test
+	public void testFlatKDTree()
+	{
+		final FlatKDTree< Integer > expected = new FlatKDTree<>( values, points );
+		final FlatKDTree< Integer > actual = new FlatKDTree<>( values, points, pool );
+		assertArrayEquals( expected.getPositions(), actual.getPositions(), 0 );
+		for ( int i = 0; i < numPoints; ++i )
+			assertEquals( expected.valueIndex( i ), actual.valueIndex( i ) );
+		for ( int d = 0; d < 3; ++d )
+		{
+			assertEquals( expected.realMin( d ), actual.realMin( d ), 0 );
+			assertEquals( expected.realMax( d ), actual.realMax( d ), 0 );
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.nearestneighbor;
+
+import static net.imglib2.test.PointTestHelper.randomPoints;
+import static net.imglib2.test.PointTestHelper.squDistance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import net.imglib2.FlatKDTree;
+import net.imglib2.KDTree;
+import net.imglib2.RealPoint;
+import net.imglib2.neighborsearch.RadiusNeighborSearchOnKDTree;
+
+import org.junit.Test;
+
+public class RadiusNeighborSearchTest
+{
+	private static double[] bruteForceSquDistances( final List< RealPoint > points, final RealPoint query, final double radius )
+	{
+		final double[] tmp = new double[ points.size() ];
+		int num = 0;
+		for ( final RealPoint p : points )
+		{
+			final double sum = squDistance( p, query );
+			if ( sum <= radius * radius )
+				tmp[ num++ ] = sum;
+		}
+		final double[] result = Arrays.copyOf( tmp, num );
+		Arrays.sort( result );
+		return result;
+	}
+
+	private static void check( final RadiusNeighborSearchOnKDTree< RealPoint > search, final List< RealPoint > points, final Random rnd )
+	{
+		for ( int q = 0; q < 50; ++q )
+		{
+			final RealPoint query = randomPoints( 1, 3, 10, rnd ).get( 0 );
+			final double radius = rnd.nextDouble() * 4;
+			final double[] expected = bruteForceSquDistances( points, query, radius );
+
+			search.search( query, radius, true );
+			assertEquals( expected.length, search.numNeighbors() );
+			for ( int i = 0; i < expected.length; ++i )
+			{
+				assertEquals( expected[ i ], search.getSquareDistance( i ), 1e-10 );
+				final RealPoint p = search.getSampler( i ).get();
+				for ( int d = 0; d < 3; ++d )
+					assertEquals( p.getDoublePosition( d ), search.getPosition( i ).getDoublePosition( d ), 0 );
+				if ( i > 0 )
+					assertTrue( search.getSquareDistance( i - 1 ) <= search.getSquareDistance( i ) );
+			}
+
+			// counting must not disturb the previous results
+			final double countRadius = rnd.nextDouble() * 4;
+			assertEquals( bruteForceSquDistances( points, query, countRadius ).length, search.count( query, countRadius ) );
+			assertEquals( expected.length, search.numNeighbors() );
+		}
+	}
+
+	@Test
+	public void testKDTree()
+	{
+		final Random rnd = new Random( 4235 );
+		final List< RealPoint > points = randomPoints( 2000, 3, 10, rnd );
+		check( new RadiusNeighborSearchOnKDTree<>( new KDTree<>( points, points ) ), points, rnd );
+	}
+
+	@Test
+	public void testFlatKDTree()
+	{
+		final Random rnd = new Random( 4236 );
+		final List< RealPoint > points = randomPoints( 2000, 3, 10, rnd );
+		check( new RadiusNeighborSearchOnKDTree<>( new FlatKDTree<>( points, points ) ), points, rnd );
+	}
+
+	@Test
+	public void testFlatKDTreeTiesByNode()
+	{
+		// integer grid points have many neighbors at equal distance
+		final List< RealPoint > points = new ArrayList<>();
+		for ( int x = 0; x < 9; ++x )
+			for ( int y = 0; y < 9; ++y )
+				points.add( new RealPoint( x, y ) );
+		final FlatKDTree< RealPoint > tree = new FlatKDTree<>( points, points );
+		final RadiusNeighborSearchOnKDTree< RealPoint > search = new RadiusNeighborSearchOnKDTree<>( tree );
+		search.search( new RealPoint( 4, 4 ), 3, true );
+		assertEquals( 29, search.numNeighbors() );
+		for ( int i = 1; i < search.numNeighbors(); ++i )
+		{
+			final double previous = search.getSquareDistance( i - 1 );
+			assertTrue( previous <= search.getSquareDistance( i ) );
+			if ( previous == search.getSquareDistance( i ) )
+				assertTrue( ( ( FlatKDTree< RealPoint >.NodeRef ) search.getSampler( i - 1 ) ).getNode() < ( ( FlatKDTree< RealPoint >.NodeRef ) search.getSampler( i ) ).getNode() );
+		}
+	}
+}
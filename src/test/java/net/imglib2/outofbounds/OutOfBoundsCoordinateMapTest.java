@@ -0,0 +1,177 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.outofbounds;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory.Boundary;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.view.Views;
+
+/**
+ * Checks that out-of-bounds strategies with precomputed coordinate maps
+ * behave exactly like their arithmetic counterparts, inside and outside of
+ * the precomputed border.
+ */
+public class OutOfBoundsCoordinateMapTest
+{
+	private final long[] dim = { 5, 2, 3 };
+
+	private final long[] min = { -2, 4, 0 };
+
+	private final long[] border = { 3, 2, 7 };
+
+	private Img< IntType > createImg()
+	{
+		final Img< IntType > img = ArrayImgs.ints( dim );
+		int i = 0;
+		for ( final IntType t : img )
+			t.set( i++ );
+		return img;
+	}
+
+	private void compare( final OutOfBounds< IntType > expected, final OutOfBounds< IntType > actual )
+	{
+		final Random rnd = new Random( 42 );
+		final int n = expected.numDimensions();
+		for ( int i = 0; i < 10000; ++i )
+		{
+			final int d = rnd.nextInt( n );
+			switch ( rnd.nextInt( 4 ) )
+			{
+			case 0:
+				expected.fwd( d );
+				actual.fwd( d );
+				break;
+			case 1:
+				expected.bck( d );
+				actual.bck( d );
+				break;
+			case 2:
+				final long distance = rnd.nextInt( 9 ) - 4;
+				expected.move( distance, d );
+				actual.move( distance, d );
+				break;
+			default:
+				final long position = min[ d ] + rnd.nextInt( ( int ) ( dim[ d ] + 4 * border[ d ] ) ) - 2 * border[ d ];
+				expected.setPosition( position, d );
+				actual.setPosition( position, d );
+			}
+			for ( int k = 0; k < n; ++k )
+				assertEquals( expected.getLongPosition( k ), actual.getLongPosition( k ) );
+			assertEquals( expected.isOutOfBounds(), actual.isOutOfBounds() );
+			assertEquals( expected.get().get(), actual.get().get() );
+		}
+	}
+
+	@Test
+	public void testPeriodic()
+	{
+		final Img< IntType > img = createImg();
+		compare(
+				new OutOfBoundsPeriodic<>( Views.translate( img, min ) ),
+				new OutOfBoundsPeriodic<>( Views.translate( img, min ), border ) );
+	}
+
+	@Test
+	public void testMirrorSingle()
+	{
+		final Img< IntType > img = createImg();
+		compare(
+				new OutOfBoundsMirrorSingleBoundary<>( Views.translate( img, min ) ),
+				new OutOfBoundsMirrorSingleBoundary<>( Views.translate( img, min ), border ) );
+	}
+
+	@Test
+	public void testMirrorDouble()
+	{
+		final Img< IntType > img = createImg();
+		compare(
+				new OutOfBoundsMirrorDoubleBoundary<>( Views.translate( img, min ) ),
+				new OutOfBoundsMirrorDoubleBoundary<>( Views.translate( img, min ), border ) );
+	}
+
+	@Test
+	public void testCopy()
+	{
+		final Img< IntType > img = createImg();
+		final long[] position = { -4, 5, 9 };
+		final OutOfBoundsPeriodic< IntType > expected = new OutOfBoundsPeriodic<>( Views.translate( img, min ) );
+		expected.setPosition( position );
+		final OutOfBoundsPeriodic< IntType > actual = new OutOfBoundsPeriodic<>( Views.translate( img, min ), border );
+		actual.setPosition( position );
+		compare( expected, actual.copy() );
+	}
+
+	@Test
+	public void testExpandViews()
+	{
+		final Img< IntType > img = createImg();
+		assertArrayEquals( border, ( ( OutOfBoundsPeriodicFactory< ?, ? > ) Views.extend( img, new OutOfBoundsPeriodicFactory<>( border ) ).getOutOfBoundsFactory() ).getBorder() );
+		final OutOfBoundsMirrorFactory< IntType, Img< IntType > > factory = new OutOfBoundsMirrorFactory<>( Boundary.DOUBLE, border );
+		compare( new OutOfBoundsMirrorDoubleBoundary<>( img ), factory.create( img ) );
+	}
+
+	@Test
+	public void testFactorySharesMaps()
+	{
+		final Img< IntType > img = createImg();
+		final long[] b = border.clone();
+		final OutOfBoundsPeriodicFactory< IntType, Img< IntType > > periodic = new OutOfBoundsPeriodicFactory<>( b );
+		b[ 0 ] = 100;
+		assertArrayEquals( border, periodic.getBorder() );
+		assertSame( periodic.create( img ).map, periodic.create( img ).map );
+		compare( new OutOfBoundsPeriodic<>( img ), periodic.create( img ) );
+
+		final OutOfBoundsMirrorFactory< IntType, Img< IntType > > mirror = new OutOfBoundsMirrorFactory<>( Boundary.SINGLE, border );
+		assertSame( mirror.create( img ).map, mirror.create( img ).map );
+
+		// a source with different geometry gets its own maps
+		final Img< IntType > other = ArrayImgs.ints( 4, 4, 4 );
+		final AbstractOutOfBoundsMirror< IntType > a = mirror.create( img );
+		final AbstractOutOfBoundsMirror< IntType > c = mirror.create( other );
+		assertNotSame( a.map, c.map );
+		compare( new OutOfBoundsMirrorSingleBoundary<>( other ), c );
+	}
+}
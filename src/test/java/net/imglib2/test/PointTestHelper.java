@@ -0,0 +1,116 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import net.imglib2.RealLocalizable;
+import net.imglib2.RealPoint;
+
+/**
+ * Helper class for nearest-neighbor search unit tests: random point sets and
+ * brute-force distances.
+ */
+public class PointTestHelper
+{
+	/**
+	 * @return {@code numPoints} points with coordinates uniformly distributed
+	 *         in [0, {@code max}).
+	 */
+	public static List< RealPoint > randomPoints( final int numPoints, final int n, final double max, final Random rnd )
+	{
+		final List< RealPoint > points = new ArrayList<>();
+		for ( int i = 0; i < numPoints; ++i )
+		{
+			final RealPoint p = new RealPoint( n );
+			for ( int d = 0; d < n; ++d )
+				p.setPosition( rnd.nextDouble() * max, d );
+			points.add( p );
+		}
+		return points;
+	}
+
+	/**
+	 * @return a point with coordinates on a grid of spacing 0.5 in [0, 10),
+	 *         such that points and distances are often equal.
+	 */
+	public static RealPoint randomGridPoint( final int n, final Random rnd )
+	{
+		final RealPoint p = new RealPoint( n );
+		for ( int d = 0; d < n; ++d )
+			p.setPosition( rnd.nextInt( 20 ) * 0.5, d );
+		return p;
+	}
+
+	/**
+	 * @return {@code numPoints} {@link #randomGridPoint(int, Random) grid
+	 *         points}.
+	 */
+	public static List< RealPoint > randomGridPoints( final int numPoints, final int n, final Random rnd )
+	{
+		final List< RealPoint > points = new ArrayList<>();
+		for ( int i = 0; i < numPoints; ++i )
+			points.add( randomGridPoint( n, rnd ) );
+		return points;
+	}
+
+	public static double squDistance( final RealLocalizable a, final RealLocalizable b )
+	{
+		double sum = 0;
+		for ( int d = 0; d < a.numDimensions(); ++d )
+		{
+			final double diff = a.getDoublePosition( d ) - b.getDoublePosition( d );
+			sum += diff * diff;
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the squared distances of all {@code points} to {@code q} in
+	 *         ascending order.
+	 */
+	public static double[] sortedSquDistances( final List< ? extends RealLocalizable > points, final RealLocalizable q )
+	{
+		final double[] distances = new double[ points.size() ];
+		for ( int i = 0; i < distances.length; ++i )
+			distances[ i ] = squDistance( points.get( i ), q );
+		Arrays.sort( distances );
+		return distances;
+	}
+}
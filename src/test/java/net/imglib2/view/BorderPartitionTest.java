@@ -0,0 +1,140 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.imglib2.Cursor;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.iterator.IntervalIterator;
+import net.imglib2.outofbounds.OutOfBounds;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.util.Intervals;
+
+public class BorderPartitionTest
+{
+	private static ArrayImg< IntType, IntArray > createImg()
+	{
+		final ArrayImg< IntType, IntArray > img = ArrayImgs.ints( 20, 15, 6 );
+		int i = 0;
+		for ( final IntType t : img )
+			t.set( i++ );
+		return img;
+	}
+
+	@Test
+	public void testPartitionCoversTarget()
+	{
+		final ArrayImg< IntType, IntArray > img = createImg();
+		final ExtendedRandomAccessibleInterval< IntType, ? > extended = Views.extendMirrorSingle( img );
+		final Interval target = Intervals.createMinMax( -3, -2, -1, 22, 16, 6 );
+		final Interval kernel = Intervals.createMinMax( -1, -1, -1, 1, 1, 1 );
+		final BorderPartition< IntType > partition = new BorderPartition<>( extended, target, kernel );
+
+		assertTrue( Intervals.equals( Intervals.createMinMax( 1, 1, 1, 18, 13, 4 ), partition.getInteriorInterval() ) );
+
+		final List< Interval > parts = new ArrayList<>( partition.getBorderIntervals() );
+		parts.add( partition.getInteriorInterval() );
+		final ArrayImg< IntType, IntArray > counts = ArrayImgs.ints( Intervals.dimensionsAsLongArray( target ) );
+		final RandomAccess< IntType > c = Views.translate( counts, Intervals.minAsLongArray( target ) ).randomAccess();
+		for ( final Interval part : parts )
+		{
+			assertTrue( Intervals.contains( target, part ) );
+			final IntervalIterator it = new IntervalIterator( part );
+			while ( it.hasNext() )
+			{
+				it.fwd();
+				c.setPosition( it );
+				c.get().inc();
+			}
+		}
+		for ( final IntType t : counts )
+			assertEquals( 1, t.get() );
+	}
+
+	@Test
+	public void testViews()
+	{
+		final ArrayImg< IntType, IntArray > img = createImg();
+		final ExtendedRandomAccessibleInterval< IntType, ? > extended = Views.extendBorder( img );
+		final Interval target = Intervals.createMinMax( -3, 2, 0, 12, 20, 5 );
+		final BorderPartition< IntType > partition = new BorderPartition<>( extended, target );
+
+		final RandomAccessibleInterval< IntType > interior = partition.interior();
+		assertTrue( Intervals.equals( interior, Intervals.createMinMax( 0, 2, 0, 12, 14, 5 ) ) );
+		assertFalse( interior.randomAccess() instanceof OutOfBounds );
+
+		final RandomAccess< IntType > reference = extended.randomAccess();
+		final List< RandomAccessibleInterval< IntType > > views = partition.borders();
+		views.add( interior );
+		for ( final RandomAccessibleInterval< IntType > view : views )
+		{
+			final Cursor< IntType > cursor = Views.iterable( view ).localizingCursor();
+			while ( cursor.hasNext() )
+			{
+				cursor.fwd();
+				reference.setPosition( cursor );
+				assertEquals( reference.get().get(), cursor.get().get() );
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyInterior()
+	{
+		final ArrayImg< IntType, IntArray > img = ArrayImgs.ints( 2, 2 );
+		final BorderPartition< IntType > partition = new BorderPartition<>(
+				Views.extendZero( img ),
+				Intervals.createMinMax( 0, 0, 1, 1 ),
+				Intervals.createMinMax( -2, -2, 2, 2 ) );
+		assertNull( partition.getInteriorInterval() );
+		assertNull( partition.interior() );
+		assertEquals( 1, partition.getBorderIntervals().size() );
+	}
+}
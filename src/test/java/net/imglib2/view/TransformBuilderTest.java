@@ -0,0 +1,168 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2018 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imglib2.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converters;
+import net.imglib2.converter.read.ConvertedRandomAccessible;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.iterator.IntervalIterator;
+import net.imglib2.transform.integer.SubsampleTransform;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.util.Intervals;
+
+public class TransformBuilderTest
+{
+	private static ArrayImg< IntType, IntArray > createImg( final long... dimensions )
+	{
+		final ArrayImg< IntType, IntArray > img = ArrayImgs.ints( dimensions );
+		final Random random = new Random( 1 );
+		img.forEach( t -> t.set( random.nextInt() ) );
+		return img;
+	}
+
+	private static < T > void assertSameValues( final Interval interval, final RandomAccessible< T > expected, final RandomAccessible< T > actual )
+	{
+		final RandomAccess< T > a = expected.randomAccess();
+		final RandomAccess< T > b = actual.randomAccess();
+		final IntervalIterator i = new IntervalIterator( interval );
+		while ( i.hasNext() )
+		{
+			i.fwd();
+			a.setPosition( i );
+			b.setPosition( i );
+			assertEquals( a.get(), b.get() );
+		}
+	}
+
+	@Test
+	public void testSubsamplePyramid()
+	{
+		final ArrayImg< IntType, IntArray > img = createImg( 64, 48 );
+		final RandomAccessibleInterval< IntType > level1 = Views.subsample( Views.translate( img, 3, -5 ), 2 );
+		final RandomAccessibleInterval< IntType > level2 = Views.subsample( Views.zeroMin( level1 ), 2, 3 );
+		final RandomAccessibleInterval< IntType > level3 = Views.subsample( Views.permute( level2, 0, 1 ), 2 );
+		final Interval interval = Intervals.createMinMax( 0, 0, 2, 3 );
+
+		final TransformBuilder< IntType > builder = new TransformBuilder<>( interval, level3 );
+		assertTrue( builder.source == img );
+		assertEquals( 2, builder.transforms.size() );
+		assertTrue( builder.transforms.getLast() instanceof SubsampleTransform );
+
+		assertSameValues( interval, level3, builder.build() );
+	}
+
+	@Test
+	public void testStackSlice()
+	{
+		final List< RandomAccessibleInterval< IntType > > slices = new ArrayList<>();
+		for ( int i = 0; i < 3; ++i )
+			slices.add( createImg( 10, 12 ) );
+		final RandomAccessibleInterval< IntType > stack = Views.stack( slices );
+		final RandomAccessibleInterval< IntType > view = Views.translate( stack, 1, 2, 0 );
+
+		final Interval single = Intervals.createMinMax( 1, 2, 1, 6, 9, 1 );
+		final TransformBuilder< IntType > builder = new TransformBuilder<>( single, view );
+		assertTrue( builder.source == slices.get( 1 ) );
+		assertSameValues( single, view, builder.build() );
+
+		final Interval multiple = new FinalInterval( new long[] { 1, 2, 0 }, new long[] { 6, 9, 2 } );
+		assertTrue( new TransformBuilder<>( multiple, view ).source == stack );
+		assertSameValues( multiple, view, TransformBuilder.getEfficientRandomAccessible( multiple, view ) );
+
+		// builds spanning several slices are shared by the cache
+		final TransformBuilderCache< IntType > cache = ( ( IntervalView< IntType > ) view ).transformBuilderCache;
+		final Interval multiple2 = new FinalInterval( new long[] { 3, 4, 1 }, new long[] { 5, 5, 2 } );
+		assertTrue( cache.getEfficientRandomAccessible( multiple ) == cache.getEfficientRandomAccessible( multiple2 ) );
+	}
+
+	@Test
+	public void testConverted()
+	{
+		final ArrayImg< IntType, IntArray > img = createImg( 20, 30 );
+		final RandomAccessibleInterval< DoubleType > converted = Converters.convert(
+				( RandomAccessibleInterval< IntType > ) Views.translate( img, 4, 5 ),
+				( a, b ) -> b.set( a.get() * 0.5 ),
+				new DoubleType() );
+		final RandomAccessibleInterval< DoubleType > view = Views.subsample( Views.translate( converted, -2, -3 ), 2 );
+		final Interval interval = Intervals.createMinMax( 1, 1, 5, 8 );
+
+		final RandomAccessible< DoubleType > efficient = TransformBuilder.getEfficientRandomAccessible( interval, view );
+		assertTrue( efficient instanceof ConvertedRandomAccessible );
+		assertTrue( ( ( ConvertedRandomAccessible< ?, ? > ) efficient ).getSource() != converted );
+		assertSameValues( interval, view, efficient );
+	}
+
+	@Test
+	public void testCache()
+	{
+		final ArrayImg< IntType, IntArray > img = createImg( 20, 30 );
+		final IntervalView< IntType > view = Views.interval( Views.translate( Views.extendBorder( img ), 5, 5 ), Intervals.createMinMax( 0, 0, 29, 39 ) );
+		final TransformBuilderCache< IntType > cache = view.transformBuilderCache;
+
+		final Interval inside1 = Intervals.createMinMax( 5, 5, 10, 10 );
+		final Interval inside2 = Intervals.createMinMax( 12, 20, 24, 34 );
+		final Interval outside1 = Intervals.createMinMax( 0, 0, 10, 10 );
+		final Interval outside2 = Intervals.createMinMax( 20, 20, 29, 39 );
+
+		final RandomAccessible< IntType > a = cache.getEfficientRandomAccessible( inside1 );
+		assertTrue( a == cache.getEfficientRandomAccessible( inside2 ) );
+		final RandomAccessible< IntType > b = cache.getEfficientRandomAccessible( outside1 );
+		assertTrue( a != b );
+		assertTrue( b == cache.getEfficientRandomAccessible( outside2 ) );
+
+		final RandomAccessible< IntType > reference = Views.translate( Views.extendBorder( img ), 5, 5 );
+		assertSameValues( inside2, reference, a );
+		assertSameValues( outside2, reference, b );
+		assertSameValues( outside2, reference, view );
+	}
+}